@@ -0,0 +1,143 @@
+package com.concerto.omnichannel.benchmark;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JDBC {@link DataSource} without a database behind it, for benchmarks that are about round trips.
+ * <p>
+ * Every statement execution (query, update or batch) counts as one round trip and waits for the
+ * configured network latency. Updates report one row per statement; queries return as many rows as
+ * the first integer parameter asks for, each holding the next value of a counter, which is enough
+ * for sequence reads such as {@code SELECT nextval(...) FROM generate_series(1, ?)}.
+ */
+public final class SimulatedDatabase {
+
+    private final long roundTripNanos;
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SimulatedDatabase(long roundTripMicros) {
+        this.roundTripNanos = roundTripMicros * 1000;
+    }
+
+    public DataSource dataSource() {
+        return proxy(DataSource.class, (method, args) ->
+                "getConnection".equals(method) ? connection() : null);
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    /**
+     * Implementation of an interface that does nothing, e.g. an EntityManager with nothing to flush
+     */
+    public static <T> T noOp(Class<T> type) {
+        return proxy(type, (method, args) -> null);
+    }
+
+    private Object connection() {
+        return proxy(Connection.class, (method, args) -> switch (method) {
+            case "prepareStatement", "createStatement" -> statement();
+            case "getMetaData" -> proxy(DatabaseMetaData.class,
+                    (metaMethod, metaArgs) -> "supportsBatchUpdates".equals(metaMethod) ? Boolean.TRUE : null);
+            case "getAutoCommit" -> Boolean.TRUE;
+            default -> null;
+        });
+    }
+
+    private Object statement() {
+        int[] batched = new int[1];
+        long[] firstParameter = new long[1];
+        return proxy(PreparedStatement.class, (method, args) -> switch (method) {
+            case "setInt", "setLong", "setObject" -> {
+                if ((Integer) args[0] == 1 && args[1] instanceof Number number) {
+                    firstParameter[0] = number.longValue();
+                }
+                yield null;
+            }
+            case "addBatch" -> {
+                batched[0]++;
+                yield null;
+            }
+            case "executeBatch" -> {
+                roundTrip();
+                int[] counts = new int[batched[0]];
+                Arrays.fill(counts, 1);
+                batched[0] = 0;
+                yield counts;
+            }
+            case "executeUpdate" -> {
+                roundTrip();
+                yield 1;
+            }
+            case "executeQuery" -> {
+                roundTrip();
+                yield resultSet(firstParameter[0]);
+            }
+            default -> null;
+        });
+    }
+
+    private Object resultSet(long rows) {
+        long[] remaining = {rows};
+        long[] current = new long[1];
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> {
+                if (remaining[0]-- <= 0) {
+                    yield Boolean.FALSE;
+                }
+                current[0] = sequence.incrementAndGet();
+                yield Boolean.TRUE;
+            }
+            case "getLong" -> current[0];
+            case "getObject" -> current[0];
+            case "getMetaData" -> proxy(ResultSetMetaData.class,
+                    (metaMethod, metaArgs) -> "getColumnCount".equals(metaMethod) ? 1 : null);
+            default -> null;
+        });
+    }
+
+    private void roundTrip() {
+        roundTrips.incrementAndGet();
+        long until = System.nanoTime() + roundTripNanos;
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(SimulatedDatabase.class.getClassLoader(), new Class<?>[]{type},
+                (instance, method, args) -> {
+                    Object result = handler.handle(method.getName(), args);
+                    return result != null ? result : defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.concerto.omnichannel.cache;
+
+import com.concerto.omnichannel.configManager.RedisConfig;
+import com.concerto.omnichannel.dto.TransactionResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache value serialization with the JSON codec against the compact binary codec, for a
+ * {@link TransactionResponse} and for a channel configuration map.
+ * <p>
+ * The score is the time per call; the {@code payloadBytes} counter is the size of the stored
+ * value, so the average per operation is the entry size in Redis.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheCodecBenchmark {
+
+    @Param({"json", "binary"})
+    public String codec;
+
+    @Param({"transactionResponse", "configMap"})
+    public String value;
+
+    @Param({"1024"})
+    public int compressionThreshold;
+
+    private RedisSerializer<Object> serializer;
+    private Object cached;
+    private byte[] stored;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long payloadBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = RedisConfig.cacheValueSerializer(codec, compressionThreshold);
+        cached = "configMap".equals(value) ? configMap() : transactionResponse();
+        stored = serializer.serialize(cached);
+    }
+
+    @Benchmark
+    public byte[] serialize(Payload payload) {
+        byte[] bytes = serializer.serialize(cached);
+        payload.payloadBytes += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(stored);
+    }
+
+    private static TransactionResponse transactionResponse() {
+        TransactionResponse response = new TransactionResponse(1234567L, "9f1c2d3e-4b5a-6789-abcd-ef0123456789", true);
+        response.setChannel("POS");
+        response.setOperation("purchase");
+        response.setPayload("{\"responseCode\":\"00\",\"approvalCode\":\"A1B2C3\",\"rrn\":\"000000654321\"}");
+        response.setExternalReference("000000654321");
+        response.setProcessingTimeMs(87L);
+        Map<String, Object> additional = new HashMap<>();
+        additional.put("stan", "123456");
+        additional.put("terminalId", "T0001234");
+        response.setAdditionalData(additional);
+        return response;
+    }
+
+    private static Map<String, Object> configMap() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        for (int i = 0; i < 40; i++) {
+            config.put("connector.timeout.ms." + i, 3000 + i);
+            config.put("endpoint." + i, "https://switch-" + i + ".example/iso8583");
+            config.put("limit." + i, new BigDecimal("100000.00"));
+            config.put("enabled." + i, i % 2 == 0);
+        }
+        config.put("operations", List.of("purchase", "refund", "balanceInquiry", "reversal"));
+        return config;
+    }
+}
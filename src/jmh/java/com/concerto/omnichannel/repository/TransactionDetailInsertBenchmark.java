@@ -0,0 +1,112 @@
+package com.concerto.omnichannel.repository;
+
+import com.concerto.omnichannel.benchmark.SimulatedDatabase;
+import com.concerto.omnichannel.entity.TransactionDetail;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the additional fields of one transaction: one INSERT per field, as IDENTITY ids forced
+ * Hibernate to do, against {@link TransactionDetailRepositoryImpl#insertAllBatched}.
+ * <p>
+ * The database is simulated with a fixed round-trip latency, so the score shows what the saved
+ * round trips are worth and the {@code roundTrips} counter shows how many statements were sent.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionDetailInsertBenchmark {
+
+    private static final String SINGLE_INSERT_SQL =
+            "INSERT INTO transaction_detail (transaction_header_id, field_name, field_value, field_type, " +
+            "is_sensitive, is_encrypted, created_timestamp, remarks) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"5", "20", "50"})
+    public int fields;
+
+    @Param({"200"})
+    public long roundTripMicros;
+
+    private SimulatedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionDetailRepositoryImpl batchedWriter;
+    private TransactionHeader header;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RoundTrips {
+        public long roundTrips;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new SimulatedDatabase(roundTripMicros);
+        jdbcTemplate = new JdbcTemplate(database.dataSource());
+
+        batchedWriter = new TransactionDetailRepositoryImpl();
+        ReflectionTestUtils.setField(batchedWriter, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(batchedWriter, "entityManager", SimulatedDatabase.noOp(EntityManager.class));
+        ReflectionTestUtils.setField(batchedWriter, "batchSize", 20);
+
+        header = new TransactionHeader("benchmark", "POS", "purchase");
+        header.setId(1L);
+    }
+
+    @Benchmark
+    public int insertPerRow(RoundTrips counter) {
+        long before = database.getRoundTrips();
+        int inserted = 0;
+        for (TransactionDetail detail : details()) {
+            inserted += jdbcTemplate.update(SINGLE_INSERT_SQL, ps -> {
+                ps.setLong(1, header.getId());
+                ps.setString(2, detail.getFieldName());
+                ps.setString(3, detail.getFieldValue());
+                ps.setString(4, detail.getFieldType());
+                ps.setBoolean(5, detail.isSensitive());
+                ps.setBoolean(6, detail.isEncrypted());
+                ps.setTimestamp(7, Timestamp.valueOf(detail.getCreatedTimestamp()));
+                ps.setNull(8, Types.VARCHAR);
+            });
+        }
+        counter.roundTrips += database.getRoundTrips() - before;
+        return inserted;
+    }
+
+    @Benchmark
+    public int insertBatched(RoundTrips counter) {
+        long before = database.getRoundTrips();
+        int batches = batchedWriter.insertAllBatched(details());
+        counter.roundTrips += database.getRoundTrips() - before;
+        return batches;
+    }
+
+    private List<TransactionDetail> details() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TransactionDetail> details = new ArrayList<>(fields);
+        for (int i = 0; i < fields; i++) {
+            TransactionDetail detail = new TransactionDetail(header, "field" + i, "value" + i, "String", false);
+            detail.setCreatedTimestamp(now);
+            details.add(detail);
+        }
+        return details;
+    }
+}
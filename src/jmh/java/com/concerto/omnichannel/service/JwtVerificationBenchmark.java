@@ -0,0 +1,77 @@
+package com.concerto.omnichannel.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifying a bearer token per request: with a parser built for every request, with one shared
+ * parser, and through {@link AuthenticationService}, which caches verified tokens until they expire.
+ * <p>
+ * Requests cycle through {@code tokens} distinct clients' tokens, so the cached case shows the
+ * cost of a cache hit once each token has been verified.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-jwt-secret-that-is-long-enough-for-hmac-sha-512-signatures";
+
+    @Param({"1", "1000"})
+    public int tokens;
+
+    private SecretKey key;
+    private JwtParser sharedParser;
+    private AuthenticationService authenticationService;
+    private String[] issued;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        sharedParser = Jwts.parserBuilder().setSigningKey(key).build();
+        authenticationService = new AuthenticationService(null, null, null, SECRET, 3_600_000L, 10_000);
+
+        issued = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            issued[i] = authenticationService.generateJwtToken("client-" + i, "POS");
+        }
+    }
+
+    @Benchmark
+    public Claims parserPerRequest() {
+        JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+        return parser.parseClaimsJws(nextToken()).getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return sharedParser.parseClaimsJws(nextToken()).getBody();
+    }
+
+    @Benchmark
+    public boolean cachedVerification() {
+        return authenticationService.authenticateWithJwt(nextToken(), "POS");
+    }
+
+    private String nextToken() {
+        String token = issued[next];
+        next = (next + 1) % issued.length;
+        return token;
+    }
+}
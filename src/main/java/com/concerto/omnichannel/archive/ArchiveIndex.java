@@ -0,0 +1,161 @@
+package com.concerto.omnichannel.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Sorted key to row position index stored next to an archive file.
+ * One sorted section per indexed column; lookups are a binary search.
+ */
+public final class ArchiveIndex {
+
+    private static final int MAGIC = 0x4F434958; // "OCIX"
+
+    private final Map<String, Section> sections;
+
+    private ArchiveIndex(Map<String, Section> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Positions of all rows whose column equals the key
+     */
+    public List<Position> lookup(String column, String key) {
+        Section section = sections.get(column);
+        if (section == null) {
+            return List.of();
+        }
+
+        int index = Arrays.binarySearch(section.keys, key);
+        if (index < 0) {
+            return List.of();
+        }
+        // Keys may repeat: walk back to the first match
+        while (index > 0 && section.keys[index - 1].equals(key)) {
+            index--;
+        }
+
+        List<Position> positions = new ArrayList<>();
+        for (int i = index; i < section.keys.length && section.keys[i].equals(key); i++) {
+            positions.add(new Position(section.rowGroups[i], section.rows[i]));
+        }
+        return positions;
+    }
+
+    public static ArchiveIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an archive index: " + file);
+            }
+
+            Map<String, Section> sections = new HashMap<>();
+            int sectionCount = in.readInt();
+            for (int s = 0; s < sectionCount; s++) {
+                String column = in.readUTF();
+                int size = in.readInt();
+                Section section = new Section(size);
+                for (int i = 0; i < size; i++) {
+                    section.keys[i] = in.readUTF();
+                    section.rowGroups[i] = in.readInt();
+                    section.rows[i] = in.readInt();
+                }
+                sections.put(column, section);
+            }
+            return new ArchiveIndex(sections);
+        }
+    }
+
+    static Builder builder(List<String> columns) {
+        return new Builder(columns);
+    }
+
+    public static final class Position {
+        private final int rowGroup;
+        private final int row;
+
+        Position(int rowGroup, int row) {
+            this.rowGroup = rowGroup;
+            this.row = row;
+        }
+
+        public int getRowGroup() { return rowGroup; }
+
+        public int getRow() { return row; }
+    }
+
+    private static final class Section {
+        private final String[] keys;
+        private final int[] rowGroups;
+        private final int[] rows;
+
+        private Section(int size) {
+            keys = new String[size];
+            rowGroups = new int[size];
+            rows = new int[size];
+        }
+    }
+
+    static final class Builder {
+        private final Map<String, List<Entry>> entries = new HashMap<>();
+
+        private Builder(List<String> columns) {
+            columns.forEach(column -> entries.put(column, new ArrayList<>()));
+        }
+
+        void add(String column, String key, int rowGroup, int row) {
+            entries.get(column).add(new Entry(key, rowGroup, row));
+        }
+
+        /**
+         * Write the sorted index under a temporary name and move it into place
+         */
+        void writeTo(Path file) throws IOException {
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new DeflaterOutputStream(Files.newOutputStream(tempFile))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, List<Entry>> section : entries.entrySet()) {
+                    List<Entry> sorted = new ArrayList<>(section.getValue());
+                    sorted.sort(Comparator.comparing(entry -> entry.key));
+
+                    out.writeUTF(section.getKey());
+                    out.writeInt(sorted.size());
+                    for (Entry entry : sorted) {
+                        out.writeUTF(entry.key);
+                        out.writeInt(entry.rowGroup);
+                        out.writeInt(entry.row);
+                    }
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final int rowGroup;
+        private final int row;
+
+        private Entry(String key, int rowGroup, int row) {
+            this.key = key;
+            this.rowGroup = rowGroup;
+            this.row = row;
+        }
+    }
+}
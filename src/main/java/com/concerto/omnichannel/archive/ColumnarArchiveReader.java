@@ -0,0 +1,188 @@
+package com.concerto.omnichannel.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads archive files written by {@link ColumnarArchiveWriter}.
+ * Only the column chunks of the requested row group are read and inflated.
+ */
+public class ColumnarArchiveReader implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Inflater inflater = new Inflater();
+    private final List<String> columns = new ArrayList<>();
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+
+    private ColumnarArchiveReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    public static ColumnarArchiveReader open(Path file) throws IOException {
+        ColumnarArchiveReader reader = new ColumnarArchiveReader(file);
+        try {
+            reader.readFooter();
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int getRowGroupCount() {
+        return rowGroups.size();
+    }
+
+    public int getRowCount(int rowGroup) {
+        return rowGroups.get(rowGroup).rows;
+    }
+
+    /**
+     * All values of one column within a row group
+     */
+    public List<String> readColumn(int rowGroup, String column) throws IOException {
+        int position = columns.indexOf(column);
+        if (position < 0) {
+            throw new IllegalArgumentException("Unknown archive column: " + column);
+        }
+        return readChunk(rowGroups.get(rowGroup), position);
+    }
+
+    public Map<String, String> readRow(int rowGroup, int row) throws IOException {
+        RowGroup group = rowGroups.get(rowGroup);
+        if (row < 0 || row >= group.rows) {
+            throw new IndexOutOfBoundsException("Row " + row + " not in row group " + rowGroup + " of " + file);
+        }
+
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int column = 0; column < columns.size(); column++) {
+            values.put(columns.get(column), readChunk(group, column).get(row));
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    private void readFooter() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = read(0, 8);
+        if (size < 20 || header.getInt() != ColumnarArchiveWriter.MAGIC) {
+            throw new IOException("Not an archive file: " + file);
+        }
+        int version = header.getInt();
+        if (version != ColumnarArchiveWriter.VERSION) {
+            throw new IOException("Unsupported archive version " + version + ": " + file);
+        }
+
+        ByteBuffer trailer = read(size - 12, 12);
+        long footerOffset = trailer.getLong();
+        if (trailer.getInt() != ColumnarArchiveWriter.MAGIC) {
+            throw new IOException("Archive file is incomplete: " + file);
+        }
+
+        ByteBuffer footer = read(footerOffset, (int) (size - 12 - footerOffset));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+        int columnCount = in.readInt();
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(in.readUTF());
+        }
+
+        int rowGroupCount = in.readInt();
+        for (int i = 0; i < rowGroupCount; i++) {
+            RowGroup rowGroup = new RowGroup(in.readInt(), columnCount);
+            for (int column = 0; column < columnCount; column++) {
+                rowGroup.offsets[column] = in.readLong();
+                rowGroup.compressedLengths[column] = in.readInt();
+                rowGroup.rawLengths[column] = in.readInt();
+                rowGroup.checksums[column] = in.readLong();
+            }
+            rowGroups.add(rowGroup);
+        }
+    }
+
+    private List<String> readChunk(RowGroup rowGroup, int column) throws IOException {
+        ByteBuffer compressed = read(rowGroup.offsets[column], rowGroup.compressedLengths[column]);
+        byte[] raw = new byte[rowGroup.rawLengths[column]];
+
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                inflated += inflater.inflate(raw, inflated, raw.length - inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column chunk " + columns.get(column) + " in " + file, e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if (crc.getValue() != rowGroup.checksums[column]) {
+            throw new IOException("Checksum mismatch in column " + columns.get(column) + " of " + file);
+        }
+
+        List<String> values = new ArrayList<>(rowGroup.rows);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        for (int row = 0; row < rowGroup.rows; row++) {
+            int length = in.readInt();
+            if (length < 0) {
+                values.add(null);
+            } else {
+                byte[] value = new byte[length];
+                in.readFully(value);
+                values.add(new String(value, StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive file: " + file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static final class RowGroup {
+        private final int rows;
+        private final long[] offsets;
+        private final int[] compressedLengths;
+        private final int[] rawLengths;
+        private final long[] checksums;
+
+        private RowGroup(int rows, int columns) {
+            this.rows = rows;
+            this.offsets = new long[columns];
+            this.compressedLengths = new int[columns];
+            this.rawLengths = new int[columns];
+            this.checksums = new long[columns];
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.concerto.omnichannel.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes string rows to a compressed, column-oriented archive file.
+ * <p>
+ * Layout: header (magic, version), row groups stored column by column with each column chunk
+ * deflated and CRC32-checked, a footer with the column names and chunk positions, then the
+ * footer offset and magic. Values of the index columns go to an {@link ArchiveIndex} sidecar.
+ * Both files are written under temporary names and only appear once {@link #close()} has
+ * forced them to disk.
+ */
+public class ColumnarArchiveWriter implements Closeable {
+
+    static final int MAGIC = 0x4F434152; // "OCAR"
+    static final int VERSION = 1;
+
+    public static final String DATA_SUFFIX = ".oca";
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private final Path file;
+    private final Path tempFile;
+    private final List<String> columns;
+    private final List<String> indexColumns;
+    private final int[] indexColumnPositions;
+    private final int rowGroupSize;
+    private final Deflater deflater;
+    private final FileChannel channel;
+    private final ArchiveIndex.Builder indexBuilder;
+
+    private final List<String[]> buffer = new ArrayList<>();
+    private final List<long[]> rowGroups = new ArrayList<>();
+    private long rowCount;
+    private boolean closed;
+
+    public ColumnarArchiveWriter(Path file, List<String> columns, List<String> indexColumns,
+                                 int rowGroupSize, int compressionLevel) throws IOException {
+        if (!columns.containsAll(indexColumns)) {
+            throw new IllegalArgumentException("Index columns must be archive columns: " + indexColumns);
+        }
+
+        this.file = file;
+        this.tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        this.columns = List.copyOf(columns);
+        this.indexColumns = List.copyOf(indexColumns);
+        this.indexColumnPositions = indexColumns.stream().mapToInt(columns::indexOf).toArray();
+        this.rowGroupSize = rowGroupSize;
+        this.deflater = new Deflater(compressionLevel);
+        this.indexBuilder = ArchiveIndex.builder(indexColumns);
+
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        write(ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip());
+    }
+
+    public void append(String[] row) throws IOException {
+        if (row.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + row.length);
+        }
+
+        buffer.add(row);
+        if (buffer.size() >= rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount + buffer.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Write the remaining rows and the footer, force both files to disk and move them into place
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (getRowCount() == 0) {
+            abort();
+            return;
+        }
+
+        flushRowGroup();
+        long footerOffset = channel.position();
+        write(ByteBuffer.wrap(footer()));
+        write(ByteBuffer.allocate(12).putLong(footerOffset).putInt(MAGIC).flip());
+        channel.force(true);
+        channel.close();
+        deflater.end();
+        closed = true;
+
+        // Data first: an index is only ever visible next to a complete data file
+        Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        indexBuilder.writeTo(indexFileFor(file));
+    }
+
+    /**
+     * Discard everything written so far
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        deflater.end();
+        try {
+            channel.close();
+            Files.deleteIfExists(tempFile);
+        } catch (IOException ignored) {
+            // Leftover temporary files are never read
+        }
+    }
+
+    public static Path indexFileFor(Path dataFile) {
+        String name = dataFile.getFileName().toString();
+        return dataFile.resolveSibling(name.substring(0, name.length() - DATA_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    public static Path dataFileFor(Path indexFile) {
+        String name = indexFile.getFileName().toString();
+        return indexFile.resolveSibling(name.substring(0, name.length() - INDEX_SUFFIX.length()) + DATA_SUFFIX);
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        int rowGroup = rowGroups.size();
+        for (int i = 0; i < indexColumnPositions.length; i++) {
+            for (int row = 0; row < buffer.size(); row++) {
+                String key = buffer.get(row)[indexColumnPositions[i]];
+                if (key != null) {
+                    indexBuilder.add(indexColumns.get(i), key, rowGroup, row);
+                }
+            }
+        }
+
+        // Per column: offset, compressed length, raw length, checksum
+        long[] chunks = new long[columns.size() * 4];
+        for (int column = 0; column < columns.size(); column++) {
+            byte[] raw = encodeColumn(column);
+            byte[] compressed = compress(raw);
+            CRC32 crc = new CRC32();
+            crc.update(raw);
+
+            chunks[column * 4] = channel.position();
+            chunks[column * 4 + 1] = compressed.length;
+            chunks[column * 4 + 2] = raw.length;
+            chunks[column * 4 + 3] = crc.getValue();
+            write(ByteBuffer.wrap(compressed));
+        }
+
+        rowGroups.add(withRowCount(chunks, buffer.size()));
+        rowCount += buffer.size();
+        buffer.clear();
+    }
+
+    private byte[] encodeColumn(int column) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String[] row : buffer) {
+            String value = row[column];
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] compress(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            compressed.write(chunk, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    private byte[] footer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(columns.size());
+        for (String column : columns) {
+            out.writeUTF(column);
+        }
+
+        out.writeInt(rowGroups.size());
+        for (long[] rowGroup : rowGroups) {
+            out.writeInt((int) rowGroup[0]);
+            for (int column = 0; column < columns.size(); column++) {
+                out.writeLong(rowGroup[1 + column * 4]);
+                out.writeInt((int) rowGroup[2 + column * 4]);
+                out.writeInt((int) rowGroup[3 + column * 4]);
+                out.writeLong(rowGroup[4 + column * 4]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long[] withRowCount(long[] chunks, int rows) {
+        long[] rowGroup = new long[chunks.length + 1];
+        rowGroup[0] = rows;
+        System.arraycopy(chunks, 0, rowGroup, 1, chunks.length);
+        return rowGroup;
+    }
+
+    private void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
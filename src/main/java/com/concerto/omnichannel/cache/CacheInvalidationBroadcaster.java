@@ -0,0 +1,105 @@
+package com.concerto.omnichannel.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Publishes near cache invalidations over Redis pub/sub and applies those of other nodes.
+ * <p>
+ * Messages are {@code E|<instance>|<cache>|<key>} for an evicted key and {@code C|<instance>|<cache>}
+ * for a cleared cache. Pub/sub is fire and forget: a node that misses a message keeps its local
+ * copy until the near cache TTL runs out, which bounds how stale it can get.
+ */
+public class CacheInvalidationBroadcaster implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBroadcaster.class);
+
+    // Random per process, so nodes sharing a configured node id still hear each other
+    private final String instanceId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder publishFailures = new LongAdder();
+
+    private final List<BiConsumer<String, String>> listeners = new CopyOnWriteArrayList<>();
+
+    public CacheInvalidationBroadcaster(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Register a listener receiving (cache name, key) of other nodes' invalidations; key is null for a clear
+     */
+    public void addInvalidationListener(BiConsumer<String, String> listener) {
+        listeners.add(listener);
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish("E|" + instanceId + "|" + cacheName + "|" + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish("C|" + instanceId + "|" + cacheName);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 3 || instanceId.equals(parts[1])) {
+            return;
+        }
+
+        if ("E".equals(parts[0]) && parts.length == 4) {
+            notifyListeners(parts[2], parts[3]);
+        } else if ("C".equals(parts[0])) {
+            notifyListeners(parts[2], null);
+        } else {
+            logger.debug("Ignoring malformed cache invalidation message");
+        }
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getPublishFailureCount() {
+        return publishFailures.sum();
+    }
+
+    private void notifyListeners(String cacheName, String key) {
+        for (BiConsumer<String, String> listener : listeners) {
+            try {
+                listener.accept(cacheName, key);
+            } catch (Exception e) {
+                logger.warn("Cache invalidation listener failed for cache {}: {}", cacheName, e.getMessage());
+            }
+        }
+    }
+
+    private void publish(String payload) {
+        try {
+            redisTemplate.convertAndSend(channel, payload);
+            published.increment();
+        } catch (Exception e) {
+            publishFailures.increment();
+            logger.warn("Failed to broadcast cache invalidation, other nodes converge on near cache expiry: {}",
+                    e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.concerto.omnichannel.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary serializer for Redis cache values.
+ * <p>
+ * A payload is a format version byte, a flags byte and one tagged value. Strings, booleans,
+ * numbers, and lists and maps of those are written natively with varint lengths, without type
+ * names; anything else is embedded as length-prefixed output of the fallback serializer.
+ * Bodies larger than the compression threshold are deflated. Payloads that do not start with
+ * a known version byte are read with the fallback serializer, so JSON entries written before
+ * the switch stay readable until they expire.
+ */
+public class CompactBinaryRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte FORMAT_V1 = 0x01;
+    private static final byte FLAG_DEFLATED = 0x01;
+    private static final int HEADER_LENGTH = 2;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_FALSE = 3;
+    private static final byte TAG_INT = 4;
+    private static final byte TAG_LONG = 5;
+    private static final byte TAG_DOUBLE = 6;
+    private static final byte TAG_DECIMAL = 7;
+    private static final byte TAG_LIST = 8;
+    private static final byte TAG_MAP = 9;
+    private static final byte TAG_FALLBACK = 10;
+
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+
+    public CompactBinaryRedisSerializer(RedisSerializer<Object> fallback, int compressionThreshold) {
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        Output out = new Output(64);
+        out.writeByte(FORMAT_V1);
+        out.writeByte(0);
+        writeValue(out, value);
+
+        int bodyLength = out.size - HEADER_LENGTH;
+        return bodyLength > compressionThreshold ? deflate(out, bodyLength) : out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_V1) {
+            return fallback.deserialize(bytes);
+        }
+
+        try {
+            Input in = (bytes[1] & FLAG_DEFLATED) != 0 ? inflate(bytes) : new Input(bytes, HEADER_LENGTH);
+            return readValue(in);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("Could not read compact cache value", e);
+        }
+    }
+
+    private void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String text) {
+            out.writeByte(TAG_STRING);
+            out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(flag ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer number) {
+            out.writeByte(TAG_INT);
+            out.writeVarLong(zigZag(number));
+        } else if (value instanceof Long number) {
+            out.writeByte(TAG_LONG);
+            out.writeVarLong(zigZag(number));
+        } else if (value instanceof Double number) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeFixedLong(Double.doubleToRawLongBits(number));
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte(TAG_DECIMAL);
+            out.writeVarLong(zigZag(decimal.scale()));
+            out.writeBytes(decimal.unscaledValue().toByteArray());
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TAG_LIST);
+            out.writeVarLong(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map && hasStringKeys(map)) {
+            out.writeByte(TAG_MAP);
+            out.writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeBytes(((String) entry.getKey()).getBytes(StandardCharsets.UTF_8));
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(TAG_FALLBACK);
+            out.writeBytes(fallback.serialize(value));
+        }
+    }
+
+    private Object readValue(Input in) {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return new String(in.readBytes(), StandardCharsets.UTF_8);
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INT:
+                return (int) unZigZag(in.readVarLong());
+            case TAG_LONG:
+                return unZigZag(in.readVarLong());
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(in.readFixedLong());
+            case TAG_DECIMAL:
+                int scale = (int) unZigZag(in.readVarLong());
+                return new BigDecimal(new BigInteger(in.readBytes()), scale);
+            case TAG_LIST:
+                int size = in.readLength();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case TAG_MAP:
+                int entries = in.readLength();
+                Map<String, Object> map = new LinkedHashMap<>(Math.max(16, entries * 4 / 3 + 1));
+                for (int i = 0; i < entries; i++) {
+                    String key = new String(in.readBytes(), StandardCharsets.UTF_8);
+                    map.put(key, readValue(in));
+                }
+                return map;
+            case TAG_FALLBACK:
+                return fallback.deserialize(in.readBytes());
+            default:
+                throw new SerializationException("Unknown compact cache value tag " + tag);
+        }
+    }
+
+    private byte[] deflate(Output out, int bodyLength) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(out.buffer, HEADER_LENGTH, bodyLength);
+            deflater.finish();
+
+            Output compressed = new Output(bodyLength / 2 + 16);
+            compressed.writeByte(FORMAT_V1);
+            compressed.writeByte(FLAG_DEFLATED);
+            compressed.writeVarLong(bodyLength);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                compressed.write(chunk, 0, length);
+            }
+
+            // Incompressible bodies are stored as they are
+            return compressed.size < out.size ? compressed.toByteArray() : out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private Input inflate(byte[] bytes) throws Exception {
+        Input header = new Input(bytes, HEADER_LENGTH);
+        byte[] body = new byte[header.readLength()];
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, header.position, bytes.length - header.position);
+            int inflated = 0;
+            while (inflated < body.length) {
+                int length = inflater.inflate(body, inflated, body.length - inflated);
+                if (length == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new SerializationException("Truncated compressed cache value");
+                }
+                inflated += length;
+            }
+        } finally {
+            inflater.end();
+        }
+        return new Input(body, 0);
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        private void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeFixedLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        private Input(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private byte readByte() {
+            if (position >= buffer.length) {
+                throw new SerializationException("Truncated compact cache value");
+            }
+            return buffer[position++];
+        }
+
+        private byte[] readBytes() {
+            int length = readLength();
+            if (length > buffer.length - position) {
+                throw new SerializationException("Truncated compact cache value");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private int readLength() {
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new SerializationException("Invalid length in compact cache value");
+            }
+            return (int) length;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in compact cache value");
+        }
+
+        private long readFixedLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (readByte() & 0xFF);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.concerto.omnichannel.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cache entry TTL shortened by a random fraction of up to {@code jitter}, so entries written
+ * together do not all expire together.
+ */
+public class JitteredTtl implements RedisCacheWriter.TtlFunction {
+
+    private final long ttlMs;
+    private final long maxJitterMs;
+
+    public JitteredTtl(Duration ttl, double jitter) {
+        this.ttlMs = ttl.toMillis();
+        this.maxJitterMs = (long) (ttlMs * Math.max(0.0, Math.min(1.0, jitter)));
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        long jitterMs = maxJitterMs > 0 ? ThreadLocalRandom.current().nextLong(maxJitterMs + 1) : 0;
+        return Duration.ofMillis(ttlMs - jitterMs);
+    }
+}
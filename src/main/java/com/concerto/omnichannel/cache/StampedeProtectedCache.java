@@ -0,0 +1,283 @@
+package com.concerto.omnichannel.cache;
+
+import com.concerto.omnichannel.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Cache decorator that keeps expiring entries from sending every caller to the database at once.
+ * <p>
+ * Loads through {@link #get(Object, Callable)}, used by cacheable methods with {@code sync = true},
+ * are single-flight per key. On a hit the entry may be reloaded in the background before it
+ * expires: with a probability that grows as expiry nears and with the cost of the load
+ * (probabilistic early expiration), and always for keys hit often enough once they are inside
+ * the refresh-ahead window. The remaining TTL is looked up from the remote cache once per key and
+ * load. A refresh re-invokes the cached method through the loader of the call that triggered it.
+ */
+public class StampedeProtectedCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StampedeProtectedCache.class);
+    private static final long INITIAL_LOAD_ESTIMATE_NANOS = Duration.ofMillis(10).toNanos();
+
+    private final Cache delegate;
+    private final Executor refreshExecutor;
+    private final BiFunction<String, Object, Duration> remainingTtlLookup;
+    private final double beta;
+    private final long refreshAheadWindowNanos;
+    private final long hotKeyMinHits;
+    private final Duration maxTtl;
+
+    private final Map<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+    private final ExpiringCache<String, Freshness> freshness;
+
+    // Bumped on every eviction so a load racing with it does not put the old value back
+    private final AtomicLong evictionCount = new AtomicLong();
+    private volatile long averageLoadNanos = INITIAL_LOAD_ESTIMATE_NANOS;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public StampedeProtectedCache(Cache delegate, Executor refreshExecutor,
+                                  BiFunction<String, Object, Duration> remainingTtlLookup,
+                                  double beta, Duration refreshAheadWindow, long hotKeyMinHits,
+                                  int maxTrackedKeys, Duration maxTtl) {
+        this.delegate = delegate;
+        this.refreshExecutor = refreshExecutor;
+        this.remainingTtlLookup = remainingTtlLookup;
+        this.beta = beta;
+        this.refreshAheadWindowNanos = refreshAheadWindow.toNanos();
+        this.hotKeyMinHits = hotKeyMinHits;
+        this.maxTtl = maxTtl;
+        this.freshness = new ExpiringCache<>(maxTrackedKeys, maxTtl);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            onHit(key, valueLoader);
+            return (T) cached.get();
+        }
+        return (T) load(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        freshness.remove(trackingKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictionCount.incrementAndGet();
+        freshness.remove(trackingKey(key));
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        evictionCount.incrementAndGet();
+        freshness.clear();
+        delegate.clear();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("loads", loads.sum());
+        statistics.put("coalescedLoads", coalescedLoads.sum());
+        statistics.put("refreshes", refreshes.sum());
+        statistics.put("refreshFailures", refreshFailures.sum());
+        statistics.put("averageLoadMs", averageLoadNanos / 1_000_000.0);
+        return statistics;
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        String trackingKey = trackingKey(key);
+        CompletableFuture<Object> ownLoad = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightLoad = inFlightLoads.putIfAbsent(trackingKey, ownLoad);
+        if (inFlightLoad != null) {
+            coalescedLoads.increment();
+            return join(key, inFlightLoad, valueLoader);
+        }
+
+        try {
+            Object value = loadAndStore(key, trackingKey, valueLoader);
+            ownLoad.complete(value);
+            return value;
+        } catch (Exception e) {
+            ValueRetrievalException failure = new ValueRetrievalException(key, valueLoader, e);
+            ownLoad.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlightLoads.remove(trackingKey, ownLoad);
+        }
+    }
+
+    private Object join(Object key, CompletableFuture<Object> inFlightLoad, Callable<?> valueLoader) {
+        try {
+            return inFlightLoad.join();
+        } catch (CancellationException e) {
+            // A background refresh that could not be scheduled; load here instead
+            return load(key, valueLoader);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ValueRetrievalException failure) {
+                throw failure;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    private Object loadAndStore(Object key, String trackingKey, Callable<?> valueLoader) throws Exception {
+        long evictions = evictionCount.get();
+        long start = System.nanoTime();
+        Object value = valueLoader.call();
+        long loadNanos = System.nanoTime() - start;
+
+        loads.increment();
+        averageLoadNanos = (averageLoadNanos * 7 + loadNanos) / 8;
+        if (evictions == evictionCount.get()) {
+            delegate.put(key, value);
+            freshness.put(trackingKey, new Freshness(loadNanos));
+        }
+        return value;
+    }
+
+    private void onHit(Object key, Callable<?> valueLoader) {
+        String trackingKey = trackingKey(key);
+        Freshness entry = freshness.get(trackingKey);
+        if (entry == null) {
+            // Loaded elsewhere: weigh it by this node's typical load cost
+            Freshness candidate = new Freshness(averageLoadNanos);
+            Freshness existing = freshness.putIfAbsent(trackingKey, candidate, maxTtl);
+            entry = existing != null ? existing : candidate;
+        }
+        entry.hits.increment();
+
+        if (!entry.expiryResolved) {
+            resolveExpiry(key, entry);
+            return;
+        }
+        if (!entry.expires) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long remainingNanos = entry.expiresAtNanos - now;
+        boolean hotAndExpiring = remainingNanos <= refreshAheadWindowNanos && entry.hits.sum() >= hotKeyMinHits;
+        boolean drawnEarly = -entry.loadNanos * beta * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) >= remainingNanos;
+        if (hotAndExpiring || drawnEarly) {
+            refreshInBackground(key, trackingKey, valueLoader);
+        }
+    }
+
+    private void resolveExpiry(Object key, Freshness entry) {
+        if (!entry.lookupStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Duration remaining = remainingTtlLookup.apply(getName(), key);
+                    entry.expires = remaining != null;
+                    if (remaining != null) {
+                        entry.expiresAtNanos = System.nanoTime() + remaining.toNanos();
+                    }
+                    entry.expiryResolved = true;
+                } catch (Exception e) {
+                    logger.debug("Failed to look up remaining TTL in cache {}: {}", getName(), e.getMessage());
+                    entry.lookupStarted.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.lookupStarted.set(false);
+        }
+    }
+
+    private void refreshInBackground(Object key, String trackingKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> ownLoad = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(trackingKey, ownLoad) != null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    ownLoad.complete(loadAndStore(key, trackingKey, valueLoader));
+                    refreshes.increment();
+                } catch (Exception e) {
+                    refreshFailures.increment();
+                    ownLoad.completeExceptionally(new ValueRetrievalException(key, valueLoader, e));
+                    logger.warn("Background refresh failed in cache {}: {}", getName(), e.getMessage());
+                } finally {
+                    inFlightLoads.remove(trackingKey, ownLoad);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightLoads.remove(trackingKey, ownLoad);
+            ownLoad.cancel(false);
+        }
+    }
+
+    private static String trackingKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static final class Freshness {
+        private final long loadNanos;
+        private final LongAdder hits = new LongAdder();
+        private final AtomicBoolean lookupStarted = new AtomicBoolean();
+        private volatile boolean expiryResolved;
+        private volatile boolean expires;
+        private volatile long expiresAtNanos;
+
+        private Freshness(long loadNanos) {
+            this.loadNanos = loadNanos;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.concerto.omnichannel.cache;
+
+import com.concerto.omnichannel.utils.ExpiringCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring cache with an in-process near cache in front of a shared remote cache.
+ * <p>
+ * Reads are served from local memory while the entry lives and fall back to the remote cache.
+ * Evictions go to both tiers and are broadcast so other nodes drop their local copy. Cached
+ * nulls are kept locally too, so missing keys do not cost a round trip either.
+ * Keys are matched by their string form, as they are in Redis.
+ */
+public class TwoTierCache implements Cache {
+
+    private final Cache remote;
+    private final ExpiringCache<String, ValueWrapper> local;
+    private final CacheInvalidationBroadcaster broadcaster;
+
+    // Bumped on every invalidation so a remote read racing with it is not kept locally
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidationsReceived = new LongAdder();
+
+    public TwoTierCache(Cache remote, int maxEntries, Duration localTtl, CacheInvalidationBroadcaster broadcaster) {
+        this.remote = remote;
+        this.local = new ExpiringCache<>(maxEntries, localTtl);
+        this.broadcaster = broadcaster;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.get(localKey);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+
+        long invalidations = invalidationCount.get();
+        ValueWrapper loaded = remote.get(key);
+        if (loaded == null) {
+            misses.increment();
+            return null;
+        }
+
+        remoteHits.increment();
+        if (invalidations == invalidationCount.get()) {
+            local.put(localKey, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper cached = get(key);
+        if (cached == null) {
+            return null;
+        }
+
+        Object value = cached.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        long invalidations = invalidationCount.get();
+        T value = remote.get(key, valueLoader);
+        if (invalidations == invalidationCount.get()) {
+            local.put(localKey(key), new SimpleValueWrapper(value));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        local.put(localKey(key), existing != null ? existing : new SimpleValueWrapper(value));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(localKey(key));
+        broadcaster.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        broadcaster.publishClear(getName());
+    }
+
+    private void evictLocal(String key) {
+        invalidationCount.incrementAndGet();
+        local.remove(key);
+    }
+
+    private void clearLocal() {
+        invalidationCount.incrementAndGet();
+        local.clear();
+    }
+
+    /**
+     * Drop the local copy only, on behalf of another node that changed the entry; key is null for a clear
+     */
+    void onRemoteInvalidation(String key) {
+        invalidationsReceived.increment();
+        if (key == null) {
+            clearLocal();
+        } else {
+            evictLocal(key);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("localEntries", local.size());
+        statistics.put("localHits", localHits.sum());
+        statistics.put("remoteHits", remoteHits.sum());
+        statistics.put("misses", misses.sum());
+        statistics.put("invalidationsReceived", invalidationsReceived.sum());
+        return statistics;
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,104 @@
+package com.concerto.omnichannel.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache manager adding a near cache and stampede protection to selected caches of a remote
+ * cache manager.
+ * <p>
+ * Decorated caches are transaction aware: puts and evictions made inside a transaction reach
+ * the caches and the other nodes only after commit, so a concurrent reader cannot put the
+ * pre-commit value back. All other caches are returned from the remote manager unchanged.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager remote;
+    private final Set<String> nearCacheNames;
+    private final int maxEntries;
+    private final Duration localTtl;
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final Set<String> protectedCacheNames;
+    private final Function<Cache, StampedeProtectedCache> stampedeProtection;
+
+    private final Map<String, TwoTierCache> nearCaches = new ConcurrentHashMap<>();
+    private final Map<String, StampedeProtectedCache> protectedCaches = new ConcurrentHashMap<>();
+    private final Map<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remote, Set<String> nearCacheNames, int maxEntries,
+                               Duration localTtl, CacheInvalidationBroadcaster broadcaster,
+                               Set<String> protectedCacheNames,
+                               Function<Cache, StampedeProtectedCache> stampedeProtection) {
+        this.remote = remote;
+        this.nearCacheNames = nearCacheNames;
+        this.maxEntries = maxEntries;
+        this.localTtl = localTtl;
+        this.broadcaster = broadcaster;
+        this.protectedCacheNames = protectedCacheNames;
+        this.stampedeProtection = stampedeProtection;
+        broadcaster.addInvalidationListener(this::onRemoteInvalidation);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!nearCacheNames.contains(name) && !protectedCacheNames.contains(name)) {
+            return remote.getCache(name);
+        }
+
+        Cache cache = decoratedCaches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return decoratedCaches.computeIfAbsent(name, cacheName -> decorate(cacheName, remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        nearCaches.forEach((name, cache) -> statistics.put(name, cache.getStatistics()));
+        protectedCaches.forEach((name, cache) -> statistics.put(name + ".stampede", cache.getStatistics()));
+        statistics.put("invalidationsPublished", broadcaster.getPublishedCount());
+        statistics.put("invalidationPublishFailures", broadcaster.getPublishFailureCount());
+        return statistics;
+    }
+
+    private Cache decorate(String name, Cache remoteCache) {
+        Cache cache = remoteCache;
+        if (nearCacheNames.contains(name)) {
+            TwoTierCache nearCache = new TwoTierCache(remoteCache, maxEntries, localTtl, broadcaster);
+            nearCaches.put(name, nearCache);
+            cache = nearCache;
+        }
+        if (protectedCacheNames.contains(name)) {
+            StampedeProtectedCache protectedCache = stampedeProtection.apply(cache);
+            protectedCaches.put(name, protectedCache);
+            cache = protectedCache;
+        }
+        return new TransactionAwareCacheDecorator(cache);
+    }
+
+    private void onRemoteInvalidation(String cacheName, String key) {
+        TwoTierCache cache = nearCaches.get(cacheName);
+        if (cache != null) {
+            cache.onRemoteInvalidation(key);
+        }
+    }
+}
@@ -3,8 +3,8 @@ package com.concerto.omnichannel.configManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class ConnectorTimeoutConfig {
@@ -24,12 +24,17 @@ public class ConnectorTimeoutConfig {
     @Value("${connector.timeouts.default:10000}")
     private int defaultTimeout;
 
-    private final Map<String, Integer> timeoutCache = new HashMap<>();
+    private final Map<String, Integer> timeoutCache = new ConcurrentHashMap<>();
 
+    /**
+     * Connector timeout in milliseconds for a connector type or channel
+     */
     public int getTimeoutFor(String connectorType) {
         return timeoutCache.computeIfAbsent(connectorType, key -> {
             switch (key.toUpperCase()) {
                 case "ISO8583":
+                case "POS":
+                case "ATM":
                     return iso8583Timeout;
                 case "BBPS":
                     return bbpsTimeout;
@@ -0,0 +1,33 @@
+package com.concerto.omnichannel.configManager;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions to the replica while it is within the lag
+ * budget, and to a small primary pool otherwise. Everything else goes to the primary OLTP pool.
+ * <p>
+ * Must sit behind a {@code LazyConnectionDataSourceProxy}: the read-only flag is only set once
+ * the transaction has begun, after the transaction manager asked for a connection.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, PRIMARY_READ_ONLY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReadReplicaRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.PRIMARY;
+        }
+
+        Route route = lagMonitor.isReplicaUsable() ? Route.REPLICA : Route.PRIMARY_READ_ONLY;
+        lagMonitor.recordRoute(route);
+        return route;
+    }
+}
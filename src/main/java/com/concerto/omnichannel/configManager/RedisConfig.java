@@ -1,29 +1,77 @@
 package com.concerto.omnichannel.configManager;
 
+import com.concerto.omnichannel.cache.CacheInvalidationBroadcaster;
+import com.concerto.omnichannel.cache.CompactBinaryRedisSerializer;
+import com.concerto.omnichannel.cache.JitteredTtl;
+import com.concerto.omnichannel.cache.StampedeProtectedCache;
+import com.concerto.omnichannel.cache.TwoTierCacheManager;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.*;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    @Value("${cache.near.caches:channelConfigs,channelAllConfigs}")
+    private Set<String> nearCacheNames;
+
+    @Value("${cache.near.max-entries:10000}")
+    private int nearCacheMaxEntries;
+
+    @Value("${cache.near.ttl.ms:60000}")
+    private long nearCacheTtlMs;
+
+    @Value("${cache.redis.codec:json}")
+    private String codec;
+
+    @Value("${cache.redis.compression.threshold.bytes:1024}")
+    private int compressionThreshold;
+
+    @Value("${cache.ttl-jitter:0.1}")
+    private double ttlJitter;
+
+    @Value("${cache.stampede.caches:channelConfigs,channelAllConfigs}")
+    private Set<String> stampedeProtectedCacheNames;
+
+    @Value("${cache.stampede.beta:1.0}")
+    private double stampedeBeta;
+
+    @Value("${cache.stampede.refresh-ahead.window.ms:30000}")
+    private long refreshAheadWindowMs;
+
+    @Value("${cache.stampede.refresh-ahead.min-hits:100}")
+    private long refreshAheadMinHits;
+
+    @Value("${cache.stampede.max-tracked-keys:10000}")
+    private int stampedeMaxTrackedKeys;
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -47,34 +95,84 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheInvalidationBroadcaster cacheInvalidationBroadcaster(
+            RedisConnectionFactory connectionFactory,
+            @Value("${cache.invalidation.channel:cache-invalidation}") String channel) {
+        return new CacheInvalidationBroadcaster(new StringRedisTemplate(connectionFactory), channel);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationBroadcaster broadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(broadcaster, new ChannelTopic(broadcaster.getChannel()));
+        return container;
+    }
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                           CacheInvalidationBroadcaster broadcaster,
+                                           @Qualifier("cacheRefreshExecutor") Executor cacheRefreshExecutor) {
+        RedisSerializer<Object> valueSerializer = cacheValueSerializer(codec, compressionThreshold);
+
         RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer(objectMapper())));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
 
         // Short-lived caches
-        cacheConfigurations.put("channelConfigs", defaultCacheConfig.entryTtl(Duration.ofMinutes(5)));
-        cacheConfigurations.put("clientCredentials", defaultCacheConfig.entryTtl(Duration.ofMinutes(15)));
-        cacheConfigurations.put("operationHandlers", defaultCacheConfig.entryTtl(Duration.ofMinutes(30)));
+        cacheConfigurations.put("channelConfigs", withJitteredTtl(defaultCacheConfig, Duration.ofMinutes(5)));
+        cacheConfigurations.put("operationHandlers", withJitteredTtl(defaultCacheConfig, Duration.ofMinutes(30)));
 
         // Medium-lived caches
-        cacheConfigurations.put("channelAllConfigs", defaultCacheConfig.entryTtl(Duration.ofMinutes(10)));
-        cacheConfigurations.put("transactionStatus", defaultCacheConfig.entryTtl(Duration.ofMinutes(5)));
+        cacheConfigurations.put("channelAllConfigs", withJitteredTtl(defaultCacheConfig, Duration.ofMinutes(10)));
 
         // Long-lived caches
-        cacheConfigurations.put("businessRules", defaultCacheConfig.entryTtl(Duration.ofHours(1)));
+        cacheConfigurations.put("businessRules", withJitteredTtl(defaultCacheConfig, Duration.ofHours(1)));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(defaultCacheConfig)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(withJitteredTtl(defaultCacheConfig, Duration.ofMinutes(10)))
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        // Not a bean of its own, so load the per-cache configurations here
+        redisCacheManager.afterPropertiesSet();
+
+        // Refresh decisions need the remaining TTL of entries other nodes loaded
+        StringRedisTemplate ttlTemplate = new StringRedisTemplate(redisConnectionFactory);
+        CacheKeyPrefix keyPrefix = CacheKeyPrefix.simple();
+        Function<Cache, StampedeProtectedCache> stampedeProtection = cache -> new StampedeProtectedCache(
+                cache, cacheRefreshExecutor,
+                (cacheName, key) -> {
+                    Long remainingMs = ttlTemplate.getExpire(keyPrefix.compute(cacheName) + key, TimeUnit.MILLISECONDS);
+                    return remainingMs != null && remainingMs >= 0 ? Duration.ofMillis(remainingMs) : null;
+                },
+                stampedeBeta, Duration.ofMillis(refreshAheadWindowMs), refreshAheadMinHits,
+                stampedeMaxTrackedKeys, Duration.ofHours(1)); // longest cache TTL
+
+        // Hot, rarely changing caches are also kept in process; writes are broadcast to the other nodes
+        return new TwoTierCacheManager(redisCacheManager, nearCacheNames, nearCacheMaxEntries,
+                Duration.ofMillis(nearCacheTtlMs), broadcaster, stampedeProtectedCacheNames, stampedeProtection);
+    }
+
+    /**
+     * Serializer for cache values: "binary" selects the compact codec, anything else JSON
+     */
+    public static RedisSerializer<Object> cacheValueSerializer(String codec, int compressionThreshold) {
+        RedisSerializer<Object> jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper());
+        return "binary".equalsIgnoreCase(codec)
+                ? new CompactBinaryRedisSerializer(jsonSerializer, compressionThreshold)
+                : jsonSerializer;
+    }
+
+    private RedisCacheConfiguration withJitteredTtl(RedisCacheConfiguration config, Duration ttl) {
+        return config.entryTtl(new JitteredTtl(ttl, ttlJitter));
     }
 
     // ✅ Central ObjectMapper bean
-    private ObjectMapper objectMapper() {
+    private static ObjectMapper objectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
@@ -0,0 +1,90 @@
+package com.concerto.omnichannel.configManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks replication lag of the read replica and takes it out of rotation when it falls behind.
+ * The replica is unused until the first successful check.
+ * <p>
+ * A replica whose WAL receiver is not streaming counts as not usable: it has stopped receiving,
+ * so having replayed everything it received says nothing about how stale it is. The check user
+ * needs {@code pg_read_all_stats} to see the receiver status; without it the replica stays out.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // Null unless the WAL receiver is streaming; zero when the replica has replayed everything it
+    // received, so an idle primary does not read as lag
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE((EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000)::bigint, 0) END";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxLagMs;
+
+    private volatile boolean replicaUsable;
+    private volatile long lagMs = -1;
+    private volatile String lastError;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryFallbackReads = new LongAdder();
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMs, int checkTimeoutSeconds) {
+        this.jdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.jdbcTemplate.setQueryTimeout(checkTimeoutSeconds);
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check.interval.ms:2000}")
+    public void checkLag() {
+        boolean usable;
+        try {
+            Long lag = jdbcTemplate.queryForObject(LAG_SQL, Long.class);
+            lagMs = lag != null ? lag : -1;
+            usable = lag != null && lag <= maxLagMs;
+            lastError = lag != null ? null : "WAL receiver is not streaming";
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            usable = false;
+        }
+
+        if (usable != replicaUsable) {
+            if (usable) {
+                logger.info("Read replica back in rotation (lag {} ms)", lagMs);
+            } else {
+                logger.warn("Read replica out of rotation, reads fall back to the primary (lag {} ms, error: {})",
+                        lagMs, lastError);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void recordRoute(ReadReplicaRoutingDataSource.Route route) {
+        (route == ReadReplicaRoutingDataSource.Route.REPLICA ? replicaReads : primaryFallbackReads).increment();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("replicaUsable", replicaUsable);
+        statistics.put("lagMs", lagMs);
+        statistics.put("maxLagMs", maxLagMs);
+        statistics.put("replicaReads", replicaReads.sum());
+        statistics.put("primaryFallbackReads", primaryFallbackReads.sum());
+        statistics.put("lastError", lastError);
+        return statistics;
+    }
+}
@@ -1,12 +1,14 @@
 package com.concerto.omnichannel.connector;
 
 import com.concerto.omnichannel.configManager.ConnectorTimeoutConfig;
+import com.concerto.omnichannel.utils.Deadline;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -23,14 +25,20 @@ public class BBPSConnector implements Connector {
 
     @Override
     public String process(String payload) throws Exception {
+        return process(payload, Deadline.after(Duration.ofMillis(timeoutConfig.getTimeoutFor("BBPS"))));
+    }
+
+    @Override
+    public String process(String payload, Deadline deadline) throws Exception {
         logger.info("Processing BBPS payload");
+        deadline.checkNotExpired(getConnectorType());
 
         ExecutorService executor = Executors.newSingleThreadExecutor();
         Callable<String> task = () -> processBBPSMessage(payload);
 
         Future<String> future = executor.submit(task);
         try {
-            int timeout = timeoutConfig.getTimeoutFor("BBPS");
+            int timeout = deadline.capMillis(timeoutConfig.getTimeoutFor("BBPS"));
             return future.get(timeout, TimeUnit.MILLISECONDS);
         } catch (TimeoutException exception) {
             future.cancel(true);
@@ -1,7 +1,19 @@
 package com.concerto.omnichannel.connector;
 
+import com.concerto.omnichannel.utils.Deadline;
+
 public interface Connector {
     String process(String payload) throws Exception;
+
+    /**
+     * Process within the caller's deadline; connectors that block on I/O should
+     * cap their own timeouts by the remaining budget
+     */
+    default String process(String payload, Deadline deadline) throws Exception {
+        deadline.checkNotExpired(getConnectorType());
+        return process(payload);
+    }
+
     boolean supports(String channel);
     String getConnectorType();
-}
\ No newline at end of file
+}
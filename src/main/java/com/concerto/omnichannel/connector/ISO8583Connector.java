@@ -3,6 +3,7 @@ package com.concerto.omnichannel.connector;
 import com.concerto.omnichannel.configManager.ConnectorTimeoutConfig;
 import com.concerto.omnichannel.service.ISO8583MessageParser;
 import com.concerto.omnichannel.service.ExternalSwitchConnector;
+import com.concerto.omnichannel.utils.Deadline;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jpos.iso.ISOMsg;
@@ -12,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -37,20 +39,29 @@ public class ISO8583Connector implements Connector {
 
     @Override
     public String process(String payload) throws Exception {
+        return process(payload, Deadline.after(Duration.ofMillis(timeoutConfig.getTimeoutFor("ISO8583"))));
+    }
+
+    @Override
+    public String process(String payload, Deadline deadline) throws Exception {
         logger.info("Processing ISO8583 payload with packager type: {}", packagerType);
+        deadline.checkNotExpired(getConnectorType());
+
+        // Socket reads inside the task are capped by the same deadline
+        Deadline connectorDeadline = deadline.min(Duration.ofMillis(timeoutConfig.getTimeoutFor("ISO8583")));
 
         ExecutorService executor = Executors.newSingleThreadExecutor();
-        Callable<String> task = () -> processISO8583Message(payload);
+        Callable<String> task = () -> processISO8583Message(payload, connectorDeadline);
 
         Future<String> future = executor.submit(task);
+        int timeout = connectorDeadline.capMillis(timeoutConfig.getTimeoutFor("ISO8583"));
         try {
-            int timeout = timeoutConfig.getTimeoutFor("ISO8583");
             String result = future.get(timeout, TimeUnit.MILLISECONDS);
             logger.info("ISO8583 processing completed successfully");
             return result;
         } catch (TimeoutException exception) {
             future.cancel(true);
-            logger.error("ISO8583 Connector timed out after {} ms", timeoutConfig.getTimeoutFor("ISO8583"));
+            logger.error("ISO8583 Connector timed out after {} ms", timeout);
             throw new RuntimeException("ISO8583 Connector timed out");
         } catch (Exception e) {
             logger.error("Error processing ISO8583 message", e);
@@ -72,7 +83,7 @@ public class ISO8583Connector implements Connector {
         return "ISO8583_" + packagerType.toUpperCase();
     }
 
-    private String processISO8583Message(String payload) throws Exception {
+    private String processISO8583Message(String payload, Deadline deadline) throws Exception {
         try {
             // Parse JSON payload
             JsonNode jsonNode = objectMapper.readTree(payload);
@@ -88,7 +99,7 @@ public class ISO8583Connector implements Connector {
             ISOMsg requestMsg = messageParser.jsonToISO8583FromJson(payload);
 
             // Send to external switch
-            ISOMsg responseMsg = switchConnector.sendToSwitchSync(requestMsg, channel);
+            ISOMsg responseMsg = switchConnector.sendToSwitchSync(requestMsg, channel, deadline);
 
             // Convert ISO8583 response back to JSON
             Map<String, Object> jsonResponse = messageParser.iso8583ToJson(responseMsg);
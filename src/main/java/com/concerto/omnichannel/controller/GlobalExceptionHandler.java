@@ -1,11 +1,14 @@
 package com.concerto.omnichannel.controller;
 
 import com.concerto.omnichannel.dto.ApiResponse;
+import com.concerto.omnichannel.exception.RateLimitExceededException;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -86,6 +89,31 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
     }
 
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiResponse<Object>> handleRateLimitExceededException(RateLimitExceededException ex,
+                                                                                HttpServletRequest request) {
+        // The controller has cleared the MDC by the time the exception gets here
+        String correlationId = MDC.get("correlationId");
+        if (correlationId == null) {
+            correlationId = request.getHeader("X-Correlation-Id");
+        }
+
+        logger.warn("Rate limit exceeded: {}", ex.getMessage());
+
+        ApiResponse<Object> response = ApiResponse.builder()
+                .success(false)
+                .message("Rate limit exceeded")
+                .error(ex.getMessage())
+                .correlationId(correlationId)
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
     @ExceptionHandler(CallNotPermittedException.class)
     public ResponseEntity<ApiResponse<Object>> handleCircuitBreakerException(CallNotPermittedException ex) {
         String correlationId = MDC.get("correlationId");
@@ -1,11 +1,27 @@
 package com.concerto.omnichannel.controller;
 
+import com.concerto.omnichannel.cache.TwoTierCacheManager;
 import com.concerto.omnichannel.dto.TransactionRequest;
 import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.configManager.ReplicaLagMonitor;
 import com.concerto.omnichannel.dto.ApiResponse;
+import com.concerto.omnichannel.exception.IdempotencyKeyReusedException;
+import com.concerto.omnichannel.exception.RateLimitExceededException;
+import com.concerto.omnichannel.service.AuthenticationService;
+import com.concerto.omnichannel.service.ClientLockoutTracker;
+import com.concerto.omnichannel.service.ClientRateLimiter;
+import com.concerto.omnichannel.service.HedgingExecutor;
+import com.concerto.omnichannel.service.IdempotencyService;
 import com.concerto.omnichannel.service.MainOrchestrator;
+import com.concerto.omnichannel.service.OutboxRelay;
+import com.concerto.omnichannel.service.StaleTransactionSweeper;
+import com.concerto.omnichannel.service.StartupWarmup;
+import com.concerto.omnichannel.service.TransactionArchiveService;
 import com.concerto.omnichannel.service.TransactionService;
+import com.concerto.omnichannel.service.TransactionStatusCache;
+import com.concerto.omnichannel.service.VerifiedCredentialCache;
 import com.concerto.omnichannel.utils.ValidationUtils;
+import com.concerto.omnichannel.validation.BusinessRuleValidator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -18,12 +34,20 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -42,6 +66,51 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private StaleTransactionSweeper staleTransactionSweeper;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private TransactionArchiveService archiveService;
+
+    @Autowired
+    private TransactionStatusCache statusCache;
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private VerifiedCredentialCache verifiedCredentialCache;
+
+    @Autowired
+    private ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private ClientRateLimiter rateLimiter;
+
+    @Autowired
+    private ClientLockoutTracker lockoutTracker;
+
+    @Autowired
+    private HedgingExecutor hedgingExecutor;
+
+    @Autowired
+    private StartupWarmup startupWarmup;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private BusinessRuleValidator businessRuleValidator;
+
     @PostMapping("/process")
     @Operation(
             summary = "Process transaction",
@@ -69,10 +138,20 @@ public class TransactionController {
                     description = "Business validation failed",
                     content = @Content(schema = @Schema(implementation = ApiResponse.class))
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "429",
+                    description = "Client rate limit exceeded",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "500",
                     description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ApiResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "503",
+                    description = "Startup warm-up has not completed",
+                    content = @Content(schema = @Schema(implementation = ApiResponse.class))
             )
     })
     public ResponseEntity<ApiResponse<TransactionResponse>> processTransaction(
@@ -85,8 +164,20 @@ public class TransactionController {
             @RequestHeader(value = "Authorization", required = false) String authorizationHeader,
             @Parameter(description = "Request correlation ID for tracking")
             @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
+            @Parameter(description = "Key used to deduplicate retried submissions")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             HttpServletRequest httpRequest) {
 
+        if (!isAcceptingTraffic()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.<TransactionResponse>builder()
+                            .success(false)
+                            .message("Transaction service is warming up")
+                            .timestamp(LocalDateTime.now())
+                            .correlationId(correlationId)
+                            .build());
+        }
+
         logger.info("Received request - ClientId: {}, CorrelationId: {}", clientId, correlationId);
         logger.info("Request body: {}", request);
 
@@ -111,10 +202,17 @@ public class TransactionController {
             // Validate request
             ValidationUtils.validateTransactionRequest(request);
 
-            // Process transaction
-            TransactionResponse response = mainOrchestrator.orchestrate(
-                    request, clientId, clientSecret, jwtToken
-            );
+            // Limit by connection address before authenticating, by verified client after
+            rateLimiter.acquireForAddress(httpRequest.getRemoteAddr(), request.getChannel());
+
+            // Only authenticated clients may use, or see the results of, an idempotency key
+            String principal = mainOrchestrator.authenticate(request, clientId, clientSecret, jwtToken);
+            rateLimiter.acquire(principal, request.getChannel());
+
+            // Process transaction, once per idempotency key
+            String deduplicationKey = idempotencyService.resolveKey(idempotencyKey, principal, request);
+            TransactionResponse response = idempotencyService.execute(deduplicationKey, request,
+                    () -> mainOrchestrator.orchestrate(request, principal));
 
             // Determine HTTP status based on transaction success
             HttpStatus status = response.isSuccess() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY;
@@ -130,10 +228,19 @@ public class TransactionController {
             logger.info("Transaction processing completed with status: {}", response.isSuccess() ? "SUCCESS" : "FAILED");
             return ResponseEntity.status(status).body(apiResponse);
 
+        } catch (RateLimitExceededException e) {
+            // Answered with 429 and Retry-After by GlobalExceptionHandler
+            throw e;
+
         } catch (SecurityException e) {
             logger.error("Authentication failed", e);
             return createErrorResponse(HttpStatus.UNAUTHORIZED, "Authentication failed", correlationId, e);
 
+        } catch (IdempotencyKeyReusedException e) {
+            logger.warn("Idempotency key reused: {}", e.getMessage());
+            return createErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency key reused with a different request",
+                    correlationId, e);
+
         } catch (IllegalArgumentException e) {
             logger.error("Invalid request", e);
             return createErrorResponse(HttpStatus.BAD_REQUEST, "Invalid request: " + e.getMessage(), correlationId, e);
@@ -165,6 +272,16 @@ public class TransactionController {
             @RequestHeader(value = "X-Correlation-Id", required = false) String correlationId,
             HttpServletRequest httpRequest) {
 
+        if (!isAcceptingTraffic()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.<String>builder()
+                            .success(false)
+                            .message("Transaction service is warming up")
+                            .timestamp(LocalDateTime.now())
+                            .correlationId(correlationId)
+                            .build());
+        }
+
         if (correlationId == null || correlationId.isEmpty()) {
             correlationId = UUID.randomUUID().toString();
         }
@@ -175,11 +292,12 @@ public class TransactionController {
         try {
             String jwtToken = extractJwtToken(authorizationHeader);
             ValidationUtils.validateTransactionRequest(request);
+            rateLimiter.acquireForAddress(httpRequest.getRemoteAddr(), request.getChannel());
+            String principal = mainOrchestrator.authenticate(request, clientId, clientSecret, jwtToken);
+            rateLimiter.acquire(principal, request.getChannel());
 
             // Start async processing
-            CompletableFuture<TransactionResponse> futureResponse = mainOrchestrator.orchestrateAsync(
-                    request, clientId, clientSecret, jwtToken
-            );
+            CompletableFuture<TransactionResponse> futureResponse = mainOrchestrator.orchestrateAsync(request, principal);
 
             // Return immediately with correlation ID
             ApiResponse<String> response = ApiResponse.<String>builder()
@@ -193,6 +311,14 @@ public class TransactionController {
             logger.info("Transaction submitted for async processing");
             return ResponseEntity.accepted().body(response);
 
+        } catch (RateLimitExceededException e) {
+            throw e;
+
+        } catch (SecurityException e) {
+            logger.error("Authentication failed", e);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(createErrorApiResponse("Authentication failed", correlationId, e));
+
         } catch (Exception e) {
             logger.error("Failed to submit transaction for async processing", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -238,9 +364,124 @@ public class TransactionController {
         }
     }
 
+    @GetMapping("/archive/correlation/{correlationId}")
+    @Operation(summary = "Find an archived transaction by correlation id")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getArchivedByCorrelationId(
+            @PathVariable String correlationId,
+            @Parameter(description = "Day of the transaction, narrows the search") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String channel) throws IOException {
+
+        return archivedTransactionsResponse(archiveService.findByCorrelationId(correlationId, date, channel));
+    }
+
+    @GetMapping("/archive/rrn/{rrn}")
+    @Operation(summary = "Find an archived transaction by retrieval reference number")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getArchivedByRrn(
+            @PathVariable String rrn,
+            @Parameter(description = "Day of the transaction, narrows the search") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String channel) throws IOException {
+
+        return archivedTransactionsResponse(archiveService.findByRrn(rrn, date, channel));
+    }
+
+    @GetMapping("/archive/stats")
+    @Operation(summary = "Progress of the transaction archiving job")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getArchiveStatistics() {
+        return statisticsResponse(archiveService.getArchiveStatistics(), "Archive");
+    }
+
+    @GetMapping("/statistics/{channel}")
+    @Operation(summary = "Live transaction counts and latency for a channel over the last 1, 5 and 60 minutes")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getChannelStatistics(@PathVariable String channel) {
+        return statisticsResponse(transactionService.getLiveStatistics(channel), "Channel");
+    }
+
+    @GetMapping("/stale-sweeper/stats")
+    @Operation(summary = "Progress of the stale transaction sweeper")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStaleSweeperStatistics() {
+        return statisticsResponse(staleTransactionSweeper.getSweeperStatistics(), "Stale sweeper");
+    }
+
+    @GetMapping("/status-cache/stats")
+    @Operation(summary = "Hit and miss counts of the transaction status cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStatusCacheStatistics() {
+        return statisticsResponse(statusCache.getCacheStatistics(), "Status cache");
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Near cache hits, misses and invalidations per cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCacheStatistics() {
+        return statisticsResponse(cacheManager.getStatistics(), "Cache");
+    }
+
+    @GetMapping("/credential-cache/stats")
+    @Operation(summary = "Hits, misses and invalidations of the verified credential cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCredentialCacheStatistics() {
+        return statisticsResponse(verifiedCredentialCache.getStatistics(), "Credential cache");
+    }
+
+    @GetMapping("/rate-limit/stats")
+    @Operation(summary = "Admitted and rejected requests, and authentication lockouts, on this node")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getRateLimitStatistics() {
+        Map<String, Object> statistics = Map.of(
+                "rateLimiter", rateLimiter.getStatistics(), "lockout", lockoutTracker.getStatistics());
+        return statisticsResponse(statistics, "Rate limit");
+    }
+
+    @GetMapping("/datasource/stats")
+    @Operation(summary = "Read replica lag and how read-only queries were routed")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getDataSourceStatistics() {
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+        Map<String, Object> statistics = monitor != null ? monitor.getStatistics() : Map.of("replicaEnabled", false);
+        return statisticsResponse(statistics, "Data source");
+    }
+
+    @GetMapping("/outbox/stats")
+    @Operation(summary = "Pending events, delivery offset and failures of the outbox relay")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getOutboxStatistics() {
+        return statisticsResponse(outboxRelay.getRelayStatistics(), "Outbox");
+    }
+
+    @GetMapping("/pipeline/stats")
+    @Operation(summary = "Queue depth, throughput and latency per orchestration stage")
+    public ResponseEntity<ApiResponse<Map<String, Map<String, Object>>>> getPipelineStatistics() {
+        return statisticsResponse(mainOrchestrator.getPipelineStatistics(), "Pipeline");
+    }
+
+    @GetMapping("/hedging/stats")
+    @Operation(summary = "Hedges issued, won and skipped, and the hedge threshold, per channel operation")
+    public ResponseEntity<ApiResponse<Map<String, Map<String, Object>>>> getHedgingStatistics() {
+        return statisticsResponse(hedgingExecutor.getHedgingStatistics(), "Hedging");
+    }
+
+    @GetMapping("/warmup/stats")
+    @Operation(summary = "What the startup warm-up loaded and how long each step took")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getWarmupStatistics() {
+        return statisticsResponse(startupWarmup.getStatistics(), "Warm-up");
+    }
+
+    @GetMapping("/business-rules/stats")
+    @Operation(summary = "Business rule validations, violations and compiled rules per channel")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getBusinessRuleStatistics() {
+        return statisticsResponse(businessRuleValidator.getStatistics(), "Business rule");
+    }
+
     @GetMapping("/health")
-    @Operation(summary = "Health check endpoint")
+    @Operation(summary = "Health check endpoint; 503 until startup warm-up has completed")
     public ResponseEntity<ApiResponse<String>> healthCheck() {
+        if (!isAcceptingTraffic()) {
+            ApiResponse<String> response = ApiResponse.<String>builder()
+                    .success(false)
+                    .data("STARTING")
+                    .message("Transaction service is warming up")
+                    .timestamp(LocalDateTime.now())
+                    .build();
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+
         ApiResponse<String> response = ApiResponse.<String>builder()
                 .success(true)
                 .data("OK")
@@ -252,6 +493,10 @@ public class TransactionController {
     }
 
     // Helper methods
+    private boolean isAcceptingTraffic() {
+        return applicationAvailability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+    }
+
     private String extractJwtToken(String authorizationHeader) {
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             return authorizationHeader.substring(7);
@@ -288,6 +533,35 @@ public class TransactionController {
         return ResponseEntity.status(status).body(response);
     }
 
+    private ResponseEntity<ApiResponse<List<Map<String, Object>>>> archivedTransactionsResponse(
+            List<Map<String, Object>> transactions) {
+
+        ApiResponse<List<Map<String, Object>>> response = ApiResponse.<List<Map<String, Object>>>builder()
+                .success(!transactions.isEmpty())
+                .data(transactions)
+                .message(transactions.isEmpty() ? "Archived transaction not found" : "Archived transaction retrieved successfully")
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return transactions.isEmpty()
+                ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(response)
+                : ResponseEntity.ok(response);
+    }
+
+    /**
+     * Wrap a component's statistics in the standard successful response
+     */
+    private <T> ResponseEntity<ApiResponse<T>> statisticsResponse(T statistics, String component) {
+        ApiResponse<T> response = ApiResponse.<T>builder()
+                .success(true)
+                .data(statistics)
+                .message(component + " statistics retrieved successfully")
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
     private ApiResponse<String> createErrorApiResponse(String message, String correlationId, Exception e) {
         return ApiResponse.<String>builder()
                 .success(false)
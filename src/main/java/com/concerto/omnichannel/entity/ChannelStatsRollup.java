@@ -0,0 +1,83 @@
+package com.concerto.omnichannel.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "channel_stats_rollup", indexes = {
+        @Index(name = "idx_rollup_channel_bucket", columnList = "channel, bucket_start")
+})
+public class ChannelStatsRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+
+    @Column(name = "channel", nullable = false, length = 50)
+    private String channel;
+
+    @Column(name = "status", nullable = false, length = 50)
+    private String status;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "latency_sum_ms", nullable = false)
+    private long latencySumMs;
+
+    @Column(name = "p95_latency_ms")
+    private Long p95LatencyMs;
+
+    // LatencyHistogram.encode() of the success latencies, so windows can be merged across nodes
+    @Column(name = "latency_buckets", length = 2000)
+    private String latencyBuckets;
+
+    // Constructors
+    public ChannelStatsRollup() {}
+
+    public ChannelStatsRollup(String nodeId, String channel, String status, LocalDateTime bucketStart,
+                              long transactionCount, long latencySumMs, Long p95LatencyMs, String latencyBuckets) {
+        this.nodeId = nodeId;
+        this.channel = channel;
+        this.status = status;
+        this.bucketStart = bucketStart;
+        this.transactionCount = transactionCount;
+        this.latencySumMs = latencySumMs;
+        this.p95LatencyMs = p95LatencyMs;
+        this.latencyBuckets = latencyBuckets;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+
+    public long getTransactionCount() { return transactionCount; }
+    public void setTransactionCount(long transactionCount) { this.transactionCount = transactionCount; }
+
+    public long getLatencySumMs() { return latencySumMs; }
+    public void setLatencySumMs(long latencySumMs) { this.latencySumMs = latencySumMs; }
+
+    public Long getP95LatencyMs() { return p95LatencyMs; }
+    public void setP95LatencyMs(Long p95LatencyMs) { this.p95LatencyMs = p95LatencyMs; }
+
+    public String getLatencyBuckets() { return latencyBuckets; }
+    public void setLatencyBuckets(String latencyBuckets) { this.latencyBuckets = latencyBuckets; }
+}
@@ -1,6 +1,7 @@
 package com.concerto.omnichannel.entity;
 
 
+import com.concerto.omnichannel.service.ClientCredentialsChangeListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -8,6 +9,7 @@ import java.util.Objects;
 @Entity
 @Table(name = "client_credentials",
         uniqueConstraints = @UniqueConstraint(columnNames = {"clientId", "channelId"}))
+@EntityListeners(ClientCredentialsChangeListener.class)
 public class ClientCredentials {
 
     @Id
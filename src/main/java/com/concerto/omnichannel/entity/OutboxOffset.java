@@ -0,0 +1,45 @@
+package com.concerto.omnichannel.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_offset")
+public class OutboxOffset {
+
+    @Id
+    @Column(name = "sink_name", length = 100)
+    private String sinkName;
+
+    // Highest event id delivered so far. Not a resume point: ids can commit out of order, so
+    // delivery is tracked per event (outbox_event.published_at)
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    @Column(name = "delivered_count", nullable = false)
+    private long deliveredCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public OutboxOffset() {}
+
+    public OutboxOffset(String sinkName) {
+        this.sinkName = sinkName;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getSinkName() { return sinkName; }
+    public void setSinkName(String sinkName) { this.sinkName = sinkName; }
+
+    public long getLastEventId() { return lastEventId; }
+    public void setLastEventId(long lastEventId) { this.lastEventId = lastEventId; }
+
+    public long getDeliveredCount() { return deliveredCount; }
+    public void setDeliveredCount(long deliveredCount) { this.deliveredCount = deliveredCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -8,12 +8,19 @@ import java.util.Objects;
 @Table(name = "transaction_detail")
 public class TransactionDetail {
 
+    /** Must match INCREMENT BY of transaction_detail_seq */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_detail_seq")
+    @SequenceGenerator(name = "transaction_detail_seq", sequenceName = "transaction_detail_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "transaction_header_id", nullable = false)
+    // No database FK: transaction_header is partitioned and its primary key includes request_timestamp
+    @JoinColumn(name = "transaction_header_id", nullable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private TransactionHeader transactionHeader;
 
     @Column(name = "field_name", nullable = false, length = 100)
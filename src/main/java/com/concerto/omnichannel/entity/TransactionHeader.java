@@ -1,9 +1,13 @@
 package com.concerto.omnichannel.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Entity
@@ -14,11 +18,17 @@ import java.util.Objects;
 })
 public class TransactionHeader {
 
+    /** Must match INCREMENT BY of transaction_header_seq */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_header_seq")
+    @SequenceGenerator(name = "transaction_header_seq", sequenceName = "transaction_header_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    @Column(name = "correlation_id", unique = true, nullable = false, length = 100)
+    // Unique only together with request_timestamp: a partitioned table cannot enforce uniqueness without the partition key
+    @Column(name = "correlation_id", nullable = false, length = 100)
     private String correlationId;
 
     @Column(name = "channel", nullable = false, length = 50)
@@ -69,6 +79,11 @@ public class TransactionHeader {
     @Column(name = "retry_count", nullable = false)
     private int retryCount = 0;
 
+    // Additional fields when stored in JSONB mode; sensitive values are encrypted in place
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "additional_fields", columnDefinition = "jsonb")
+    private Map<String, Object> additionalFields;
+
     @OneToMany(mappedBy = "transactionHeader", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<TransactionDetail> transactionDetails;
 
@@ -152,6 +167,9 @@ public class TransactionHeader {
     public int getRetryCount() { return retryCount; }
     public void setRetryCount(int retryCount) { this.retryCount = retryCount; }
 
+    public Map<String, Object> getAdditionalFields() { return additionalFields; }
+    public void setAdditionalFields(Map<String, Object> additionalFields) { this.additionalFields = additionalFields; }
+
     public List<TransactionDetail> getTransactionDetails() { return transactionDetails; }
     public void setTransactionDetails(List<TransactionDetail> transactionDetails) { this.transactionDetails = transactionDetails; }
 
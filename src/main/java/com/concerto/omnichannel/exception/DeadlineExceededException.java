@@ -0,0 +1,18 @@
+package com.concerto.omnichannel.exception;
+
+/**
+ * Thrown when a transaction's end-to-end deadline expires before a stage could run or finish.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage) {
+        super("Transaction deadline exceeded (timeout) at stage: " + stage);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
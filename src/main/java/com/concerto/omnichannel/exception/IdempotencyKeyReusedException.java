@@ -0,0 +1,11 @@
+package com.concerto.omnichannel.exception;
+
+/**
+ * Thrown when an idempotency key is sent again with a request body that differs from the first one.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency key " + idempotencyKey + " was already used for a different request");
+    }
+}
@@ -0,0 +1,23 @@
+package com.concerto.omnichannel.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a client sends requests on a channel faster than its rate limit allows.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String clientId, String channelId, Duration retryAfter) {
+        super("Rate limit exceeded for client: " + clientId + " on channel: " + channelId);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Time until the next request would be admitted
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,221 @@
+package com.concerto.omnichannel.handlers.bbps;
+
+import com.concerto.omnichannel.cache.CacheInvalidationBroadcaster;
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.exception.DeadlineExceededException;
+import com.concerto.omnichannel.utils.Deadline;
+import com.concerto.omnichannel.utils.ExpiringCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces identical BBPS fetchBill lookups and keeps successful bills for a short TTL.
+ * <p>
+ * Bills are keyed by biller, consumer parameters and the client that fetched them, since a fetch
+ * response carries that client's BBPS reference ids. A successful payment drops the bill for
+ * every client on this node and is broadcast so other nodes drop it too; a fetch that was in
+ * flight when a payment was recorded is returned to its callers but not kept.
+ */
+@Component
+public class BBPSBillCache {
+
+    public static final String CACHE_NAME = "bbpsBills";
+
+    private static final Logger logger = LoggerFactory.getLogger(BBPSBillCache.class);
+    private static final String FETCH_BILL = "fetchBill";
+
+    private final Map<String, CompletableFuture<String>> inFlightFetches = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a fetch racing with it is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheInvalidationBroadcaster invalidationBroadcaster;
+
+    @Value("${bbps.bill-cache.ttl.ms:30000}")
+    private long ttlMs;
+
+    @Value("${bbps.bill-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private ExpiringCache<String, CachedBill> bills;
+
+    // Invalidation count at which each recently paid bill was dropped; copies fetched earlier are stale for every client
+    private ExpiringCache<String, Long> paidBills;
+
+    @PostConstruct
+    public void initialize() {
+        bills = new ExpiringCache<>(maxEntries, Duration.ofMillis(ttlMs));
+        paidBills = new ExpiringCache<>(maxEntries, Duration.ofMillis(ttlMs));
+
+        invalidationBroadcaster.addInvalidationListener((cacheName, key) -> {
+            if (CACHE_NAME.equals(cacheName)) {
+                invalidateLocally(key);
+            }
+        });
+    }
+
+    /**
+     * Check if the request is a BBPS fetchBill lookup
+     */
+    public boolean isBillFetch(TransactionRequest request) {
+        return "BBPS".equalsIgnoreCase(request.getChannel()) &&
+                FETCH_BILL.equalsIgnoreCase(request.getOperation());
+    }
+
+    /**
+     * Return the client's cached bill, join an identical in-flight lookup of the client, or run the fetcher
+     *
+     * @param clientId the authenticated client; without one the lookup is neither cached nor shared
+     * @param deadline bounds the wait for an in-flight lookup
+     */
+    public String fetch(TransactionRequest request, String clientId, Deadline deadline,
+                        Callable<String> fetcher) throws Exception {
+        String billKey = billKey(request);
+        if (billKey == null || clientId == null) {
+            return fetcher.call();
+        }
+        String key = billKey + "#" + clientId;
+
+        CachedBill cachedBill = bills.get(key);
+        if (cachedBill != null && isCurrent(billKey, cachedBill)) {
+            logger.debug("Serving BBPS bill from cache for key {}", key);
+            return cachedBill.payload;
+        }
+
+        CompletableFuture<String> ownFetch = new CompletableFuture<>();
+        CompletableFuture<String> inFlightFetch = inFlightFetches.putIfAbsent(key, ownFetch);
+        if (inFlightFetch != null) {
+            logger.debug("Joining in-flight BBPS bill fetch for key {}", key);
+            return join(inFlightFetch, deadline);
+        }
+
+        try {
+            long fetchedAt = invalidations.get();
+            String responsePayload = fetcher.call();
+            if (isSuccessfulBill(responsePayload) && fetchedAt == invalidations.get()) {
+                bills.put(key, new CachedBill(responsePayload, fetchedAt));
+            }
+            ownFetch.complete(responsePayload);
+            return responsePayload;
+        } catch (Exception e) {
+            ownFetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightFetches.remove(key, ownFetch);
+        }
+    }
+
+    /**
+     * Drop the bill for all clients and nodes once a payment against it has succeeded
+     */
+    public void onTransactionCompleted(TransactionRequest request, TransactionResponse response) {
+        if (!"BBPS".equalsIgnoreCase(request.getChannel()) || isBillFetch(request) || !response.isSuccess()) {
+            return;
+        }
+
+        String billKey = billKey(request);
+        if (billKey != null) {
+            invalidateLocally(billKey);
+            invalidationBroadcaster.publishEvict(CACHE_NAME, billKey);
+            logger.debug("Invalidated cached BBPS bill for key {}", billKey);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bbps.bill-cache.cleanup.interval.ms:60000}")
+    public void evictExpiredBills() {
+        bills.cleanUp();
+        paidBills.cleanUp();
+    }
+
+    private void invalidateLocally(String billKey) {
+        if (paidBills.size() >= maxEntries) {
+            // A paid-bill marker dropped to make room could bring its stale bills back, so drop them all instead
+            bills.clear();
+        }
+        paidBills.put(billKey, invalidations.incrementAndGet());
+    }
+
+    private boolean isCurrent(String billKey, CachedBill bill) {
+        Long paidAt = paidBills.get(billKey);
+        return paidAt == null || bill.fetchedAt >= paidAt;
+    }
+
+    private String billKey(TransactionRequest request) {
+        if (request.getPayload() == null || request.getPayload().getAccountNumber() == null) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder();
+        Map<String, Object> additionalFields = request.getPayload().getAdditionalFields();
+        Object billerId = additionalFields != null ? additionalFields.get("billerId") : null;
+        key.append(billerId != null ? billerId : "-")
+                .append(':')
+                .append(request.getPayload().getAccountNumber());
+
+        // Consumer parameters identify the bill alongside the account, in a stable order
+        Object customerParams = additionalFields != null ? additionalFields.get("customerParams") : null;
+        if (customerParams instanceof Map<?, ?> params) {
+            new TreeMap<>(params).forEach((name, value) -> key.append(':').append(name).append('=').append(value));
+        }
+
+        return key.toString();
+    }
+
+    private boolean isSuccessfulBill(String responsePayload) {
+        try {
+            JsonNode response = objectMapper.readTree(responsePayload);
+            if (response.has("success")) {
+                return response.get("success").asBoolean();
+            }
+            return "SUCCESS".equalsIgnoreCase(response.path("status").asText());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String join(CompletableFuture<String> inFlightFetch, Deadline deadline) throws Exception {
+        try {
+            return inFlightFetch.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("bbps-bill-fetch");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class CachedBill {
+        private final String payload;
+        private final long fetchedAt;
+
+        private CachedBill(String payload, long fetchedAt) {
+            this.payload = payload;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
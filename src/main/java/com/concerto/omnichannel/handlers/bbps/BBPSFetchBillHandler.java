@@ -25,6 +25,9 @@ public class BBPSFetchBillHandler implements OperationHandler {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private BBPSBillCache billCache;
+
     @Override
     public TransactionResponse handle(TransactionRequest request) {
         logger.info("Processing BBPS fetch bill request");
@@ -36,8 +39,8 @@ public class BBPSFetchBillHandler implements OperationHandler {
             // Convert request to JSON payload
             String requestPayload = objectMapper.writeValueAsString(request);
 
-            // Process through connector
-            String responsePayload = connector.process(requestPayload);
+            // Process through connector; without an authenticated client the bill cache is not used
+            String responsePayload = billCache.fetch(request, null, null, () -> connector.process(requestPayload));
 
             // Parse connector response
             @SuppressWarnings("unchecked")
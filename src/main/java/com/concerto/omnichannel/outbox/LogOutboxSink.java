@@ -0,0 +1,54 @@
+package com.concerto.omnichannel.outbox;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes events as JSON lines to a local file, or to the log when no file is configured.
+ * Meant for local runs and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink.type", havingValue = "log", matchIfMissing = true)
+public class LogOutboxSink implements OutboxSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogOutboxSink.class);
+
+    @Value("${outbox.sink.log.file:}")
+    private String file;
+
+    @Override
+    public String getName() {
+        return "log";
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws Exception {
+        if (file.isBlank()) {
+            events.forEach(event -> logger.debug("Outbox event {} {}: {}", event.getId(), event.getEventType(), event.getPayload()));
+            return;
+        }
+
+        Path path = Path.of(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxEvent event : events) {
+                writer.write(event.getPayload());
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.concerto.omnichannel.outbox;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination for transaction events relayed from the outbox.
+ * <p>
+ * Delivery is at least once: a batch is published before it is marked in the outbox, so a
+ * crash in between publishes it again. Consumers deduplicate on the event id.
+ */
+public interface OutboxSink {
+
+    /**
+     * Name under which delivery totals are recorded
+     */
+    String getName();
+
+    /**
+     * Publish the batch in id order; throw if any event could not be delivered
+     */
+    void publish(List<OutboxEvent> events) throws Exception;
+}
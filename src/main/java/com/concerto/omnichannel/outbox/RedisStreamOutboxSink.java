@@ -0,0 +1,67 @@
+package com.concerto.omnichannel.outbox;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends events to a Redis stream in one pipelined round trip per batch.
+ * Downstream consumers read the stream with their own consumer groups.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink.type", havingValue = "redis-stream")
+public class RedisStreamOutboxSink implements OutboxSink {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${outbox.sink.redis-stream.key:transaction-events}")
+    private String streamKey;
+
+    @Value("${outbox.sink.redis-stream.max-length:1000000}")
+    private long maxLength;
+
+    @Override
+    public String getName() {
+        return "redis-stream:" + streamKey;
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (OutboxEvent event : events) {
+                    operations.opsForStream().add(toRecord(event));
+                }
+                return null;
+            }
+        });
+        stringRedisTemplate.opsForStream().trim(streamKey, maxLength, true);
+    }
+
+    private MapRecord<String, String, String> toRecord(OutboxEvent event) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("eventId", String.valueOf(event.getId()));
+        fields.put("eventType", event.getEventType());
+        fields.put("transactionId", String.valueOf(event.getAggregateId()));
+        fields.put("correlationId", event.getCorrelationId());
+        fields.put("channel", event.getChannel());
+        fields.put("status", event.getStatus());
+        fields.put("payload", event.getPayload());
+        return StreamRecords.string(fields).withStreamKey(streamKey);
+    }
+}
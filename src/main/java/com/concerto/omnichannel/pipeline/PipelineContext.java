@@ -0,0 +1,11 @@
+package com.concerto.omnichannel.pipeline;
+
+import com.concerto.omnichannel.utils.Deadline;
+
+/**
+ * State carried through a {@link TransactionPipeline}; every stage runs within its deadline.
+ */
+public interface PipelineContext {
+
+    Deadline getDeadline();
+}
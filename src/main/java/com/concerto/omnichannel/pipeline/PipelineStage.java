@@ -0,0 +1,160 @@
+package com.concerto.omnichannel.pipeline;
+
+import com.concerto.omnichannel.exception.DeadlineExceededException;
+import com.concerto.omnichannel.utils.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * One step of a {@link TransactionPipeline} with its own bounded queue, worker pool and metrics.
+ * <p>
+ * A full queue rejects the transaction instead of blocking the previous stage, and a stage
+ * never runs past the context deadline or its own timeout.
+ */
+public class PipelineStage<C extends PipelineContext> {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final UnaryOperator<C> handler;
+    private final Function<C, Duration> timeout;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+    /**
+     * @param timeout per-transaction stage timeout, or null to rely on the context deadline only
+     */
+    public PipelineStage(String name, int threads, int queueCapacity,
+                         UnaryOperator<C> handler, Function<C, Duration> timeout) {
+        this.name = name;
+        this.handler = handler;
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads(name),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Queue the context on this stage
+     */
+    public CompletableFuture<C> submit(C context) {
+        submitted.increment();
+        CompletableFuture<C> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> run(context, result, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException("Pipeline stage " + name + " is saturated", e));
+            return result;
+        }
+
+        long budgetMs = context.getDeadline().remainingMillis();
+        if (timeout != null) {
+            budgetMs = Math.min(budgetMs, timeout.apply(context).toMillis());
+        }
+        result.orTimeout(Math.max(1, budgetMs), TimeUnit.MILLISECONDS);
+
+        result.whenComplete((value, error) -> {
+            if (error != null && !task.isDone()) {
+                // Timed out or cancelled: stop the worker rather than let it finish unused work
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queue, concurrency and latency figures for this stage
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("threads", executor.getMaximumPoolSize());
+        statistics.put("active", executor.getActiveCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        statistics.put("submitted", submitted.sum());
+        statistics.put("completed", completed.sum());
+        statistics.put("failed", failed.sum());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("timedOut", timedOut.sum());
+        statistics.put("queueWaitMeanMs", queueWait.getMean());
+        statistics.put("queueWaitP99Ms", queueWait.getPercentile(99));
+        statistics.put("serviceTimeMeanMs", serviceTime.getMean());
+        statistics.put("serviceTimeP99Ms", serviceTime.getPercentile(99));
+        return statistics;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void run(C context, CompletableFuture<C> result, long enqueuedAt) {
+        long startedAt = System.nanoTime();
+        queueWait.record(TimeUnit.NANOSECONDS.toMillis(startedAt - enqueuedAt));
+
+        if (result.isDone()) {
+            // Expired or cancelled while queued
+            timedOut.increment();
+            return;
+        }
+
+        try {
+            context.getDeadline().checkNotExpired(name);
+            C next = handler.apply(context);
+            if (result.complete(next)) {
+                completed.increment();
+            }
+        } catch (Throwable e) {
+            failed.increment();
+            result.completeExceptionally(e);
+        } finally {
+            serviceTime.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+    }
+
+    /**
+     * Translate a stage failure into the exception the caller should see
+     */
+    Throwable unwrapFailure(Throwable error) {
+        if (error instanceof TimeoutException) {
+            timedOut.increment();
+            return new DeadlineExceededException(name);
+        }
+        return error;
+    }
+
+    private static ThreadFactory namedThreads(String stageName) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "Pipeline-" + stageName + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.concerto.omnichannel.pipeline;
+
+import com.concerto.omnichannel.connector.Connector;
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.utils.Deadline;
+
+/**
+ * Per-transaction state handed from stage to stage by the orchestration pipeline.
+ */
+public class TransactionContext implements PipelineContext {
+
+    private final TransactionRequest request;
+    private final String clientId;
+    private final String correlationId;
+    private final Deadline deadline;
+
+    private TransactionHeader header;
+    private Connector connector;
+    private String responsePayload;
+    private TransactionResponse response;
+
+    /**
+     * @param clientId the client the request was authenticated for
+     */
+    public TransactionContext(TransactionRequest request, String clientId, String correlationId, Deadline deadline) {
+        this.request = request;
+        this.clientId = clientId;
+        this.correlationId = correlationId;
+        this.deadline = deadline;
+    }
+
+    public TransactionRequest getRequest() { return request; }
+    public String getClientId() { return clientId; }
+    public String getCorrelationId() { return correlationId; }
+
+    @Override
+    public Deadline getDeadline() { return deadline; }
+
+    public TransactionHeader getHeader() { return header; }
+    public void setHeader(TransactionHeader header) { this.header = header; }
+
+    public Connector getConnector() { return connector; }
+    public void setConnector(Connector connector) { this.connector = connector; }
+
+    public String getResponsePayload() { return responsePayload; }
+    public void setResponsePayload(String responsePayload) { this.responsePayload = responsePayload; }
+
+    public TransactionResponse getResponse() { return response; }
+    public void setResponse(TransactionResponse response) { this.response = response; }
+}
@@ -0,0 +1,78 @@
+package com.concerto.omnichannel.pipeline;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a context through an ordered list of stages, handing it from one stage's pool to the next.
+ * No thread waits for a downstream stage; the returned future completes when the last stage does.
+ */
+public class TransactionPipeline<C extends PipelineContext> {
+
+    private final List<PipelineStage<C>> stages;
+
+    public TransactionPipeline(List<PipelineStage<C>> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    /**
+     * Start the context on the first stage. Completing the returned future early
+     * (cancel, timeout) stops the stage that is currently running.
+     */
+    public CompletableFuture<C> execute(C context) {
+        CompletableFuture<C> outcome = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<C>> currentStage = new AtomicReference<>();
+
+        outcome.whenComplete((value, error) -> {
+            CompletableFuture<C> running = currentStage.get();
+            if (error != null && running != null && !running.isDone()) {
+                running.cancel(true);
+            }
+        });
+
+        advance(0, context, outcome, currentStage);
+        return outcome;
+    }
+
+    /**
+     * Statistics for every stage, in pipeline order
+     */
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        stages.forEach(stage -> statistics.put(stage.getName(), stage.getStatistics()));
+        return statistics;
+    }
+
+    public void shutdown() {
+        stages.forEach(PipelineStage::shutdown);
+    }
+
+    private void advance(int index, C context, CompletableFuture<C> outcome,
+                         AtomicReference<CompletableFuture<C>> currentStage) {
+        if (outcome.isDone()) {
+            return;
+        }
+        if (index == stages.size()) {
+            outcome.complete(context);
+            return;
+        }
+
+        PipelineStage<C> stage = stages.get(index);
+        CompletableFuture<C> stageResult = stage.submit(context);
+        currentStage.set(stageResult);
+
+        stageResult.whenComplete((next, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                outcome.completeExceptionally(stage.unwrapFailure(cause));
+            } else {
+                advance(index + 1, next, outcome, currentStage);
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.concerto.omnichannel.repository;
+
+import com.concerto.omnichannel.entity.ChannelStatsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChannelStatsRollupRepository extends JpaRepository<ChannelStatsRollup, Long> {
+
+    @Query("SELECT r FROM ChannelStatsRollup r WHERE r.channel = :channel AND r.bucketStart >= :since ORDER BY r.bucketStart")
+    List<ChannelStatsRollup> findByChannelSince(@Param("channel") String channel, @Param("since") LocalDateTime since);
+
+    @Query("SELECT r FROM ChannelStatsRollup r WHERE r.bucketStart >= :since")
+    List<ChannelStatsRollup> findAllSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT MIN(r.bucketStart) FROM ChannelStatsRollup r WHERE r.channel = :channel")
+    LocalDateTime findEarliestBucketStart(@Param("channel") String channel);
+
+    @Modifying
+    @Query("DELETE FROM ChannelStatsRollup r WHERE r.bucketStart < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
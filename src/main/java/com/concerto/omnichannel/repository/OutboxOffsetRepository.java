@@ -0,0 +1,28 @@
+package com.concerto.omnichannel.repository;
+
+import com.concerto.omnichannel.entity.OutboxOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+
+    // One atomic upsert: concurrent batches add up instead of overwriting each other
+    @Modifying
+    @Query(value = "INSERT INTO outbox_offset (sink_name, last_event_id, delivered_count, updated_at) " +
+            "VALUES (:sinkName, :highestEventId, :delivered, :now) " +
+            "ON CONFLICT (sink_name) DO UPDATE SET " +
+            "last_event_id = GREATEST(outbox_offset.last_event_id, EXCLUDED.last_event_id), " +
+            "delivered_count = outbox_offset.delivered_count + EXCLUDED.delivered_count, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int recordDelivery(@Param("sinkName") String sinkName,
+                       @Param("highestEventId") long highestEventId,
+                       @Param("delivered") long delivered,
+                       @Param("now") LocalDateTime now);
+}
@@ -2,6 +2,7 @@ package com.concerto.omnichannel.repository;
 
 import com.concerto.omnichannel.entity.TransactionDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,7 +11,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TransactionDetailRepository extends JpaRepository<TransactionDetail, Long> {
+public interface TransactionDetailRepository extends JpaRepository<TransactionDetail, Long>, TransactionDetailRepositoryCustom {
 
     List<TransactionDetail> findByTransactionHeaderId(Long transactionHeaderId);
 
@@ -32,6 +33,13 @@ public interface TransactionDetailRepository extends JpaRepository<TransactionDe
     @Query("SELECT DISTINCT d.fieldName FROM TransactionDetail d WHERE d.transactionHeader.channel = :channel")
     List<String> findDistinctFieldNamesByChannel(@Param("channel") String channel);
 
+    @Query("SELECT d.transactionHeader.id, d.fieldName, d.fieldValue FROM TransactionDetail d WHERE d.transactionHeader.id IN :transactionHeaderIds")
+    List<Object[]> findFieldValuesByTransactionHeaderIds(@Param("transactionHeaderIds") List<Long> transactionHeaderIds);
+
+    @Modifying
+    @Query("DELETE FROM TransactionDetail d WHERE d.transactionHeader.id IN :transactionHeaderIds")
+    int deleteByTransactionHeaderIds(@Param("transactionHeaderIds") List<Long> transactionHeaderIds);
+
     @Query("DELETE FROM TransactionDetail d WHERE d.transactionHeader.id = :transactionHeaderId")
     void deleteByTransactionHeaderId(@Param("transactionHeaderId") Long transactionHeaderId);
 }
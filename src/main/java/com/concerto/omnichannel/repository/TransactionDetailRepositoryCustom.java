@@ -0,0 +1,16 @@
+package com.concerto.omnichannel.repository;
+
+import com.concerto.omnichannel.entity.TransactionDetail;
+
+import java.util.List;
+
+public interface TransactionDetailRepositoryCustom {
+
+    /**
+     * Insert all details with JDBC batching instead of one INSERT per row.
+     * The owning header must already be written to the database.
+     *
+     * @return number of database round trips used
+     */
+    int insertAllBatched(List<TransactionDetail> details);
+}
@@ -0,0 +1,87 @@
+package com.concerto.omnichannel.repository;
+
+import com.concerto.omnichannel.entity.TransactionDetail;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC writer for transaction details. With {@code reWriteBatchedInserts=true} on the
+ * PostgreSQL URL each batch reaches the server as a single multi-row INSERT.
+ */
+public class TransactionDetailRepositoryImpl implements TransactionDetailRepositoryCustom {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionDetailRepositoryImpl.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transaction_detail (id, transaction_header_id, field_name, field_value, field_type, " +
+            "is_sensitive, is_encrypted, created_timestamp, remarks) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Each value is the low end of a block of ID_ALLOCATION_SIZE ids (pooled-lo, same as Hibernate)
+    private static final String NEXT_ID_BLOCKS_SQL =
+            "SELECT nextval('transaction_detail_seq') FROM generate_series(1, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:20}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public int insertAllBatched(List<TransactionDetail> details) {
+        if (details.isEmpty()) {
+            return 0;
+        }
+
+        // Header inserts are deferred with sequence ids; write them before rows that reference them
+        entityManager.flush();
+        assignIds(details);
+
+        LocalDateTime now = LocalDateTime.now();
+        int[][] batches = jdbcTemplate.batchUpdate(INSERT_SQL, details, batchSize, (ps, detail) -> {
+            if (detail.getCreatedTimestamp() == null) {
+                detail.setCreatedTimestamp(now);
+            }
+            ps.setLong(1, detail.getId());
+            ps.setLong(2, detail.getTransactionHeader().getId());
+            ps.setString(3, detail.getFieldName());
+            ps.setString(4, detail.getFieldValue());
+            ps.setString(5, detail.getFieldType());
+            ps.setBoolean(6, detail.isSensitive());
+            ps.setBoolean(7, detail.isEncrypted());
+            ps.setTimestamp(8, Timestamp.valueOf(detail.getCreatedTimestamp()));
+            if (detail.getRemarks() != null) {
+                ps.setString(9, detail.getRemarks());
+            } else {
+                ps.setNull(9, Types.VARCHAR);
+            }
+        });
+
+        logger.debug("Inserted {} transaction details in {} batch(es)", details.size(), batches.length);
+        return batches.length;
+    }
+
+    private void assignIds(List<TransactionDetail> details) {
+        int blockSize = TransactionDetail.ID_ALLOCATION_SIZE;
+        int blocksNeeded = (details.size() + blockSize - 1) / blockSize;
+        List<Long> blockStarts = jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocksNeeded);
+
+        for (int i = 0; i < details.size(); i++) {
+            details.get(i).setId(blockStarts.get(i / blockSize) + (i % blockSize));
+        }
+    }
+}
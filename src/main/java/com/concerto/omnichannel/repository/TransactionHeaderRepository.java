@@ -4,9 +4,11 @@ import com.concerto.omnichannel.entity.TransactionHeader;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,7 +17,8 @@ import java.util.Optional;
 @Repository
 public interface TransactionHeaderRepository extends JpaRepository<TransactionHeader, Long> {
 
-    Optional<TransactionHeader> findByCorrelationId(String correlationId);
+    // correlation_id is only unique together with the partition key, so a duplicate must not break the lookup
+    Optional<TransactionHeader> findFirstByCorrelationIdOrderByRequestTimestampDesc(String correlationId);
 
     List<TransactionHeader> findByChannel(String channel);
 
@@ -36,6 +39,8 @@ public interface TransactionHeaderRepository extends JpaRepository<TransactionHe
     @Query("SELECT t FROM TransactionHeader t WHERE t.clientId = :clientId ORDER BY t.requestTimestamp DESC")
     Page<TransactionHeader> findByClientId(@Param("clientId") String clientId, Pageable pageable);
 
+    // Reporting queries run read-only so they are routed to the read replica when one is configured
+    @Transactional(readOnly = true)
     @Query("SELECT t FROM TransactionHeader t WHERE t.merchantId = :merchantId AND t.requestTimestamp BETWEEN :startDate AND :endDate")
     List<TransactionHeader> findByMerchantIdAndDateRange(
             @Param("merchantId") String merchantId,
@@ -50,15 +55,121 @@ public interface TransactionHeaderRepository extends JpaRepository<TransactionHe
             @Param("since") LocalDateTime since
     );
 
-    @Query("SELECT t FROM TransactionHeader t WHERE t.status IN :statuses AND t.requestTimestamp < :before")
-    List<TransactionHeader> findStaleTransactions(@Param("statuses") List<String> statuses, @Param("before") LocalDateTime before);
+    // Bounded on both sides so only the partitions inside the window are scanned
+    @Query("SELECT t FROM TransactionHeader t WHERE t.status IN :statuses AND t.requestTimestamp >= :from AND t.requestTimestamp < :before")
+    List<TransactionHeader> findStaleTransactions(
+            @Param("statuses") List<String> statuses,
+            @Param("from") LocalDateTime from,
+            @Param("before") LocalDateTime before
+    );
+
+    // Keyset page: resume after the last id seen instead of using OFFSET
+    @Query("SELECT t FROM TransactionHeader t WHERE t.status IN :statuses AND t.requestTimestamp >= :from AND t.requestTimestamp < :before AND t.id > :afterId ORDER BY t.id")
+    List<TransactionHeader> findStaleTransactionsAfter(
+            @Param("statuses") List<String> statuses,
+            @Param("from") LocalDateTime from,
+            @Param("before") LocalDateTime before,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    // Only moves rows still in one of the expected statuses, so a late completion is never overwritten.
+    // Native because each row's processing time is computed from its own request timestamp; a bulk
+    // update skips the @PreUpdate callback that sets it on entity saves.
+    @Modifying
+    @Query(value = "UPDATE transaction_header SET status = :status, error_message = :errorMessage, response_timestamp = :now, " +
+            "processing_time_ms = CAST(EXTRACT(EPOCH FROM (CAST(:now AS timestamp) - request_timestamp)) * 1000 AS BIGINT) " +
+            "WHERE id IN :ids AND status IN :expectedStatuses AND request_timestamp >= :from",
+            nativeQuery = true)
+    int bulkUpdateStatus(
+            @Param("ids") List<Long> ids,
+            @Param("expectedStatuses") List<String> expectedStatuses,
+            @Param("status") String status,
+            @Param("errorMessage") String errorMessage,
+            @Param("now") LocalDateTime now,
+            @Param("from") LocalDateTime from
+    );
+
+    // Conditional transition of one transaction: the caller learns from the count whether it still owned the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE TransactionHeader t SET t.status = :status " +
+            "WHERE t.id = :id AND t.status = :expectedStatus AND t.requestTimestamp BETWEEN :from AND :to")
+    int advanceStatus(
+            @Param("id") Long id,
+            @Param("expectedStatus") String expectedStatus,
+            @Param("status") String status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    // Sets processingTimeMs itself: a bulk update skips the @PreUpdate callback that computes it on entity saves
+    @Modifying
+    @Query("UPDATE TransactionHeader t SET t.status = :status, t.errorCode = :errorCode, t.errorMessage = :errorMessage, " +
+            "t.responseTimestamp = :now, t.processingTimeMs = :processingTimeMs, " +
+            "t.externalReference = COALESCE(:externalReference, t.externalReference) " +
+            "WHERE t.id = :id AND t.status IN :expectedStatuses AND t.requestTimestamp BETWEEN :from AND :to")
+    int completeIfInStatus(
+            @Param("id") Long id,
+            @Param("expectedStatuses") List<String> expectedStatuses,
+            @Param("status") String status,
+            @Param("errorCode") String errorCode,
+            @Param("errorMessage") String errorMessage,
+            @Param("now") LocalDateTime now,
+            @Param("processingTimeMs") Long processingTimeMs,
+            @Param("externalReference") String externalReference,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
 
     @Query("SELECT DISTINCT t.channel FROM TransactionHeader t")
     List<String> findDistinctChannels();
 
+    @Transactional(readOnly = true)
     @Query("SELECT AVG(t.processingTimeMs) FROM TransactionHeader t WHERE t.channel = :channel AND t.status = 'SUCCESS' AND t.requestTimestamp >= :since")
     Double findAverageProcessingTimeByChannel(@Param("channel") String channel, @Param("since") LocalDateTime since);
 
+    @Transactional(readOnly = true)
     @Query("SELECT t.status, COUNT(t) FROM TransactionHeader t WHERE t.channel = :channel AND t.requestTimestamp >= :since GROUP BY t.status")
     List<Object[]> findTransactionStatusCountsByChannel(@Param("channel") String channel, @Param("since") LocalDateTime since);
-}
\ No newline at end of file
+
+    // Per channel, status and request minute, for the statistics snapshot of all channels
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT channel, status, date_trunc('minute', request_timestamp), COUNT(*) FROM transaction_header " +
+            "WHERE status IN :statuses AND request_timestamp >= :since " +
+            "GROUP BY channel, status, date_trunc('minute', request_timestamp)",
+            nativeQuery = true)
+    List<Object[]> countByChannelStatusAndMinute(@Param("statuses") List<String> statuses, @Param("since") LocalDateTime since);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT t.status, COUNT(t) FROM TransactionHeader t WHERE t.channel = :channel AND t.status IN :statuses AND t.requestTimestamp >= :since GROUP BY t.status")
+    List<Object[]> findStatusCountsByChannelAndStatuses(@Param("channel") String channel,
+                                                        @Param("statuses") List<String> statuses,
+                                                        @Param("since") LocalDateTime since);
+
+    @Query(value = "SELECT * FROM transaction_header WHERE channel = :channel AND jsonb_exists(additional_fields, :fieldName)", nativeQuery = true)
+    List<TransactionHeader> findByChannelWithAdditionalField(@Param("channel") String channel, @Param("fieldName") String fieldName);
+
+    @Query(value = "SELECT DISTINCT jsonb_object_keys(additional_fields) FROM transaction_header WHERE channel = :channel AND additional_fields IS NOT NULL", nativeQuery = true)
+    List<String> findDistinctAdditionalFieldNamesByChannel(@Param("channel") String channel);
+
+    @Query("SELECT MIN(t.requestTimestamp) FROM TransactionHeader t WHERE t.status NOT IN :openStatuses AND t.requestTimestamp < :before")
+    LocalDateTime findOldestArchivableRequestTimestamp(
+            @Param("openStatuses") List<String> openStatuses,
+            @Param("before") LocalDateTime before
+    );
+
+    // Keyset page of completed transactions for archiving
+    @Query("SELECT t FROM TransactionHeader t WHERE t.status NOT IN :openStatuses AND t.requestTimestamp >= :from AND t.requestTimestamp < :before AND t.id > :afterId ORDER BY t.id")
+    List<TransactionHeader> findArchivableAfter(
+            @Param("openStatuses") List<String> openStatuses,
+            @Param("from") LocalDateTime from,
+            @Param("before") LocalDateTime before,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("DELETE FROM TransactionHeader t WHERE t.id IN :ids AND t.requestTimestamp >= :from AND t.requestTimestamp < :before")
+    int deleteArchived(@Param("ids") List<Long> ids, @Param("from") LocalDateTime from, @Param("before") LocalDateTime before);
+}
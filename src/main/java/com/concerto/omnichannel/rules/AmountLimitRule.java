@@ -0,0 +1,43 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.TransactionRequest;
+
+import java.math.BigDecimal;
+
+/**
+ * Lower or upper bound on the payload amount; requests without an amount pass.
+ */
+final class AmountLimitRule implements BusinessRule {
+
+    private final BigDecimal limit;
+    private final boolean upper;
+    private final String violation;
+
+    private AmountLimitRule(BigDecimal limit, boolean upper, String violation) {
+        this.limit = limit;
+        this.upper = upper;
+        this.violation = violation;
+    }
+
+    static AmountLimitRule minimum(BigDecimal limit, String violation) {
+        return new AmountLimitRule(limit, false, violation);
+    }
+
+    static AmountLimitRule maximum(BigDecimal limit, String violation) {
+        return new AmountLimitRule(limit, true, violation);
+    }
+
+    @Override
+    public boolean test(TransactionRequest request) {
+        if (request.getPayload() == null || request.getPayload().getAmount() == null) {
+            return true;
+        }
+        int comparison = request.getPayload().getAmount().compareTo(limit);
+        return upper ? comparison <= 0 : comparison >= 0;
+    }
+
+    @Override
+    public String describeViolation(TransactionRequest request) {
+        return violation;
+    }
+}
@@ -0,0 +1,70 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.TransactionRequest;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Restricts requests to a time-of-day window in the system time zone, both ends inclusive.
+ * <p>
+ * A window whose start is after its end runs overnight. The current time of day is computed from
+ * the epoch clock and a zone offset refreshed once a minute, so a check does not allocate.
+ */
+final class BusinessHoursRule implements BusinessRule {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long OFFSET_REFRESH_MS = 60_000L;
+
+    private static volatile ZoneOffsetSnapshot offset = ZoneOffsetSnapshot.at(System.currentTimeMillis());
+
+    private final long startMillis;
+    private final long endMillis;
+    private final String violation;
+
+    BusinessHoursRule(LocalTime start, LocalTime end, String violation) {
+        this.startMillis = start.toNanoOfDay() / 1_000_000;
+        this.endMillis = end.toNanoOfDay() / 1_000_000;
+        this.violation = violation;
+    }
+
+    @Override
+    public boolean test(TransactionRequest request) {
+        long millisOfDay = currentMillisOfDay();
+        if (startMillis <= endMillis) {
+            return millisOfDay >= startMillis && millisOfDay <= endMillis;
+        }
+        return millisOfDay >= startMillis || millisOfDay <= endMillis;
+    }
+
+    @Override
+    public String describeViolation(TransactionRequest request) {
+        return violation;
+    }
+
+    private static long currentMillisOfDay() {
+        long now = System.currentTimeMillis();
+        ZoneOffsetSnapshot snapshot = offset;
+        if (now >= snapshot.validUntil) {
+            snapshot = ZoneOffsetSnapshot.at(now);
+            offset = snapshot;
+        }
+        return Math.floorMod(now + snapshot.offsetMillis, MILLIS_PER_DAY);
+    }
+
+    private static final class ZoneOffsetSnapshot {
+        private final long offsetMillis;
+        private final long validUntil;
+
+        private ZoneOffsetSnapshot(long offsetMillis, long validUntil) {
+            this.offsetMillis = offsetMillis;
+            this.validUntil = validUntil;
+        }
+
+        private static ZoneOffsetSnapshot at(long now) {
+            int offsetSeconds = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(now)).getTotalSeconds();
+            return new ZoneOffsetSnapshot(offsetSeconds * 1000L, now + OFFSET_REFRESH_MS);
+        }
+    }
+}
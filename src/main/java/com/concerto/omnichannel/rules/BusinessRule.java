@@ -0,0 +1,19 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.TransactionRequest;
+
+/**
+ * One compiled business rule, checked against every request of the channel it was compiled for.
+ */
+public interface BusinessRule {
+
+    /**
+     * Whether the request satisfies the rule; runs on every request, so it must not allocate
+     */
+    boolean test(TransactionRequest request);
+
+    /**
+     * Why the request violates the rule; only called after {@link #test} returned false
+     */
+    String describeViolation(TransactionRequest request);
+}
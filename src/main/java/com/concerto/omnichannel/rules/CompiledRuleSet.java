@@ -0,0 +1,268 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.service.ChannelProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Business rules of one channel, compiled from a {@link ChannelProfile} into flat arrays per operation.
+ * <p>
+ * Every channel gets the active flag, the {@code minTransactionLimit}/{@code maxTransactionLimit}
+ * bounds and the {@code businessHoursStart}/{@code businessHoursEnd} window. POS requests must
+ * carry a merchant id and UPI amounts are capped at {@code maxTransactionAmount}. Further rules
+ * come from configuration keys {@code rule.<type>} for the whole channel and
+ * {@code rule.<operation>.<type>} for one operation:
+ * <ul>
+ *     <li>{@code minAmount}, {@code maxAmount}: amount bound, e.g. {@code 200000.00}</li>
+ *     <li>{@code businessHours}: time-of-day window, e.g. {@code 08:00-20:00}</li>
+ *     <li>{@code mandatoryFields}: comma-separated payload fields, e.g. {@code merchantId,terminalId};
+ *     names that are not payload properties are looked up in the additional fields</li>
+ *     <li>{@code velocity}: at most {@code <count>/<seconds>} requests per value of a payload field,
+ *     {@code accountNumber} unless given as {@code @<field>}, e.g. {@code 5/60@cardNumber}</li>
+ * </ul>
+ * Velocity rules count the requests they see, so they are kept apart from the other checks and
+ * run only for authenticated requests. A rule that does not parse is logged and left out, as
+ * {@link ChannelProfile} does for other values.
+ */
+public final class CompiledRuleSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledRuleSet.class);
+    private static final String RULE_PREFIX = "rule.";
+    private static final String DEFAULT_VELOCITY_FIELD = "accountNumber";
+
+    private final ChannelProfile profile;
+    private final BusinessRule[] defaultChecks;
+    private final Map<String, BusinessRule[]> checksByOperation;
+    private final BusinessRule[] defaultVelocity;
+    private final Map<String, BusinessRule[]> velocityByOperation;
+
+    private CompiledRuleSet(ChannelProfile profile,
+                            BusinessRule[] defaultChecks, Map<String, BusinessRule[]> checksByOperation,
+                            BusinessRule[] defaultVelocity, Map<String, BusinessRule[]> velocityByOperation) {
+        this.profile = profile;
+        this.defaultChecks = defaultChecks;
+        this.checksByOperation = checksByOperation;
+        this.defaultVelocity = defaultVelocity;
+        this.velocityByOperation = velocityByOperation;
+    }
+
+    /**
+     * Compile the rules of the channel; velocity rules keep their counts in the given counters
+     */
+    public static CompiledRuleSet compile(ChannelProfile profile, VelocityCounters velocityCounters) {
+        String channelId = profile.getChannelId();
+        List<BusinessRule> checks = new ArrayList<>();
+        List<BusinessRule> velocity = new ArrayList<>();
+        Map<String, List<BusinessRule>> operationChecks = new HashMap<>();
+        Map<String, List<BusinessRule>> operationVelocity = new HashMap<>();
+
+        if (!profile.isActive()) {
+            checks.add(new RejectingRule("Channel " + channelId + " is currently inactive"));
+        }
+
+        BigDecimal minimum = ChannelProfile.fromMinorUnits(profile.getMinTransactionLimitMinor());
+        BigDecimal maximum = ChannelProfile.fromMinorUnits(profile.getMaxTransactionLimitMinor());
+        checks.add(AmountLimitRule.minimum(minimum, "Transaction amount below minimum limit of " + minimum));
+        checks.add(AmountLimitRule.maximum(maximum, "Transaction amount exceeds maximum limit of " + maximum));
+        checks.add(new BusinessHoursRule(profile.getBusinessHoursStart(), profile.getBusinessHoursEnd(),
+                "Transaction outside business hours for channel " + channelId));
+
+        // Built-in channel rules, compiled from the current profile like the limits above
+        if ("POS".equalsIgnoreCase(channelId)) {
+            checks.add(new MandatoryFieldRule("merchantId", "Merchant ID is mandatory for POS transactions"));
+        }
+        if ("UPI".equalsIgnoreCase(channelId)) {
+            BigDecimal upiMaximum = ChannelProfile.fromMinorUnits(profile.getMaxTransactionAmountMinor());
+            checks.add(AmountLimitRule.maximum(upiMaximum, "UPI transaction amount exceeds limit of " + upiMaximum));
+        }
+
+        for (Map.Entry<String, String> entry : new TreeMap<>(profile.getValues()).entrySet()) {
+            String configKey = entry.getKey();
+            if (!configKey.startsWith(RULE_PREFIX) || entry.getValue() == null) {
+                continue;
+            }
+
+            String definition = configKey.substring(RULE_PREFIX.length());
+            int lastDot = definition.lastIndexOf('.');
+            String operation = lastDot < 0 ? null : definition.substring(0, lastDot);
+            String type = definition.substring(lastDot + 1);
+            String scope = operation == null ? channelId : channelId + " " + operation;
+            String value = entry.getValue().trim();
+
+            try {
+                if ("velocity".equals(type)) {
+                    String ruleId = channelId + ":" + configKey + "=" + value;
+                    BusinessRule rule = velocityRule(value, scope, ruleId, velocityCounters);
+                    rulesFor(operation, velocity, operationVelocity).add(rule);
+                } else {
+                    rulesFor(operation, checks, operationChecks).addAll(checkRules(type, value, scope));
+                }
+            } catch (Exception e) {
+                logger.error("Failed to compile business rule for channel: {} key: {}, ignoring it", channelId, configKey, e);
+            }
+        }
+
+        return new CompiledRuleSet(profile,
+                concat(checks), byOperation(checks, operationChecks),
+                concat(velocity), byOperation(velocity, operationVelocity));
+    }
+
+    /**
+     * Violations of the request's checks in rule order; an empty list, allocated only when a check fails
+     */
+    public List<String> violations(TransactionRequest request) {
+        BusinessRule[] rules = rulesFor(request, defaultChecks, checksByOperation);
+        for (BusinessRule rule : rules) {
+            if (!rule.test(request)) {
+                return collectViolations(rules, request);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Count an authenticated request against its velocity rules
+     *
+     * @return the first rule whose cap the request exceeds, or null
+     */
+    public BusinessRule exceededVelocity(TransactionRequest request) {
+        for (BusinessRule rule : rulesFor(request, defaultVelocity, velocityByOperation)) {
+            if (!rule.test(request)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether this rule set was compiled from exactly this profile snapshot
+     */
+    public boolean isCompiledFrom(ChannelProfile profile) {
+        return this.profile == profile;
+    }
+
+    public int getRuleCount() {
+        return defaultChecks.length + defaultVelocity.length
+                + checksByOperation.values().stream().mapToInt(rules -> rules.length).sum()
+                + velocityByOperation.values().stream().mapToInt(rules -> rules.length).sum();
+    }
+
+    private static BusinessRule[] rulesFor(TransactionRequest request, BusinessRule[] defaults,
+                                           Map<String, BusinessRule[]> byOperation) {
+        return request.getOperation() == null ? defaults : byOperation.getOrDefault(request.getOperation(), defaults);
+    }
+
+    private static List<String> collectViolations(BusinessRule[] rules, TransactionRequest request) {
+        // Checks do not count requests, so testing them again is safe
+        List<String> violations = new ArrayList<>();
+        for (BusinessRule rule : rules) {
+            if (!rule.test(request)) {
+                violations.add(rule.describeViolation(request));
+            }
+        }
+        return violations;
+    }
+
+    private static Map<String, BusinessRule[]> byOperation(List<BusinessRule> channelRules,
+                                                           Map<String, List<BusinessRule>> operationRules) {
+        Map<String, BusinessRule[]> rules = new HashMap<>();
+        operationRules.forEach((operation, operationOnly) -> rules.put(operation, concat(channelRules, operationOnly)));
+        return Collections.unmodifiableMap(rules);
+    }
+
+    private static List<BusinessRule> rulesFor(String operation, List<BusinessRule> channelRules,
+                                               Map<String, List<BusinessRule>> operationRules) {
+        return operation == null ? channelRules : operationRules.computeIfAbsent(operation, op -> new ArrayList<>());
+    }
+
+    private static List<BusinessRule> checkRules(String type, String value, String scope) {
+        switch (type) {
+            case "minAmount":
+                return List.of(AmountLimitRule.minimum(new BigDecimal(value),
+                        scope + " transaction amount below limit of " + value));
+            case "maxAmount":
+                return List.of(AmountLimitRule.maximum(new BigDecimal(value),
+                        scope + " transaction amount exceeds limit of " + value));
+            case "businessHours": {
+                String[] bounds = value.split("-");
+                if (bounds.length != 2) {
+                    throw new IllegalArgumentException("Business hours must be given as HH:mm-HH:mm: " + value);
+                }
+                return List.of(new BusinessHoursRule(LocalTime.parse(bounds[0].trim()), LocalTime.parse(bounds[1].trim()),
+                        "Transaction outside business hours " + value + " for " + scope));
+            }
+            case "mandatoryFields": {
+                List<BusinessRule> rules = new ArrayList<>();
+                for (String field : value.split(",")) {
+                    if (!field.isBlank()) {
+                        rules.add(new MandatoryFieldRule(field.trim(), field.trim() + " is mandatory for " + scope + " transactions"));
+                    }
+                }
+                return rules;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown business rule type: " + type);
+        }
+    }
+
+    private static BusinessRule velocityRule(String value, String scope, String ruleId, VelocityCounters velocityCounters) {
+        int at = value.indexOf('@');
+        String limit = at < 0 ? value : value.substring(0, at);
+        String field = at < 0 ? DEFAULT_VELOCITY_FIELD : value.substring(at + 1).trim();
+        String[] parts = limit.split("/");
+        if (parts.length != 2 || field.isEmpty()) {
+            throw new IllegalArgumentException("Velocity must be given as <count>/<seconds>[@field]: " + value);
+        }
+
+        int maxCount = Integer.parseInt(parts[0].trim());
+        long windowSeconds = Long.parseLong(parts[1].trim());
+        if (maxCount <= 0 || maxCount > VelocityCounters.MAX_COUNT || windowSeconds <= 0) {
+            throw new IllegalArgumentException("Velocity count or window out of range: " + value);
+        }
+        return new VelocityRule(velocityCounters, ruleId, field, maxCount, windowSeconds * 1000,
+                "Too many " + scope + " transactions for " + field + ", limit is " + maxCount
+                        + " per " + windowSeconds + " seconds");
+    }
+
+    @SafeVarargs
+    private static BusinessRule[] concat(List<BusinessRule>... groups) {
+        List<BusinessRule> rules = new ArrayList<>();
+        for (List<BusinessRule> group : groups) {
+            if (group != null) {
+                rules.addAll(group);
+            }
+        }
+        return rules.toArray(new BusinessRule[0]);
+    }
+
+    /**
+     * Rejects every request, for a channel that is switched off
+     */
+    private static final class RejectingRule implements BusinessRule {
+        private final String violation;
+
+        private RejectingRule(String violation) {
+            this.violation = violation;
+        }
+
+        @Override
+        public boolean test(TransactionRequest request) {
+            return false;
+        }
+
+        @Override
+        public String describeViolation(TransactionRequest request) {
+            return violation;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.Payload;
+import com.concerto.omnichannel.dto.TransactionRequest;
+
+import java.util.function.Function;
+
+/**
+ * Requires a payload field to be present and not blank.
+ */
+final class MandatoryFieldRule implements BusinessRule {
+
+    private final Function<Payload, Object> accessor;
+    private final String violation;
+
+    MandatoryFieldRule(String field, String violation) {
+        this.accessor = PayloadFields.accessor(field);
+        this.violation = violation;
+    }
+
+    @Override
+    public boolean test(TransactionRequest request) {
+        // A missing payload is rejected by request validation before business rules run
+        return request.getPayload() == null || !PayloadFields.isMissing(accessor.apply(request.getPayload()));
+    }
+
+    @Override
+    public String describeViolation(TransactionRequest request) {
+        return violation;
+    }
+}
@@ -0,0 +1,40 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.Payload;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resolves payload field names used in rule definitions to accessors, once at compile time.
+ */
+final class PayloadFields {
+
+    private static final Map<String, Function<Payload, Object>> ACCESSORS = Map.of(
+            "transactionType", Payload::getTransactionType,
+            "amount", Payload::getAmount,
+            "currency", Payload::getCurrency,
+            "accountNumber", Payload::getAccountNumber,
+            "merchantId", Payload::getMerchantId,
+            "terminalId", Payload::getTerminalId,
+            "cardNumber", Payload::getCardNumber,
+            "description", Payload::getDescription);
+
+    private PayloadFields() {
+    }
+
+    /**
+     * Accessor of a payload field, falling back to the additional field of that name
+     */
+    static Function<Payload, Object> accessor(String field) {
+        Function<Payload, Object> accessor = ACCESSORS.get(field);
+        if (accessor != null) {
+            return accessor;
+        }
+        return payload -> payload.getAdditionalFields() != null ? payload.getAdditionalFields().get(field) : null;
+    }
+
+    static boolean isMissing(Object value) {
+        return value == null || value instanceof String text && text.isBlank();
+    }
+}
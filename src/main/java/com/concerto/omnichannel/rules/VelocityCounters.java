@@ -0,0 +1,208 @@
+package com.concerto.omnichannel.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request counts of velocity rules, kept apart from the compiled rules so they survive recompilation.
+ * <p>
+ * Counts are kept in fixed windows. Each counter packs the window index and the count into one
+ * long, so counting is a single compare-and-set on local state. Periodically the requests each
+ * node counted are added to shared counters (see {@link #synchronize}) and the local counters move
+ * up to the shared totals, so a cap holds across nodes; between synchronizations a value can
+ * exceed its cap by at most what each node admits in one interval. When a rule tracks the maximum
+ * number of values, counters of past windows are dropped, at most once per window; if every
+ * tracked value is still counting in the current window, requests for new values are refused
+ * rather than forgetting counts that are still in force.
+ */
+public class VelocityCounters {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    /**
+     * Largest count per window a velocity rule can allow
+     */
+    static final int MAX_COUNT = (int) COUNT_MASK;
+
+    private final Map<String, RuleCounters> countersByRule = new ConcurrentHashMap<>();
+    private final int maxTrackedValues;
+
+    public VelocityCounters(int maxTrackedValues) {
+        this.maxTrackedValues = maxTrackedValues;
+    }
+
+    /**
+     * Counters of one rule, identified by channel, operation and definition
+     */
+    RuleCounters forRule(String ruleId, long windowMillis) {
+        return countersByRule.computeIfAbsent(ruleId, id -> new RuleCounters(id, windowMillis));
+    }
+
+    /**
+     * Count one request for the value unless the window already holds the maximum
+     *
+     * @return whether the request was within the limit
+     */
+    boolean tryIncrement(RuleCounters rule, String value, long windowIndex, int maxCount) {
+        Counter counter = rule.values.get(value);
+        if (counter == null) {
+            if (rule.values.size() >= maxTrackedValues && !makeRoom(rule, windowIndex)) {
+                return false;
+            }
+            counter = rule.values.computeIfAbsent(value, v -> new Counter());
+        }
+
+        while (true) {
+            long state = counter.state.get();
+            long count = state >>> COUNT_BITS == windowIndex ? state & COUNT_MASK : 0;
+            if (count >= maxCount) {
+                return false;
+            }
+            if (counter.state.compareAndSet(state, windowIndex << COUNT_BITS | (count + 1))) {
+                addUnsynced(counter, windowIndex, 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Add the requests counted since the last synchronization to the shared counters and catch up
+     * with the other nodes' counts, in calls of at most batchSize values
+     *
+     * @return false if the shared counters could not be reached; the counts are pushed next time
+     */
+    public boolean synchronize(SharedCounts shared, int batchSize) {
+        SyncBatch batch = new SyncBatch();
+        for (RuleCounters rule : countersByRule.values()) {
+            long currentWindow = System.currentTimeMillis() / rule.windowMillis;
+            for (Map.Entry<String, Counter> entry : rule.values.entrySet()) {
+                long pending = entry.getValue().unsynced.getAndSet(0);
+                // Counts of a window that has passed no longer limit anything
+                if (pending == 0 || pending >>> COUNT_BITS < currentWindow) {
+                    continue;
+                }
+
+                batch.add(rule, entry.getKey(), entry.getValue(), pending);
+                if (batch.size() >= batchSize) {
+                    if (!push(shared, batch)) {
+                        return false;
+                    }
+                    batch = new SyncBatch();
+                }
+            }
+        }
+        return batch.size() == 0 || push(shared, batch);
+    }
+
+    int size() {
+        return countersByRule.values().stream().mapToInt(rule -> rule.values.size()).sum();
+    }
+
+    private boolean push(SharedCounts shared, SyncBatch batch) {
+        List<Long> totals;
+        try {
+            totals = shared.addAndGet(batch.keys, batch.counts, batch.ttlMillis);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < batch.counters.size(); i++) {
+                addUnsynced(batch.counters.get(i), batch.windows.get(i), batch.counts.get(i));
+            }
+            return false;
+        }
+
+        for (int i = 0; i < totals.size() && i < batch.counters.size(); i++) {
+            catchUp(batch.counters.get(i), batch.windows.get(i), totals.get(i));
+        }
+        return true;
+    }
+
+    private boolean makeRoom(RuleCounters rule, long windowIndex) {
+        long swept = rule.sweptWindow.get();
+        if (swept < windowIndex && rule.sweptWindow.compareAndSet(swept, windowIndex)) {
+            rule.values.values().removeIf(counter -> counter.state.get() >>> COUNT_BITS < windowIndex);
+        }
+        return rule.values.size() < maxTrackedValues;
+    }
+
+    private static void addUnsynced(Counter counter, long windowIndex, long count) {
+        while (true) {
+            long pending = counter.unsynced.get();
+            long window = pending >>> COUNT_BITS;
+            if (pending != 0 && window > windowIndex) {
+                return;
+            }
+            long previous = pending != 0 && window == windowIndex ? pending & COUNT_MASK : 0;
+            long updated = windowIndex << COUNT_BITS | Math.min(COUNT_MASK, previous + count);
+            if (counter.unsynced.compareAndSet(pending, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static void catchUp(Counter counter, long windowIndex, long total) {
+        while (true) {
+            long state = counter.state.get();
+            if (state >>> COUNT_BITS != windowIndex || (state & COUNT_MASK) >= total) {
+                return;
+            }
+            if (counter.state.compareAndSet(state, windowIndex << COUNT_BITS | Math.min(COUNT_MASK, total))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Counters shared by all nodes, such as Redis
+     */
+    public interface SharedCounts {
+
+        /**
+         * Add each count to the shared counter of its key, which expires after its ttl
+         *
+         * @return the totals of the shared counters, in the order of the keys
+         */
+        List<Long> addAndGet(List<String> keys, List<Long> counts, List<Long> ttlMillis);
+    }
+
+    static final class RuleCounters {
+        private final String ruleId;
+        private final long windowMillis;
+        private final Map<String, Counter> values = new ConcurrentHashMap<>();
+        private final AtomicLong sweptWindow = new AtomicLong(Long.MIN_VALUE);
+
+        private RuleCounters(String ruleId, long windowMillis) {
+            this.ruleId = ruleId;
+            this.windowMillis = windowMillis;
+        }
+    }
+
+    private static final class Counter {
+        private final AtomicLong state = new AtomicLong();
+        // Window index and count of requests not yet added to the shared counter
+        private final AtomicLong unsynced = new AtomicLong();
+    }
+
+    private static final class SyncBatch {
+        private final List<String> keys = new ArrayList<>();
+        private final List<Long> counts = new ArrayList<>();
+        private final List<Long> ttlMillis = new ArrayList<>();
+        private final List<Counter> counters = new ArrayList<>();
+        private final List<Long> windows = new ArrayList<>();
+
+        private void add(RuleCounters rule, String value, Counter counter, long pending) {
+            long window = pending >>> COUNT_BITS;
+            keys.add(rule.ruleId + ":" + window + ":" + value);
+            counts.add(pending & COUNT_MASK);
+            ttlMillis.add(2 * rule.windowMillis);
+            counters.add(counter);
+            windows.add(window);
+        }
+
+        private int size() {
+            return keys.size();
+        }
+    }
+}
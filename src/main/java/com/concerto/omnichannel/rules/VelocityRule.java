@@ -0,0 +1,50 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.Payload;
+import com.concerto.omnichannel.dto.TransactionRequest;
+
+import java.util.function.Function;
+
+/**
+ * Caps how many requests one value of a payload field may make per fixed window.
+ * <p>
+ * Testing a request counts it, so velocity rules run only once the client is authenticated and
+ * the other checks have passed. Requests without the field pass uncounted.
+ */
+final class VelocityRule implements BusinessRule {
+
+    private final VelocityCounters velocityCounters;
+    private final VelocityCounters.RuleCounters counters;
+    private final Function<Payload, Object> accessor;
+    private final int maxCount;
+    private final long windowMillis;
+    private final String violation;
+
+    VelocityRule(VelocityCounters velocityCounters, String ruleId, String field, int maxCount, long windowMillis,
+                 String violation) {
+        this.velocityCounters = velocityCounters;
+        this.counters = velocityCounters.forRule(ruleId, windowMillis);
+        this.accessor = PayloadFields.accessor(field);
+        this.maxCount = maxCount;
+        this.windowMillis = windowMillis;
+        this.violation = violation;
+    }
+
+    @Override
+    public boolean test(TransactionRequest request) {
+        if (request.getPayload() == null) {
+            return true;
+        }
+        Object value = accessor.apply(request.getPayload());
+        if (PayloadFields.isMissing(value)) {
+            return true;
+        }
+        long windowIndex = System.currentTimeMillis() / windowMillis;
+        return velocityCounters.tryIncrement(counters, value.toString(), windowIndex, maxCount);
+    }
+
+    @Override
+    public String describeViolation(TransactionRequest request) {
+        return violation;
+    }
+}
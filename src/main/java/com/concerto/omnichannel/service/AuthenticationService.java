@@ -2,98 +2,131 @@ package com.concerto.omnichannel.service;
 
 import com.concerto.omnichannel.entity.ClientCredentials;
 import com.concerto.omnichannel.repository.ClientCredentialsRepository;
+import com.concerto.omnichannel.utils.ExpiringCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class AuthenticationService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
-    private static final int MAX_FAILED_ATTEMPTS = 3;
-    private static final long LOCKOUT_DURATION_MINUTES = 15;
 
     private final ClientCredentialsRepository credentialsRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final VerifiedCredentialCache verifiedCredentialCache;
+    private final ClientLockoutTracker lockoutTracker;
     private final SecretKey jwtSecretKey;
+    private final JwtParser jwtParser;
     private final long jwtExpirationMs;
 
-    // In-memory tracking for failed attempts (in production, use Redis)
-    private final ConcurrentHashMap<String, FailedAttempt> failedAttempts = new ConcurrentHashMap<>();
+    // Tokens whose signature was already checked, by SHA-256 of the token, until they expire
+    private final ExpiringCache<String, VerifiedToken> verifiedTokens;
+    private final ThreadLocal<MessageDigest> tokenDigest = ThreadLocal.withInitial(AuthenticationService::newTokenDigest);
 
     public AuthenticationService(
             ClientCredentialsRepository credentialsRepository,
+            VerifiedCredentialCache verifiedCredentialCache,
+            ClientLockoutTracker lockoutTracker,
             @Value("${auth.jwt.secret}") String jwtSecret,
-            @Value("${auth.jwt.expirationMs}") long jwtExpirationMs) {
+            @Value("${auth.jwt.expirationMs}") long jwtExpirationMs,
+            @Value("${auth.jwt.cache.max-entries:10000}") int verifiedTokenMaxEntries) {
         this.credentialsRepository = credentialsRepository;
         this.passwordEncoder = new BCryptPasswordEncoder();
+        this.verifiedCredentialCache = verifiedCredentialCache;
+        this.lockoutTracker = lockoutTracker;
         this.jwtSecretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(jwtSecretKey)
+                .build();
         this.jwtExpirationMs = jwtExpirationMs;
+        this.verifiedTokens = new ExpiringCache<>(verifiedTokenMaxEntries, Duration.ofMillis(jwtExpirationMs));
     }
 
     public boolean authenticate(String clientId, String clientSecret, String token, String channelId) {
+        return authenticatePrincipal(clientId, clientSecret, token, channelId) != null;
+    }
+
+    /**
+     * Authenticate a request and return the client it was verified for: the subject of a valid
+     * token, else the client id of matching credentials. Returns null if authentication fails.
+     */
+    public String authenticatePrincipal(String clientId, String clientSecret, String token, String channelId) {
         try {
             // Check if client is locked out
-            if (isClientLockedOut(clientId)) {
+            if (clientId != null && lockoutTracker.isLockedOut(clientId, channelId)) {
                 logger.warn("Authentication failed - Client {} is locked out", clientId);
-                return false;
+                return null;
             }
 
-            boolean authenticated = false;
+            String principal = null;
 
             if (token != null && !token.isEmpty()) {
-                authenticated = authenticateWithJwt(token, channelId);
+                principal = verifiedSubject(token, channelId);
             } else if (clientId != null && clientSecret != null) {
-                authenticated = authenticateWithCredentials(clientId, clientSecret, channelId);
+                principal = authenticateWithCredentials(clientId, clientSecret, channelId) ? clientId : null;
             }
 
-            if (authenticated) {
-                // Clear failed attempts on successful authentication
-                failedAttempts.remove(clientId);
-                logger.info("Authentication successful for client: {}", clientId);
+            if (principal != null) {
+                logger.info("Authentication successful for client: {}", principal);
             } else {
                 // Track failed attempt
-                trackFailedAttempt(clientId);
+                trackFailedAttempt(clientId, channelId);
                 logger.warn("Authentication failed for client: {}", clientId);
             }
 
-            return authenticated;
+            return principal;
 
         } catch (Exception e) {
             logger.error("Authentication error for client: {}", clientId, e);
-            trackFailedAttempt(clientId);
-            return false;
+            trackFailedAttempt(clientId, channelId);
+            return null;
         }
     }
 
-    @Cacheable(value = "clientCredentials", key = "#clientId")
     public boolean authenticateWithCredentials(String clientId, String clientSecret, String channelId) {
-        logger.info("Looking for credentials - ClientId: {}, ChannelId: {}", clientId, channelId);
+        // Secrets verified recently skip the database and BCrypt
+        if (verifiedCredentialCache.isVerified(clientId, channelId, clientSecret)) {
+            return true;
+        }
 
-        // Use the method that checks for active credentials
-        Optional<ClientCredentials> credentialsOpt = credentialsRepository.findByClientIdAndChannelIdAndActiveTrue(clientId, channelId);
+        long invalidations = verifiedCredentialCache.getInvalidationCount();
+        ClientCredentials credentials = verifiedCredentialCache.getCredentials(clientId, channelId);
 
-        if (credentialsOpt.isEmpty()) {
-            logger.warn("Client credentials not found: {} for channel: {}", clientId, channelId);
-            return false;
+        if (credentials == null) {
+            logger.info("Looking for credentials - ClientId: {}, ChannelId: {}", clientId, channelId);
+
+            // Use the method that checks for active credentials
+            Optional<ClientCredentials> credentialsOpt = credentialsRepository.findByClientIdAndChannelIdAndActiveTrue(clientId, channelId);
+
+            if (credentialsOpt.isEmpty()) {
+                logger.warn("Client credentials not found: {} for channel: {}", clientId, channelId);
+                return false;
+            }
+
+            credentials = credentialsOpt.get();
+            verifiedCredentialCache.storeCredentials(credentials, invalidations);
         }
 
-        ClientCredentials credentials = credentialsOpt.get();
         logger.info("Found credentials for client: {}, Active: {}, Expires: {}", clientId, credentials.isActive(), credentials.getExpiryDate());
 
         // Check if credentials are active and not expired
@@ -104,36 +137,28 @@ public class AuthenticationService {
 
         boolean matches = passwordEncoder.matches(clientSecret, credentials.getHashedSecret());
         logger.info("Password match result: {}", matches);
+        if (matches) {
+            verifiedCredentialCache.recordVerified(clientId, channelId, clientSecret, credentials.getExpiryDate(), invalidations);
+        }
         return matches;
     }
 
-    public boolean authenticateWithJwt(String token, String channelId) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(jwtSecretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            // Validate token expiration
-            if (claims.getExpiration().before(new Date())) {
-                logger.warn("JWT token expired");
-                return false;
-            }
-
-            // Validate channel in token
-            String tokenChannel = claims.get("channel", String.class);
-            if (!channelId.equals(tokenChannel)) {
-                logger.warn("JWT token channel mismatch. Expected: {}, Found: {}", channelId, tokenChannel);
-                return false;
-            }
-
-            return claims.getSubject() != null;
-
-        } catch (Exception e) {
-            logger.warn("JWT authentication failed: {}", e.getMessage());
-            return false;
+    /**
+     * Load all active credentials into the local cache, so first requests skip the database
+     *
+     * @return the number of credentials loaded
+     */
+    public int preloadCredentials() {
+        long invalidations = verifiedCredentialCache.getInvalidationCount();
+        List<ClientCredentials> activeCredentials = credentialsRepository.findByActiveTrue();
+        for (ClientCredentials credentials : activeCredentials) {
+            verifiedCredentialCache.storeCredentials(credentials, invalidations);
         }
+        return activeCredentials.size();
+    }
+
+    public boolean authenticateWithJwt(String token, String channelId) {
+        return verifiedSubject(token, channelId) != null;
     }
 
     public String generateJwtToken(String clientId, String channelId) {
@@ -148,42 +173,78 @@ public class AuthenticationService {
                 .compact();
     }
 
-    private void trackFailedAttempt(String clientId) {
-        FailedAttempt attempt = failedAttempts.computeIfAbsent(clientId,
-                k -> new FailedAttempt(0, LocalDateTime.now()));
-
-        attempt.incrementAttempts();
-        attempt.setLastAttempt(LocalDateTime.now());
+    private void trackFailedAttempt(String clientId, String channelId) {
+        // Token-only requests carry no client id to lock out
+        if (clientId != null) {
+            lockoutTracker.recordFailure(clientId, channelId);
+        }
     }
 
-    private boolean isClientLockedOut(String clientId) {
-        FailedAttempt attempt = failedAttempts.get(clientId);
-        if (attempt == null) return false;
+    /**
+     * Subject of a valid token issued for the channel, or null
+     */
+    private String verifiedSubject(String token, String channelId) {
+        try {
+            VerifiedToken verified = verifyToken(token);
+            if (verified == null) {
+                return null;
+            }
 
-        if (attempt.getAttempts() >= MAX_FAILED_ATTEMPTS) {
-            LocalDateTime lockoutExpiry = attempt.getLastAttempt().plusMinutes(LOCKOUT_DURATION_MINUTES);
-            if (LocalDateTime.now().isBefore(lockoutExpiry)) {
-                return true;
-            } else {
-                // Lockout expired, reset attempts
-                failedAttempts.remove(clientId);
+            // Validate channel in token
+            if (!channelId.equals(verified.channel)) {
+                logger.warn("JWT token channel mismatch. Expected: {}, Found: {}", channelId, verified.channel);
+                return null;
             }
+
+            return verified.subject;
+
+        } catch (Exception e) {
+            logger.warn("JWT authentication failed: {}", e.getMessage());
+            return null;
         }
-        return false;
     }
 
-    private static class FailedAttempt {
-        private int attempts;
-        private LocalDateTime lastAttempt;
+    private VerifiedToken verifyToken(String token) {
+        String digest = digest(token);
+        VerifiedToken verified = verifiedTokens.get(digest);
+        if (verified != null) {
+            return verified;
+        }
+
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        // Validate token expiration
+        Date expiration = claims.getExpiration();
+        if (expiration == null || expiration.before(new Date())) {
+            logger.warn("JWT token expired");
+            return null;
+        }
+
+        verified = new VerifiedToken(claims.getSubject(), claims.get("channel", String.class));
+        verifiedTokens.put(digest, verified, Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()));
+        return verified;
+    }
 
-        public FailedAttempt(int attempts, LocalDateTime lastAttempt) {
-            this.attempts = attempts;
-            this.lastAttempt = lastAttempt;
+    private String digest(String token) {
+        byte[] hash = tokenDigest.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static MessageDigest newTokenDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
+    }
+
+    private static final class VerifiedToken {
+        private final String subject;
+        private final String channel;
 
-        public void incrementAttempts() { this.attempts++; }
-        public int getAttempts() { return attempts; }
-        public LocalDateTime getLastAttempt() { return lastAttempt; }
-        public void setLastAttempt(LocalDateTime lastAttempt) { this.lastAttempt = lastAttempt; }
+        private VerifiedToken(String subject, String channel) {
+            this.subject = subject;
+            this.channel = channel;
+        }
     }
-}
\ No newline at end of file
+}
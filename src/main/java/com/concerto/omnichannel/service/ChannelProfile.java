@@ -0,0 +1,140 @@
+package com.concerto.omnichannel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable, typed snapshot of a channel's active configuration.
+ * <p>
+ * Values are parsed once when the snapshot is compiled; a value that does not parse falls back
+ * to its default, as {@link ConfigurationService#getConfigValue(String, String, Class, Object)} does.
+ * Amounts are held in minor units (two decimal places). Encrypted values are used for parsing
+ * but not kept as raw values; read secrets through {@link ConfigurationService#getConfigValue(String, String)}.
+ * Callers should take one snapshot per request so all checks see the same configuration.
+ */
+public final class ChannelProfile {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelProfile.class);
+    private static final int MINOR_UNIT_SCALE = 2;
+
+    private final String channelId;
+    private final Map<String, String> values;
+    private final boolean active;
+    private final long minTransactionLimitMinor;
+    private final long maxTransactionLimitMinor;
+    private final long maxTransactionAmountMinor;
+    private final LocalTime businessHoursStart;
+    private final LocalTime businessHoursEnd;
+    private final Duration timeout;
+    private final int maxRetries;
+    private final boolean circuitBreakerEnabled;
+    private final int batchSize;
+    private final String switchHost;
+    private final Integer switchPort;
+    private final Integer tpduIdentifier;
+    private final Integer tpduSource;
+    private final Integer tpduDestination;
+
+    private ChannelProfile(String channelId, Map<String, String> values, Set<String> secretKeys) {
+        this.channelId = channelId;
+        Map<String, String> rawValues = new HashMap<>(values);
+        rawValues.keySet().removeAll(secretKeys);
+        this.values = Collections.unmodifiableMap(rawValues);
+        this.active = parse(values, "active", Boolean::valueOf, false);
+        this.minTransactionLimitMinor = parse(values, "minTransactionLimit", ChannelProfile::parseMinorUnits, 0L);
+        this.maxTransactionLimitMinor = parse(values, "maxTransactionLimit", ChannelProfile::parseMinorUnits, 100_000_000L);
+        this.maxTransactionAmountMinor = parse(values, "maxTransactionAmount", ChannelProfile::parseMinorUnits, 20_000_000L);
+        this.businessHoursStart = parse(values, "businessHoursStart", LocalTime::parse, LocalTime.of(0, 0));
+        this.businessHoursEnd = parse(values, "businessHoursEnd", LocalTime::parse, LocalTime.of(23, 59));
+        this.timeout = Duration.ofMillis(parse(values, "timeout", Integer::valueOf, 30000));
+        this.maxRetries = parse(values, "maxRetries", Integer::valueOf, 2);
+        this.circuitBreakerEnabled = parse(values, "circuitBreaker", Boolean::valueOf, true);
+        this.batchSize = parse(values, "batchSize", Integer::valueOf, 100);
+        this.switchHost = values.get("switchHost");
+        this.switchPort = parse(values, "switchPort", Integer::valueOf, null);
+        this.tpduIdentifier = parse(values, "tpduIdentifier", ChannelProfile::parseHex, null);
+        this.tpduSource = parse(values, "tpduSource", ChannelProfile::parseHex, null);
+        this.tpduDestination = parse(values, "tpduDestination", ChannelProfile::parseHex, null);
+    }
+
+    /**
+     * Compile a snapshot from the channel's active, decrypted configuration values
+     */
+    public static ChannelProfile compile(String channelId, Map<String, String> values, Set<String> secretKeys) {
+        return new ChannelProfile(channelId, values, secretKeys);
+    }
+
+    /**
+     * Convert an amount to minor units, rounding toward the given direction when it has more decimals
+     */
+    public static long toMinorUnits(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.setScale(MINOR_UNIT_SCALE, roundingMode).unscaledValue().longValue();
+    }
+
+    public static BigDecimal fromMinorUnits(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, MINOR_UNIT_SCALE);
+    }
+
+    /**
+     * Raw configuration value, or null if not configured
+     */
+    public String getValue(String configKey) {
+        return values.get(configKey);
+    }
+
+    /**
+     * All raw, non-secret configuration values
+     */
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    public String getChannelId() { return channelId; }
+    public boolean isActive() { return active; }
+    public long getMinTransactionLimitMinor() { return minTransactionLimitMinor; }
+    public long getMaxTransactionLimitMinor() { return maxTransactionLimitMinor; }
+    public long getMaxTransactionAmountMinor() { return maxTransactionAmountMinor; }
+    public LocalTime getBusinessHoursStart() { return businessHoursStart; }
+    public LocalTime getBusinessHoursEnd() { return businessHoursEnd; }
+    public Duration getTimeout() { return timeout; }
+    public int getMaxRetries() { return maxRetries; }
+    public boolean isCircuitBreakerEnabled() { return circuitBreakerEnabled; }
+    public int getBatchSize() { return batchSize; }
+    public String getSwitchHost() { return switchHost; }
+    public Integer getSwitchPort() { return switchPort; }
+    public Integer getTpduIdentifier() { return tpduIdentifier; }
+    public Integer getTpduSource() { return tpduSource; }
+    public Integer getTpduDestination() { return tpduDestination; }
+
+    private <T> T parse(Map<String, String> values, String configKey, Function<String, T> parser, T defaultValue) {
+        String value = values.get(configKey);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        try {
+            return parser.apply(value.trim());
+        } catch (Exception e) {
+            logger.error("Failed to parse config value for channel: {} key: {}, using default", channelId, configKey, e);
+            return defaultValue;
+        }
+    }
+
+    private static long parseMinorUnits(String value) {
+        return toMinorUnits(new BigDecimal(value), RoundingMode.HALF_UP);
+    }
+
+    private static int parseHex(String value) {
+        return Integer.parseInt(value.replace("0x", ""), 16);
+    }
+}
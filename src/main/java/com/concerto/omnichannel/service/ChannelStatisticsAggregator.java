@@ -0,0 +1,399 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.ChannelStatsRollup;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.ChannelStatsRollupRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.concerto.omnichannel.utils.LatencyHistogram;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolling per-channel transaction statistics fed by completed transactions.
+ * <p>
+ * Each node counts completed transactions by status, with a success-latency histogram, in
+ * one-minute buckets by completion time. Completed minutes are checkpointed to
+ * {@code channel_stats_rollup} with the node id. A timer loads the other nodes' rollups and the
+ * transactions still open, counted from {@code transaction_header} by request time, for the last
+ * hour into a snapshot. Reads within that hour are answered from this node's buckets and the
+ * snapshot without touching the database; another node's current minute shows up after its next
+ * checkpoint and the following refresh. Older ranges read the rollup table.
+ */
+@Service
+public class ChannelStatisticsAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelStatisticsAggregator.class);
+
+    private static final int BUCKET_COUNT = 60;
+    private static final long BUCKET_MS = 60_000;
+    private static final int[] WINDOW_MINUTES = {1, 5, 60};
+    // The snapshot reaches a little further back than the buckets, so a late refresh still covers the last hour
+    private static final int SNAPSHOT_SLACK_MINUTES = 5;
+
+    private final Map<String, Bucket[]> channels = new ConcurrentHashMap<>();
+    private final Map<String, LocalDateTime> earliestRollups = new ConcurrentHashMap<>();
+    private Clock clock = Clock.systemDefaultZone();
+    private volatile Snapshot snapshot;
+    private long startedMinute;
+
+    @Autowired
+    private ChannelStatsRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionHeaderRepository headerRepository;
+
+    @Value("${app.node.id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${statistics.rollup.retention.days:30}")
+    private int rollupRetentionDays;
+
+    @PostConstruct
+    public void initialize() {
+        startedMinute = currentMinute();
+    }
+
+    /**
+     * Record a transaction that has reached its final status
+     */
+    public void record(TransactionHeader header) {
+        if (header.getChannel() == null || header.getStatus() == null) {
+            return;
+        }
+        long latencyMs = -1;
+        if (header.getRequestTimestamp() != null && header.getResponseTimestamp() != null) {
+            latencyMs = Duration.between(header.getRequestTimestamp(), header.getResponseTimestamp()).toMillis();
+        }
+        record(header.getChannel(), header.getStatus(), latencyMs);
+    }
+
+    public void record(String channel, String status, long latencyMs) {
+        Bucket bucket = bucketFor(channel, currentMinute());
+        bucket.statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+        if ("SUCCESS".equals(status) && latencyMs >= 0) {
+            bucket.successLatency.record(latencyMs);
+        }
+    }
+
+    /**
+     * Whether the rollups reach back to the given time for this channel
+     */
+    public boolean covers(String channel, LocalDateTime since) {
+        LocalDateTime from = minuteStart(since);
+        if (from.isBefore(LocalDateTime.now(clock).minusDays(rollupRetentionDays))) {
+            return false;
+        }
+        LocalDateTime earliest = earliestRollups.computeIfAbsent(channel, rollupRepository::findEarliestBucketStart);
+        return earliest != null && !from.isBefore(earliest);
+    }
+
+    public Map<String, Long> getStatusCounts(String channel, LocalDateTime since) {
+        return totalsSince(channel, toMinute(since), true).counts;
+    }
+
+    /**
+     * Mean latency of successful transactions, or null if there were none (like SQL AVG)
+     */
+    public Double getAverageProcessingTime(String channel, LocalDateTime since) {
+        LatencyHistogram latency = totalsSince(channel, toMinute(since), false).latency;
+        return latency.getCount() == 0 ? null : latency.getMean();
+    }
+
+    /**
+     * Counts and latency percentiles over the last 1, 5 and 60 minutes
+     */
+    public Map<String, Object> getWindowStatistics(String channel) {
+        Map<String, Object> windows = new LinkedHashMap<>();
+        long now = currentMinute();
+        for (int minutes : WINDOW_MINUTES) {
+            Totals totals = totalsSince(channel, now - minutes + 1, true);
+
+            Map<String, Object> window = new HashMap<>();
+            window.put("statusCounts", totals.counts);
+            window.put("total", totals.counts.values().stream().mapToLong(Long::longValue).sum());
+            window.put("avgLatencyMs", totals.latency.getMean());
+            window.put("p50LatencyMs", totals.latency.getPercentile(50));
+            window.put("p95LatencyMs", totals.latency.getPercentile(95));
+            window.put("p99LatencyMs", totals.latency.getPercentile(99));
+            windows.put(minutes + "m", window);
+        }
+        return windows;
+    }
+
+    /**
+     * Persist completed minute buckets to the rollup table
+     */
+    @Scheduled(fixedDelayString = "${statistics.checkpoint.interval.ms:60000}")
+    @Transactional
+    public void checkpoint() {
+        long current = currentMinute();
+        List<ChannelStatsRollup> rollups = new ArrayList<>();
+        Map<Bucket, Long> written = new HashMap<>();
+
+        channels.forEach((channel, buckets) -> {
+            for (Bucket bucket : buckets) {
+                long minute = bucket.minute;
+                if (minute < 0 || minute >= current || bucket.checkpointed) {
+                    continue;
+                }
+                LocalDateTime bucketStart = toDateTime(minute);
+                bucket.statusCounts.forEach((status, count) -> {
+                    boolean success = "SUCCESS".equals(status);
+                    long p95 = bucket.successLatency.getPercentile(95);
+                    rollups.add(new ChannelStatsRollup(nodeId, channel, status, bucketStart, count.sum(),
+                            success ? bucket.successLatency.getSum() : 0,
+                            success && p95 >= 0 ? p95 : null,
+                            success ? bucket.successLatency.encode() : null));
+                });
+                written.put(bucket, minute);
+            }
+        });
+
+        if (written.isEmpty()) {
+            return;
+        }
+        rollupRepository.saveAll(rollups);
+        logger.debug("Checkpointed {} channel statistics rollups", rollups.size());
+
+        // Only committed buckets are left out of the next checkpoint and out of the in-memory reads
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markCheckpointed(written);
+                }
+            });
+        } else {
+            markCheckpointed(written);
+        }
+    }
+
+    /**
+     * Load the other nodes' checkpointed minutes and the open transactions of the last hour
+     */
+    @Scheduled(fixedDelayString = "${statistics.snapshot.refresh.interval.ms:15000}")
+    public void refreshSnapshot() {
+        long fromMinute = currentMinute() - BUCKET_COUNT - SNAPSHOT_SLACK_MINUTES + 1;
+        LocalDateTime from = toDateTime(fromMinute);
+        Map<String, Map<Long, Totals>> minutes = new HashMap<>();
+
+        for (ChannelStatsRollup rollup : rollupRepository.findAllSince(from)) {
+            long minute = toMinute(rollup.getBucketStart());
+            // This node's minutes since it started are read from its own buckets
+            if (nodeId.equals(rollup.getNodeId()) && minute >= startedMinute) {
+                continue;
+            }
+            Totals totals = minuteTotals(minutes, rollup.getChannel(), minute);
+            totals.counts.merge(rollup.getStatus(), rollup.getTransactionCount(), Long::sum);
+            if ("SUCCESS".equals(rollup.getStatus())) {
+                totals.latency.merge(rollup.getLatencyBuckets(), rollup.getLatencySumMs());
+            }
+        }
+
+        for (Object[] row : headerRepository.countByChannelStatusAndMinute(TransactionOutboxService.OPEN_STATUSES, from)) {
+            Totals totals = minuteTotals(minutes, (String) row[0], toMinute(toLocalDateTime(row[2])));
+            totals.openCounts.merge((String) row[1], ((Number) row[3]).longValue(), Long::sum);
+        }
+
+        snapshot = new Snapshot(fromMinute, minutes);
+    }
+
+    @Scheduled(cron = "${statistics.rollup.cleanup.cron:0 30 1 * * *}")
+    @Transactional
+    public void purgeOldRollups() {
+        int deleted = rollupRepository.deleteOlderThan(LocalDateTime.now(clock).minusDays(rollupRetentionDays));
+        earliestRollups.clear();
+        logger.info("Purged {} channel statistics rollups", deleted);
+    }
+
+    private Totals totalsSince(String channel, long fromMinute, boolean withOpenTransactions) {
+        Snapshot current = snapshot;
+        if (current != null && fromMinute >= current.fromMinute && fromMinute > currentMinute() - BUCKET_COUNT) {
+            Totals totals = new Totals();
+            current.minutes.getOrDefault(channel, Map.of()).forEach((minute, snapshotTotals) -> {
+                if (minute >= fromMinute) {
+                    totals.merge(snapshotTotals, withOpenTransactions);
+                }
+            });
+            // The snapshot leaves out this node's minutes, checkpointed or not
+            for (Bucket bucket : bucketsSince(channel, fromMinute)) {
+                bucket.statusCounts.forEach((status, count) -> totals.counts.merge(status, count.sum(), Long::sum));
+                totals.latency.merge(bucket.successLatency);
+            }
+            return totals;
+        }
+
+        // Older than the snapshot reaches, or no snapshot loaded yet
+        LocalDateTime from = toDateTime(fromMinute);
+        Totals totals = totals(channel, rollupRepository.findByChannelSince(channel, from), fromMinute);
+        if (withOpenTransactions) {
+            addOpenTransactions(channel, from, totals.counts);
+        }
+        return totals;
+    }
+
+    private Totals totals(String channel, List<ChannelStatsRollup> rollups, long fromMinute) {
+        Totals totals = new Totals();
+        LocalDateTime from = toDateTime(fromMinute);
+        for (ChannelStatsRollup rollup : rollups) {
+            if (rollup.getBucketStart().isBefore(from)) {
+                continue;
+            }
+            totals.counts.merge(rollup.getStatus(), rollup.getTransactionCount(), Long::sum);
+            if ("SUCCESS".equals(rollup.getStatus())) {
+                totals.latency.merge(rollup.getLatencyBuckets(), rollup.getLatencySumMs());
+            }
+        }
+
+        // This node's minutes that are not in the rollup table yet
+        for (Bucket bucket : bucketsSince(channel, fromMinute)) {
+            if (bucket.checkpointed) {
+                continue;
+            }
+            bucket.statusCounts.forEach((status, count) -> totals.counts.merge(status, count.sum(), Long::sum));
+            totals.latency.merge(bucket.successLatency);
+        }
+        return totals;
+    }
+
+    private void addOpenTransactions(String channel, LocalDateTime since, Map<String, Long> counts) {
+        for (Object[] row : headerRepository.findStatusCountsByChannelAndStatuses(
+                channel, TransactionOutboxService.OPEN_STATUSES, since)) {
+            counts.merge((String) row[0], (Long) row[1], Long::sum);
+        }
+    }
+
+    private void markCheckpointed(Map<Bucket, Long> written) {
+        written.forEach((bucket, minute) -> {
+            synchronized (bucket) {
+                if (bucket.minute == minute) {
+                    bucket.checkpointed = true;
+                }
+            }
+        });
+    }
+
+    private Bucket bucketFor(String channel, long minute) {
+        Bucket[] buckets = channels.computeIfAbsent(channel, key -> newBuckets());
+        Bucket bucket = buckets[(int) (minute % BUCKET_COUNT)];
+        if (bucket.minute != minute) {
+            synchronized (bucket) {
+                if (bucket.minute != minute) {
+                    bucket.reset(minute);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private List<Bucket> bucketsSince(String channel, long fromMinute) {
+        Bucket[] buckets = channels.get(channel);
+        if (buckets == null) {
+            return List.of();
+        }
+        long current = currentMinute();
+        List<Bucket> matching = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            long minute = bucket.minute;
+            if (minute >= fromMinute && minute <= current && minute > current - BUCKET_COUNT) {
+                matching.add(bucket);
+            }
+        }
+        return matching;
+    }
+
+    private static Totals minuteTotals(Map<String, Map<Long, Totals>> minutes, String channel, long minute) {
+        return minutes.computeIfAbsent(channel, key -> new HashMap<>()).computeIfAbsent(minute, key -> new Totals());
+    }
+
+    private static Bucket[] newBuckets() {
+        Bucket[] buckets = new Bucket[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new Bucket();
+        }
+        return buckets;
+    }
+
+    private long currentMinute() {
+        return clock.millis() / BUCKET_MS;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private static LocalDateTime minuteStart(LocalDateTime time) {
+        return toDateTime(toMinute(time));
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / BUCKET_MS;
+    }
+
+    private static LocalDateTime toDateTime(long minute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(minute * BUCKET_MS), ZoneId.systemDefault());
+    }
+
+    private static final class Totals {
+        private final Map<String, Long> counts = new HashMap<>();
+        private final Map<String, Long> openCounts = new HashMap<>();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void merge(Totals other, boolean withOpenTransactions) {
+            other.counts.forEach((status, count) -> counts.merge(status, count, Long::sum));
+            if (withOpenTransactions) {
+                other.openCounts.forEach((status, count) -> counts.merge(status, count, Long::sum));
+            }
+            latency.merge(other.latency);
+        }
+    }
+
+    /**
+     * Other nodes' checkpointed minutes and open transactions per channel and minute, read-only once built
+     */
+    private static final class Snapshot {
+        private final long fromMinute;
+        private final Map<String, Map<Long, Totals>> minutes;
+
+        private Snapshot(long fromMinute, Map<String, Map<Long, Totals>> minutes) {
+            this.fromMinute = fromMinute;
+            this.minutes = minutes;
+        }
+    }
+
+    private static final class Bucket {
+        private volatile long minute = -1;
+        private volatile boolean checkpointed;
+        private final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        private final LatencyHistogram successLatency = new LatencyHistogram();
+
+        private void reset(long newMinute) {
+            statusCounts.clear();
+            successLatency.reset();
+            checkpointed = false;
+            minute = newMinute;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.ClientCredentials;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener of {@link ClientCredentials}.
+ * <p>
+ * Hibernate creates its own instance of this class rather than using a singleton bean, so it
+ * holds no state and hands every change to the application context as a
+ * {@link ClientCredentialsChangedEvent}, which the shared {@link VerifiedCredentialCache} handles.
+ * Events are delivered synchronously, inside the writing transaction.
+ */
+public class ClientCredentialsChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onCredentialsChanged(ClientCredentials credentials) {
+        eventPublisher.publishEvent(new ClientCredentialsChangedEvent(credentials));
+    }
+}
@@ -0,0 +1,18 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.ClientCredentials;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when client credentials are saved or deleted through JPA
+ */
+public class ClientCredentialsChangedEvent extends ApplicationEvent {
+
+    public ClientCredentialsChangedEvent(ClientCredentials credentials) {
+        super(credentials);
+    }
+
+    public ClientCredentials getCredentials() {
+        return (ClientCredentials) getSource();
+    }
+}
@@ -0,0 +1,332 @@
+package com.concerto.omnichannel.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Locks a client out of a channel after too many failed authentications within a sliding window.
+ * <p>
+ * Failures are counted with a sliding window counter: the current fixed window plus the previous
+ * one weighted by how much of it still overlaps the sliding window. The lockout check only reads
+ * local state. Periodically each node adds its new failures to the shared counters in Redis, one
+ * Lua script call per batch of clients, and adopts the shared lockouts, so failures spread over
+ * several nodes still lock the client out everywhere within one interval. If Redis is unavailable, every node keeps counting
+ * locally and pushes the failures once Redis is back. Only clients with a failure on this node are
+ * tracked; a lockout raised on another node applies here once the client fails here too. When the
+ * tracked clients reach the bound, idle ones are dropped first and then an arbitrary tenth of
+ * those not locked out.
+ */
+@Component
+public class ClientLockoutTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientLockoutTracker.class);
+    private static final String KEY_PREFIX = "lockout:";
+
+    // For each key, adds ARGV[3 + i] failures to the shared sliding window of ARGV[1] ms, locking
+    // for ARGV[3] ms once ARGV[2] failures are reached; returns the remaining lockouts in ms
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "local time = redis.call('TIME') "
+                    + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+                    + "local window = tonumber(ARGV[1]) "
+                    + "local index = math.floor(now / window) "
+                    + "local remaining = {} "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "  local failures = tonumber(ARGV[3 + i]) "
+                    + "  local lockedUntil = tonumber(redis.call('HGET', key, 'lockedUntil') or '0') "
+                    + "  if failures > 0 then "
+                    + "    local current = tonumber(redis.call('HGET', key, 'current') or '0') "
+                    + "    local previous = tonumber(redis.call('HGET', key, 'previous') or '0') "
+                    + "    local currentIndex = tonumber(redis.call('HGET', key, 'index') or index) "
+                    + "    if currentIndex < index then "
+                    + "      if currentIndex == index - 1 then previous = current else previous = 0 end "
+                    + "      current = 0 "
+                    + "    end "
+                    + "    current = current + failures "
+                    + "    local count = previous * (1 - (now % window) / window) + current "
+                    + "    if count >= tonumber(ARGV[2]) and lockedUntil < now + tonumber(ARGV[3]) then "
+                    + "      lockedUntil = now + tonumber(ARGV[3]) "
+                    + "    end "
+                    + "    redis.call('HSET', key, 'index', string.format('%d', index), 'current', current, "
+                    + "      'previous', previous, 'lockedUntil', string.format('%d', lockedUntil)) "
+                    + "    redis.call('PEXPIRE', key, 2 * window + tonumber(ARGV[3])) "
+                    + "  end "
+                    + "  if lockedUntil > now then remaining[i] = lockedUntil - now else remaining[i] = 0 end "
+                    + "end "
+                    + "return remaining",
+            List.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${auth.lockout.maxFailedAttempts:3}")
+    private int maxFailedAttempts;
+
+    @Value("${auth.lockout.lockoutDurationMinutes:15}")
+    private long lockoutDurationMinutes;
+
+    @Value("${auth.lockout.windowMinutes:15}")
+    private long windowMinutes;
+
+    @Value("${auth.lockout.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    @Value("${auth.lockout.sync.batch-size:500}")
+    private int syncBatchSize;
+
+    private long windowNanos;
+    private long lockoutNanos;
+
+    private final Map<String, ClientState> states = new ConcurrentHashMap<>();
+
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+    private final LongAdder syncFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        windowNanos = Duration.ofMinutes(windowMinutes).toNanos();
+        lockoutNanos = Duration.ofMinutes(lockoutDurationMinutes).toNanos();
+    }
+
+    /**
+     * Whether the client is currently locked out of the channel
+     */
+    public boolean isLockedOut(String clientId, String channelId) {
+        // Only clients with failures are tracked, so unknown client ids cannot fill the table
+        ClientState state = states.get(channelId + ":" + clientId);
+        if (state == null) {
+            return false;
+        }
+        state.seen.set(true);
+        return state.lockedUntil.get() - System.nanoTime() > 0;
+    }
+
+    /**
+     * Count a failed authentication, locking the client out once the window holds too many
+     */
+    public void recordFailure(String clientId, String channelId) {
+        ClientState state = state(channelId + ":" + clientId);
+
+        long now = System.nanoTime();
+        long index = Math.floorDiv(now, windowNanos);
+        Window updated;
+        while (true) {
+            Window window = state.window.get();
+            updated = window.add(index);
+            if (state.window.compareAndSet(window, updated)) {
+                break;
+            }
+        }
+        state.unsynced.incrementAndGet();
+        failures.increment();
+
+        double overlap = 1.0 - (double) Math.floorMod(now, windowNanos) / windowNanos;
+        if (updated.previous * overlap + updated.current >= maxFailedAttempts) {
+            lockUntil(state, now + lockoutNanos);
+            lockouts.increment();
+            logger.warn("Client {} locked out of channel {} after repeated authentication failures", clientId, channelId);
+        }
+    }
+
+    /**
+     * Push new failures to the shared counters and adopt lockouts raised on other nodes, in one
+     * script call per batch of clients
+     */
+    @Scheduled(fixedDelayString = "${auth.lockout.sync.interval.ms:1000}")
+    public void synchronize() {
+        SyncBatch batch = new SyncBatch();
+        for (Map.Entry<String, ClientState> entry : states.entrySet()) {
+            ClientState state = entry.getValue();
+            int newFailures = state.unsynced.getAndSet(0);
+            boolean seen = state.seen.getAndSet(false);
+            if (newFailures == 0 && !seen) {
+                if (isIdle(state, System.nanoTime())) {
+                    states.remove(entry.getKey(), state);
+                }
+                continue;
+            }
+
+            batch.add(entry.getKey(), state, newFailures, seen);
+            if (batch.size() >= syncBatchSize) {
+                if (!push(batch)) {
+                    return;
+                }
+                batch = new SyncBatch();
+            }
+        }
+        if (batch.size() > 0) {
+            push(batch);
+        }
+    }
+
+    private boolean push(SyncBatch batch) {
+        List<Object> args = new ArrayList<>(batch.failures.size() + 3);
+        args.add(String.valueOf(Duration.ofNanos(windowNanos).toMillis()));
+        args.add(String.valueOf(maxFailedAttempts));
+        args.add(String.valueOf(Duration.ofNanos(lockoutNanos).toMillis()));
+        batch.failures.forEach(count -> args.add(String.valueOf(count)));
+
+        try {
+            List<?> lockedMs = redisTemplate.execute(RECORD_SCRIPT, batch.keys, args.toArray());
+            if (lockedMs != null) {
+                long now = System.nanoTime();
+                for (int i = 0; i < lockedMs.size() && i < batch.states.size(); i++) {
+                    long remaining = ((Number) lockedMs.get(i)).longValue();
+                    if (remaining > 0) {
+                        lockUntil(batch.states.get(i), now + Duration.ofMillis(remaining).toNanos());
+                    }
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            // Pushed again at the next synchronization
+            for (int i = 0; i < batch.states.size(); i++) {
+                ClientState state = batch.states.get(i);
+                state.unsynced.addAndGet(batch.failures.get(i));
+                if (batch.seen.get(i)) {
+                    state.seen.set(true);
+                }
+            }
+            syncFailures.increment();
+            logger.warn("Failed to synchronize authentication lockouts, enforcing them per node: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("failures", failures.sum());
+        statistics.put("lockouts", lockouts.sum());
+        statistics.put("syncFailures", syncFailures.sum());
+        statistics.put("evictions", evictions.sum());
+        statistics.put("trackedKeys", states.size());
+        return statistics;
+    }
+
+    private ClientState state(String key) {
+        ClientState state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+        if (states.size() >= maxTrackedKeys) {
+            makeRoom();
+        }
+        return states.computeIfAbsent(key, k -> new ClientState(System.nanoTime()));
+    }
+
+    /**
+     * Drop idle clients, then an arbitrary tenth of the rest; a client that is locked out is never
+     * dropped, so the table may exceed its bound while many clients are locked
+     */
+    private synchronized void makeRoom() {
+        if (states.size() < maxTrackedKeys) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        states.values().removeIf(state -> state.unsynced.get() == 0 && isIdle(state, now));
+
+        int toEvict = states.size() - maxTrackedKeys + Math.max(1, maxTrackedKeys / 10);
+        Iterator<ClientState> iterator = states.values().iterator();
+        while (toEvict > 0 && iterator.hasNext()) {
+            if (iterator.next().lockedUntil.get() - now > 0) {
+                continue;
+            }
+            iterator.remove();
+            evictions.increment();
+            toEvict--;
+        }
+    }
+
+    private boolean isIdle(ClientState state, long now) {
+        return state.lockedUntil.get() - now <= 0 && state.window.get().index < Math.floorDiv(now, windowNanos) - 1;
+    }
+
+    private static void lockUntil(ClientState state, long lockedUntil) {
+        while (true) {
+            long current = state.lockedUntil.get();
+            if (current - lockedUntil >= 0 || state.lockedUntil.compareAndSet(current, lockedUntil)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Clients pushed to Redis in one script call
+     */
+    private static final class SyncBatch {
+        private final List<String> keys = new ArrayList<>();
+        private final List<ClientState> states = new ArrayList<>();
+        private final List<Integer> failures = new ArrayList<>();
+        private final List<Boolean> seen = new ArrayList<>();
+
+        private void add(String key, ClientState state, int newFailures, boolean wasSeen) {
+            keys.add(KEY_PREFIX + key);
+            states.add(state);
+            failures.add(newFailures);
+            seen.add(wasSeen);
+        }
+
+        private int size() {
+            return keys.size();
+        }
+    }
+
+    private static final class ClientState {
+        private final AtomicLong lockedUntil;
+        private final AtomicReference<Window> window = new AtomicReference<>(Window.EMPTY);
+        private final AtomicInteger unsynced = new AtomicInteger();
+        private final AtomicBoolean seen = new AtomicBoolean();
+
+        private ClientState(long now) {
+            this.lockedUntil = new AtomicLong(now);
+        }
+    }
+
+    /**
+     * Failure counts of the current fixed window and the one before it
+     */
+    private static final class Window {
+        private static final Window EMPTY = new Window(Long.MIN_VALUE, 0, 0);
+
+        private final long index;
+        private final int current;
+        private final int previous;
+
+        private Window(long index, int current, int previous) {
+            this.index = index;
+            this.current = current;
+            this.previous = previous;
+        }
+
+        private Window add(long windowIndex) {
+            if (windowIndex == index) {
+                return new Window(index, current + 1, previous);
+            }
+            return new Window(windowIndex, 1, windowIndex == index + 1 ? current : 0);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.exception.RateLimitExceededException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket rate limits per remote address and per authenticated client, on each channel,
+ * shared across nodes.
+ * <p>
+ * Requests are limited by the connection's remote address before authentication, so unverified
+ * headers cannot pick the bucket, and by the verified principal after it. Each bucket is kept as a
+ * theoretical arrival time (GCRA): a request is admitted if the bucket, advanced by one request,
+ * is no more than the burst ahead of now. Admission is a single compare-and-set on local state,
+ * with no Redis round trip. Periodically each node adds the requests it admitted to the shared
+ * buckets in Redis, one Lua script call per batch of keys, and moves its local buckets up to the
+ * shared ones, so the limit holds across nodes. Between synchronizations a client can exceed its limit by at most what each
+ * node admits in one interval. If Redis is unavailable, every node keeps enforcing the limit
+ * locally and pushes the admitted requests once Redis is back.
+ */
+@Component
+public class ClientRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientRateLimiter.class);
+    private static final String KEY_PREFIX = "ratelimit:";
+    private static final String ADDRESS_KEY_PREFIX = "address:";
+
+    // For each key, adds ARGV[2i-1] requests of ARGV[2i] microseconds each to the shared bucket,
+    // on Redis time; returns how far in microseconds each bucket is ahead of now
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CONSUME_SCRIPT = new DefaultRedisScript<>(
+            "local time = redis.call('TIME') "
+                    + "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) "
+                    + "local ahead = {} "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "  local tat = tonumber(redis.call('GET', key) or '0') "
+                    + "  if tat < now then tat = now end "
+                    + "  tat = tat + tonumber(ARGV[2 * i - 1]) * tonumber(ARGV[2 * i]) "
+                    + "  redis.call('SET', key, string.format('%d', tat), 'PX', math.ceil((tat - now) / 1000) + 1000) "
+                    + "  ahead[i] = tat - now "
+                    + "end "
+                    + "return ahead",
+            List.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.rate-limit.requests-per-second:50}")
+    private double requestsPerSecond;
+
+    @Value("${auth.rate-limit.burst:100}")
+    private int burst;
+
+    @Value("${auth.rate-limit.address.requests-per-second:200}")
+    private double addressRequestsPerSecond;
+
+    @Value("${auth.rate-limit.address.burst:400}")
+    private int addressBurst;
+
+    @Value("${auth.rate-limit.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    @Value("${auth.rate-limit.sync.batch-size:500}")
+    private int syncBatchSize;
+
+    private Limit clientLimit;
+    private Limit addressLimit;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder syncFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        clientLimit = new Limit(requestsPerSecond, burst);
+        addressLimit = new Limit(addressRequestsPerSecond, addressBurst);
+    }
+
+    /**
+     * Admit one request from the remote address on the channel, before the client is authenticated
+     *
+     * @throws RateLimitExceededException if the address is over its limit
+     */
+    public void acquireForAddress(String remoteAddress, String channelId) {
+        if (!enabled || remoteAddress == null) {
+            return;
+        }
+        acquire(ADDRESS_KEY_PREFIX + channelId + ":" + remoteAddress, addressLimit, remoteAddress, channelId);
+    }
+
+    /**
+     * Admit one request of an authenticated client on the channel
+     *
+     * @throws RateLimitExceededException if the client is over its limit
+     */
+    public void acquire(String principal, String channelId) {
+        if (!enabled || principal == null) {
+            return;
+        }
+        acquire(channelId + ":" + principal, clientLimit, principal, channelId);
+    }
+
+    private void acquire(String key, Limit limit, String requester, String channelId) {
+        Bucket bucket = bucket(key, limit);
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = bucket.arrival.get();
+            long next = (arrival - now > 0 ? arrival : now) + limit.emissionIntervalNanos;
+            long ahead = next - now;
+            if (ahead > limit.burstToleranceNanos) {
+                rejected.increment();
+                throw new RateLimitExceededException(requester, channelId,
+                        Duration.ofNanos(ahead - limit.burstToleranceNanos));
+            }
+            if (bucket.arrival.compareAndSet(arrival, next)) {
+                bucket.unsynced.incrementAndGet();
+                admitted.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Push admitted requests to the shared buckets and catch up with other nodes' admissions,
+     * in one script call per batch of buckets
+     */
+    @Scheduled(fixedDelayString = "${auth.rate-limit.sync.interval.ms:500}")
+    public void synchronize() {
+        SyncBatch batch = new SyncBatch();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            long consumed = bucket.unsynced.getAndSet(0);
+            if (consumed == 0) {
+                // A bucket that has fully drained behaves like a new one, so it can go
+                if (bucket.arrival.get() - System.nanoTime() <= 0) {
+                    buckets.remove(entry.getKey(), bucket);
+                }
+                continue;
+            }
+
+            batch.add(entry.getKey(), bucket, consumed);
+            if (batch.size() >= syncBatchSize) {
+                if (!push(batch)) {
+                    return;
+                }
+                batch = new SyncBatch();
+            }
+        }
+        if (batch.size() > 0) {
+            push(batch);
+        }
+    }
+
+    private boolean push(SyncBatch batch) {
+        try {
+            List<?> aheadMicros = redisTemplate.execute(CONSUME_SCRIPT, batch.keys, batch.args.toArray());
+            if (aheadMicros != null) {
+                long now = System.nanoTime();
+                for (int i = 0; i < aheadMicros.size() && i < batch.buckets.size(); i++) {
+                    advance(batch.buckets.get(i), now + ((Number) aheadMicros.get(i)).longValue() * 1000);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            // Pushed again at the next synchronization
+            for (int i = 0; i < batch.buckets.size(); i++) {
+                batch.buckets.get(i).unsynced.addAndGet(batch.consumed.get(i));
+            }
+            syncFailures.increment();
+            logger.warn("Failed to synchronize rate limits, enforcing them per node: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("admitted", admitted.sum());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("syncFailures", syncFailures.sum());
+        statistics.put("evictions", evictions.sum());
+        statistics.put("trackedKeys", buckets.size());
+        return statistics;
+    }
+
+    private Bucket bucket(String key, Limit limit) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTrackedKeys) {
+            makeRoom();
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(limit, System.nanoTime()));
+    }
+
+    /**
+     * Drop drained buckets, then an arbitrary tenth of the rest; an evicted requester's next
+     * request starts a local bucket that catches up with the shared one at the next synchronization
+     */
+    private synchronized void makeRoom() {
+        if (buckets.size() < maxTrackedKeys) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.arrival.get() - now <= 0 && bucket.unsynced.get() == 0);
+
+        int toEvict = buckets.size() - maxTrackedKeys + Math.max(1, maxTrackedKeys / 10);
+        Iterator<Bucket> iterator = buckets.values().iterator();
+        while (toEvict-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static void advance(Bucket bucket, long arrival) {
+        while (true) {
+            long current = bucket.arrival.get();
+            if (current - arrival >= 0 || bucket.arrival.compareAndSet(current, arrival)) {
+                return;
+            }
+        }
+    }
+
+    private static final class Limit {
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+
+        private Limit(double requestsPerSecond, int burst) {
+            this.emissionIntervalNanos = (long) (Duration.ofSeconds(1).toNanos() / requestsPerSecond);
+            this.burstToleranceNanos = emissionIntervalNanos * burst;
+        }
+    }
+
+    /**
+     * Buckets pushed to Redis in one script call, with the script's keys and arguments
+     */
+    private static final class SyncBatch {
+        private final List<String> keys = new ArrayList<>();
+        private final List<Object> args = new ArrayList<>();
+        private final List<Bucket> buckets = new ArrayList<>();
+        private final List<Long> consumed = new ArrayList<>();
+
+        private void add(String key, Bucket bucket, long requests) {
+            keys.add(KEY_PREFIX + key);
+            args.add(String.valueOf(requests));
+            args.add(String.valueOf(Math.max(1, bucket.limit.emissionIntervalNanos / 1000)));
+            buckets.add(bucket);
+            consumed.add(requests);
+        }
+
+        private int size() {
+            return keys.size();
+        }
+    }
+
+    private static final class Bucket {
+        private final Limit limit;
+        private final AtomicLong arrival;
+        private final AtomicLong unsynced = new AtomicLong();
+
+        private Bucket(Limit limit, long arrival) {
+            this.limit = limit;
+            this.arrival = new AtomicLong(arrival);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.concerto.omnichannel.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encrypts and decrypts channel configuration values.
+ * <p>
+ * Ciphers are kept per thread and the key is built once. Decrypted values are held only in
+ * this process, as byte arrays keyed by ciphertext, so each stored version of a secret is
+ * decrypted once; the arrays are zeroed when dropped. Encrypted values travel through the
+ * shared caches as {@link #ENCRYPTED_PREFIX}-marked ciphertext, never as plaintext.
+ */
+@Component
+public class ConfigValueCipher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigValueCipher.class);
+    private static final String ENCRYPTION_ALGORITHM = "AES";
+    private static final String ENCRYPTION_KEY = "MySecretKey12345"; // In production, use proper key management
+
+    public static final String ENCRYPTED_PREFIX = "{enc}";
+
+    private final SecretKeySpec key = new SecretKeySpec(ENCRYPTION_KEY.getBytes(StandardCharsets.UTF_8), ENCRYPTION_ALGORITHM);
+    private final ThreadLocal<Cipher> encryptCipher = ThreadLocal.withInitial(() -> newCipher(Cipher.ENCRYPT_MODE));
+    private final ThreadLocal<Cipher> decryptCipher = ThreadLocal.withInitial(() -> newCipher(Cipher.DECRYPT_MODE));
+
+    private final Map<String, byte[]> decryptedValues = new ConcurrentHashMap<>();
+
+    @Value("${configuration.secrets.max-entries:1000}")
+    private int maxEntries;
+
+    public String encrypt(String plainText) {
+        try {
+            byte[] encrypted = encryptCipher.get().doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(encrypted);
+        } catch (Exception e) {
+            logger.error("Failed to encrypt configuration value", e);
+            return plainText; // Return plain text if encryption fails
+        }
+    }
+
+    /**
+     * Mark a stored ciphertext so it can be cached as is and recognised on the way out
+     */
+    public String markEncrypted(String encryptedText) {
+        return encryptedText != null ? ENCRYPTED_PREFIX + encryptedText : null;
+    }
+
+    public boolean isMarkedEncrypted(Object value) {
+        return value instanceof String text && text.startsWith(ENCRYPTED_PREFIX);
+    }
+
+    /**
+     * Decrypt a stored ciphertext, marked or not, decrypting each distinct ciphertext only once
+     */
+    public String decrypt(String encryptedText) {
+        if (encryptedText == null) {
+            return null;
+        }
+        String ciphertext = encryptedText.startsWith(ENCRYPTED_PREFIX)
+                ? encryptedText.substring(ENCRYPTED_PREFIX.length()) : encryptedText;
+
+        byte[] plainBytes = decryptedValues.get(ciphertext);
+        if (plainBytes != null) {
+            String plainText = new String(plainBytes, StandardCharsets.UTF_8);
+            // Arrays are removed before they are zeroed, so a value still mapped was read intact
+            if (decryptedValues.get(ciphertext) == plainBytes) {
+                return plainText;
+            }
+        }
+
+        try {
+            plainBytes = decryptCipher.get().doFinal(Base64.getDecoder().decode(ciphertext));
+        } catch (Exception e) {
+            logger.error("Failed to decrypt configuration value", e);
+            return encryptedText; // Return encrypted text if decryption fails
+        }
+
+        String plainText = new String(plainBytes, StandardCharsets.UTF_8);
+        if (decryptedValues.size() >= maxEntries) {
+            // Old versions of rotated secrets are never asked for again; start over rather than track use
+            purge();
+        }
+        if (decryptedValues.putIfAbsent(ciphertext, plainBytes) != null) {
+            Arrays.fill(plainBytes, (byte) 0);
+        }
+        return plainText;
+    }
+
+    /**
+     * Drop and zero all decrypted values, bounding how long a secret stays in memory
+     */
+    @Scheduled(fixedDelayString = "${configuration.secrets.ttl.ms:600000}")
+    public void purge() {
+        for (String ciphertext : decryptedValues.keySet()) {
+            byte[] plainBytes = decryptedValues.remove(ciphertext);
+            if (plainBytes != null) {
+                Arrays.fill(plainBytes, (byte) 0);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        purge();
+    }
+
+    private Cipher newCipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance(ENCRYPTION_ALGORITHM);
+            cipher.init(mode, key);
+            return cipher;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialise configuration cipher", e);
+        }
+    }
+}
@@ -1,29 +1,36 @@
 package com.concerto.omnichannel.service;
 
+import com.concerto.omnichannel.cache.CacheInvalidationBroadcaster;
 import com.concerto.omnichannel.entity.ChannelConfig;
 import com.concerto.omnichannel.repository.ChannelConfigRepository;
+import com.concerto.omnichannel.utils.ExpiringCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class ConfigurationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationService.class);
-    private static final String ENCRYPTION_ALGORITHM = "AES";
-    private static final String ENCRYPTION_KEY = "MySecretKey12345"; // In production, use proper key management
 
     @Autowired
     private ChannelConfigRepository channelConfigRepository;
@@ -31,11 +38,106 @@ public class ConfigurationService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ConfigValueCipher configValueCipher;
+
+    // Own proxy, so lookups calling the cached methods internally still go through the cache
+    @Lazy
+    @Autowired
+    private ConfigurationService self;
+
+    @Autowired
+    private CacheInvalidationBroadcaster invalidationBroadcaster;
+
+    @Value("${configuration.profile.ttl.ms:60000}")
+    private long profileTtlMs;
+
+    @Value("${configuration.profile.max-channels:1000}")
+    private int profileMaxChannels;
+
+    private ExpiringCache<String, ChannelProfile> profiles;
+    private final Map<String, CompletableFuture<ChannelProfile>> profileCompilations = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so a compilation racing with it is not kept
+    private final AtomicLong profileInvalidations = new AtomicLong();
+
+    @PostConstruct
+    public void initialize() {
+        profiles = new ExpiringCache<>(profileMaxChannels, Duration.ofMillis(profileTtlMs));
+
+        // Config changes on other nodes evict the channel's channelAllConfigs entry
+        invalidationBroadcaster.addInvalidationListener((cacheName, key) -> {
+            if ("channelAllConfigs".equals(cacheName)) {
+                invalidateProfile(key);
+            }
+        });
+    }
+
+    /**
+     * Current compiled configuration snapshot of a channel
+     */
+    public ChannelProfile getChannelProfile(String channelId) {
+        ChannelProfile profile = profiles.get(channelId);
+        if (profile != null) {
+            return profile;
+        }
+
+        // Concurrent misses for the same channel share one compilation
+        CompletableFuture<ChannelProfile> ownCompilation = new CompletableFuture<>();
+        CompletableFuture<ChannelProfile> inFlight = profileCompilations.putIfAbsent(channelId, ownCompilation);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            long invalidations = profileInvalidations.get();
+            profile = compileProfile(channelId);
+            if (invalidations == profileInvalidations.get()) {
+                profiles.put(channelId, profile);
+            }
+            ownCompilation.complete(profile);
+            return profile;
+        } catch (RuntimeException e) {
+            ownCompilation.completeExceptionally(e);
+            throw e;
+        } finally {
+            profileCompilations.remove(channelId, ownCompilation);
+        }
+    }
+
+    /**
+     * Load the configuration of every active channel into the caches and compile its profile
+     *
+     * @return the channels loaded
+     */
+    public List<String> preloadActiveChannels() {
+        List<String> channels = channelConfigRepository.findAllActiveChannels();
+        for (String channelId : channels) {
+            for (String configKey : self.getStoredConfigs(channelId).keySet()) {
+                self.getStoredConfigValue(channelId, configKey);
+            }
+            getChannelProfile(channelId);
+        }
+        return channels;
+    }
+
     /**
      * Get configuration value for a channel and key
      */
-    @Cacheable(value = "channelConfigs", key = "#channelId + ':' + #configKey")
     public String getConfigValue(String channelId, String configKey) {
+        String value = self.getStoredConfigValue(channelId, configKey);
+        return configValueCipher.isMarkedEncrypted(value) ? configValueCipher.decrypt(value) : value;
+    }
+
+    /**
+     * Configuration value as cached; encrypted values stay encrypted so no plaintext reaches Redis
+     */
+    @Cacheable(value = "channelConfigs", key = "#channelId + ':' + #configKey", sync = true)
+    public String getStoredConfigValue(String channelId, String configKey) {
         Optional<ChannelConfig> configOpt = channelConfigRepository
                 .findByChannelIdAndConfigKeyAndActiveTrue(channelId, configKey);
 
@@ -45,14 +147,7 @@ public class ConfigurationService {
         }
 
         ChannelConfig config = configOpt.get();
-        String value = config.getConfigValue();
-
-        // Decrypt if encrypted
-        if (config.isEncrypted()) {
-            value = decrypt(value);
-        }
-
-        return value;
+        return config.isEncrypted() ? configValueCipher.markEncrypted(config.getConfigValue()) : config.getConfigValue();
     }
 
     /**
@@ -82,23 +177,32 @@ public class ConfigurationService {
     }
 
     /**
-     * Get all configurations for a channel
+     * Get all configurations for a channel; encrypted values are returned as decrypted strings
      */
-    @Cacheable(value = "channelAllConfigs", key = "#channelId")
     public Map<String, Object> getAllConfigs(String channelId) {
+        // Copy, as the cached map is shared with other callers
+        Map<String, Object> configMap = new HashMap<>(self.getStoredConfigs(channelId));
+        configMap.replaceAll((key, value) ->
+                configValueCipher.isMarkedEncrypted(value) ? configValueCipher.decrypt((String) value) : value);
+        return configMap;
+    }
+
+    /**
+     * All configurations of a channel as cached; encrypted values stay encrypted
+     */
+    @Cacheable(value = "channelAllConfigs", key = "#channelId", sync = true)
+    public Map<String, Object> getStoredConfigs(String channelId) {
         List<ChannelConfig> configs = channelConfigRepository.findByChannelIdAndActiveTrue(channelId);
         Map<String, Object> configMap = new HashMap<>();
 
         for (ChannelConfig config : configs) {
-            String value = config.getConfigValue();
-
-            // Decrypt if encrypted
             if (config.isEncrypted()) {
-                value = decrypt(value);
+                configMap.put(config.getConfigKey(), configValueCipher.markEncrypted(config.getConfigValue()));
+                continue;
             }
 
             // Convert based on type
-            Object convertedValue = convertValueByType(value, config.getConfigType());
+            Object convertedValue = convertValueByType(config.getConfigValue(), config.getConfigType());
             configMap.put(config.getConfigKey(), convertedValue);
         }
 
@@ -109,36 +213,38 @@ public class ConfigurationService {
      * Get timeout configuration for channel
      */
     public Duration getChannelTimeout(String channelId) {
-        Integer timeoutMs = getConfigValue(channelId, "timeout", Integer.class, 30000);
-        return Duration.ofMillis(timeoutMs);
+        return getChannelProfile(channelId).getTimeout();
     }
 
     /**
      * Get retry configuration for channel
      */
     public int getChannelMaxRetries(String channelId) {
-        return getConfigValue(channelId, "maxRetries", Integer.class, 2);
+        return getChannelProfile(channelId).getMaxRetries();
     }
 
     /**
      * Check if circuit breaker is enabled for channel
      */
     public boolean isCircuitBreakerEnabled(String channelId) {
-        return getConfigValue(channelId, "circuitBreaker", Boolean.class, true);
+        return getChannelProfile(channelId).isCircuitBreakerEnabled();
     }
 
     /**
      * Get batch size for channel processing
      */
     public int getBatchSize(String channelId) {
-        return getConfigValue(channelId, "batchSize", Integer.class, 100);
+        return getChannelProfile(channelId).getBatchSize();
     }
 
     /**
      * Save or update configuration
      */
     @Transactional
-    @CacheEvict(value = {"channelConfigs", "channelAllConfigs"}, key = "#channelId")
+    @Caching(evict = {
+            @CacheEvict(value = "channelConfigs", key = "#channelId + ':' + #configKey"),
+            @CacheEvict(value = "channelAllConfigs", key = "#channelId")
+    })
     public void saveConfig(String channelId, String configKey, String configValue,
                            String configType, boolean encrypted, String updatedBy) {
 
@@ -157,7 +263,7 @@ public class ConfigurationService {
         }
 
         // Encrypt if required
-        String valueToStore = encrypted ? encrypt(configValue) : configValue;
+        String valueToStore = encrypted ? configValueCipher.encrypt(configValue) : configValue;
 
         config.setConfigValue(valueToStore);
         config.setConfigType(configType);
@@ -166,23 +272,31 @@ public class ConfigurationService {
 
         channelConfigRepository.save(config);
         logger.info("Configuration saved for channel: {} key: {}", channelId, configKey);
+        invalidateProfileAfterCommit(channelId);
     }
 
     /**
      * Delete configuration
      */
     @Transactional
-    @CacheEvict(value = {"channelConfigs", "channelAllConfigs"}, key = "#channelId")
+    @Caching(evict = {
+            @CacheEvict(value = "channelConfigs", key = "#channelId + ':' + #configKey"),
+            @CacheEvict(value = "channelAllConfigs", key = "#channelId")
+    })
     public void deleteConfig(String channelId, String configKey) {
         channelConfigRepository.deleteByChannelIdAndConfigKey(channelId, configKey);
         logger.info("Configuration deleted for channel: {} key: {}", channelId, configKey);
+        invalidateProfileAfterCommit(channelId);
     }
 
     /**
      * Deactivate configuration
      */
     @Transactional
-    @CacheEvict(value = {"channelConfigs", "channelAllConfigs"}, key = "#channelId")
+    @Caching(evict = {
+            @CacheEvict(value = "channelConfigs", key = "#channelId + ':' + #configKey"),
+            @CacheEvict(value = "channelAllConfigs", key = "#channelId")
+    })
     public void deactivateConfig(String channelId, String configKey) {
         Optional<ChannelConfig> configOpt = channelConfigRepository
                 .findByChannelIdAndConfigKey(channelId, configKey);
@@ -192,6 +306,7 @@ public class ConfigurationService {
             config.setActive(false);
             channelConfigRepository.save(config);
             logger.info("Configuration deactivated for channel: {} key: {}", channelId, configKey);
+            invalidateProfileAfterCommit(channelId);
         }
     }
 
@@ -199,7 +314,7 @@ public class ConfigurationService {
      * Check if channel is active
      */
     public boolean isChannelActive(String channelId) {
-        return getConfigValue(channelId, "active", Boolean.class, false);
+        return getChannelProfile(channelId).isActive();
     }
 
     /**
@@ -239,6 +354,42 @@ public class ConfigurationService {
     }
 
     // Private helper methods
+    private ChannelProfile compileProfile(String channelId) {
+        Map<String, String> values = new HashMap<>();
+        Set<String> secretKeys = new HashSet<>();
+        for (ChannelConfig config : channelConfigRepository.findByChannelIdAndActiveTrue(channelId)) {
+            String value = config.getConfigValue();
+            if (config.isEncrypted()) {
+                value = configValueCipher.decrypt(value);
+                secretKeys.add(config.getConfigKey());
+            }
+            values.put(config.getConfigKey(), value);
+        }
+        return ChannelProfile.compile(channelId, values, secretKeys);
+    }
+
+    private void invalidateProfile(String channelId) {
+        profileInvalidations.incrementAndGet();
+        if (channelId == null) {
+            profiles.clear();
+        } else {
+            profiles.remove(channelId);
+        }
+    }
+
+    private void invalidateProfileAfterCommit(String channelId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateProfile(channelId);
+                }
+            });
+        } else {
+            invalidateProfile(channelId);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T convertValue(String value, Class<T> type) {
         try {
@@ -285,33 +436,4 @@ public class ConfigurationService {
                 return value;
         }
     }
-
-    private String encrypt(String plainText) {
-        try {
-            SecretKeySpec key = new SecretKeySpec(ENCRYPTION_KEY.getBytes(StandardCharsets.UTF_8), ENCRYPTION_ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ENCRYPTION_ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-
-            byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
-        } catch (Exception e) {
-            logger.error("Failed to encrypt configuration value", e);
-            return plainText; // Return plain text if encryption fails
-        }
-    }
-
-    private String decrypt(String encryptedText) {
-        try {
-            SecretKeySpec key = new SecretKeySpec(ENCRYPTION_KEY.getBytes(StandardCharsets.UTF_8), ENCRYPTION_ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ENCRYPTION_ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, key);
-
-            byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(encryptedText));
-            return new String(decrypted, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            logger.error("Failed to decrypt configuration value", e);
-            return encryptedText; // Return encrypted text if decryption fails
-        }
-    }
 }
-
@@ -1,5 +1,6 @@
 package com.concerto.omnichannel.service;
 
+import com.concerto.omnichannel.utils.Deadline;
 import org.jpos.iso.ISOMsg;
 import org.jpos.iso.ISOUtil;
 import org.slf4j.Logger;
@@ -18,6 +19,7 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -73,8 +75,16 @@ public class ExternalSwitchConnector {
      * Synchronous method to send message to switch - Updated to match Android implementation
      */
     public ISOMsg sendToSwitchSync(ISOMsg requestMsg, String channelId) throws Exception {
-        String switchHost = configurationService.getConfigValue(channelId, "switchHost", defaultSwitchHost);
-        int switchPort = configurationService.getConfigValue(channelId, "switchPort", Integer.class, defaultSwitchPort);
+        return sendToSwitchSync(requestMsg, channelId, Deadline.after(Duration.ofMillis(connectionTimeout + (long) readTimeout)));
+    }
+
+    /**
+     * Send message to switch with connect and read timeouts capped by the caller's deadline
+     */
+    public ISOMsg sendToSwitchSync(ISOMsg requestMsg, String channelId, Deadline deadline) throws Exception {
+        ChannelProfile profile = configurationService.getChannelProfile(channelId);
+        String switchHost = profile.getSwitchHost() != null ? profile.getSwitchHost() : defaultSwitchHost;
+        int switchPort = profile.getSwitchPort() != null ? profile.getSwitchPort() : defaultSwitchPort;
 
         logger.info("Sending ISO8583 message to switch {}:{} for channel: {}", switchHost, switchPort, channelId);
 
@@ -86,8 +96,11 @@ public class ExternalSwitchConnector {
             // Create socket connection (matching Android code)
             socket = new Socket();
             InetSocketAddress address = new InetSocketAddress(switchHost, switchPort);
-            socket.connect(address, connectionTimeout);
-            socket.setSoTimeout(readTimeout);
+            deadline.checkNotExpired("switch-connect");
+            socket.connect(address, deadline.capMillis(connectionTimeout));
+            // Never wait on the switch longer than the caller is prepared to wait
+            deadline.checkNotExpired("switch-read");
+            socket.setSoTimeout(deadline.capMillis(readTimeout));
 
             outputStream = socket.getOutputStream();
             inputStream = socket.getInputStream();
@@ -263,8 +276,9 @@ public class ExternalSwitchConnector {
      * Test connection to switch
      */
     public boolean testSwitchConnection(String channelId) {
-        String switchHost = configurationService.getConfigValue(channelId, "switchHost", defaultSwitchHost);
-        int switchPort = configurationService.getConfigValue(channelId, "switchPort", Integer.class, defaultSwitchPort);
+        ChannelProfile profile = configurationService.getChannelProfile(channelId);
+        String switchHost = profile.getSwitchHost() != null ? profile.getSwitchHost() : defaultSwitchHost;
+        int switchPort = profile.getSwitchPort() != null ? profile.getSwitchPort() : defaultSwitchPort;
 
         try (Socket socket = new Socket()) {
             socket.connect(new InetSocketAddress(switchHost, switchPort), connectionTimeout);
@@ -0,0 +1,81 @@
+package com.concerto.omnichannel.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * AES-GCM encryption for sensitive transaction field values.
+ * Ciphertext is stored as {@code enc:v1:<base64(iv || ciphertext)>}.
+ */
+@Service
+public class FieldEncryptionService {
+
+    private static final String ENCRYPTED_PREFIX = "enc:v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final SecretKeySpec key;
+
+    public FieldEncryptionService(@Value("${app.security.encryption.key:}") String base64Key) {
+        this.key = base64Key.isBlank() ? null : new SecretKeySpec(Base64.getDecoder().decode(base64Key), "AES");
+    }
+
+    public boolean isConfigured() {
+        return key != null;
+    }
+
+    public boolean isEncrypted(String value) {
+        return value != null && value.startsWith(ENCRYPTED_PREFIX);
+    }
+
+    public String encrypt(String plainText) {
+        requireKey();
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            byte[] cipherText = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+
+            byte[] combined = ByteBuffer.allocate(iv.length + cipherText.length).put(iv).put(cipherText).array();
+            return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(combined);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt field value", e);
+        }
+    }
+
+    public String decrypt(String value) {
+        if (!isEncrypted(value)) {
+            return value;
+        }
+        requireKey();
+        try {
+            byte[] combined = Base64.getDecoder().decode(value.substring(ENCRYPTED_PREFIX.length()));
+
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, combined, 0, IV_LENGTH));
+            byte[] plainText = cipher.doFinal(combined, IV_LENGTH, combined.length - IV_LENGTH);
+            return new String(plainText, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to decrypt field value", e);
+        }
+    }
+
+    private void requireKey() {
+        if (key == null) {
+            throw new IllegalStateException("app.security.encryption.key is not configured");
+        }
+    }
+}
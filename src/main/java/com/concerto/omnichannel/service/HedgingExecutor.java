@@ -0,0 +1,270 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.utils.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedges connector calls for operations that are safe to duplicate.
+ * <p>
+ * Only operations in {@link #DUPLICATE_SAFE_OPERATIONS} can be hedged, and each one is opt-in
+ * per channel through the configuration key {@code hedge.<operation>.enabled}; the key is ignored
+ * for any other operation. When the first attempt has not completed after the
+ * channel's recent p95 latency (or {@code hedge.<operation>.delayMs}), a second attempt is
+ * started and whichever succeeds first wins. A credit budget caps hedges to a fixed
+ * fraction of primary calls.
+ */
+@Service
+public class HedgingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingExecutor.class);
+    private static final long CREDITS_PER_HEDGE = 1000;
+
+    /**
+     * Read-only operations, for which a second connector call cannot move money twice
+     */
+    static final Set<String> DUPLICATE_SAFE_OPERATIONS = Set.of("fetchBill", "balanceInquiry", "statusInquiry");
+
+    private final Set<String> ignoredConfigurations = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, HedgeStats> statsByOperation = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    @Qualifier("connectorExecutor")
+    private Executor connectorExecutor;
+
+    @Value("${hedging.budget.ratio:0.05}")
+    private double budgetRatio;
+
+    @Value("${hedging.budget.max-burst:10}")
+    private int maxBurst;
+
+    @Value("${hedging.delay.percentile:95}")
+    private double delayPercentile;
+
+    @Value("${hedging.delay.min.ms:20}")
+    private long minDelayMs;
+
+    @Value("${hedging.min-samples:50}")
+    private int minSamples;
+
+    /**
+     * Whether calls of the channel operation are hedged
+     */
+    public boolean isHedged(String channel, String operation) {
+        Boolean enabled = configurationService.getConfigValue(channel, "hedge." + operation + ".enabled", Boolean.class, false);
+        if (!Boolean.TRUE.equals(enabled)) {
+            return false;
+        }
+        if (!DUPLICATE_SAFE_OPERATIONS.contains(operation)) {
+            if (ignoredConfigurations.add(channel + "-" + operation)) {
+                logger.warn("Ignoring hedge.{}.enabled for channel {}: operation is not safe to duplicate", operation, channel);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Run the call, hedging it when enabled for the channel operation
+     */
+    public String execute(String channel, String operation, Callable<String> call) throws Exception {
+        if (!isHedged(channel, operation)) {
+            return call.call();
+        }
+        return executeHedged(channel, operation, call);
+    }
+
+    /**
+     * Run a call of a channel operation the caller has already checked with isHedged
+     */
+    public String executeHedged(String channel, String operation, Callable<String> call) throws Exception {
+        HedgeStats stats = statsByOperation.computeIfAbsent(channel + "-" + operation, key -> new HedgeStats());
+        stats.earnCredit();
+
+        long hedgeDelayMs = resolveHedgeDelay(channel, operation, stats);
+        if (hedgeDelayMs < 0) {
+            return timed(call, stats);
+        }
+
+        CompletableFuture<String> primary;
+        try {
+            primary = submit(call, stats);
+        } catch (RejectedExecutionException e) {
+            return timed(call, stats);
+        }
+
+        try {
+            return primary.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Primary is slower than the hedge threshold, fall through
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+
+        if (!stats.tryConsumeCredit()) {
+            stats.hedgesSkipped.increment();
+            return await(primary);
+        }
+
+        CompletableFuture<String> hedge;
+        try {
+            hedge = submit(call, stats);
+        } catch (RejectedExecutionException e) {
+            stats.hedgesSkipped.increment();
+            return await(primary);
+        }
+
+        stats.hedgesIssued.increment();
+        logger.debug("Hedging {}-{} after {} ms", channel, operation, hedgeDelayMs);
+
+        return await(firstSuccessful(primary, hedge, stats));
+    }
+
+    /**
+     * Current hedging counters and thresholds per channel operation
+     */
+    public Map<String, Map<String, Object>> getHedgingStatistics() {
+        Map<String, Map<String, Object>> statistics = new HashMap<>();
+        statsByOperation.forEach((key, stats) -> {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("p95Ms", stats.previousWindow.getPercentile(delayPercentile));
+            entry.put("hedgesIssued", stats.hedgesIssued.sum());
+            entry.put("hedgesWon", stats.hedgesWon.sum());
+            entry.put("hedgesSkipped", stats.hedgesSkipped.sum());
+            statistics.put(key, entry);
+        });
+        return statistics;
+    }
+
+    /**
+     * Roll latency windows so the hedge threshold follows recent behaviour
+     */
+    @Scheduled(fixedDelayString = "${hedging.window.ms:60000}")
+    public void rollLatencyWindows() {
+        statsByOperation.values().forEach(HedgeStats::roll);
+    }
+
+    private long resolveHedgeDelay(String channel, String operation, HedgeStats stats) {
+        Long fixedDelay = configurationService.getConfigValue(channel, "hedge." + operation + ".delayMs", Long.class);
+        if (fixedDelay != null) {
+            return Math.max(minDelayMs, fixedDelay);
+        }
+
+        // Not enough recent samples to know what slow looks like
+        if (stats.previousWindow.getCount() < minSamples) {
+            return -1;
+        }
+        return Math.max(minDelayMs, stats.previousWindow.getPercentile(delayPercentile));
+    }
+
+    private CompletableFuture<String> submit(Callable<String> call, HedgeStats stats) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return timed(call, stats);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, connectorExecutor);
+    }
+
+    private String timed(Callable<String> call, HedgeStats stats) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            stats.currentWindow.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private CompletableFuture<String> firstSuccessful(CompletableFuture<String> primary,
+                                                     CompletableFuture<String> hedge,
+                                                     HedgeStats stats) {
+        CompletableFuture<String> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        for (CompletableFuture<String> attempt : List.of(primary, hedge)) {
+            attempt.whenComplete((result, error) -> {
+                if (error == null) {
+                    if (winner.complete(result) && attempt == hedge) {
+                        stats.hedgesWon.increment();
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    private String await(CompletableFuture<String> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private Exception unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof Exception exception ? exception : new RuntimeException(cause);
+    }
+
+    private class HedgeStats {
+        private volatile LatencyHistogram currentWindow = new LatencyHistogram();
+        private volatile LatencyHistogram previousWindow = new LatencyHistogram();
+        private final AtomicLong credits = new AtomicLong();
+        private final LongAdder hedgesIssued = new LongAdder();
+        private final LongAdder hedgesWon = new LongAdder();
+        private final LongAdder hedgesSkipped = new LongAdder();
+
+        private void earnCredit() {
+            long earned = (long) (CREDITS_PER_HEDGE * budgetRatio);
+            long cap = CREDITS_PER_HEDGE * maxBurst;
+            credits.getAndUpdate(current -> Math.min(cap, current + earned));
+        }
+
+        private boolean tryConsumeCredit() {
+            while (true) {
+                long current = credits.get();
+                if (current < CREDITS_PER_HEDGE) {
+                    return false;
+                }
+                if (credits.compareAndSet(current, current - CREDITS_PER_HEDGE)) {
+                    return true;
+                }
+            }
+        }
+
+        private void roll() {
+            LatencyHistogram completed = currentWindow;
+            currentWindow = new LatencyHistogram();
+            previousWindow = completed;
+        }
+    }
+}
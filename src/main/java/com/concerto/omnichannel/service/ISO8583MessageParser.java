@@ -30,6 +30,13 @@ public class ISO8583MessageParser {
 
     private static final Logger logger = LoggerFactory.getLogger(ISO8583MessageParser.class);
 
+    // Additional fields holding the data elements of a sent request, read back to reverse it
+    public static final String ORIGINAL_STAN = "isoStan";
+    public static final String ORIGINAL_RRN = "isoRrn";
+    public static final String ORIGINAL_TRANSMISSION = "isoTransmissionDateTime";
+    public static final String ORIGINAL_ENTRY_MODE = "isoPosEntryMode";
+    public static final String ORIGINAL_PAN = "cardNumber";
+
     private GenericPackager asciiPackager;
     private GenericPackager binaryPackager;
     private final ObjectMapper objectMapper = new ObjectMapper();
@@ -152,6 +159,77 @@ public class ISO8583MessageParser {
         return isoMsg;
     }
 
+    /**
+     * Trace data for a request that is about to be sent: STAN, RRN, transmission date and time
+     * (MMddHHmmss, also sent as DE13 and DE12) and POS entry mode. Passed back in the request
+     * metadata so the message carries exactly what was stored.
+     */
+    public Map<String, String> newTraceData(JsonNode request) {
+        Map<String, String> trace = new HashMap<>();
+        trace.put(ORIGINAL_STAN, generateSTAN());
+        trace.put(ORIGINAL_RRN, generateRRN());
+        trace.put(ORIGINAL_TRANSMISSION, getCurrentTimestamp());
+        trace.put(ORIGINAL_ENTRY_MODE, getPOSEntryMode(request.path("channel").asText(), request));
+        return trace;
+    }
+
+    /**
+     * 0400 reversal of a request sent with the given stored data elements. The reversal has its own
+     * STAN; the original RRN is repeated in DE37 and the original MTI, STAN and transmission time go
+     * in DE90.
+     */
+    public ISOMsg buildReversal(String operation, BigDecimal amount, String terminalId, String merchantId,
+                                Map<String, String> original) throws ISOException {
+        String originalStan = original.get(ORIGINAL_STAN);
+        String originalRrn = original.get(ORIGINAL_RRN);
+        String originalTransmission = original.get(ORIGINAL_TRANSMISSION);
+        if (originalStan == null || originalRrn == null || originalTransmission == null) {
+            throw new IllegalArgumentException("Original STAN, RRN and transmission time are required for a reversal");
+        }
+
+        ISOMsg isoMsg = new ISOMsg();
+        isoMsg.setPackager(getPackager(defaultPackagerType));
+        isoMsg.setMTI("0400");
+
+        String transmission = getCurrentTimestamp();
+        if (original.get(ORIGINAL_PAN) != null) {
+            isoMsg.set(2, original.get(ORIGINAL_PAN));
+        }
+        isoMsg.set(3, getProcessingCode(operation));
+        if (amount != null) {
+            isoMsg.set(4, formatAmount(amount));
+        }
+        isoMsg.set(11, generateSTAN());
+        isoMsg.set(12, transmission.substring(4));
+        isoMsg.set(13, transmission.substring(0, 4));
+        if (original.get(ORIGINAL_ENTRY_MODE) != null) {
+            isoMsg.set(22, original.get(ORIGINAL_ENTRY_MODE));
+        }
+        isoMsg.set(25, "00");
+        isoMsg.set(37, originalRrn);
+        if (terminalId != null) {
+            isoMsg.set(41, terminalId);
+        }
+        if (merchantId != null) {
+            isoMsg.set(42, merchantId);
+        }
+        // Original data elements: MTI, STAN, transmission date and time, acquirer and forwarder (not sent)
+        isoMsg.set(90, getMTIForOperation(operation) + originalStan + originalTransmission
+                + "00000000000" + "00000000000");
+        return isoMsg;
+    }
+
+    /**
+     * Whether a response answers the given reversal and approves it
+     */
+    public boolean isApprovedReversalResponse(ISOMsg reversal, ISOMsg response) throws ISOException {
+        return response != null
+                && "0410".equals(response.getMTI())
+                && reversal.getString(11).equals(response.getString(11))
+                && reversal.getString(37).equals(response.getString(37))
+                && "00".equals(response.getString(39));
+    }
+
     /**
      * Convert TransactionRequest to ISO8583 message (backward compatibility)
      */
@@ -345,14 +423,18 @@ public class ISO8583MessageParser {
         // Field 7: Transmission Date and Time
         //isoMsg.set(7, getCurrentTimestamp());
 
+        // Trace data assigned (and stored) before sending, see newTraceData
+        JsonNode metadata = jsonNode.path("metadata");
+        String transmission = metadata.path(ORIGINAL_TRANSMISSION).asText(getCurrentTimestamp());
+
         // Field 11: System Trace Audit Number (STAN)
-        isoMsg.set(11, generateSTAN());
+        isoMsg.set(11, metadata.path(ORIGINAL_STAN).asText(generateSTAN()));
 
         // Field 12: Time, Local Transaction
-        isoMsg.set(12, getCurrentTime());
+        isoMsg.set(12, transmission.substring(4));
 
         // Field 13: Date, Local Transaction
-        isoMsg.set(13, getCurrentDate());
+        isoMsg.set(13, transmission.substring(0, 4));
 
         // Field 15: Date, Settlement
         //isoMsg.set(15, getCurrentDate());
@@ -366,7 +448,7 @@ public class ISO8583MessageParser {
 
         // Field 22: Point of Service Entry Mode
         String channel = jsonNode.get("channel").asText();
-        isoMsg.set(22, getPOSEntryMode(channel, jsonNode));
+        isoMsg.set(22, metadata.path(ORIGINAL_ENTRY_MODE).asText(getPOSEntryMode(channel, jsonNode)));
 
         // Field 25: Point of Service Condition Code
         isoMsg.set(25, "00");
@@ -378,7 +460,7 @@ public class ISO8583MessageParser {
         }*/
 
         // Field 37: Retrieval Reference Number
-        isoMsg.set(37, generateRRN());
+        isoMsg.set(37, metadata.path(ORIGINAL_RRN).asText(generateRRN()));
 
         // Field 41: Card Acceptor Terminal ID
         if (payload.has("terminalId")) {
@@ -463,14 +545,18 @@ public class ISO8583MessageParser {
         // Field 7: Transmission Date and Time
         isoMsg.set(7, getCurrentTimestamp());
 
+        // Trace data assigned (and stored) before sending, see newTraceData
+        JsonNode metadata = jsonNode.path("metadata");
+        String transmission = metadata.path(ORIGINAL_TRANSMISSION).asText(getCurrentTimestamp());
+
         // Field 11: System Trace Audit Number (STAN)
-        isoMsg.set(11, generateSTAN());
+        isoMsg.set(11, metadata.path(ORIGINAL_STAN).asText(generateSTAN()));
 
         // Field 12: Time, Local Transaction
-        isoMsg.set(12, getCurrentTime());
+        isoMsg.set(12, transmission.substring(4));
 
         // Field 13: Date, Local Transaction
-        isoMsg.set(13, getCurrentDate());
+        isoMsg.set(13, transmission.substring(0, 4));
 
         // Field 15: Date, Settlement
         isoMsg.set(15, getCurrentDate());
@@ -492,7 +578,7 @@ public class ISO8583MessageParser {
         }
 
         // Field 37: Retrieval Reference Number
-        isoMsg.set(37, generateRRN());
+        isoMsg.set(37, metadata.path(ORIGINAL_RRN).asText(generateRRN()));
 
         // Field 41: Card Acceptor Terminal ID
         if (request.getPayload().getTerminalId() != null) {
@@ -803,17 +889,18 @@ public class ISO8583MessageParser {
      */
     private byte[] getConfigurableTpduHeader(String channelId) {
         try {
-            // Get channel-specific TPDU configuration
-            String identifier = configurationService.getConfigValue(channelId, "tpduIdentifier", tpduIdentifier);
-            String source = configurationService.getConfigValue(channelId, "tpduSource", tpduSource);
-            String destination = configurationService.getConfigValue(channelId, "tpduDestination", tpduDestination);
+            // Channel-specific TPDU configuration, pre-parsed in the channel profile
+            ChannelProfile profile = configurationService.getChannelProfile(channelId);
+            int identifier = profile.getTpduIdentifier() != null ? profile.getTpduIdentifier() : parseHex(tpduIdentifier);
+            int source = profile.getTpduSource() != null ? profile.getTpduSource() : parseHex(tpduSource);
+            int destination = profile.getTpduDestination() != null ? profile.getTpduDestination() : parseHex(tpduDestination);
 
             return new byte[]{
-                    (byte) Integer.parseInt(identifier.replace("0x", ""), 16),
-                    (byte) ((Integer.parseInt(source.replace("0x", ""), 16) >> 8) & 0xFF),
-                    (byte) (Integer.parseInt(source.replace("0x", ""), 16) & 0xFF),
-                    (byte) ((Integer.parseInt(destination.replace("0x", ""), 16) >> 8) & 0xFF),
-                    (byte) (Integer.parseInt(destination.replace("0x", ""), 16) & 0xFF)
+                    (byte) identifier,
+                    (byte) ((source >> 8) & 0xFF),
+                    (byte) (source & 0xFF),
+                    (byte) ((destination >> 8) & 0xFF),
+                    (byte) (destination & 0xFF)
             };
         } catch (Exception e) {
             logger.warn("Failed to parse TPDU configuration, using defaults", e);
@@ -821,6 +908,10 @@ public class ISO8583MessageParser {
         }
     }
 
+    private static int parseHex(String value) {
+        return Integer.parseInt(value.replace("0x", ""), 16);
+    }
+
     public byte[] packMessageWithTpdu(ISOMsg isoMsg, String channelId) throws ISOException {
         byte[] isoBytes = isoMsg.pack();
 
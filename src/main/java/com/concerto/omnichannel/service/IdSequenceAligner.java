@@ -0,0 +1,106 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+import com.concerto.omnichannel.entity.TransactionDetail;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Moves the pooled id sequences past ids that were handed out without them.
+ * <p>
+ * Tables created before the sequences hold IDENTITY ids, while {@code ddl-auto} creates a missing
+ * sequence starting at 1, so it would hand out ids that are already taken. This runs at startup,
+ * after Hibernate has updated the schema (hence the dependency on the entity manager factory) and
+ * before requests are served. A sequence is only moved forward, and only when its next block could
+ * reach the highest id in its table. Nodes starting together take turns on an advisory lock.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceAligner {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceAligner.class);
+    private static final long ADVISORY_LOCK_ID = 0x69647365714CL; // "idseqL"
+
+    private static final SequenceTable[] SEQUENCES = {
+            new SequenceTable("transaction_header_seq", "transaction_header", TransactionHeader.ID_ALLOCATION_SIZE),
+            new SequenceTable("transaction_detail_seq", "transaction_detail", TransactionDetail.ID_ALLOCATION_SIZE),
+            new SequenceTable("outbox_event_seq", "outbox_event", OutboxEvent.ID_ALLOCATION_SIZE)
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${transaction.id-sequences.align-on-startup:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void alignSequences() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                execute(connection, "SELECT pg_advisory_lock(" + ADVISORY_LOCK_ID + ")");
+                try {
+                    for (SequenceTable sequence : SEQUENCES) {
+                        align(connection, sequence);
+                    }
+                } finally {
+                    execute(connection, "SELECT pg_advisory_unlock(" + ADVISORY_LOCK_ID + ")");
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Inserts then fail on duplicate keys rather than silently reuse ids
+            logger.error("Failed to align id sequences with existing ids", e);
+        }
+    }
+
+    private void align(Connection connection, SequenceTable sequence) throws SQLException {
+        // pooled-lo: a called sequence at v has handed out [v, v + increment), so v + increment comes next
+        String sql = "SELECT setval('" + sequence.name + "', t.max_id + 1, false) " +
+                "FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM " + sequence.table + ") t, " + sequence.name + " s " +
+                "WHERE t.max_id >= CASE WHEN s.is_called THEN s.last_value + " + sequence.increment + " ELSE s.last_value END";
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            if (resultSet.next()) {
+                logger.warn("Moved sequence {} to {} past existing {} ids", sequence.name, resultSet.getLong(1), sequence.table);
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not align sequence {} with {}: {}", sequence.name, sequence.table, e.getMessage());
+        }
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static final class SequenceTable {
+        private final String name;
+        private final String table;
+        private final int increment;
+
+        private SequenceTable(String name, String table, int increment) {
+            this.name = name;
+            this.table = table;
+            this.increment = increment;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.exception.IdempotencyKeyReusedException;
+import com.concerto.omnichannel.utils.ExpiringCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates retried transaction submissions.
+ * <p>
+ * Keys are always scoped to the authenticated client and channel, and remember a fingerprint of
+ * the request body: a key sent again with a different body is rejected rather than answered with
+ * another request's response. Duplicates on the same node join the in-flight future; duplicates
+ * on other nodes get the response stored in Redis once the first submission has completed. Only
+ * final outcomes are stored: a failure before the transaction was handed to a connector releases
+ * the key so the client can retry, while any later failure, including a timeout, is final because
+ * the switch may already have authorized the transaction.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final String RESPONSE_KEY_PREFIX = "idempotency:response:";
+    private static final String LOCK_KEY_PREFIX = "idempotency:lock:";
+
+    // Failures raised before the connector stage, so the switch never saw the transaction and a retry may succeed
+    private static final Set<String> RETRYABLE_ERROR_CODES = Set.of(
+            "AUTH_FAILED", "SYSTEM_BUSY", "NOT_PROCESSED", "DUPLICATE_IN_PROGRESS");
+
+    // Deletes the lock only while it still holds this submission's token
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate lockTemplate;
+
+    @Value("${idempotency.window.ms:600000}")
+    private long windowMs;
+
+    @Value("${idempotency.inflight.wait.ms:30000}")
+    private long inFlightWaitMs;
+
+    @Value("${idempotency.local.max-entries:10000}")
+    private int maxLocalEntries;
+
+    private Duration window;
+    private ExpiringCache<String, InFlight> localEntries;
+
+    // Fingerprints must not depend on property or map key order
+    private final ObjectMapper fingerprintMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .build();
+
+    private final ThreadLocal<MessageDigest> fingerprintDigest = ThreadLocal.withInitial(IdempotencyService::newDigest);
+
+    @PostConstruct
+    public void initialize() {
+        window = Duration.ofMillis(windowMs);
+        localEntries = new ExpiringCache<>(maxLocalEntries, window);
+    }
+
+    /**
+     * Resolve the deduplication key of an authenticated client's request: the Idempotency-Key
+     * header, else terminal + STAN, else the client reference from request metadata
+     *
+     * @param clientId the client the request was authenticated for
+     */
+    public String resolveKey(String idempotencyKey, String clientId, TransactionRequest request) {
+        if (clientId == null) {
+            throw new IllegalArgumentException("Idempotency keys are only resolved for authenticated clients");
+        }
+        String scope = clientId + ":" + request.getChannel();
+
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return scope + ":key:" + idempotencyKey.trim();
+        }
+
+        if (request.getPayload() != null) {
+            String terminalId = request.getPayload().getTerminalId();
+            Map<String, Object> additionalFields = request.getPayload().getAdditionalFields();
+            Object stan = additionalFields != null ? additionalFields.get("stan") : null;
+            if (terminalId != null && stan != null) {
+                return scope + ":stan:" + terminalId + ":" + stan;
+            }
+        }
+
+        Object clientReference = request.getMetadata() != null ? request.getMetadata().get("clientReference") : null;
+        if (clientReference != null) {
+            return scope + ":ref:" + clientReference;
+        }
+
+        return null;
+    }
+
+    /**
+     * Run the submission once per key within the idempotency window
+     *
+     * @throws IdempotencyKeyReusedException if the key was used for a request with a different body
+     */
+    public TransactionResponse execute(String key, TransactionRequest request, Supplier<TransactionResponse> submission) {
+        if (key == null) {
+            return submission.get();
+        }
+
+        String fingerprint = fingerprint(request);
+        InFlight ownEntry = new InFlight(fingerprint);
+        InFlight existingEntry = localEntries.putIfAbsent(key, ownEntry, window);
+        if (existingEntry != null) {
+            checkSameRequest(key, existingEntry.fingerprint, fingerprint);
+            logger.info("Duplicate submission for idempotency key {}, joining earlier request", key);
+            return awaitExisting(key, existingEntry.response);
+        }
+
+        String lockToken = null;
+        try {
+            StoredResponse stored = findStoredResponse(key);
+            if (stored != null) {
+                checkSameRequest(key, stored.fingerprint, fingerprint);
+                logger.info("Duplicate submission for idempotency key {}, returning stored response", key);
+                ownEntry.response.complete(stored.response);
+                return stored.response;
+            }
+
+            lockToken = fingerprint + "|" + UUID.randomUUID();
+            String holder = acquireLock(key, lockToken);
+            if (holder != null) {
+                lockToken = null;
+                int separator = holder.indexOf('|');
+                if (separator > 0) {
+                    checkSameRequest(key, holder.substring(0, separator), fingerprint);
+                }
+                logger.warn("Idempotency key {} is being processed on another node", key);
+                localEntries.remove(key, ownEntry);
+                TransactionResponse inProgress = duplicateInProgressResponse();
+                ownEntry.response.complete(inProgress);
+                return inProgress;
+            }
+
+            // Another node may have stored its response and released the lock since the first read
+            stored = findStoredResponse(key);
+            if (stored != null) {
+                releaseLock(key, lockToken);
+                lockToken = null;
+                checkSameRequest(key, stored.fingerprint, fingerprint);
+                logger.info("Duplicate submission for idempotency key {}, returning stored response", key);
+                ownEntry.response.complete(stored.response);
+                return stored.response;
+            }
+
+            TransactionResponse response = submission.get();
+            if (isFinalOutcome(response)) {
+                storeResponse(key, new StoredResponse(fingerprint, response));
+            } else {
+                // Nothing final happened, so a retry with this key must run again
+                logger.info("Releasing idempotency key {} after {} response", key, response.getErrorCode());
+                localEntries.remove(key, ownEntry);
+            }
+            releaseLock(key, lockToken);
+            ownEntry.response.complete(response);
+            return response;
+
+        } catch (RuntimeException e) {
+            localEntries.remove(key, ownEntry);
+            if (lockToken != null) {
+                releaseLock(key, lockToken);
+            }
+            ownEntry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Digest of what the client sent; requestTime is set on arrival and differs between retries
+     */
+    public String fingerprint(TransactionRequest request) {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("channel", request.getChannel());
+        content.put("operation", request.getOperation());
+        content.put("payload", request.getPayload());
+        content.put("metadata", request.getMetadata());
+
+        try {
+            byte[] hash = fingerprintDigest.get().digest(fingerprintMapper.writeValueAsBytes(content));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be fingerprinted", e);
+        }
+    }
+
+    /**
+     * Drop expired local entries
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup.interval.ms:60000}")
+    public void evictExpiredEntries() {
+        localEntries.cleanUp();
+    }
+
+    private static boolean isFinalOutcome(TransactionResponse response) {
+        return response.isSuccess() || !RETRYABLE_ERROR_CODES.contains(response.getErrorCode());
+    }
+
+    private static void checkSameRequest(String key, String storedFingerprint, String fingerprint) {
+        if (!fingerprint.equals(storedFingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+    }
+
+    private TransactionResponse awaitExisting(String key, CompletableFuture<TransactionResponse> existingEntry) {
+        try {
+            return existingEntry.get(inFlightWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Timed out waiting for in-flight request with idempotency key {}", key);
+            return duplicateInProgressResponse();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return duplicateInProgressResponse();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Original request failed", e.getCause());
+        }
+    }
+
+    private StoredResponse findStoredResponse(String key) {
+        try {
+            Object stored = redisTemplate.opsForValue().get(RESPONSE_KEY_PREFIX + key);
+            return stored instanceof StoredResponse storedResponse ? storedResponse : null;
+        } catch (Exception e) {
+            logger.warn("Failed to read idempotency record for key {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Take the cross-node lock for the key
+     *
+     * @return null if acquired, else the current holder's token, empty if it is unknown
+     */
+    private String acquireLock(String key, String lockToken) {
+        try {
+            Boolean acquired = lockTemplate.opsForValue().setIfAbsent(LOCK_KEY_PREFIX + key, lockToken, window);
+            if (!Boolean.FALSE.equals(acquired)) {
+                return null;
+            }
+            String holder = lockTemplate.opsForValue().get(LOCK_KEY_PREFIX + key);
+            // Released between the two calls: treat as still in progress rather than racing for it
+            return holder != null ? holder : "";
+        } catch (Exception e) {
+            // Redis unavailable: fall back to node-local deduplication only
+            logger.warn("Failed to acquire idempotency lock for key {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void storeResponse(String key, StoredResponse stored) {
+        try {
+            redisTemplate.opsForValue().set(RESPONSE_KEY_PREFIX + key, stored, window);
+        } catch (Exception e) {
+            logger.warn("Failed to store idempotency record for key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void releaseLock(String key, String lockToken) {
+        try {
+            lockTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_KEY_PREFIX + key), lockToken);
+        } catch (Exception e) {
+            logger.warn("Failed to release idempotency lock for key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private TransactionResponse duplicateInProgressResponse() {
+        return TransactionResponse.failure(null, null,
+                "A request with the same idempotency key is still being processed",
+                "DUPLICATE_IN_PROGRESS");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<TransactionResponse> response = new CompletableFuture<>();
+
+        private InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Final response of a key together with the fingerprint of the request that produced it
+     */
+    static class StoredResponse {
+        private String fingerprint;
+        private TransactionResponse response;
+
+        StoredResponse() {
+        }
+
+        StoredResponse(String fingerprint, TransactionResponse response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+    }
+}
@@ -1,36 +1,51 @@
 // Updated MainOrchestrator using Connector Factory Pattern
 package com.concerto.omnichannel.service;
 
+import com.concerto.omnichannel.configManager.ConnectorTimeoutConfig;
 import com.concerto.omnichannel.connector.Connector;
 import com.concerto.omnichannel.connector.ConnectorFactory;
+import com.concerto.omnichannel.connector.ISO8583Connector;
 import com.concerto.omnichannel.dto.TransactionRequest;
 import com.concerto.omnichannel.dto.TransactionResponse;
 import com.concerto.omnichannel.entity.TransactionHeader;
-import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.concerto.omnichannel.exception.DeadlineExceededException;
+import com.concerto.omnichannel.handlers.bbps.BBPSBillCache;
+import com.concerto.omnichannel.pipeline.PipelineStage;
+import com.concerto.omnichannel.pipeline.TransactionContext;
+import com.concerto.omnichannel.pipeline.TransactionPipeline;
+import com.concerto.omnichannel.utils.Deadline;
 import com.concerto.omnichannel.validation.BusinessRuleValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryRegistry;
-import io.github.resilience4j.timelimiter.TimeLimiter;
-import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 @Service
 public class MainOrchestrator {
@@ -43,9 +58,6 @@ public class MainOrchestrator {
     @Autowired
     private ConnectorFactory connectorFactory;
 
-    @Autowired
-    private TransactionHeaderRepository transactionHeaderRepository;
-
     @Autowired
     private BusinessRuleValidator businessRuleValidator;
 
@@ -56,141 +68,329 @@ public class MainOrchestrator {
     private RetryRegistry retryRegistry;
 
     @Autowired
-    private TimeLimiterRegistry timeLimiterRegistry;
+    private ConnectorTimeoutConfig timeoutConfig;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    @Qualifier("transactionExecutor")
+    private Executor transactionExecutor;
 
     @Autowired
     private ObjectMapper objectMapper;
 
-    @Transactional
-    public CompletableFuture<TransactionResponse> orchestrateAsync(
-            TransactionRequest request,
-            String clientId,
-            String clientSecret,
-            String token) {
+    @Autowired
+    private BBPSBillCache billCache;
+
+    @Autowired
+    private HedgingExecutor hedgingExecutor;
+
+    @Autowired
+    private ChannelStatisticsAggregator statisticsAggregator;
+
+    @Autowired
+    private TransactionOutboxService outboxService;
+
+    @Autowired
+    private TransactionStatusCache statusCache;
+
+    @Autowired
+    private TransactionDetailStore detailStore;
+
+    @Autowired
+    private ISO8583Connector isoConnector;
+
+    @Autowired
+    private ISO8583MessageParser messageParser;
+
+    @Value("${app.transaction.defaultTimeout:30000}")
+    private long transactionTimeoutMs;
+
+    @Value("${app.transaction.authTimeout:2000}")
+    private long authTimeoutMs;
+
+    private TransactionPipeline<TransactionContext> pipeline;
+
+    @PostConstruct
+    public void initializePipeline() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+
+        // CPU-bound stages get a small pool; stages that wait on the database, Redis or a switch get more threads
+        pipeline = new TransactionPipeline<>(List.of(
+                stage("intake", 8, this::intake, null),
+                stage("validation", cpus, this::validate, null),
+                stage("auth", 16, this::authenticated, context -> Duration.ofMillis(authTimeoutMs)),
+                stage("route", 8, this::route, null),
+                stage("connector", 64, this::callConnector,
+                        context -> getTimeoutForChannel(context.getRequest().getChannel())),
+                stage("response-mapping", cpus, this::mapResponse, null),
+                stage("persistence", 16, this::persist, null)
+        ));
+    }
+
+    @PreDestroy
+    public void shutdownPipeline() {
+        pipeline.shutdown();
+    }
+
+    /**
+     * Authenticate the client of a request before it is orchestrated
+     *
+     * @return the client the request was authenticated for
+     * @throws SecurityException if authentication fails
+     */
+    public String authenticate(TransactionRequest request, String clientId, String clientSecret, String token) {
+        String principal = executeWithResilience(
+                "authentication",
+                () -> authenticationService.authenticatePrincipal(clientId, clientSecret, token, request.getChannel()),
+                Deadline.after(Duration.ofMillis(authTimeoutMs))
+        );
+
+        if (principal == null) {
+            throw new SecurityException("Authentication failed for channel: " + request.getChannel());
+        }
+        return principal;
+    }
+
+    /**
+     * Orchestrate a request of a client that {@link #authenticate} has already verified
+     */
+    public CompletableFuture<TransactionResponse> orchestrateAsync(TransactionRequest request, String clientId) {
 
         // Generate correlation ID for tracing
         String correlationId = UUID.randomUUID().toString();
-        MDC.put("correlationId", correlationId);
-        MDC.put("channel", request.getChannel());
-        MDC.put("operation", request.getOperation());
 
         logger.info("Starting async transaction orchestration for channel: {} operation: {}",
                 request.getChannel(), request.getOperation());
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Set MDC in async context
-                MDC.put("correlationId", correlationId);
-                MDC.put("channel", request.getChannel());
+        // Deadline starts at intake, not when the first stage gets a thread
+        TransactionContext context = new TransactionContext(request, clientId, correlationId,
+                Deadline.after(Duration.ofMillis(transactionTimeoutMs)));
 
-                return orchestrateInternal(request, clientId, clientSecret, token, correlationId);
+        CompletableFuture<TransactionResponse> response = new CompletableFuture<>();
+        pipeline.execute(context).whenComplete((completed, error) -> {
+            if (error == null) {
+                response.complete(completed.getResponse());
+                return;
+            }
 
-            } catch (Exception e) {
-                logger.error("Async orchestration failed with error", e);
-                throw new CompletionException(e);
-            } finally {
-                MDC.clear();
+            Throwable failure = unwrap(error);
+            try {
+                // Failures may surface on a timer thread, so record them on the transaction executor instead
+                transactionExecutor.execute(() -> completeWithFailure(response, context, failure));
+            } catch (RejectedExecutionException e) {
+                // Never record on the timer thread, it enforces every other deadline; the stale
+                // transaction sweeper settles the header instead
+                logger.warn("Transaction executor saturated, answering {} without recording the failure", correlationId);
+                if (context.getHeader() == null) {
+                    response.completeExceptionally(failure);
+                } else {
+                    // Whether the connector was reached is unknown, so answer as if it was
+                    response.complete(createErrorResponse(request, context.getHeader(), correlationId, asException(failure), true));
+                }
             }
         });
+        return response;
     }
 
-    public TransactionResponse orchestrate(TransactionRequest request,
-                                           String clientId,
-                                           String clientSecret,
-                                           String token) {
-        String correlationId = UUID.randomUUID().toString();
-        return orchestrateInternal(request, clientId, clientSecret, token, correlationId);
+    public TransactionResponse orchestrate(TransactionRequest request, String clientId) {
+        try {
+            return orchestrateAsync(request, clientId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
     }
 
-    private TransactionResponse orchestrateInternal(TransactionRequest request,
-                                                    String clientId,
-                                                    String clientSecret,
-                                                    String token,
-                                                    String correlationId) {
+    /**
+     * Queue depth, throughput and latency per pipeline stage
+     */
+    public Map<String, Map<String, Object>> getPipelineStatistics() {
+        return pipeline.getStatistics();
+    }
 
-        // 1. Create transaction header for tracking
-        TransactionHeader header = createTransactionHeader(request, correlationId);
+    // 1. Create transaction header for tracking
+    private TransactionContext intake(TransactionContext context) {
+        context.setHeader(createTransactionHeader(context.getRequest(), context.getCorrelationId()));
+        return context;
+    }
 
-        try {
-            // 2. Business rule validation
-            businessRuleValidator.validateBusinessRules(request);
-
-            // 3. Authentication with circuit breaker
-            boolean authenticated = executeWithResilience(
-                    "authentication",
-                    () -> authenticationService.authenticate(clientId, clientSecret, token, request.getChannel()),
-                    Duration.ofSeconds(2)
-            );
-
-            if (!authenticated) {
-                header.setStatus("AUTH_FAILED");
-                header.setErrorMessage("Authentication failed");
-                header.setResponseTimestamp(LocalDateTime.now());
-                transactionHeaderRepository.save(header);
-
-                throw new SecurityException("Authentication failed for channel: " + request.getChannel());
-            }
+    // 2. Business rule validation
+    private TransactionContext validate(TransactionContext context) {
+        businessRuleValidator.validateBusinessRules(context.getRequest());
+        return context;
+    }
+
+    // 3. Record the authentication done before the request entered the pipeline; velocity caps
+    // count only authenticated requests
+    private TransactionContext authenticated(TransactionContext context) {
+        businessRuleValidator.checkVelocity(context.getRequest());
+        advanceStatus(context, "auth", "RECEIVED", "AUTHENTICATED");
+        return context;
+    }
 
-            header.setStatus("AUTHENTICATED");
-            transactionHeaderRepository.save(header);
+    // 4. Get appropriate connector using factory pattern and update processing status
+    private TransactionContext route(TransactionContext context) {
+        TransactionRequest request = context.getRequest();
+        Connector connector = connectorFactory.getConnector(request.getChannel());
 
-            // 4. Get appropriate connector using factory pattern
-            Connector connector = connectorFactory.getConnector(request.getChannel());
+        logger.info("Using connector: {} for channel: {}",
+                connector.getConnectorType(), request.getChannel());
+
+        context.setConnector(connector);
+        advanceStatus(context, "route", "AUTHENTICATED", "PROCESSING");
+        return context;
+    }
 
-            logger.info("Using connector: {} for channel: {}",
-                    connector.getConnectorType(), request.getChannel());
+    // 5. Process transaction through connector with resilience patterns
+    private TransactionContext callConnector(TransactionContext context) {
+        TransactionRequest request = context.getRequest();
+        Connector connector = context.getConnector();
+        Deadline connectorDeadline = context.getDeadline().min(getTimeoutForChannel(request.getChannel()));
 
-            // 5. Update processing status
-            header.setStatus("PROCESSING");
-            transactionHeaderRepository.save(header);
+        String requestPayload;
+        try {
+            requestPayload = objectMapper.writeValueAsString(request);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to serialize request", e);
+        }
 
-            // 6. Process transaction through connector with resilience patterns
-            String requestPayload = objectMapper.writeValueAsString(request);
-            String responsePayload = executeWithResilience(
-                    request.getChannel() + "-" + request.getOperation(),
-                    () -> {
-                        try {
-                            return connector.process(requestPayload);
-                        } catch (Exception e) {
-                            throw new RuntimeException("Connector processing failed", e);
+        boolean hedged = hedgingExecutor.isHedged(request.getChannel(), request.getOperation());
+        Callable<String> connectorCall = hedged
+                ? () -> hedgingExecutor.executeHedged(request.getChannel(), request.getOperation(),
+                        () -> connector.process(requestPayload, connectorDeadline))
+                : () -> connector.process(requestPayload, connectorDeadline);
+
+        // A hedged call is not retried as well: the hedge is its second attempt
+        String responsePayload = executeWithResilience(
+                request.getChannel() + "-" + request.getOperation(),
+                () -> {
+                    try {
+                        if (billCache.isBillFetch(request)) {
+                            return billCache.fetch(request, context.getClientId(), connectorDeadline, connectorCall);
                         }
-                    },
-                    getTimeoutForChannel(request.getChannel())
-            );
-
-            // 7. Parse response and create transaction response
-            TransactionResponse response = parseConnectorResponse(responsePayload, request, header);
-
-            // 8. Update final status
-            header.setStatus(response.isSuccess() ? "SUCCESS" : "FAILED");
-            if (!response.isSuccess()) {
-                header.setErrorMessage(response.getErrorMessage());
-                header.setErrorCode(response.getErrorCode());
-            }
-            header.setResponseTimestamp(LocalDateTime.now());
-            transactionHeaderRepository.save(header);
+                        return connectorCall.call();
+                    } catch (Exception e) {
+                        throw new RuntimeException("Connector processing failed", e);
+                    }
+                },
+                connectorDeadline,
+                !hedged
+        );
+
+        context.setResponsePayload(responsePayload);
+        return context;
+    }
 
-            response.setCorrelationId(correlationId);
-            response.setTransactionId(header.getId());
+    // 6. Parse response and create transaction response
+    private TransactionContext mapResponse(TransactionContext context) {
+        context.setResponse(parseConnectorResponse(context.getResponsePayload(), context.getRequest(), context.getHeader()));
+        return context;
+    }
 
-            logger.info("Transaction orchestration completed with status: {}",
-                    response.isSuccess() ? "SUCCESS" : "FAILED");
-            return response;
+    // 7. Update final status
+    private TransactionContext persist(TransactionContext context) {
+        TransactionHeader header = context.getHeader();
+        TransactionResponse response = context.getResponse();
+
+        String status = response.isSuccess() ? "SUCCESS" : "FAILED";
+        boolean recorded = response.isSuccess()
+                ? outboxService.completeIfOpen(header, status, null, null, response.getExternalReference())
+                : outboxService.completeIfOpen(header, status, response.getErrorCode(), response.getErrorMessage(),
+                        response.getExternalReference());
+        if (!recorded) {
+            // The caller was already answered with the failure recorded for this transaction
+            logger.warn("Transaction already completed, discarding late {} outcome", status);
+            return context;
+        }
+        statisticsAggregator.record(header);
+        billCache.onTransactionCompleted(context.getRequest(), response);
 
-        } catch (Exception e) {
-            // Update transaction status on failure
-            header.setStatus("FAILED");
-            header.setErrorMessage(e.getMessage());
-            header.setResponseTimestamp(LocalDateTime.now());
-            transactionHeaderRepository.save(header);
+        response.setCorrelationId(context.getCorrelationId());
+        response.setTransactionId(header.getId());
+
+        logger.info("Transaction orchestration completed with status: {}",
+                response.isSuccess() ? "SUCCESS" : "FAILED");
+        return context;
+    }
+
+    private void advanceStatus(TransactionContext context, String stage, String expectedStatus, String status) {
+        if (!outboxService.advanceStatus(context.getHeader(), expectedStatus, status)) {
+            // Already failed by a timeout, so stop before doing work nobody waits for
+            throw new DeadlineExceededException(stage);
+        }
+    }
+
+    private void completeWithFailure(CompletableFuture<TransactionResponse> response,
+                                     TransactionContext context, Throwable error) {
+        try {
+            response.complete(handleFailure(context, error));
+        } catch (Throwable e) {
+            response.completeExceptionally(e);
+        }
+    }
+
+    private TransactionResponse handleFailure(TransactionContext context, Throwable error) {
+        Exception e = asException(error);
+        TransactionHeader header = context.getHeader();
+        if (header == null) {
+            // The transaction was never recorded, so there is nothing to mark as failed
+            logger.error("Transaction intake failed", e);
+            throw e instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(e);
+        }
+
+        // Update transaction status on failure, unless the worker completed it first. Failing the
+        // header before the route stage moves it to PROCESSING also keeps it from the connector.
+        boolean notSent = outboxService.completeIfInStatus(header, TransactionOutboxService.NOT_SENT_STATUSES,
+                "FAILED", null, e.getMessage(), null);
+        withMdc(context, () -> {
+            if (notSent || outboxService.completeIfOpen(header, "FAILED", null, e.getMessage(), null)) {
+                statisticsAggregator.record(header);
+            }
 
             logger.error("Transaction orchestration failed", e);
+        });
+
+        // Create error response
+        return createErrorResponse(context.getRequest(), header, context.getCorrelationId(), e, !notSent);
+    }
+
+    private PipelineStage<TransactionContext> stage(String name, int defaultThreads,
+                                                    UnaryOperator<TransactionContext> step,
+                                                    Function<TransactionContext, Duration> timeout) {
+        int threads = environment.getProperty("pipeline.stages." + name + ".threads", Integer.class, defaultThreads);
+        int queueCapacity = environment.getProperty("pipeline.stages." + name + ".queue-capacity", Integer.class, 1000);
+
+        UnaryOperator<TransactionContext> handler = context -> {
+            TransactionContext[] result = new TransactionContext[1];
+            withMdc(context, () -> result[0] = step.apply(context));
+            return result[0];
+        };
+        return new PipelineStage<>(name, threads, queueCapacity, handler, timeout);
+    }
 
-            // Create error response
-            return createErrorResponse(request, header, correlationId, e);
+    private void withMdc(TransactionContext context, Runnable action) {
+        MDC.put("correlationId", context.getCorrelationId());
+        MDC.put("channel", context.getRequest().getChannel());
+        MDC.put("operation", context.getRequest().getOperation());
+        try {
+            action.run();
+        } finally {
+            MDC.clear();
         }
     }
 
+    private Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static Exception asException(Throwable error) {
+        return error instanceof Exception exception ? exception : new RuntimeException(error);
+    }
+
     private TransactionHeader createTransactionHeader(TransactionRequest request, String correlationId) {
         TransactionHeader header = new TransactionHeader();
         header.setChannel(request.getChannel());
@@ -207,7 +407,30 @@ public class MainOrchestrator {
             header.setTerminalId(request.getPayload().getTerminalId());
         }
 
-        return transactionHeaderRepository.save(header);
+        // Header and detail rows are written together, the details as one batched INSERT
+        Map<String, Object> additionalFields = request.getPayload() != null ? request.getPayload().getAdditionalFields() : null;
+        if (isoConnector.supports(request.getChannel())) {
+            additionalFields = withTraceData(request, additionalFields);
+        }
+        TransactionHeader saved = detailStore.saveNew(header, additionalFields);
+        statusCache.update(saved);
+        return saved;
+    }
+
+    // ISO8583 trace data is fixed and stored with the header before sending, so a stale request can be reversed
+    private Map<String, Object> withTraceData(TransactionRequest request, Map<String, Object> additionalFields) {
+        Map<String, String> trace = messageParser.newTraceData(objectMapper.valueToTree(request));
+
+        Map<String, Object> metadata = request.getMetadata() != null ? new HashMap<>(request.getMetadata()) : new HashMap<>();
+        metadata.putAll(trace);
+        request.setMetadata(metadata);
+
+        Map<String, Object> fields = additionalFields != null ? new LinkedHashMap<>(additionalFields) : new LinkedHashMap<>();
+        fields.putAll(trace);
+        if (request.getPayload() != null && request.getPayload().getCardNumber() != null) {
+            fields.put(ISO8583MessageParser.ORIGINAL_PAN, request.getPayload().getCardNumber());
+        }
+        return fields;
     }
 
     private TransactionResponse parseConnectorResponse(String responsePayload,
@@ -293,10 +516,15 @@ public class MainOrchestrator {
         return false;
     }
 
+    /**
+     * @param sentToConnector whether the transaction may have reached the connector, so the
+     *                        switch may have acted on it
+     */
     private TransactionResponse createErrorResponse(TransactionRequest request,
                                                     TransactionHeader header,
                                                     String correlationId,
-                                                    Exception e) {
+                                                    Exception e,
+                                                    boolean sentToConnector) {
         TransactionResponse errorResponse = new TransactionResponse();
         errorResponse.setCorrelationId(correlationId);
         errorResponse.setTransactionId(header.getId());
@@ -310,7 +538,10 @@ public class MainOrchestrator {
             errorResponse.setErrorCode("AUTH_FAILED");
         } else if (e instanceof IllegalArgumentException) {
             errorResponse.setErrorCode("INVALID_REQUEST");
-        } else if (e.getMessage() != null && e.getMessage().contains("timeout")) {
+        } else if (!sentToConnector) {
+            errorResponse.setErrorCode(e instanceof RejectedExecutionException ? "SYSTEM_BUSY" : "NOT_PROCESSED");
+        } else if (e instanceof DeadlineExceededException ||
+                (e.getMessage() != null && e.getMessage().contains("timeout"))) {
             errorResponse.setErrorCode("TIMEOUT");
         } else {
             errorResponse.setErrorCode("PROCESSING_ERROR");
@@ -319,21 +550,30 @@ public class MainOrchestrator {
         return errorResponse;
     }
 
-    private <T> T executeWithResilience(String name, Supplier<T> supplier, Duration timeout) {
+    private <T> T executeWithResilience(String name, Supplier<T> supplier, Deadline deadline) {
+        return executeWithResilience(name, supplier, deadline, true);
+    }
+
+    private <T> T executeWithResilience(String name, Supplier<T> supplier, Deadline deadline, boolean retryable) {
         CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(name);
-        Retry retry = retryRegistry.retry(name);
 
-        // Decorate the supplier with CircuitBreaker and Retry
-        Supplier<T> decoratedSupplier = Retry.decorateSupplier(retry,
-                CircuitBreaker.decorateSupplier(circuitBreaker, supplier));
+        // Every attempt re-checks the deadline so retries stop once the budget is spent
+        Supplier<T> boundedSupplier = () -> {
+            deadline.checkNotExpired(name);
+            return supplier.get();
+        };
+
+        // Decorate the supplier with CircuitBreaker and Retry; the pipeline stage enforces the timeout
+        Supplier<T> decoratedSupplier = CircuitBreaker.decorateSupplier(circuitBreaker, boundedSupplier);
+        if (retryable) {
+            decoratedSupplier = Retry.decorateSupplier(retryRegistry.retry(name), decoratedSupplier);
+        }
 
         try {
-            // Execute with manual timeout using CompletableFuture
-            CompletableFuture<T> future = CompletableFuture.supplyAsync(decoratedSupplier);
-            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
-        } catch (TimeoutException e) {
+            return decoratedSupplier.get();
+        } catch (DeadlineExceededException e) {
             logger.error("Operation timed out for: {}", name);
-            throw new RuntimeException("Operation timed out: " + name, e);
+            throw e;
         } catch (Exception e) {
             logger.error("Resilience pattern execution failed for: {}", name, e);
             throw new RuntimeException("Service temporarily unavailable: " + name, e);
@@ -341,20 +581,6 @@ public class MainOrchestrator {
     }
 
     private Duration getTimeoutForChannel(String channel) {
-        // This could be moved to configuration service
-        switch (channel.toUpperCase()) {
-            case "BBPS":
-                return Duration.ofSeconds(3);
-            case "ISO8583":
-            case "POS":
-            case "ATM":
-                return Duration.ofSeconds(5);
-            case "UPI":
-                return Duration.ofSeconds(6);
-            case "PG":
-                return Duration.ofSeconds(8);
-            default:
-                return Duration.ofSeconds(10);
-        }
+        return Duration.ofMillis(timeoutConfig.getTimeoutFor(channel));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,200 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+import com.concerto.omnichannel.outbox.OutboxSink;
+import com.concerto.omnichannel.repository.OutboxEventRepository;
+import com.concerto.omnichannel.repository.OutboxOffsetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes outbox events to the configured {@link OutboxSink} in batches.
+ * <p>
+ * One node relays at a time, elected with a Redis lease; the others only retry the lease now and
+ * then. Each batch is locked with SKIP LOCKED, published, then marked as published and added to
+ * the sink's delivery totals in the same transaction. Delivery is tracked per event, since event
+ * ids can commit out of order. A partial batch is held back until its oldest event has waited
+ * for the linger time, so quiet periods still produce reasonably sized batches.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String LEASE_KEY = "outbox-relay:lease";
+    private static final DefaultRedisScript<Long> EXTEND_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private OutboxEventRepository eventRepository;
+
+    @Autowired
+    private OutboxOffsetRepository offsetRepository;
+
+    @Autowired
+    private OutboxSink sink;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.node.id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${outbox.relay.lease.ms:10000}")
+    private long leaseMs;
+
+    @Value("${outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.linger.ms:200}")
+    private long lingerMs;
+
+    @Value("${outbox.relay.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${outbox.retention.hours:72}")
+    private long retentionHours;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile String lastError;
+    private volatile boolean leader;
+    private volatile long nextLeaseCheck;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll.interval.ms:100}")
+    public void relay() {
+        if (!enabled || !holdsLease()) {
+            return;
+        }
+
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Integer relayed;
+            try {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } catch (Exception e) {
+                failures.increment();
+                lastError = e.getMessage();
+                logger.error("Outbox relay batch failed", e);
+                return;
+            }
+            // A short batch means the backlog is drained
+            if (relayed == null || relayed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove published events past the retention period
+     */
+    @Scheduled(cron = "${outbox.retention.cron:0 15 * * * *}")
+    public void purgePublishedEvents() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Integer deleted = transactionTemplate.execute(status -> eventRepository.deletePublishedBefore(before));
+        logger.info("Purged {} published outbox events older than {}", deleted, before);
+    }
+
+    public Map<String, Object> getRelayStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("leader", leader);
+        statistics.put("sink", sink.getName());
+        statistics.put("published", published.sum());
+        statistics.put("batches", batches.sum());
+        statistics.put("failures", failures.sum());
+        statistics.put("lastError", lastError);
+        statistics.put("pending", eventRepository.countUnpublished());
+        statistics.put("oldestPendingEventId", eventRepository.findOldestUnpublishedId());
+        offsetRepository.findById(sink.getName()).ifPresent(offset -> {
+            statistics.put("highestDeliveredEventId", offset.getLastEventId());
+            statistics.put("deliveredCount", offset.getDeliveredCount());
+            statistics.put("offsetUpdatedAt", offset.getUpdatedAt());
+        });
+        return statistics;
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = eventRepository.lockUnpublishedBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (batch.size() < batchSize && batch.get(0).getCreatedAt().isAfter(now.minusNanos(lingerMs * 1_000_000))) {
+            return 0;
+        }
+
+        try {
+            sink.publish(batch);
+        } catch (Exception e) {
+            // Nothing is marked, so the whole batch is retried on the next poll
+            failures.increment();
+            lastError = e.getMessage();
+            logger.warn("Failed to publish {} outbox events to {}: {}", batch.size(), sink.getName(), e.getMessage());
+            return 0;
+        }
+
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+        eventRepository.markPublished(ids, now);
+        offsetRepository.recordDelivery(sink.getName(), ids.get(ids.size() - 1), ids.size(), now);
+
+        published.add(ids.size());
+        batches.increment();
+        return ids.size();
+    }
+
+    /**
+     * Whether this node is the relay. The lease is renewed, or retried by the other nodes, every
+     * third of its lifetime rather than on every poll.
+     */
+    private boolean holdsLease() {
+        long now = System.currentTimeMillis();
+        if (now < nextLeaseCheck) {
+            return leader;
+        }
+        nextLeaseCheck = now + leaseMs / 3;
+        leader = leader ? extendLease() : acquireLease();
+        return leader;
+    }
+
+    private boolean acquireLease() {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LEASE_KEY, nodeId, Duration.ofMillis(leaseMs)));
+        } catch (Exception e) {
+            logger.warn("Failed to acquire outbox relay lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean extendLease() {
+        try {
+            Long extended = redisTemplate.execute(EXTEND_LEASE_SCRIPT, List.of(LEASE_KEY), nodeId, leaseMs);
+            return extended != null && extended == 1;
+        } catch (Exception e) {
+            logger.warn("Failed to extend outbox relay lease: {}", e.getMessage());
+            return false;
+        }
+    }
+}
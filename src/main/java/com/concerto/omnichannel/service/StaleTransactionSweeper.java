@@ -0,0 +1,335 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.connector.ISO8583Connector;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.concerto.omnichannel.utils.Deadline;
+import org.jpos.iso.ISOMsg;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves transactions stuck in RECEIVED, AUTHENTICATED or PROCESSING.
+ * <p>
+ * The stale window is split into hourly slices, each guarded by a Redis lease so that only
+ * one node sweeps a slice. Rows are read in keyset pages. ISO8583 transactions that reached
+ * the switch are reversed in bounded parallel batches with a 0400 built from the data elements
+ * stored when the request was sent; everything else is timed out.
+ * Statuses are applied with one conditional bulk update per outcome.
+ */
+@Service
+public class StaleTransactionSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleTransactionSweeper.class);
+
+    private static final List<String> STALE_STATUSES = List.of("RECEIVED", "AUTHENTICATED", "PROCESSING");
+    private static final String LEASE_KEY_PREFIX = "stale-sweeper:lease:";
+    private static final Duration SLICE = Duration.ofHours(1);
+
+    // Release or extend the lease only if this node still owns it
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    private static final DefaultRedisScript<Long> EXTEND_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private TransactionHeaderRepository headerRepository;
+
+    @Autowired
+    private ISO8583Connector isoConnector;
+
+    @Autowired
+    private ISO8583MessageParser messageParser;
+
+    @Autowired
+    private ExternalSwitchConnector switchConnector;
+
+    @Autowired
+    private TransactionDetailStore detailStore;
+
+    @Autowired
+    private FieldEncryptionService encryptionService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChannelStatisticsAggregator statisticsAggregator;
+
+    @Autowired
+    private TransactionOutboxService outboxService;
+
+    @Autowired
+    private TransactionStatusCache statusCache;
+
+    @Autowired
+    @Qualifier("connectorExecutor")
+    private Executor connectorExecutor;
+
+    @Value("${transaction.stale.sweeper.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transaction.stale.sweeper.threshold-minutes:15}")
+    private long thresholdMinutes;
+
+    @Value("${transaction.stale.lookback-hours:168}")
+    private long lookbackHours;
+
+    @Value("${transaction.stale.sweeper.page-size:500}")
+    private int pageSize;
+
+    @Value("${transaction.stale.sweeper.parallelism:8}")
+    private int parallelism;
+
+    @Value("${transaction.stale.sweeper.reversal-timeout.ms:10000}")
+    private long reversalTimeoutMs;
+
+    @Value("${transaction.stale.sweeper.lease.ms:600000}")
+    private long leaseMs;
+
+    @Value("${app.node.id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder reversed = new LongAdder();
+    private final LongAdder reversalFailed = new LongAdder();
+    private final LongAdder slicesSwept = new LongAdder();
+    private final LongAdder slicesSkipped = new LongAdder();
+    private volatile LocalDateTime lastRunStarted;
+    private volatile LocalDateTime lastRunCompleted;
+    private volatile String currentSlice;
+
+    @Scheduled(fixedDelayString = "${transaction.stale.sweeper.interval.ms:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        lastRunStarted = LocalDateTime.now();
+        LocalDateTime cutoff = lastRunStarted.minusMinutes(thresholdMinutes);
+        LocalDateTime sliceStart = cutoff.minusHours(lookbackHours).withMinute(0).withSecond(0).withNano(0);
+
+        while (sliceStart.isBefore(cutoff)) {
+            LocalDateTime sliceEnd = sliceStart.plus(SLICE).isBefore(cutoff) ? sliceStart.plus(SLICE) : cutoff;
+            String leaseKey = LEASE_KEY_PREFIX + sliceStart.atZone(ZoneId.systemDefault()).toEpochSecond();
+
+            if (acquireLease(leaseKey)) {
+                try {
+                    currentSlice = sliceStart + " - " + sliceEnd;
+                    sweepSlice(sliceStart, sliceEnd);
+                    slicesSwept.increment();
+                } catch (Exception e) {
+                    logger.error("Stale transaction sweep failed for slice starting {}", sliceStart, e);
+                } finally {
+                    releaseLease(leaseKey);
+                }
+            } else {
+                slicesSkipped.increment();
+            }
+            sliceStart = sliceEnd;
+        }
+
+        currentSlice = null;
+        lastRunCompleted = LocalDateTime.now();
+    }
+
+    public Map<String, Object> getSweeperStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("scanned", scanned.sum());
+        statistics.put("timedOut", timedOut.sum());
+        statistics.put("reversed", reversed.sum());
+        statistics.put("reversalFailed", reversalFailed.sum());
+        statistics.put("slicesSwept", slicesSwept.sum());
+        statistics.put("slicesSkipped", slicesSkipped.sum());
+        statistics.put("currentSlice", currentSlice);
+        statistics.put("lastRunStarted", lastRunStarted);
+        statistics.put("lastRunCompleted", lastRunCompleted);
+        return statistics;
+    }
+
+    private void sweepSlice(LocalDateTime from, LocalDateTime before) {
+        long afterId = 0;
+        while (true) {
+            List<TransactionHeader> page = headerRepository.findStaleTransactionsAfter(
+                    STALE_STATUSES, from, before, afterId, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                return;
+            }
+            scanned.add(page.size());
+            afterId = page.get(page.size() - 1).getId();
+
+            List<TransactionHeader> toReverse = new ArrayList<>();
+            List<TransactionHeader> toTimeOut = new ArrayList<>();
+            for (TransactionHeader header : page) {
+                // Only PROCESSING transactions may have reached the switch
+                if ("PROCESSING".equals(header.getStatus()) && isoConnector.supports(header.getChannel())) {
+                    toReverse.add(header);
+                } else {
+                    toTimeOut.add(header);
+                }
+            }
+
+            Map<String, List<TransactionHeader>> outcomes = new LinkedHashMap<>();
+            outcomes.put("TIMED_OUT", toTimeOut);
+            for (int i = 0; i < toReverse.size(); i += parallelism) {
+                reverseBatch(toReverse.subList(i, Math.min(i + parallelism, toReverse.size())), outcomes);
+            }
+
+            applyOutcomes(outcomes, from);
+
+            // Keep leasing this slice while work continues; stop if another node has taken it over
+            if (!extendLease(LEASE_KEY_PREFIX + from.atZone(ZoneId.systemDefault()).toEpochSecond())) {
+                logger.warn("Lost the stale sweeper lease for slice starting {}, stopping", from);
+                return;
+            }
+
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    private void reverseBatch(List<TransactionHeader> batch, Map<String, List<TransactionHeader>> outcomes) {
+        Map<Long, Map<String, Object>> storedFields = detailStore.findFieldsByHeaders(batch);
+        List<CompletableFuture<Boolean>> reversals = new ArrayList<>();
+        for (TransactionHeader header : batch) {
+            Map<String, Object> fields = storedFields.getOrDefault(header.getId(), Map.of());
+            reversals.add(CompletableFuture.supplyAsync(() -> sendReversal(header, fields), connectorExecutor)
+                    .exceptionally(error -> {
+                        logger.warn("Reversal failed for transaction {}: {}", header.getId(), error.getMessage());
+                        return false;
+                    }));
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            boolean approved = reversals.get(i).join();
+            outcomes.computeIfAbsent(approved ? "REVERSED" : "REVERSAL_FAILED", key -> new ArrayList<>())
+                    .add(batch.get(i));
+            (approved ? reversed : reversalFailed).increment();
+        }
+    }
+
+    /**
+     * Reverse a request with the data elements stored when it was sent; true only for an approved 0410
+     * that answers this reversal
+     */
+    private boolean sendReversal(TransactionHeader header, Map<String, Object> storedFields) {
+        try {
+            Map<String, String> original = new HashMap<>();
+            for (String field : List.of(ISO8583MessageParser.ORIGINAL_STAN, ISO8583MessageParser.ORIGINAL_RRN,
+                    ISO8583MessageParser.ORIGINAL_TRANSMISSION, ISO8583MessageParser.ORIGINAL_ENTRY_MODE,
+                    ISO8583MessageParser.ORIGINAL_PAN)) {
+                Object value = storedFields.get(field);
+                if (value != null) {
+                    original.put(field, encryptionService.decrypt(value.toString()));
+                }
+            }
+
+            ISOMsg reversal = messageParser.buildReversal(header.getOperation(), header.getAmount(),
+                    header.getTerminalId(), header.getMerchantId(), original);
+            ISOMsg response = switchConnector.sendToSwitchSync(reversal, header.getChannel(),
+                    Deadline.after(Duration.ofMillis(reversalTimeoutMs)));
+
+            if (!messageParser.isApprovedReversalResponse(reversal, response)) {
+                logger.warn("Reversal for transaction {} not approved: MTI {}, response code {}", header.getId(),
+                        response != null ? response.getMTI() : null, response != null ? response.getString(39) : null);
+                return false;
+            }
+            return true;
+
+        } catch (Exception e) {
+            logger.warn("Reversal for transaction {} could not be sent: {}", header.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void applyOutcomes(Map<String, List<TransactionHeader>> outcomes, LocalDateTime from) {
+        // Database timestamps keep microseconds, so compare against the value as stored
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        outcomes.forEach((status, headers) -> {
+            if (headers.isEmpty()) {
+                return;
+            }
+            List<Long> ids = headers.stream().map(TransactionHeader::getId).toList();
+            String message = "Resolved by stale transaction sweeper: " + status;
+
+            // Completion events are only written for rows this sweep actually moved
+            List<TransactionHeader> updated = transactionTemplate.execute(tx -> {
+                headerRepository.bulkUpdateStatus(ids, STALE_STATUSES, status, message, now, from);
+                List<TransactionHeader> moved = headerRepository.findAllById(ids).stream()
+                        .filter(header -> status.equals(header.getStatus()) && now.equals(header.getResponseTimestamp()))
+                        .toList();
+                outboxService.appendAll(moved);
+                statusCache.updateAll(moved);
+                return moved;
+            });
+            if (updated == null) {
+                return;
+            }
+            if ("TIMED_OUT".equals(status)) {
+                timedOut.add(updated.size());
+            }
+
+            updated.forEach(statisticsAggregator::record);
+            logger.info("Stale sweeper marked {} of {} transactions as {}", updated.size(), ids.size(), status);
+        });
+    }
+
+    private boolean acquireLease(String key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, nodeId, Duration.ofMillis(leaseMs)));
+        } catch (Exception e) {
+            // Without Redis there is no way to coordinate; skip rather than risk double reversals
+            logger.warn("Failed to acquire stale sweeper lease {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean extendLease(String key) {
+        try {
+            Long extended = redisTemplate.execute(EXTEND_LEASE_SCRIPT, List.of(key), nodeId, leaseMs);
+            return extended != null && extended == 1;
+        } catch (Exception e) {
+            // Stop rather than sweep on while another node may take the slice over
+            logger.warn("Failed to extend stale sweeper lease {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease(String key) {
+        try {
+            redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(key), nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to release stale sweeper lease {}: {}", key, e.getMessage());
+        }
+    }
+}
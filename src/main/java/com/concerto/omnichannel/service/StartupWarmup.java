@@ -0,0 +1,159 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.connector.ConnectorFactory;
+import com.concerto.omnichannel.operations.OperationHandler;
+import com.concerto.omnichannel.registry.OperationHandlerRegistry;
+import org.jpos.iso.ISOMsg;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Warms the caches a freshly started node would otherwise fill on its first requests.
+ * <p>
+ * Runs when the application is ready. Tomcat is already listening by then, so the readiness
+ * state is set to refusing traffic for the duration and to accepting traffic once warm-up is
+ * done; {@code /actuator/health/readiness} reports it and the transaction endpoints answer 503
+ * until then. A step that fails is logged and skipped, since a node with a cold cache still serves.
+ */
+@Component
+public class StartupWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+    private static final String SYNTHETIC_CLIENT_ID = "startup-warmup";
+
+    @Autowired
+    private ConfigurationService configurationService;
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private OperationHandlerRegistry operationHandlerRegistry;
+
+    @Autowired
+    private ConnectorFactory connectorFactory;
+
+    @Autowired
+    private ISO8583MessageParser iso8583MessageParser;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.synthetic.enabled:true}")
+    private boolean syntheticEnabled;
+
+    private final Map<String, Object> results = new LinkedHashMap<>();
+    private volatile boolean complete;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            complete = true;
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            return;
+        }
+
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        long start = System.nanoTime();
+        List<String> channels = step("channels", configurationService::preloadActiveChannels, List.of());
+        step("credentials", authenticationService::preloadCredentials, 0);
+        step("handlers", this::resolveHandlers, 0);
+        step("connectors", () -> resolveConnectors(channels), 0);
+        step("packagers", this::exercisePackagers, 0);
+        if (syntheticEnabled) {
+            step("syntheticAuthentications", () -> authenticateSynthetically(channels), 0);
+        }
+
+        complete = true;
+        logger.info("Startup warm-up completed in {} ms: {}", (System.nanoTime() - start) / 1_000_000, getStatistics());
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>(results);
+        statistics.put("complete", complete);
+        return statistics;
+    }
+
+    private <T> T step(String name, Supplier<T> action, T fallback) {
+        long start = System.nanoTime();
+        try {
+            T result = action.get();
+            record(name, Map.of("result", result, "durationMs", (System.nanoTime() - start) / 1_000_000));
+            return result;
+        } catch (Exception e) {
+            logger.warn("Startup warm-up step {} failed, continuing with a cold cache: {}", name, e.getMessage());
+            record(name, Map.of("error", String.valueOf(e.getMessage())));
+            return fallback;
+        }
+    }
+
+    private synchronized void record(String name, Map<String, Object> outcome) {
+        results.put(name, outcome);
+    }
+
+    private int resolveHandlers() {
+        int resolved = 0;
+        for (OperationHandler handler : operationHandlerRegistry.getAllHandlers()) {
+            if (operationHandlerRegistry.getHandler(handler.getChannel(), handler.getOperationType()) != null) {
+                resolved++;
+            }
+        }
+        return resolved;
+    }
+
+    private int resolveConnectors(List<String> channels) {
+        int resolved = 0;
+        for (String channelId : channels) {
+            if (connectorFactory.hasConnector(channelId)) {
+                connectorFactory.getConnector(channelId);
+                resolved++;
+            }
+        }
+        return resolved;
+    }
+
+    private int exercisePackagers() {
+        // A network echo through the packager loads and links the jPOS field classes
+        try {
+            ISOMsg echo = new ISOMsg();
+            echo.setMTI("0800");
+            echo.set(7, "0101000000");
+            echo.set(11, "000001");
+            echo.set(70, "301");
+            byte[] packed = iso8583MessageParser.packMessage(echo);
+            iso8583MessageParser.unpackMessageWithBinaryPackager(packed);
+            return packed.length;
+        } catch (Exception e) {
+            throw new IllegalStateException("ISO8583 packager round trip failed: " + e.getMessage(), e);
+        }
+    }
+
+    private int authenticateSynthetically(List<String> channels) {
+        // Issues and checks a token per channel; nothing leaves the process
+        int authenticated = 0;
+        for (String channelId : channels) {
+            String token = authenticationService.generateJwtToken(SYNTHETIC_CLIENT_ID, channelId);
+            if (authenticationService.authenticateWithJwt(token, channelId)) {
+                authenticated++;
+            }
+        }
+        return authenticated;
+    }
+}
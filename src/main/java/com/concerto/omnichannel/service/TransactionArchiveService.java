@@ -0,0 +1,413 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.archive.ArchiveIndex;
+import com.concerto.omnichannel.archive.ColumnarArchiveReader;
+import com.concerto.omnichannel.archive.ColumnarArchiveWriter;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.TransactionDetailRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.concerto.omnichannel.utils.ExpiringCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Moves completed transactions older than the retention period into cold storage.
+ * <p>
+ * Each day is streamed in keyset pages into one compressed columnar file per channel under
+ * {@code <directory>/date=<day>/channel=<channel>/}. Rows are deleted from the hot tables only
+ * after every file holding them has been forced to disk. A crash between the two leaves the
+ * rows in place, so the next run archives them again and lookups may see the row twice.
+ */
+@Service
+public class TransactionArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private static final List<String> OPEN_STATUSES = List.of("RECEIVED", "AUTHENTICATED", "PROCESSING");
+    private static final List<String> COLUMNS = List.of(
+            "id", "correlation_id", "channel", "operation", "transaction_type", "status",
+            "amount", "currency", "merchant_id", "terminal_id", "client_id",
+            "request_timestamp", "response_timestamp", "processing_time_ms",
+            "error_code", "error_message", "external_reference", "retry_count", "additional_fields");
+    private static final String CORRELATION_ID = "correlation_id";
+    private static final String EXTERNAL_REFERENCE = "external_reference";
+    private static final List<String> INDEX_COLUMNS = List.of(CORRELATION_ID, EXTERNAL_REFERENCE);
+    private static final String REDACTED = "[REDACTED]";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private static final String LEASE_KEY = "transaction-archive:lease";
+    private static final DefaultRedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    private static final DefaultRedisScript<Long> EXTEND_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private TransactionHeaderRepository headerRepository;
+
+    @Autowired
+    private TransactionDetailRepository detailRepository;
+
+    @Autowired
+    private TransactionDetailStore detailStore;
+
+    @Autowired
+    private FieldEncryptionService encryptionService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${transaction.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transaction.archive.directory:./archive}")
+    private String directory;
+
+    @Value("${transaction.archive.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${transaction.archive.page-size:1000}")
+    private int pageSize;
+
+    @Value("${transaction.archive.row-group-size:10000}")
+    private int rowGroupSize;
+
+    @Value("${transaction.archive.compression-level:6}")
+    private int compressionLevel;
+
+    @Value("${transaction.archive.max-rows-per-file:1000000}")
+    private int maxRowsPerFile;
+
+    @Value("${transaction.archive.max-days-per-run:7}")
+    private int maxDaysPerRun;
+
+    @Value("${transaction.archive.lease.ms:3600000}")
+    private long leaseMs;
+
+    @Value("${transaction.archive.index-cache.max-entries:1000}")
+    private int indexCacheMaxEntries;
+
+    @Value("${app.node.id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    private final LongAdder archivedRows = new LongAdder();
+    private final LongAdder deletedRows = new LongAdder();
+    private final LongAdder filesWritten = new LongAdder();
+    private final AtomicInteger partSequence = new AtomicInteger();
+    private volatile LocalDate lastArchivedDay;
+    private volatile LocalDateTime lastRunCompleted;
+    private volatile String lastError;
+
+    private Path root;
+    private ExpiringCache<Path, ArchiveIndex> indexCache;
+
+    @PostConstruct
+    public void initialize() {
+        root = Path.of(directory).toAbsolutePath().normalize();
+        indexCache = new ExpiringCache<>(indexCacheMaxEntries, Duration.ofHours(1));
+    }
+
+    @Scheduled(cron = "${transaction.archive.cron:0 30 2 * * *}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        if (!acquireLease()) {
+            logger.info("Transaction archiving is running on another node");
+            return;
+        }
+
+        try {
+            LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+            for (int i = 0; i < maxDaysPerRun; i++) {
+                LocalDateTime oldest = headerRepository.findOldestArchivableRequestTimestamp(OPEN_STATUSES, cutoff);
+                if (oldest == null) {
+                    break;
+                }
+                archiveDay(oldest.toLocalDate());
+                if (!extendLease()) {
+                    logger.warn("Lost the transaction archive lease, stopping");
+                    break;
+                }
+            }
+            lastRunCompleted = LocalDateTime.now();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Transaction archiving failed", e);
+        } finally {
+            releaseLease();
+        }
+    }
+
+    /**
+     * Archived transactions with the correlation id, optionally narrowed to a day and channel
+     */
+    public List<Map<String, Object>> findByCorrelationId(String correlationId, LocalDate date, String channel) throws IOException {
+        return lookup(CORRELATION_ID, correlationId, date, channel);
+    }
+
+    /**
+     * Archived transactions with the retrieval reference number, optionally narrowed to a day and channel
+     */
+    public List<Map<String, Object>> findByRrn(String rrn, LocalDate date, String channel) throws IOException {
+        return lookup(EXTERNAL_REFERENCE, rrn, date, channel);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.archive.index-cache.cleanup.interval.ms:600000}")
+    public void evictExpiredIndexes() {
+        indexCache.cleanUp();
+    }
+
+    public Map<String, Object> getArchiveStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("directory", root.toString());
+        statistics.put("archivedRows", archivedRows.sum());
+        statistics.put("deletedRows", deletedRows.sum());
+        statistics.put("filesWritten", filesWritten.sum());
+        statistics.put("lastArchivedDay", lastArchivedDay);
+        statistics.put("lastRunCompleted", lastRunCompleted);
+        statistics.put("lastError", lastError);
+        statistics.put("cachedIndexes", indexCache.size());
+        return statistics;
+    }
+
+    private void archiveDay(LocalDate day) throws IOException {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime before = from.plusDays(1);
+        Map<String, ColumnarArchiveWriter> writers = new HashMap<>();
+        List<Long> pendingIds = new ArrayList<>();
+
+        try {
+            long afterId = 0;
+            while (true) {
+                List<TransactionHeader> page = headerRepository.findArchivableAfter(
+                        OPEN_STATUSES, from, before, afterId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                Map<Long, Map<String, Object>> fields = loadAdditionalFields(page);
+                for (TransactionHeader header : page) {
+                    ColumnarArchiveWriter writer = writers.get(header.getChannel());
+                    if (writer == null) {
+                        writer = openWriter(day, header.getChannel());
+                        writers.put(header.getChannel(), writer);
+                    }
+                    writer.append(toRow(header, fields.get(header.getId())));
+                    pendingIds.add(header.getId());
+                }
+                afterId = page.get(page.size() - 1).getId();
+
+                // Bound memory and file size on very large days by rolling over to a new part
+                if (pendingIds.size() >= maxRowsPerFile) {
+                    flush(writers, pendingIds, from, before);
+                }
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+            flush(writers, pendingIds, from, before);
+            lastArchivedDay = day;
+
+        } catch (IOException | RuntimeException e) {
+            writers.values().forEach(ColumnarArchiveWriter::abort);
+            throw e;
+        }
+    }
+
+    private void flush(Map<String, ColumnarArchiveWriter> writers, List<Long> pendingIds,
+                       LocalDateTime from, LocalDateTime before) throws IOException {
+        for (ColumnarArchiveWriter writer : writers.values()) {
+            long rows = writer.getRowCount();
+            writer.close();
+            filesWritten.increment();
+            archivedRows.add(rows);
+            logger.info("Archived {} transactions to {}", rows, writer.getFile());
+        }
+        writers.clear();
+
+        // Every file holding these rows is on disk now
+        for (int i = 0; i < pendingIds.size(); i += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = pendingIds.subList(i, Math.min(i + DELETE_CHUNK_SIZE, pendingIds.size()));
+            Integer deleted = transactionTemplate.execute(status -> {
+                detailRepository.deleteByTransactionHeaderIds(chunk);
+                return headerRepository.deleteArchived(chunk, from, before);
+            });
+            deletedRows.add(deleted != null ? deleted : 0);
+        }
+        pendingIds.clear();
+    }
+
+    private ColumnarArchiveWriter openWriter(LocalDate day, String channel) throws IOException {
+        Path file = root.resolve("date=" + day)
+                .resolve("channel=" + sanitize(channel))
+                .resolve("part-" + System.currentTimeMillis() + "-" + sanitize(nodeId) + "-" + partSequence.incrementAndGet()
+                        + ColumnarArchiveWriter.DATA_SUFFIX);
+        return new ColumnarArchiveWriter(file, COLUMNS, INDEX_COLUMNS, rowGroupSize, compressionLevel);
+    }
+
+    private Map<Long, Map<String, Object>> loadAdditionalFields(List<TransactionHeader> page) {
+        Map<Long, Map<String, Object>> fields = detailStore.findFieldsByHeaders(page);
+        fields.values().forEach(headerFields -> headerFields.replaceAll(this::protect));
+        return fields;
+    }
+
+    // Archives are kept for years: sensitive values are only written encrypted
+    private Object protect(String fieldName, Object value) {
+        if (value == null || !detailStore.isSensitiveField(fieldName)) {
+            return value;
+        }
+        String text = value.toString();
+        if (encryptionService.isEncrypted(text)) {
+            return text;
+        }
+        return encryptionService.isConfigured() ? encryptionService.encrypt(text) : REDACTED;
+    }
+
+    private String[] toRow(TransactionHeader header, Map<String, Object> additionalFields) throws IOException {
+        return new String[] {
+                String.valueOf(header.getId()),
+                header.getCorrelationId(),
+                header.getChannel(),
+                header.getOperation(),
+                header.getTransactionType(),
+                header.getStatus(),
+                header.getAmount() != null ? header.getAmount().toPlainString() : null,
+                header.getCurrency(),
+                header.getMerchantId(),
+                header.getTerminalId(),
+                header.getClientId(),
+                toText(header.getRequestTimestamp()),
+                toText(header.getResponseTimestamp()),
+                toText(header.getProcessingTimeMs()),
+                header.getErrorCode(),
+                header.getErrorMessage(),
+                header.getExternalReference(),
+                String.valueOf(header.getRetryCount()),
+                additionalFields != null ? objectMapper.writeValueAsString(additionalFields) : null
+        };
+    }
+
+    private List<Map<String, Object>> lookup(String column, String key, LocalDate date, String channel) throws IOException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Path indexFile : findIndexFiles(date, channel)) {
+            List<ArchiveIndex.Position> positions = loadIndex(indexFile).lookup(column, key);
+            if (positions.isEmpty()) {
+                continue;
+            }
+
+            Path dataFile = ColumnarArchiveWriter.dataFileFor(indexFile);
+            try (ColumnarArchiveReader reader = ColumnarArchiveReader.open(dataFile)) {
+                for (ArchiveIndex.Position position : positions) {
+                    results.add(toArchivedTransaction(reader.readRow(position.getRowGroup(), position.getRow()), dataFile));
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<Path> findIndexFiles(LocalDate date, String channel) throws IOException {
+        Path start = date != null ? root.resolve("date=" + date) : root;
+        if (!Files.isDirectory(start)) {
+            return List.of();
+        }
+
+        String channelDirectory = channel != null ? "channel=" + sanitize(channel) : null;
+        try (Stream<Path> files = Files.find(start, date != null ? 2 : 3, (path, attributes) ->
+                attributes.isRegularFile()
+                        && path.getFileName().toString().endsWith(ColumnarArchiveWriter.INDEX_SUFFIX)
+                        && (channelDirectory == null || path.getParent().getFileName().toString().equals(channelDirectory)))) {
+            // Newest days first: disputes are usually about recent transactions
+            return files.sorted(Comparator.reverseOrder()).toList();
+        }
+    }
+
+    private ArchiveIndex loadIndex(Path indexFile) throws IOException {
+        ArchiveIndex index = indexCache.get(indexFile);
+        if (index == null) {
+            index = ArchiveIndex.read(indexFile);
+            indexCache.put(indexFile, index);
+        }
+        return index;
+    }
+
+    private Map<String, Object> toArchivedTransaction(Map<String, String> row, Path dataFile) throws IOException {
+        Map<String, Object> transaction = new LinkedHashMap<>(row);
+        String additionalFields = row.get("additional_fields");
+        transaction.put("additional_fields", additionalFields != null
+                ? objectMapper.readValue(additionalFields, new TypeReference<Map<String, Object>>() {})
+                : null);
+        transaction.put("archive_file", root.relativize(dataFile).toString());
+        return transaction;
+    }
+
+    private static String toText(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static String sanitize(String value) {
+        return value.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private boolean acquireLease() {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LEASE_KEY, nodeId, Duration.ofMillis(leaseMs)));
+        } catch (Exception e) {
+            logger.warn("Failed to acquire transaction archive lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean extendLease() {
+        try {
+            Long extended = redisTemplate.execute(EXTEND_LEASE_SCRIPT, List.of(LEASE_KEY), nodeId, leaseMs);
+            return extended != null && extended == 1;
+        } catch (Exception e) {
+            logger.warn("Failed to extend transaction archive lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(LEASE_KEY), nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to release transaction archive lease: {}", e.getMessage());
+        }
+    }
+}
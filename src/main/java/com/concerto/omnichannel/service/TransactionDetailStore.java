@@ -0,0 +1,244 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.TransactionDetail;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.TransactionDetailRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Stores and reads transaction additional fields.
+ * <p>
+ * In {@code ROWS} mode each field is a {@code transaction_detail} row. In {@code JSONB} mode all
+ * fields live in {@code transaction_header.additional_fields}. In both modes sensitive values are
+ * encrypted when a key is configured, and only flagged as encrypted when they are. Reads merge
+ * both sources, with the JSONB value winning when a field is in both, so headers written in either
+ * mode (or migrated part way) read the same.
+ */
+@Service
+public class TransactionDetailStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionDetailStore.class);
+
+    public enum StorageMode { ROWS, JSONB }
+
+    @Autowired
+    private TransactionDetailRepository detailRepository;
+
+    @Autowired
+    private TransactionHeaderRepository headerRepository;
+
+    @Autowired
+    private FieldEncryptionService encryptionService;
+
+    @Value("${transaction.details.storage-mode:ROWS}")
+    private StorageMode storageMode;
+
+    @PostConstruct
+    public void validateConfiguration() {
+        if (storageMode == StorageMode.JSONB && !encryptionService.isConfigured()) {
+            throw new IllegalStateException("JSONB detail storage requires app.security.encryption.key");
+        }
+        logger.info("Transaction additional fields stored as {}", storageMode);
+    }
+
+    /**
+     * Insert a new header together with its additional fields in one database transaction
+     */
+    @Transactional
+    public TransactionHeader saveNew(TransactionHeader header, Map<String, Object> additionalFields) {
+        boolean hasFields = additionalFields != null && !additionalFields.isEmpty();
+        if (hasFields && storageMode == StorageMode.JSONB) {
+            // The fields go out with the header's own INSERT
+            header.setAdditionalFields(toStoredFields(additionalFields));
+            return headerRepository.save(header);
+        }
+
+        TransactionHeader saved = headerRepository.save(header);
+        if (hasFields) {
+            insertRows(saved, additionalFields);
+        }
+        return saved;
+    }
+
+    /**
+     * Store the additional fields of a header that is being persisted in the current transaction
+     */
+    @Transactional
+    public void save(TransactionHeader header, Map<String, Object> additionalFields) {
+        if (additionalFields == null || additionalFields.isEmpty()) {
+            return;
+        }
+
+        if (storageMode == StorageMode.JSONB) {
+            header.setAdditionalFields(toStoredFields(additionalFields));
+            headerRepository.save(header);
+            return;
+        }
+
+        insertRows(header, additionalFields);
+    }
+
+    private Map<String, Object> toStoredFields(Map<String, Object> additionalFields) {
+        Map<String, Object> storedFields = new LinkedHashMap<>();
+        additionalFields.forEach((name, value) -> storedFields.put(name,
+                isSensitiveField(name) && value != null ? encryptionService.encrypt(value.toString()) : value));
+        return storedFields;
+    }
+
+    private void insertRows(TransactionHeader header, Map<String, Object> additionalFields) {
+        List<TransactionDetail> details = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : additionalFields.entrySet()) {
+            TransactionDetail detail = new TransactionDetail();
+            detail.setTransactionHeader(header);
+            detail.setFieldName(entry.getKey());
+            detail.setFieldValue(entry.getValue().toString());
+            detail.setFieldType(entry.getValue().getClass().getSimpleName());
+
+            // Without a key the value stays plain text and must not claim otherwise
+            if (isSensitiveField(entry.getKey())) {
+                detail.setSensitive(true);
+                if (encryptionService.isConfigured()) {
+                    detail.setFieldValue(encryptionService.encrypt(detail.getFieldValue()));
+                    detail.setEncrypted(true);
+                }
+            }
+
+            details.add(detail);
+        }
+
+        // One batched INSERT instead of a round trip per field
+        detailRepository.insertAllBatched(details);
+    }
+
+    /**
+     * Stored additional fields of each header, by header id, as written (sensitive values may be encrypted)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<String, Object>> findFieldsByHeaders(List<TransactionHeader> headers) {
+        Map<Long, Map<String, Object>> fields = new HashMap<>();
+        for (TransactionHeader header : headers) {
+            if (header.getAdditionalFields() != null && !header.getAdditionalFields().isEmpty()) {
+                fields.put(header.getId(), new LinkedHashMap<>(header.getAdditionalFields()));
+            }
+        }
+
+        List<Long> ids = headers.stream().map(TransactionHeader::getId).toList();
+        for (Object[] row : detailRepository.findFieldValuesByTransactionHeaderIds(ids)) {
+            fields.computeIfAbsent((Long) row[0], id -> new LinkedHashMap<>()).putIfAbsent((String) row[1], row[2]);
+        }
+        return fields;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionDetail> findByTransactionHeaderId(Long transactionHeaderId) {
+        return headerRepository.findById(transactionHeaderId)
+                .map(header -> merge(header, detailRepository.findByTransactionHeaderId(transactionHeaderId)))
+                .orElseGet(() -> detailRepository.findByTransactionHeaderId(transactionHeaderId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionDetail> findByCorrelationId(String correlationId) {
+        return headerRepository.findFirstByCorrelationIdOrderByRequestTimestampDesc(correlationId)
+                .map(header -> merge(header, detailRepository.findByCorrelationId(correlationId)))
+                .orElseGet(() -> detailRepository.findByCorrelationId(correlationId));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TransactionDetail> findByCorrelationIdAndFieldName(String correlationId, String fieldName) {
+        Optional<TransactionDetail> fromJson = headerRepository.findFirstByCorrelationIdOrderByRequestTimestampDesc(correlationId)
+                .flatMap(header -> fromJson(header, fieldName).stream().findFirst());
+        return fromJson.isPresent() ? fromJson : detailRepository.findByCorrelationIdAndFieldName(correlationId, fieldName);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionDetail> findByChannelAndFieldName(String channel, String fieldName) {
+        List<TransactionDetail> details = new ArrayList<>();
+        Set<Long> fromJson = new HashSet<>();
+        for (TransactionHeader header : headerRepository.findByChannelWithAdditionalField(channel, fieldName)) {
+            details.addAll(fromJson(header, fieldName));
+            fromJson.add(header.getId());
+        }
+        for (TransactionDetail row : detailRepository.findByChannelAndFieldName(channel, fieldName)) {
+            if (!fromJson.contains(row.getTransactionHeader().getId())) {
+                details.add(row);
+            }
+        }
+        return details;
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findDistinctFieldNamesByChannel(String channel) {
+        TreeSet<String> fieldNames = new TreeSet<>(detailRepository.findDistinctFieldNamesByChannel(channel));
+        fieldNames.addAll(headerRepository.findDistinctAdditionalFieldNamesByChannel(channel));
+        return new ArrayList<>(fieldNames);
+    }
+
+    /**
+     * Plain value of a detail, decrypting values written in JSONB mode
+     */
+    public String getPlainValue(TransactionDetail detail) {
+        return encryptionService.decrypt(detail.getFieldValue());
+    }
+
+    public boolean isSensitiveField(String fieldName) {
+        String name = fieldName.toLowerCase();
+        return name.contains("card") ||
+                name.contains("pan") ||
+                name.contains("pin") ||
+                name.contains("cvv") ||
+                name.contains("password") ||
+                name.contains("secret");
+    }
+
+    // JSONB fields first; rows only for fields the header does not carry, so copied fields are not read twice
+    private List<TransactionDetail> merge(TransactionHeader header, List<TransactionDetail> rows) {
+        List<TransactionDetail> details = new ArrayList<>(fromJson(header, null));
+        Set<String> names = new HashSet<>();
+        details.forEach(detail -> names.add(detail.getFieldName()));
+        for (TransactionDetail row : rows) {
+            if (!names.contains(row.getFieldName())) {
+                details.add(row);
+            }
+        }
+        return details;
+    }
+
+    // Present JSONB fields as detached TransactionDetail objects so existing callers keep working
+    private List<TransactionDetail> fromJson(TransactionHeader header, String onlyFieldName) {
+        Map<String, Object> fields = header.getAdditionalFields();
+        if (fields == null) {
+            return List.of();
+        }
+
+        List<TransactionDetail> details = new ArrayList<>();
+        fields.forEach((name, value) -> {
+            if (value == null || (onlyFieldName != null && !onlyFieldName.equals(name))) {
+                return;
+            }
+            boolean encrypted = value instanceof String text && encryptionService.isEncrypted(text);
+            TransactionDetail detail = new TransactionDetail(header, name, value.toString(),
+                    value.getClass().getSimpleName(), encrypted || isSensitiveField(name));
+            detail.setEncrypted(encrypted);
+            detail.setCreatedTimestamp(header.getRequestTimestamp());
+            details.add(detail);
+        });
+        return details;
+    }
+}
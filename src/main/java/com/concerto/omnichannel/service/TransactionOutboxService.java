@@ -0,0 +1,165 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.OutboxEventRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes transaction completion events to the outbox in the same database transaction as
+ * the final header update, so an event exists if and only if the status change committed.
+ * {@link OutboxRelay} publishes them afterwards.
+ * <p>
+ * The orchestrator moves headers with conditional updates: a stage that finishes after its
+ * transaction was failed (for example by a timeout) finds the row in another status and
+ * leaves it alone instead of overwriting the recorded outcome.
+ */
+@Service
+public class TransactionOutboxService {
+
+    public static final String TRANSACTION_COMPLETED = "TRANSACTION_COMPLETED";
+
+    /**
+     * Statuses of a transaction that is still being orchestrated
+     */
+    public static final List<String> OPEN_STATUSES = List.of("RECEIVED", "AUTHENTICATED", "PROCESSING");
+
+    /**
+     * Open statuses of a transaction that has not been handed to a connector yet
+     */
+    public static final List<String> NOT_SENT_STATUSES = List.of("RECEIVED", "AUTHENTICATED");
+
+    // requestTimestamp only narrows the update to the header's partition; the id identifies the row
+    private static final long PARTITION_WINDOW_SECONDS = 1;
+
+    @Autowired
+    private TransactionHeaderRepository headerRepository;
+
+    @Autowired
+    private OutboxEventRepository eventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionStatusCache statusCache;
+
+    /**
+     * Save a header carrying its final status together with its completion event
+     */
+    @Transactional
+    public TransactionHeader saveFinalStatus(TransactionHeader header) {
+        TransactionHeader saved = headerRepository.save(header);
+        eventRepository.save(toEvent(saved));
+        statusCache.update(saved);
+        return saved;
+    }
+
+    /**
+     * Move an open header to the next status if it is still in the expected one
+     *
+     * @return false if the transaction has moved on, typically because it was already completed
+     */
+    public boolean advanceStatus(TransactionHeader header, String expectedStatus, String status) {
+        LocalDateTime requestTimestamp = header.getRequestTimestamp();
+        int updated = headerRepository.advanceStatus(header.getId(), expectedStatus, status,
+                requestTimestamp.minusSeconds(PARTITION_WINDOW_SECONDS), requestTimestamp.plusSeconds(PARTITION_WINDOW_SECONDS));
+        if (updated == 0) {
+            return false;
+        }
+        header.setStatus(status);
+        statusCache.update(header);
+        return true;
+    }
+
+    /**
+     * Record the final status of a header with its completion event, unless the transaction was
+     * already completed; the header is only changed when the update wins
+     *
+     * @param externalReference reference the switch or biller gave the transaction, such as the RRN; may be null
+     * @return whether this call recorded the outcome
+     */
+    @Transactional
+    public boolean completeIfOpen(TransactionHeader header, String status, String errorCode, String errorMessage,
+                                  String externalReference) {
+        return completeIfInStatus(header, OPEN_STATUSES, status, errorCode, errorMessage, externalReference);
+    }
+
+    /**
+     * Like {@link #completeIfOpen}, but only while the header is in one of the expected statuses
+     *
+     * @return whether this call recorded the outcome
+     */
+    @Transactional
+    public boolean completeIfInStatus(TransactionHeader header, List<String> expectedStatuses,
+                                      String status, String errorCode, String errorMessage, String externalReference) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime requestTimestamp = header.getRequestTimestamp();
+        long processingTimeMs = Duration.between(requestTimestamp, now).toMillis();
+        int updated = headerRepository.completeIfInStatus(header.getId(), expectedStatuses, status, errorCode, errorMessage,
+                now, processingTimeMs, externalReference, requestTimestamp.minusSeconds(PARTITION_WINDOW_SECONDS), requestTimestamp.plusSeconds(PARTITION_WINDOW_SECONDS));
+        if (updated == 0) {
+            return false;
+        }
+
+        header.setStatus(status);
+        header.setErrorCode(errorCode);
+        header.setErrorMessage(errorMessage);
+        header.setResponseTimestamp(now);
+        header.setProcessingTimeMs(processingTimeMs);
+        if (externalReference != null) {
+            header.setExternalReference(externalReference);
+        }
+        eventRepository.save(toEvent(header));
+        statusCache.update(header);
+        return true;
+    }
+
+    /**
+     * Append completion events for headers whose status was changed in the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<TransactionHeader> headers) {
+        eventRepository.saveAll(headers.stream().map(this::toEvent).toList());
+    }
+
+    private OutboxEvent toEvent(TransactionHeader header) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("eventType", TRANSACTION_COMPLETED);
+        payload.put("transactionId", header.getId());
+        payload.put("correlationId", header.getCorrelationId());
+        payload.put("channel", header.getChannel());
+        payload.put("operation", header.getOperation());
+        payload.put("transactionType", header.getTransactionType());
+        payload.put("status", header.getStatus());
+        payload.put("amount", header.getAmount());
+        payload.put("currency", header.getCurrency());
+        payload.put("merchantId", header.getMerchantId());
+        payload.put("terminalId", header.getTerminalId());
+        payload.put("externalReference", header.getExternalReference());
+        payload.put("errorCode", header.getErrorCode());
+        payload.put("requestTimestamp", header.getRequestTimestamp());
+        payload.put("responseTimestamp", header.getResponseTimestamp());
+        payload.put("processingTimeMs", header.getProcessingTimeMs());
+
+        try {
+            return new OutboxEvent(TRANSACTION_COMPLETED, header.getId(), header.getCorrelationId(),
+                    header.getChannel(), header.getStatus(), objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            // Fail the surrounding transaction rather than commit a status change without its event
+            throw new IllegalStateException("Failed to serialize outbox event for transaction " + header.getId(), e);
+        }
+    }
+}
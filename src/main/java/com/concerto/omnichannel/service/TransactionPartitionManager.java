@@ -0,0 +1,188 @@
+package com.concerto.omnichannel.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the range-partitioned transaction_header table ahead of time and trims old partitions.
+ * <p>
+ * Future partitions are created {@code premake} periods ahead. Partitions older than
+ * {@code retention} periods are detached and left as standalone tables for archiving.
+ * Only one node runs the maintenance at a time (PostgreSQL advisory lock).
+ */
+@Service
+@ConditionalOnProperty(name = "transaction.partitioning.enabled", havingValue = "true")
+public class TransactionPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionManager.class);
+
+    private static final String PARENT_TABLE = "transaction_header";
+    private static final String PARTITION_PREFIX = PARENT_TABLE + "_p";
+    private static final long ADVISORY_LOCK_ID = 0x7472616E73L; // "trans"
+
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = '" + PARENT_TABLE + "'";
+
+    public enum Granularity {
+        DAILY(DateTimeFormatter.ofPattern("yyyyMMdd")),
+        MONTHLY(DateTimeFormatter.ofPattern("yyyyMM"));
+
+        private final DateTimeFormatter suffixFormat;
+
+        Granularity(DateTimeFormatter suffixFormat) {
+            this.suffixFormat = suffixFormat;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${transaction.partitioning.granularity:MONTHLY}")
+    private Granularity granularity;
+
+    @Value("${transaction.partitioning.premake:3}")
+    private int premake;
+
+    @Value("${transaction.partitioning.retention:12}")
+    private int retention;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${transaction.partitioning.cron:0 15 0 * * *}")
+    public void maintainPartitions() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    logger.debug("Partition maintenance is running on another node");
+                    return null;
+                }
+                try {
+                    List<String> partitions = listPartitions(connection);
+                    createFuturePartitions(connection, partitions);
+                    detachExpiredPartitions(connection, partitions);
+                } finally {
+                    unlock(connection);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.error("Transaction partition maintenance failed", e);
+        }
+    }
+
+    private void createFuturePartitions(Connection connection, List<String> existingPartitions) {
+        LocalDate period = periodStart(LocalDate.now());
+        for (int i = 0; i <= premake; i++) {
+            LocalDate from = plusPeriods(period, i);
+            LocalDate to = plusPeriods(from, 1);
+            String partition = PARTITION_PREFIX + from.format(granularity.suffixFormat);
+            if (existingPartitions.contains(partition)) {
+                continue;
+            }
+
+            String sql = String.format(
+                    "CREATE TABLE %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    partition, PARENT_TABLE, from, to);
+            // Statements run one by one in autocommit so one failure does not abort the rest
+            if (executeQuietly(connection, sql)) {
+                logger.info("Created transaction partition {} [{}, {})", partition, from, to);
+            }
+        }
+    }
+
+    private void detachExpiredPartitions(Connection connection, List<String> existingPartitions) {
+        LocalDate oldestRetained = plusPeriods(periodStart(LocalDate.now()), -retention);
+
+        for (String partition : existingPartitions) {
+            LocalDate start = parsePartitionStart(partition);
+            if (start == null || !start.isBefore(oldestRetained)) {
+                continue;
+            }
+
+            if (executeQuietly(connection, "ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition)) {
+                logger.info("Detached transaction partition {} for archiving", partition);
+            }
+        }
+    }
+
+    private List<String> listPartitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LIST_PARTITIONS_SQL)) {
+            while (resultSet.next()) {
+                partitions.add(resultSet.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    private LocalDate parsePartitionStart(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null; // default partition or foreign naming
+        }
+        String suffix = partition.substring(PARTITION_PREFIX.length());
+        try {
+            return suffix.length() == 6
+                    ? LocalDate.parse(suffix + "01", Granularity.DAILY.suffixFormat)
+                    : LocalDate.parse(suffix, Granularity.DAILY.suffixFormat);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return granularity == Granularity.MONTHLY ? date.withDayOfMonth(1) : date;
+    }
+
+    private LocalDate plusPeriods(LocalDate date, int periods) {
+        return granularity == Granularity.MONTHLY ? date.plusMonths(periods) : date.plusDays(periods);
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK_ID + ")")) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK_ID + ")");
+        }
+    }
+
+    private boolean executeQuietly(Connection connection, String sql) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            return true;
+        } catch (SQLException e) {
+            logger.warn("Partition statement failed: {} ({})", sql, e.getMessage());
+            return false;
+        }
+    }
+}
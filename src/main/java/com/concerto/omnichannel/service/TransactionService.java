@@ -2,17 +2,17 @@ package com.concerto.omnichannel.service;
 
 import com.concerto.omnichannel.dto.TransactionRequest;
 import com.concerto.omnichannel.dto.TransactionResponse;
-import com.concerto.omnichannel.entity.TransactionDetail;
 import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.handlers.bbps.BBPSBillCache;
 import com.concerto.omnichannel.operations.OperationHandler;
 import com.concerto.omnichannel.registry.OperationHandlerRegistry;
-import com.concerto.omnichannel.repository.TransactionDetailRepository;
 import com.concerto.omnichannel.repository.TransactionHeaderRepository;
 import com.concerto.omnichannel.validation.BusinessRuleValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,7 +31,7 @@ public class TransactionService {
     private TransactionHeaderRepository headerRepository;
 
     @Autowired
-    private TransactionDetailRepository detailRepository;
+    private TransactionDetailStore detailStore;
 
     @Autowired
     private OperationHandlerRegistry handlerRegistry;
@@ -39,6 +39,24 @@ public class TransactionService {
     @Autowired
     private BusinessRuleValidator businessRuleValidator;
 
+    @Autowired
+    private BBPSBillCache billCache;
+
+    @Autowired
+    private ChannelStatisticsAggregator statisticsAggregator;
+
+    @Autowired
+    private TransactionOutboxService outboxService;
+
+    @Autowired
+    private TransactionStatusCache statusCache;
+
+    @Value("${transaction.stale.lookback-hours:168}")
+    private long staleLookbackHours;
+
+    @Value("${transaction.stale.max-results:1000}")
+    private int staleMaxResults;
+
     @Transactional
     public TransactionResponse processTransaction(TransactionRequest request) {
         logger.info("Processing transaction for channel: {} operation: {}",
@@ -50,6 +68,7 @@ public class TransactionService {
         // 2. Create and save transaction header
         TransactionHeader header = createTransactionHeader(request);
         header = headerRepository.save(header);
+        statusCache.update(header);
         logger.debug("Transaction header created with ID: {}", header.getId());
 
         // 3. Save transaction details
@@ -65,11 +84,13 @@ public class TransactionService {
         try {
             header.setStatus("PROCESSING");
             headerRepository.save(header);
+            statusCache.update(header);
 
             TransactionResponse response = handler.handle(request);
 
             // Update transaction status based on response
             updateTransactionStatus(header, response);
+            billCache.onTransactionCompleted(request, response);
 
             // Build final response
             return buildSuccessResponse(header, response);
@@ -80,29 +101,36 @@ public class TransactionService {
         }
     }
 
-    @Cacheable(value = "transactionStatus", key = "#transactionId")
     public TransactionResponse getTransactionStatus(Long transactionId) {
         logger.debug("Retrieving transaction status for ID: {}", transactionId);
 
+        TransactionResponse cached = statusCache.getById(transactionId);
+        if (cached != null) {
+            return cached;
+        }
+
         Optional<TransactionHeader> headerOpt = headerRepository.findById(transactionId);
         if (headerOpt.isEmpty()) {
             throw new RuntimeException("Transaction not found with ID: " + transactionId);
         }
 
-        TransactionHeader header = headerOpt.get();
-        return buildTransactionStatusResponse(header);
+        return statusCache.load(headerOpt.get());
     }
 
     public TransactionResponse getTransactionStatusByCorrelationId(String correlationId) {
         logger.debug("Retrieving transaction status for correlation ID: {}", correlationId);
 
-        Optional<TransactionHeader> headerOpt = headerRepository.findByCorrelationId(correlationId);
+        TransactionResponse cached = statusCache.getByCorrelationId(correlationId);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<TransactionHeader> headerOpt = headerRepository.findFirstByCorrelationIdOrderByRequestTimestampDesc(correlationId);
         if (headerOpt.isEmpty()) {
             throw new RuntimeException("Transaction not found with correlation ID: " + correlationId);
         }
 
-        TransactionHeader header = headerOpt.get();
-        return buildTransactionStatusResponse(header);
+        return statusCache.load(headerOpt.get());
     }
 
     @Transactional
@@ -115,13 +143,20 @@ public class TransactionService {
                 header.setErrorMessage(errorMessage);
             }
             header.setResponseTimestamp(LocalDateTime.now());
-            headerRepository.save(header);
+            outboxService.saveFinalStatus(header);
+            statisticsAggregator.record(header);
 
             logger.info("Transaction status updated to {} for ID: {}", status, transactionId);
         }
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Long> getTransactionStatistics(String channel, LocalDateTime since) {
+        // Ranges within the rollups come from the aggregator; older ranges still need the table
+        if (statisticsAggregator.covers(channel, since)) {
+            return statisticsAggregator.getStatusCounts(channel, since);
+        }
+
         List<Object[]> results = headerRepository.findTransactionStatusCountsByChannel(channel, since);
         Map<String, Long> statistics = new HashMap<>();
 
@@ -134,14 +169,28 @@ public class TransactionService {
         return statistics;
     }
 
+    @Transactional(readOnly = true)
     public Double getAverageProcessingTime(String channel, LocalDateTime since) {
+        if (statisticsAggregator.covers(channel, since)) {
+            return statisticsAggregator.getAverageProcessingTime(channel, since);
+        }
         return headerRepository.findAverageProcessingTimeByChannel(channel, since);
     }
 
+    /**
+     * Live 1m / 5m / 1h statistics for a channel
+     */
+    public Map<String, Object> getLiveStatistics(String channel) {
+        return statisticsAggregator.getWindowStatistics(channel);
+    }
+
+    @Transactional(readOnly = true)
     public List<TransactionHeader> getStaleTransactions(int hours) {
         List<String> processingStatuses = List.of("RECEIVED", "PROCESSING", "AUTHENTICATED");
         LocalDateTime cutoffTime = LocalDateTime.now().minusHours(hours);
-        return headerRepository.findStaleTransactions(processingStatuses, cutoffTime);
+        // Bounded: the sweeper pages through the full set, callers here only need a sample
+        return headerRepository.findStaleTransactionsAfter(processingStatuses,
+                cutoffTime.minusHours(staleLookbackHours), cutoffTime, 0L, PageRequest.of(0, staleMaxResults));
     }
 
     // Private helper methods
@@ -164,41 +213,18 @@ public class TransactionService {
     }
 
     private void saveTransactionDetails(TransactionHeader header, TransactionRequest request) {
-        if (request.getPayload() != null && request.getPayload().getAdditionalFields() != null) {
-            for (Map.Entry<String, Object> entry : request.getPayload().getAdditionalFields().entrySet()) {
-                TransactionDetail detail = new TransactionDetail();
-                detail.setTransactionHeader(header);
-                detail.setFieldName(entry.getKey());
-                detail.setFieldValue(entry.getValue().toString());
-                detail.setFieldType(entry.getValue().getClass().getSimpleName());
-
-                // Mark sensitive fields
-                if (isSensitiveField(entry.getKey())) {
-                    detail.setSensitive(true);
-                    detail.setEncrypted(true);
-                    // In production, encrypt the value here
-                }
-
-                detailRepository.save(detail);
-            }
+        if (request.getPayload() != null) {
+            detailStore.save(header, request.getPayload().getAdditionalFields());
         }
     }
 
-    private boolean isSensitiveField(String fieldName) {
-        return fieldName.toLowerCase().contains("card") ||
-                fieldName.toLowerCase().contains("pan") ||
-                fieldName.toLowerCase().contains("pin") ||
-                fieldName.toLowerCase().contains("cvv") ||
-                fieldName.toLowerCase().contains("password") ||
-                fieldName.toLowerCase().contains("secret");
-    }
-
     private TransactionResponse handleUnsupportedOperation(TransactionHeader header, TransactionRequest request) {
         header.setStatus("FAILED");
         header.setErrorMessage("Unsupported channel/operation");
         header.setErrorCode("UNSUPPORTED_OPERATION");
         header.setResponseTimestamp(LocalDateTime.now());
-        headerRepository.save(header);
+        outboxService.saveFinalStatus(header);
+        statisticsAggregator.record(header);
 
         logger.warn("Unsupported operation: {} for channel: {}", request.getOperation(), request.getChannel());
 
@@ -221,7 +247,8 @@ public class TransactionService {
         }
 
         header.setResponseTimestamp(LocalDateTime.now());
-        headerRepository.save(header);
+        outboxService.saveFinalStatus(header);
+        statisticsAggregator.record(header);
     }
 
     private TransactionResponse buildSuccessResponse(TransactionHeader header, TransactionResponse response) {
@@ -240,7 +267,8 @@ public class TransactionService {
         header.setErrorMessage(e.getMessage());
         header.setErrorCode("PROCESSING_ERROR");
         header.setResponseTimestamp(LocalDateTime.now());
-        headerRepository.save(header);
+        outboxService.saveFinalStatus(header);
+        statisticsAggregator.record(header);
 
         TransactionResponse response = TransactionResponse.failure(
                 header.getId(),
@@ -255,28 +283,4 @@ public class TransactionService {
 
         return response;
     }
-
-    private TransactionResponse buildTransactionStatusResponse(TransactionHeader header) {
-        TransactionResponse response = new TransactionResponse();
-        response.setTransactionId(header.getId());
-        response.setCorrelationId(header.getCorrelationId());
-        response.setChannel(header.getChannel());
-        response.setOperation(header.getOperation());
-        response.setSuccess("SUCCESS".equals(header.getStatus()));
-        response.setErrorMessage(header.getErrorMessage());
-        response.setErrorCode(header.getErrorCode());
-        response.setExternalReference(header.getExternalReference());
-        response.setProcessingTimeMs(header.getProcessingTimeMs());
-        response.setResponseTime(header.getResponseTimestamp());
-
-        // Add status-specific information
-        response.addAdditionalData("status", header.getStatus());
-        response.addAdditionalData("requestTime", header.getRequestTimestamp());
-        response.addAdditionalData("amount", header.getAmount());
-        response.addAdditionalData("currency", header.getCurrency());
-        response.addAdditionalData("merchantId", header.getMerchantId());
-        response.addAdditionalData("terminalId", header.getTerminalId());
-
-        return response;
-    }
 }
\ No newline at end of file
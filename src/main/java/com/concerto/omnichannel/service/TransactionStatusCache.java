@@ -0,0 +1,239 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.utils.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transaction status snapshots keyed by id and by correlation id.
+ * <p>
+ * Every status transition writes through to Redis once its database transaction has committed,
+ * so reads never need the database while the entry lives. A local near cache in front of Redis
+ * absorbs hot pollers; in-flight statuses stay there only briefly because another node may
+ * move the transaction on, while terminal statuses never change and are kept longer.
+ * Returned responses are shared and must not be modified.
+ */
+@Service
+public class TransactionStatusCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatusCache.class);
+
+    private static final Set<String> IN_FLIGHT_STATUSES = Set.of("RECEIVED", "AUTHENTICATED", "PROCESSING");
+    private static final String ID_KEY_PREFIX = "transaction-status:id:";
+    private static final String CORRELATION_KEY_PREFIX = "transaction-status:correlation:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${transaction.status-cache.local.max-entries:50000}")
+    private int localMaxEntries;
+
+    @Value("${transaction.status-cache.local.in-flight-ttl.ms:1000}")
+    private long localInFlightTtlMs;
+
+    @Value("${transaction.status-cache.local.terminal-ttl.ms:300000}")
+    private long localTerminalTtlMs;
+
+    @Value("${transaction.status-cache.in-flight-ttl.ms:1800000}")
+    private long inFlightTtlMs;
+
+    @Value("${transaction.status-cache.terminal-ttl.ms:3600000}")
+    private long terminalTtlMs;
+
+    private ExpiringCache<Long, TransactionResponse> localById;
+    private ExpiringCache<String, Long> localIdsByCorrelationId;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        localById = new ExpiringCache<>(localMaxEntries, Duration.ofMillis(localTerminalTtlMs));
+        localIdsByCorrelationId = new ExpiringCache<>(localMaxEntries, Duration.ofMillis(terminalTtlMs));
+    }
+
+    /**
+     * Cached status of a transaction, or null if it has to be read from the database
+     */
+    public TransactionResponse getById(Long transactionId) {
+        TransactionResponse local = localById.get(transactionId);
+        if (local != null) {
+            localHits.increment();
+            return local;
+        }
+
+        try {
+            Object cached = redisTemplate.opsForValue().get(ID_KEY_PREFIX + transactionId);
+            if (cached instanceof TransactionResponse response) {
+                remoteHits.increment();
+                localById.put(transactionId, response, localTtl(response));
+                return response;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read cached status for transaction {}: {}", transactionId, e.getMessage());
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    public TransactionResponse getByCorrelationId(String correlationId) {
+        Long transactionId = localIdsByCorrelationId.get(correlationId);
+        if (transactionId == null) {
+            try {
+                Object cached = redisTemplate.opsForValue().get(CORRELATION_KEY_PREFIX + correlationId);
+                if (cached instanceof Number id) {
+                    transactionId = id.longValue();
+                    localIdsByCorrelationId.put(correlationId, transactionId);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to read cached transaction id for correlation ID {}: {}", correlationId, e.getMessage());
+            }
+        }
+
+        if (transactionId == null) {
+            misses.increment();
+            return null;
+        }
+        return getById(transactionId);
+    }
+
+    /**
+     * Write the header's status through to the cache, after commit when called inside a transaction
+     */
+    public void update(TransactionHeader header) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Snapshot at commit: the row may still change, and processing time is set on flush
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(header, true);
+                }
+            });
+        } else {
+            store(header, true);
+        }
+    }
+
+    public void updateAll(Collection<TransactionHeader> headers) {
+        headers.forEach(this::update);
+    }
+
+    /**
+     * Cache a status read from the database and return it. Never replaces an existing entry:
+     * the read may come from a lagging replica, while write-through entries are always current.
+     */
+    public TransactionResponse load(TransactionHeader header) {
+        return store(header, false);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.status-cache.cleanup.interval.ms:60000}")
+    public void evictExpiredEntries() {
+        localById.cleanUp();
+        localIdsByCorrelationId.cleanUp();
+    }
+
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("localEntries", localById.size());
+        statistics.put("localHits", localHits.sum());
+        statistics.put("remoteHits", remoteHits.sum());
+        statistics.put("misses", misses.sum());
+        statistics.put("writes", writes.sum());
+        return statistics;
+    }
+
+    public static TransactionResponse toStatusResponse(TransactionHeader header) {
+        TransactionResponse response = new TransactionResponse();
+        response.setTransactionId(header.getId());
+        response.setCorrelationId(header.getCorrelationId());
+        response.setChannel(header.getChannel());
+        response.setOperation(header.getOperation());
+        response.setSuccess("SUCCESS".equals(header.getStatus()));
+        response.setErrorMessage(header.getErrorMessage());
+        response.setErrorCode(header.getErrorCode());
+        response.setExternalReference(header.getExternalReference());
+        response.setProcessingTimeMs(header.getProcessingTimeMs());
+        response.setResponseTime(header.getResponseTimestamp());
+
+        // Add status-specific information
+        response.addAdditionalData("status", header.getStatus());
+        response.addAdditionalData("requestTime", header.getRequestTimestamp());
+        response.addAdditionalData("amount", header.getAmount());
+        response.addAdditionalData("currency", header.getCurrency());
+        response.addAdditionalData("merchantId", header.getMerchantId());
+        response.addAdditionalData("terminalId", header.getTerminalId());
+
+        return response;
+    }
+
+    private TransactionResponse store(TransactionHeader header, boolean overwrite) {
+        TransactionResponse response = toStatusResponse(header);
+        if (header.getId() == null) {
+            return response;
+        }
+
+        boolean inFlight = IN_FLIGHT_STATUSES.contains(header.getStatus());
+        Duration ttl = Duration.ofMillis(inFlight ? inFlightTtlMs : terminalTtlMs);
+        if (overwrite) {
+            localById.put(header.getId(), response, localTtl(response));
+        } else {
+            localById.putIfAbsent(header.getId(), response, localTtl(response));
+        }
+        if (header.getCorrelationId() != null) {
+            localIdsByCorrelationId.put(header.getCorrelationId(), header.getId());
+        }
+
+        try {
+            if (overwrite) {
+                redisTemplate.opsForValue().set(ID_KEY_PREFIX + header.getId(), response, ttl);
+            } else {
+                redisTemplate.opsForValue().setIfAbsent(ID_KEY_PREFIX + header.getId(), response, ttl);
+            }
+            if (header.getCorrelationId() != null) {
+                redisTemplate.opsForValue().set(CORRELATION_KEY_PREFIX + header.getCorrelationId(), header.getId(),
+                        Duration.ofMillis(terminalTtlMs));
+            }
+        } catch (Exception e) {
+            // A stale Redis entry would outlive this transition, so drop it instead
+            logger.warn("Failed to cache status for transaction {}: {}", header.getId(), e.getMessage());
+            evictRemote(header.getId());
+        }
+
+        writes.increment();
+        return response;
+    }
+
+    private Duration localTtl(TransactionResponse response) {
+        Object status = response.getAdditionalData() != null ? response.getAdditionalData().get("status") : null;
+        return Duration.ofMillis(status != null && IN_FLIGHT_STATUSES.contains(status.toString())
+                ? localInFlightTtlMs : localTerminalTtlMs);
+    }
+
+    private void evictRemote(Long transactionId) {
+        try {
+            redisTemplate.delete(ID_KEY_PREFIX + transactionId);
+        } catch (Exception e) {
+            logger.debug("Failed to evict cached status for transaction {}: {}", transactionId, e.getMessage());
+        }
+    }
+}
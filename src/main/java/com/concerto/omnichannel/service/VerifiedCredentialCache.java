@@ -0,0 +1,212 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.cache.CacheInvalidationBroadcaster;
+import com.concerto.omnichannel.entity.ClientCredentials;
+import com.concerto.omnichannel.utils.ExpiringCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers client secrets that recently passed BCrypt verification, so repeat requests skip it,
+ * and active credential rows, so a first request per client skips the database.
+ * <p>
+ * Entries are keyed by client and channel and hold an HMAC of the verified secret under a key
+ * generated per process; neither the secret nor a reusable hash of it is kept. A presented
+ * secret is accepted only if its HMAC matches in constant time. Entries live for a short TTL,
+ * never past the credential's expiry date, and are dropped on every node when the credential
+ * is saved or deleted through JPA (see {@link ClientCredentialsChangeListener}). Changes made
+ * outside JPA, such as a row deactivated in SQL, are picked up when the TTL runs out; credential
+ * rows are held for a TTL of their own, equally short.
+ */
+@Component
+public class VerifiedCredentialCache {
+
+    private static final String CACHE_NAME = "verifiedCredentials";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec macKey = new SecretKeySpec(randomKey(), MAC_ALGORITHM);
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+
+    @Autowired
+    private CacheInvalidationBroadcaster invalidationBroadcaster;
+
+    @Value("${auth.verified-credentials.ttl.ms:30000}")
+    private long ttlMs;
+
+    @Value("${auth.verified-credentials.stored.ttl.ms:30000}")
+    private long storedTtlMs;
+
+    @Value("${auth.verified-credentials.max-entries:10000}")
+    private int maxEntries;
+
+    private ExpiringCache<String, byte[]> verifiedSecrets;
+    private ExpiringCache<String, ClientCredentials> storedCredentials;
+
+    // Bumped on every invalidation so a verification racing with it is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        verifiedSecrets = new ExpiringCache<>(maxEntries, Duration.ofMillis(ttlMs));
+        storedCredentials = new ExpiringCache<>(maxEntries, Duration.ofMillis(storedTtlMs));
+
+        invalidationBroadcaster.addInvalidationListener((cacheName, key) -> {
+            if (CACHE_NAME.equals(cacheName)) {
+                invalidateLocally(key);
+            }
+        });
+    }
+
+    /**
+     * Whether this secret was verified for the client and channel within the TTL
+     */
+    public boolean isVerified(String clientId, String channelId, String clientSecret) {
+        byte[] verifiedMac = verifiedSecrets.get(key(clientId, channelId));
+        if (verifiedMac != null && MessageDigest.isEqual(verifiedMac, mac(clientSecret))) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Active credentials of the client on the channel, or null if not held
+     */
+    public ClientCredentials getCredentials(String clientId, String channelId) {
+        return storedCredentials.get(key(clientId, channelId));
+    }
+
+    /**
+     * Hold active credentials read from the database, unless they changed since they were read
+     */
+    public void storeCredentials(ClientCredentials credentials, long invalidationCount) {
+        if (!credentials.isActive() || invalidationCount != invalidations.get()) {
+            return;
+        }
+
+        String key = key(credentials.getClientId(), credentials.getChannelId());
+        storedCredentials.put(key, credentials);
+        if (invalidationCount != invalidations.get()) {
+            storedCredentials.remove(key, credentials);
+        }
+    }
+
+    /**
+     * Invalidation count to pass to {@link #recordVerified} and {@link #storeCredentials},
+     * taken before reading the credentials
+     */
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * Remember a secret that passed verification, unless the credentials changed since it was read
+     */
+    public void recordVerified(String clientId, String channelId, String clientSecret,
+                               LocalDateTime credentialExpiry, long invalidationCount) {
+        Duration ttl = Duration.ofMillis(ttlMs);
+        Duration untilExpiry = Duration.between(LocalDateTime.now(), credentialExpiry);
+        if (untilExpiry.compareTo(ttl) < 0) {
+            ttl = untilExpiry;
+        }
+        if (ttl.isNegative() || ttl.isZero() || invalidationCount != invalidations.get()) {
+            return;
+        }
+
+        String key = key(clientId, channelId);
+        byte[] secretMac = mac(clientSecret);
+        verifiedSecrets.put(key, secretMac, ttl);
+        if (invalidationCount != invalidations.get()) {
+            verifiedSecrets.remove(key, secretMac);
+        }
+    }
+
+    /**
+     * Saved or deleted credentials; drops the entry now and on every node after commit
+     */
+    @EventListener
+    public void onCredentialsChanged(ClientCredentialsChangedEvent event) {
+        ClientCredentials credentials = event.getCredentials();
+        String key = key(credentials.getClientId(), credentials.getChannelId());
+        invalidateLocally(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Again after commit, in case a request re-verified against the old row meanwhile
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateLocally(key);
+                    invalidationBroadcaster.publishEvict(CACHE_NAME, key);
+                }
+            });
+        } else {
+            invalidationBroadcaster.publishEvict(CACHE_NAME, key);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("hits", hits.sum());
+        statistics.put("misses", misses.sum());
+        statistics.put("invalidations", invalidations.get());
+        statistics.put("size", verifiedSecrets.size());
+        statistics.put("storedCredentials", storedCredentials.size());
+        return statistics;
+    }
+
+    private void invalidateLocally(String key) {
+        invalidations.incrementAndGet();
+        if (key == null) {
+            verifiedSecrets.clear();
+            storedCredentials.clear();
+        } else {
+            verifiedSecrets.remove(key);
+            storedCredentials.remove(key);
+        }
+    }
+
+    private byte[] mac(String clientSecret) {
+        return mac.get().doFinal(clientSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(MAC_ALGORITHM);
+            instance.init(macKey);
+            return instance;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialise credential MAC", e);
+        }
+    }
+
+    private static String key(String clientId, String channelId) {
+        return channelId + ":" + clientId;
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
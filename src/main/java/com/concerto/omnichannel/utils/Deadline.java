@@ -0,0 +1,63 @@
+package com.concerto.omnichannel.utils;
+
+import com.concerto.omnichannel.exception.DeadlineExceededException;
+
+import java.time.Duration;
+
+/**
+ * Absolute point in time by which a transaction must complete.
+ * <p>
+ * Created once at intake; every stage derives its own budget from the remaining time
+ * instead of applying an independent timeout.
+ */
+public final class Deadline {
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Deadline that is the earlier of this one and the given stage budget from now
+     */
+    public Deadline min(Duration stageBudget) {
+        long stageExpiry = System.nanoTime() + stageBudget.toNanos();
+        return stageExpiry - expiresAtNanos < 0 ? new Deadline(stageExpiry) : this;
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public long remainingMillis() {
+        return remaining().toMillis();
+    }
+
+    /**
+     * Remaining time in milliseconds, capped at the given timeout and never below 1
+     * so it can be used directly as a socket or future timeout
+     */
+    public int capMillis(int timeoutMs) {
+        return (int) Math.max(1, Math.min(timeoutMs, remainingMillis()));
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    public void checkNotExpired(String stage) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(stage);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remainingMs=" + remainingMillis() + '}';
+    }
+}
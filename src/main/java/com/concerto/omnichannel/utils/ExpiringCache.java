@@ -0,0 +1,149 @@
+package com.concerto.omnichannel.utils;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Size-bounded in-process cache with a per-entry time to live.
+ * Expired entries are dropped lazily on read and in bulk by {@link #cleanUp()}.
+ */
+public class ExpiringCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Duration defaultTtl;
+
+    public ExpiringCache(int maxSize, Duration defaultTtl) {
+        this.maxSize = maxSize;
+        this.defaultTtl = defaultTtl;
+    }
+
+    /**
+     * Get a live value, or null if absent or expired
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Remaining time to live of an entry, or {@link Duration#ZERO} if absent or expired
+     */
+    public Duration getRemainingTtl(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Duration.ZERO;
+        }
+        long remaining = entry.expiresAtNanos - System.nanoTime();
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, defaultTtl);
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        ensureCapacity(key);
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttl.toNanos()));
+    }
+
+    /**
+     * Store the value unless a live entry already exists.
+     *
+     * @return the existing live value, or null if the new value was stored
+     */
+    public V putIfAbsent(K key, V value, Duration ttl) {
+        ensureCapacity(key);
+        Entry<V> candidate = new Entry<>(value, System.nanoTime() + ttl.toNanos());
+
+        while (true) {
+            Entry<V> existing = entries.get(key);
+            if (existing == null) {
+                if (entries.putIfAbsent(key, candidate) == null) {
+                    return null;
+                }
+            } else if (!existing.isExpired(System.nanoTime())) {
+                return existing.value;
+            } else if (entries.replace(key, existing, candidate)) {
+                return null;
+            }
+        }
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove the entry only if it is still mapped to the given value
+     */
+    public boolean remove(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.value == value && entries.remove(key, entry);
+    }
+
+    public void forEach(BiConsumer<K, V> action) {
+        long now = System.nanoTime();
+        entries.forEach((key, entry) -> {
+            if (!entry.isExpired(now)) {
+                action.accept(key, entry.value);
+            }
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Drop all expired entries
+     */
+    public void cleanUp() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private void ensureCapacity(K key) {
+        if (entries.size() < maxSize || entries.containsKey(key)) {
+            return;
+        }
+
+        cleanUp();
+
+        // Still full: drop an arbitrary tenth of the entries rather than tracking recency
+        int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<K> iterator = entries.keySet().iterator();
+        while (toEvict-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtNanos;
+
+        private Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.concerto.omnichannel.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with roughly 10% wide logarithmic buckets from 1 ms to 2 minutes.
+ * Percentiles are reported as the upper bound of the bucket they fall into.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_UPPER_BOUNDS_MS = buildBucketBounds();
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long latencyMs) {
+        long value = Math.max(0, latencyMs);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public double getMean() {
+        long samples = count.sum();
+        return samples == 0 ? 0.0 : (double) sum.sum() / samples;
+    }
+
+    /**
+     * Latency at the given percentile (0-100), or -1 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long samples = count.sum();
+        if (samples == 0) {
+            return -1;
+        }
+
+        long rank = (long) Math.ceil(samples * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i < BUCKET_UPPER_BOUNDS_MS.length ? BUCKET_UPPER_BOUNDS_MS[i] : Long.MAX_VALUE;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_MS[BUCKET_UPPER_BOUNDS_MS.length - 1];
+    }
+
+    /**
+     * Add all samples of another histogram to this one
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < buckets.length(); i++) {
+            long bucketCount = other.buckets.get(i);
+            if (bucketCount > 0) {
+                buckets.addAndGet(i, bucketCount);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+    }
+
+    /**
+     * Non-empty buckets as comma-separated {@code index:count} pairs, for storing a histogram
+     */
+    public String encode() {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < buckets.length(); i++) {
+            long bucketCount = buckets.get(i);
+            if (bucketCount > 0) {
+                if (encoded.length() > 0) {
+                    encoded.append(',');
+                }
+                encoded.append(i).append(':').append(bucketCount);
+            }
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Add the samples of a histogram stored with {@link #encode()}; the sum is stored separately
+     */
+    public void merge(String encoded, long sumMs) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split(",")) {
+            int separator = pair.indexOf(':');
+            int index = Integer.parseInt(pair.substring(0, separator));
+            long bucketCount = Long.parseLong(pair.substring(separator + 1));
+            if (index >= 0 && index < buckets.length()) {
+                buckets.addAndGet(index, bucketCount);
+                count.add(bucketCount);
+            }
+        }
+        sum.add(sumMs);
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+    }
+
+    private static int bucketIndex(long latencyMs) {
+        int index = Arrays.binarySearch(BUCKET_UPPER_BOUNDS_MS, latencyMs);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static long[] buildBucketBounds() {
+        long[] bounds = new long[128];
+        int size = 0;
+        long bound = 1;
+        while (bound <= 120_000) {
+            bounds[size++] = bound;
+            bound = Math.max(bound + 1, (long) Math.ceil(bound * 1.1));
+        }
+        return Arrays.copyOf(bounds, size);
+    }
+}
@@ -1,112 +1,166 @@
 package com.concerto.omnichannel.validation;
 
 import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.rules.BusinessRule;
+import com.concerto.omnichannel.rules.CompiledRuleSet;
+import com.concerto.omnichannel.rules.VelocityCounters;
+import com.concerto.omnichannel.service.ChannelProfile;
 import com.concerto.omnichannel.service.ConfigurationService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks requests against their channel's business rules (see {@link CompiledRuleSet}).
+ * <p>
+ * Rules are compiled once per channel profile snapshot. A config change or invalidation produces
+ * a new snapshot, which is recompiled on its first request. Evaluation stops at the first failed
+ * check and only then collects every violation for the error message. Velocity caps are checked
+ * separately, after authentication, so unauthenticated requests cannot use up a client's budget,
+ * and hold across nodes through counters shared in Redis. If Redis is unavailable, every node
+ * keeps enforcing the caps on its own counts and pushes them once Redis is back.
+ */
 @Component
 public class BusinessRuleValidator {
 
+    private static final Logger logger = LoggerFactory.getLogger(BusinessRuleValidator.class);
+    private static final String VELOCITY_KEY_PREFIX = "velocity:";
+
+    // For each key, adds ARGV[2i-1] to the shared count, expiring it after ARGV[2i] ms;
+    // returns the new totals
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADD_COUNTS_SCRIPT = new DefaultRedisScript<>(
+            "local totals = {} "
+                    + "for i, key in ipairs(KEYS) do "
+                    + "  totals[i] = redis.call('INCRBY', key, ARGV[2 * i - 1]) "
+                    + "  redis.call('PEXPIRE', key, ARGV[2 * i]) "
+                    + "end "
+                    + "return totals",
+            List.class);
+
     @Autowired
     private ConfigurationService configurationService;
 
-    public void validateBusinessRules(TransactionRequest request) {
-        List<String> violations = new ArrayList<>();
-
-        // Check if channel is active
-        if (!configurationService.isChannelActive(request.getChannel())) {
-            violations.add("Channel " + request.getChannel() + " is currently inactive");
-        }
-
-        // Validate transaction limits
-        validateTransactionLimits(request, violations);
+    @Autowired
+    private StringRedisTemplate redisTemplate;
 
-        // Validate business hours
-        validateBusinessHours(request, violations);
+    @Value("${business-rules.velocity.max-tracked-values:100000}")
+    private int velocityMaxTrackedValues;
 
-        // Validate channel-specific business rules
-        validateChannelSpecificBusinessRules(request, violations);
+    @Value("${business-rules.velocity.sync.batch-size:500}")
+    private int velocitySyncBatchSize;
 
-        if (!violations.isEmpty()) {
-            throw new RuntimeException("Business rule validation failed: " + String.join(", ", violations));
-        }
-    }
+    private VelocityCounters velocityCounters;
 
-    private void validateTransactionLimits(TransactionRequest request, List<String> violations) {
-        if (request.getPayload() != null && request.getPayload().getAmount() != null) {
-            BigDecimal amount = request.getPayload().getAmount();
+    private final Map<String, CompiledRuleSet> ruleSets = new ConcurrentHashMap<>();
 
-            // Get channel-specific limits
-            BigDecimal minLimit = configurationService.getConfigValue(request.getChannel(), "minTransactionLimit", BigDecimal.class, BigDecimal.ZERO);
-            BigDecimal maxLimit = configurationService.getConfigValue(request.getChannel(), "maxTransactionLimit", BigDecimal.class, new BigDecimal("1000000"));
+    private final LongAdder validations = new LongAdder();
+    private final LongAdder violations = new LongAdder();
+    private final LongAdder compilations = new LongAdder();
+    private final LongAdder velocityRejections = new LongAdder();
+    private final LongAdder velocitySyncFailures = new LongAdder();
 
-            if (amount.compareTo(minLimit) < 0) {
-                violations.add("Transaction amount below minimum limit of " + minLimit);
-            }
+    @PostConstruct
+    public void initialize() {
+        velocityCounters = new VelocityCounters(velocityMaxTrackedValues);
+    }
 
-            if (amount.compareTo(maxLimit) > 0) {
-                violations.add("Transaction amount exceeds maximum limit of " + maxLimit);
-            }
+    public void validateBusinessRules(TransactionRequest request) {
+        // One snapshot for the whole request, so all rules see the same configuration
+        ChannelProfile profile = configurationService.getChannelProfile(request.getChannel());
+        List<String> violated = ruleSet(profile).violations(request);
+        validations.increment();
+
+        if (!violated.isEmpty()) {
+            violations.increment();
+            throw new RuntimeException("Business rule validation failed: " + String.join(", ", violated));
         }
     }
 
-    private void validateBusinessHours(TransactionRequest request, List<String> violations) {
-        String startTime = configurationService.getConfigValue(request.getChannel(), "businessHoursStart", "00:00");
-        String endTime = configurationService.getConfigValue(request.getChannel(), "businessHoursEnd", "23:59");
+    /**
+     * Count a request of an authenticated client against the channel's velocity caps
+     */
+    public void checkVelocity(TransactionRequest request) {
+        ChannelProfile profile = configurationService.getChannelProfile(request.getChannel());
+        BusinessRule exceeded = ruleSet(profile).exceededVelocity(request);
 
-        LocalTime currentTime = LocalTime.now();
-        LocalTime businessStart = LocalTime.parse(startTime);
-        LocalTime businessEnd = LocalTime.parse(endTime);
-
-        if (currentTime.isBefore(businessStart) || currentTime.isAfter(businessEnd)) {
-            violations.add("Transaction outside business hours for channel " + request.getChannel());
+        if (exceeded != null) {
+            velocityRejections.increment();
+            throw new RuntimeException("Business rule validation failed: " + exceeded.describeViolation(request));
         }
     }
 
-    private void validateChannelSpecificBusinessRules(TransactionRequest request, List<String> violations) {
-        switch (request.getChannel().toUpperCase()) {
-            case "ATM":
-                validateAtmRules(request, violations);
-                break;
-            case "POS":
-                validatePosRules(request, violations);
-                break;
-            case "UPI":
-                validateUpiRules(request, violations);
-                break;
-            // Add more channel-specific validations
+    /**
+     * Push velocity counts to the shared counters and catch up with other nodes' counts
+     */
+    @Scheduled(fixedDelayString = "${business-rules.velocity.sync.interval.ms:500}")
+    public void synchronizeVelocity() {
+        if (!velocityCounters.synchronize(this::addSharedCounts, velocitySyncBatchSize)) {
+            velocitySyncFailures.increment();
         }
     }
 
-    private void validateAtmRules(TransactionRequest request, List<String> violations) {
-        // ATM-specific business rules
-        if ("withdrawal".equals(request.getOperation())) {
-            BigDecimal dailyLimit = configurationService.getConfigValue("ATM", "dailyWithdrawalLimit", BigDecimal.class, new BigDecimal("50000"));
-            // Additional ATM validations can be added here
-        }
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("validations", validations.sum());
+        statistics.put("violations", violations.sum());
+        statistics.put("compilations", compilations.sum());
+        statistics.put("velocityRejections", velocityRejections.sum());
+        statistics.put("velocityTrackedValues", velocityCounters.size());
+        statistics.put("velocitySyncFailures", velocitySyncFailures.sum());
+        Map<String, Integer> ruleCounts = new HashMap<>();
+        ruleSets.forEach((channelId, ruleSet) -> ruleCounts.put(channelId, ruleSet.getRuleCount()));
+        statistics.put("rulesPerChannel", ruleCounts);
+        return statistics;
     }
 
-    private void validatePosRules(TransactionRequest request, List<String> violations) {
-        // POS-specific business rules
-        if (request.getPayload() != null && request.getPayload().getMerchantId() == null) {
-            violations.add("Merchant ID is mandatory for POS transactions");
+    private CompiledRuleSet ruleSet(ChannelProfile profile) {
+        CompiledRuleSet ruleSet = ruleSets.get(profile.getChannelId());
+        if (ruleSet != null && ruleSet.isCompiledFrom(profile)) {
+            return ruleSet;
         }
+
+        // Racing compilations of the same snapshot are equivalent, so the last one simply wins
+        ruleSet = CompiledRuleSet.compile(profile, velocityCounters);
+        ruleSets.put(profile.getChannelId(), ruleSet);
+        compilations.increment();
+        logger.debug("Compiled {} business rules for channel {}", ruleSet.getRuleCount(), profile.getChannelId());
+        return ruleSet;
     }
 
-    private void validateUpiRules(TransactionRequest request, List<String> violations) {
-        // UPI-specific business rules
-        if (request.getPayload() != null && request.getPayload().getAmount() != null) {
-            BigDecimal maxUpiLimit = configurationService.getConfigValue("UPI", "maxTransactionAmount", BigDecimal.class, new BigDecimal("200000"));
-            if (request.getPayload().getAmount().compareTo(maxUpiLimit) > 0) {
-                violations.add("UPI transaction amount exceeds limit of " + maxUpiLimit);
+    private List<Long> addSharedCounts(List<String> keys, List<Long> counts, List<Long> ttlMillis) {
+        List<String> redisKeys = new ArrayList<>(keys.size());
+        List<Object> args = new ArrayList<>(2 * keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            redisKeys.add(VELOCITY_KEY_PREFIX + keys.get(i));
+            args.add(String.valueOf(counts.get(i)));
+            args.add(String.valueOf(ttlMillis.get(i)));
+        }
+
+        try {
+            List<?> totals = redisTemplate.execute(ADD_COUNTS_SCRIPT, redisKeys, args.toArray());
+            List<Long> result = new ArrayList<>(keys.size());
+            if (totals != null) {
+                totals.forEach(total -> result.add(((Number) total).longValue()));
             }
+            return result;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to synchronize velocity counts, enforcing them per node: {}", e.getMessage());
+            throw e;
         }
     }
 }
-
@@ -0,0 +1,16 @@
+-- Move transaction_header and transaction_detail from IDENTITY columns to pooled sequences.
+-- Apply before deploying the matching entity change. If it was missed, IdSequenceAligner moves
+-- the sequences ddl-auto created past the existing ids at startup, but the IDENTITY defaults stay.
+--
+-- INCREMENT BY must equal ID_ALLOCATION_SIZE on the entity. Ids are handed out with the
+-- pooled-lo optimizer, so each nextval reserves [value, value + 50).
+
+CREATE SEQUENCE IF NOT EXISTS transaction_header_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('transaction_header_seq', COALESCE((SELECT MAX(id) FROM transaction_header), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS transaction_detail_seq INCREMENT BY 50 START WITH 1;
+SELECT setval('transaction_detail_seq', COALESCE((SELECT MAX(id) FROM transaction_detail), 0) + 1, false);
+
+-- Ids are now always supplied by the application
+ALTER TABLE transaction_header ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transaction_detail ALTER COLUMN id DROP IDENTITY IF EXISTS;
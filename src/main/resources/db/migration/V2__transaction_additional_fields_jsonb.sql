@@ -0,0 +1,39 @@
+-- JSONB storage mode for transaction additional fields (transaction.details.storage-mode: JSONB).
+-- Reads merge transaction_detail rows with additional_fields, so this can run while the
+-- application is live.
+
+ALTER TABLE transaction_header ADD COLUMN IF NOT EXISTS additional_fields jsonb;
+
+-- Supports jsonb_exists / ? lookups by field name
+CREATE INDEX IF NOT EXISTS idx_transaction_header_additional_fields
+    ON transaction_header USING GIN (additional_fields);
+
+-- Move non-sensitive fields: copy them into additional_fields and delete the copied rows in the
+-- same transaction, so no field is stored (or read) twice. Sensitive rows stay in
+-- transaction_detail because they can only be encrypted by the application
+-- (app.security.encryption.key). Headers that already have additional_fields are left alone.
+BEGIN;
+
+CREATE TEMPORARY TABLE moved_header_ids ON COMMIT DROP AS
+SELECT DISTINCT d.transaction_header_id AS id
+FROM transaction_detail d
+JOIN transaction_header h ON h.id = d.transaction_header_id
+WHERE d.is_sensitive = false
+  AND h.additional_fields IS NULL;
+
+UPDATE transaction_header h
+SET additional_fields = d.fields
+FROM (
+    SELECT transaction_header_id, jsonb_object_agg(field_name, field_value) AS fields
+    FROM transaction_detail
+    WHERE is_sensitive = false
+      AND transaction_header_id IN (SELECT id FROM moved_header_ids)
+    GROUP BY transaction_header_id
+) d
+WHERE h.id = d.transaction_header_id;
+
+DELETE FROM transaction_detail d
+WHERE d.is_sensitive = false
+  AND d.transaction_header_id IN (SELECT id FROM moved_header_ids);
+
+COMMIT;
@@ -0,0 +1,67 @@
+-- Convert transaction_header to a table range-partitioned by request_timestamp (monthly).
+-- Run in a maintenance window: existing rows are copied into the new table.
+-- Future partitions are then created by TransactionPartitionManager
+-- (transaction.partitioning.enabled: true). Monthly partitions are created here, so keep
+-- transaction.partitioning.granularity at MONTHLY unless these are re-split.
+
+BEGIN;
+
+-- Foreign keys cannot reference a partitioned table without the partition key
+DO $$
+DECLARE r record;
+BEGIN
+    FOR r IN SELECT conname, conrelid::regclass AS tbl
+             FROM pg_constraint
+             WHERE confrelid = 'transaction_header'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', r.tbl, r.conname);
+    END LOOP;
+END $$;
+
+CREATE TABLE transaction_header_partitioned
+    (LIKE transaction_header INCLUDING DEFAULTS)
+    PARTITION BY RANGE (request_timestamp);
+
+-- The primary key (and any unique constraint) must include the partition key
+ALTER TABLE transaction_header_partitioned ADD PRIMARY KEY (id, request_timestamp);
+
+CREATE TABLE transaction_header_default PARTITION OF transaction_header_partitioned DEFAULT;
+
+DO $$
+DECLARE month_start date;
+BEGIN
+    FOR month_start IN
+        SELECT generate_series(
+                   date_trunc('month', COALESCE((SELECT MIN(request_timestamp) FROM transaction_header), now())),
+                   date_trunc('month', now()) + interval '3 months',
+                   interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transaction_header_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'transaction_header_p' || to_char(month_start, 'YYYYMM'),
+                       month_start,
+                       (month_start + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+INSERT INTO transaction_header_partitioned SELECT * FROM transaction_header;
+
+ALTER TABLE transaction_header RENAME TO transaction_header_unpartitioned;
+ALTER INDEX IF EXISTS idx_correlation_id RENAME TO idx_correlation_id_unpartitioned;
+ALTER INDEX IF EXISTS idx_channel_status RENAME TO idx_channel_status_unpartitioned;
+ALTER INDEX IF EXISTS idx_request_timestamp RENAME TO idx_request_timestamp_unpartitioned;
+ALTER INDEX IF EXISTS idx_transaction_header_additional_fields RENAME TO idx_transaction_header_additional_fields_unpartitioned;
+
+ALTER TABLE transaction_header_partitioned RENAME TO transaction_header;
+
+-- Unique per partition key; correlation ids are generated per request, so this is as close to
+-- the old global constraint as a partitioned table allows
+CREATE UNIQUE INDEX idx_correlation_id ON transaction_header (correlation_id, request_timestamp);
+CREATE INDEX idx_channel_status ON transaction_header (channel, status);
+CREATE INDEX idx_request_timestamp ON transaction_header (request_timestamp);
+CREATE INDEX idx_transaction_header_additional_fields
+    ON transaction_header USING GIN (additional_fields);
+
+COMMIT;
+
+-- After verification:
+-- DROP TABLE transaction_header_unpartitioned;
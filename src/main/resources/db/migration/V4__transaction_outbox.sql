@@ -0,0 +1,33 @@
+-- Transactional outbox for transaction completion events (see TransactionOutboxService).
+-- Events are inserted in the same transaction as the final transaction_header update and
+-- published by OutboxRelay.
+
+-- INCREMENT BY must equal OutboxEvent.ID_ALLOCATION_SIZE
+CREATE SEQUENCE IF NOT EXISTS outbox_event_seq INCREMENT BY 50 START WITH 1;
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id             bigint       PRIMARY KEY,
+    event_type     varchar(100) NOT NULL,
+    aggregate_id   bigint       NOT NULL,
+    correlation_id varchar(100) NOT NULL,
+    channel        varchar(50)  NOT NULL,
+    status         varchar(50)  NOT NULL,
+    payload        text         NOT NULL,
+    created_at     timestamp    NOT NULL,
+    published_at   timestamp
+);
+
+-- The relay only ever scans unpublished rows in id order
+CREATE INDEX IF NOT EXISTS idx_outbox_event_unpublished
+    ON outbox_event (id) WHERE published_at IS NULL;
+
+-- Retention purge
+CREATE INDEX IF NOT EXISTS idx_outbox_event_published_at
+    ON outbox_event (published_at);
+
+CREATE TABLE IF NOT EXISTS outbox_offset (
+    sink_name       varchar(100) PRIMARY KEY,
+    last_event_id   bigint       NOT NULL,
+    delivered_count bigint       NOT NULL,
+    updated_at      timestamp    NOT NULL
+);
@@ -0,0 +1,42 @@
+-- Checks that the timestamp-filtered transaction_header queries prune partitions.
+-- Not a migration: run after V3 on a database with several partitions, e.g.
+--   psql -v ON_ERROR_STOP=1 -f verify_partition_pruning.sql
+-- Each statement mirrors a TransactionHeaderRepository query over the last day and fails if its
+-- plan still scans every partition.
+
+DO $$
+DECLARE
+    since timestamp := date_trunc('second', now() - interval '1 day');
+    until timestamp := date_trunc('second', now());
+    total int;
+    scanned int;
+    plan text;
+    query text;
+BEGIN
+    SELECT count(*) INTO total FROM pg_inherits WHERE inhparent = 'transaction_header'::regclass;
+    IF total < 3 THEN
+        RAISE EXCEPTION 'transaction_header has % partitions; create older ones before checking pruning', total;
+    END IF;
+
+    FOREACH query IN ARRAY ARRAY[
+        -- findByDateRange
+        format('SELECT * FROM transaction_header WHERE request_timestamp BETWEEN %L AND %L', since, until),
+        -- findStaleTransactions
+        format('SELECT * FROM transaction_header WHERE status IN (''RECEIVED'', ''AUTHENTICATED'', ''PROCESSING'') ' ||
+               'AND request_timestamp >= %L AND request_timestamp < %L', since, until),
+        -- findTransactionStatusCountsByChannel
+        format('SELECT status, count(*) FROM transaction_header WHERE channel = ''POS'' ' ||
+               'AND request_timestamp >= %L GROUP BY status', since),
+        -- findAverageProcessingTimeByChannel
+        format('SELECT avg(processing_time_ms) FROM transaction_header WHERE channel = ''POS'' ' ||
+               'AND status = ''SUCCESS'' AND request_timestamp >= %L', since)
+    ]
+    LOOP
+        EXECUTE 'EXPLAIN (FORMAT JSON) ' || query INTO plan;
+        SELECT count(*) INTO scanned FROM regexp_matches(plan, '"Relation Name": "transaction_header_', 'g');
+        IF scanned >= total THEN
+            RAISE EXCEPTION 'No partition pruning (% of % partitions scanned): %', scanned, total, query;
+        END IF;
+        RAISE NOTICE '% of % partitions scanned: %', scanned, total, query;
+    END LOOP;
+END $$;
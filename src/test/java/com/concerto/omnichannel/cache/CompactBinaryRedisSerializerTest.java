@@ -0,0 +1,93 @@
+package com.concerto.omnichannel.cache;
+
+import com.concerto.omnichannel.configManager.RedisConfig;
+import com.concerto.omnichannel.dto.TransactionResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactBinaryRedisSerializerTest {
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> binary;
+
+    @BeforeEach
+    void setUp() {
+        json = RedisConfig.cacheValueSerializer("json", 1024);
+        binary = RedisConfig.cacheValueSerializer("binary", 1024);
+    }
+
+    @Test
+    void configMapsRoundTripWithTheirValueTypes() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("timeoutMs", 3000);
+        config.put("maxAmount", new BigDecimal("100000.50"));
+        config.put("retries", 3L);
+        config.put("ratio", 0.25);
+        config.put("enabled", true);
+        config.put("endpoint", "https://switch.example/iso");
+        config.put("operations", List.of("purchase", "refund"));
+        config.put("fallback", null);
+
+        Object restored = binary.deserialize(binary.serialize(config));
+
+        assertThat(restored).isEqualTo(config);
+        assertThat(binary.serialize(config).length).isLessThan(json.serialize(config).length);
+    }
+
+    @Test
+    void otherObjectsRoundTripThroughTheJsonFallback() {
+        TransactionResponse response = new TransactionResponse(42L, "corr-1", true);
+        response.setChannel("POS");
+        response.setPayload("{\"approvalCode\":\"123456\"}");
+
+        TransactionResponse restored = (TransactionResponse) binary.deserialize(binary.serialize(response));
+
+        assertThat(restored.getTransactionId()).isEqualTo(42L);
+        assertThat(restored.getCorrelationId()).isEqualTo("corr-1");
+        assertThat(restored.getChannel()).isEqualTo("POS");
+        assertThat(restored.getPayload()).isEqualTo(response.getPayload());
+    }
+
+    @Test
+    void largeValuesAreCompressedAndRestored() {
+        Map<String, Object> config = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            config.put("field" + i, "value-" + (i % 5));
+        }
+
+        byte[] compressed = binary.serialize(config);
+        byte[] uncompressed = RedisConfig.cacheValueSerializer("binary", Integer.MAX_VALUE).serialize(config);
+
+        assertThat(compressed.length).isLessThan(uncompressed.length);
+        assertThat(binary.deserialize(compressed)).isEqualTo(config);
+    }
+
+    @Test
+    void readsEntriesWrittenAsJson() {
+        Map<String, Object> config = new HashMap<>();
+        config.put("timeoutMs", 3000);
+        config.put("endpoint", "https://switch.example/iso");
+
+        assertThat(binary.deserialize(json.serialize(config))).isEqualTo(config);
+    }
+
+    @Test
+    void truncatedValueIsRejected() {
+        byte[] bytes = binary.serialize(Map.of("endpoint", "https://switch.example/iso"));
+
+        assertThatThrownBy(() -> binary.deserialize(Arrays.copyOf(bytes, bytes.length - 4)))
+                .isInstanceOf(SerializationException.class);
+    }
+}
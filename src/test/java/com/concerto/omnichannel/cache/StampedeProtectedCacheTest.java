@@ -0,0 +1,77 @@
+package com.concerto.omnichannel.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StampedeProtectedCacheTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private ConcurrentMapCache delegate;
+    private StampedeProtectedCache cache;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new ConcurrentMapCache("channelConfig");
+        cache = new StampedeProtectedCache(delegate, Runnable::run, (name, key) -> null,
+                1.0, Duration.ofSeconds(5), 10, 100, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> first = callers.submit(() -> cache.get("POS", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "config";
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> second = callers.submit(() -> cache.get("POS", () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Long.valueOf(1L).equals(cache.getStatistics().get("coalescedLoads")) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("config");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("config");
+        assertThat(loads).hasValue(1);
+        assertThat(delegate.get("POS").get()).isEqualTo("config");
+    }
+
+    @Test
+    void loadRacingWithAnEvictionIsNotStored() {
+        String value = cache.get("POS", () -> {
+            cache.evict("POS");
+            return "stale";
+        });
+
+        assertThat(value).isEqualTo("stale");
+        assertThat(delegate.get("POS")).isNull();
+        assertThat(cache.get("POS", () -> "fresh")).isEqualTo("fresh");
+        assertThat(delegate.get("POS").get()).isEqualTo("fresh");
+    }
+}
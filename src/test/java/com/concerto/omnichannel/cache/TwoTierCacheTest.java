@@ -0,0 +1,69 @@
+package com.concerto.omnichannel.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheTest {
+
+    private Cache remote;
+    private CacheInvalidationBroadcaster broadcaster;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = mock(Cache.class);
+        broadcaster = mock(CacheInvalidationBroadcaster.class);
+        when(remote.getName()).thenReturn("channelConfig");
+        cache = new TwoTierCache(remote, 100, Duration.ofMinutes(1), broadcaster);
+    }
+
+    @Test
+    void remoteReadsAreKeptLocally() {
+        when(remote.get("POS")).thenReturn(new SimpleValueWrapper("config"));
+
+        assertThat(cache.get("POS").get()).isEqualTo("config");
+        assertThat(cache.get("POS").get()).isEqualTo("config");
+
+        verify(remote, times(1)).get("POS");
+    }
+
+    @Test
+    void remoteReadRacingWithAnInvalidationIsNotKeptLocally() {
+        when(remote.get("POS"))
+                .thenAnswer(invocation -> {
+                    // Another node changes the entry while this read is in flight
+                    cache.onRemoteInvalidation("POS");
+                    return new SimpleValueWrapper("old");
+                })
+                .thenReturn(new SimpleValueWrapper("new"));
+
+        assertThat(cache.get("POS").get()).isEqualTo("old");
+        assertThat(cache.get("POS").get()).isEqualTo("new");
+        assertThat(cache.get("POS").get()).isEqualTo("new");
+
+        verify(remote, times(2)).get("POS");
+    }
+
+    @Test
+    void remoteInvalidationDropsTheLocalCopyOnly() {
+        when(remote.get("POS")).thenReturn(new SimpleValueWrapper("config"));
+        cache.get("POS");
+
+        cache.onRemoteInvalidation("POS");
+        cache.get("POS");
+
+        verify(remote, times(2)).get("POS");
+        verify(remote, times(0)).evict("POS");
+        assertThat(cache.getStatistics()).containsEntry("invalidationsReceived", 1L);
+    }
+}
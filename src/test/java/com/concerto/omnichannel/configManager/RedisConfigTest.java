@@ -0,0 +1,30 @@
+package com.concerto.omnichannel.configManager;
+
+import com.concerto.omnichannel.cache.CompactBinaryRedisSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisConfigTest {
+
+    @Test
+    void cacheValuesAreJsonUnlessBinaryIsConfigured() throws Exception {
+        Value codec = RedisConfig.class.getDeclaredField("codec").getAnnotation(Value.class);
+        assertThat(codec.value()).isEqualTo("${cache.redis.codec:json}");
+
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        assertThat(yaml.getObject().getProperty("cache.redis.codec")).isEqualTo("json");
+    }
+
+    @Test
+    void codecSelectsTheSerializer() {
+        assertThat(RedisConfig.cacheValueSerializer("json", 1024)).isInstanceOf(GenericJackson2JsonRedisSerializer.class);
+        assertThat(RedisConfig.cacheValueSerializer("BINARY", 1024)).isInstanceOf(CompactBinaryRedisSerializer.class);
+        assertThat(RedisConfig.cacheValueSerializer("unknown", 1024)).isInstanceOf(GenericJackson2JsonRedisSerializer.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.concerto.omnichannel.configManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new ReplicaLagMonitor(mock(DataSource.class), 1000, 1);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(monitor, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void replicaWithinTheLagLimitIsUsed() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(200L);
+
+        monitor.checkLag();
+
+        assertThat(monitor.isReplicaUsable()).isTrue();
+    }
+
+    @Test
+    void replicaThatStoppedStreamingIsTakenOut() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(200L);
+        monitor.checkLag();
+
+        // The check yields no lag once the WAL receiver is no longer streaming
+        when(jdbcTemplate.queryForObject(contains("pg_stat_wal_receiver"), eq(Long.class))).thenReturn(null);
+        monitor.checkLag();
+
+        assertThat(monitor.isReplicaUsable()).isFalse();
+        assertThat(monitor.getStatistics()).containsEntry("lastError", "WAL receiver is not streaming");
+    }
+}
@@ -0,0 +1,31 @@
+package com.concerto.omnichannel.controller;
+
+import com.concerto.omnichannel.dto.ApiResponse;
+import com.concerto.omnichannel.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void rateLimitIsAnsweredWithRetryAfterInWholeSeconds() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Correlation-Id", "corr-1");
+
+        ResponseEntity<ApiResponse<Object>> response = handler.handleRateLimitExceededException(
+                new RateLimitExceededException("client-1", "POS", Duration.ofMillis(1_200)), request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody().getCorrelationId()).isEqualTo("corr-1");
+    }
+}
@@ -0,0 +1,144 @@
+package com.concerto.omnichannel.handlers.bbps;
+
+import com.concerto.omnichannel.cache.CacheInvalidationBroadcaster;
+import com.concerto.omnichannel.dto.Payload;
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.exception.DeadlineExceededException;
+import com.concerto.omnichannel.utils.Deadline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BBPSBillCacheTest {
+
+    private static final String BILL = "{\"success\":true,\"billAmount\":100,\"bbpsRefId\":\"R1\"}";
+    private static final String BILL_KEY = "B1:ACC1";
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private CacheInvalidationBroadcaster broadcaster;
+    private BiConsumer<String, String> remoteInvalidations;
+    private BBPSBillCache billCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        broadcaster = mock(CacheInvalidationBroadcaster.class);
+
+        billCache = new BBPSBillCache();
+        ReflectionTestUtils.setField(billCache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(billCache, "invalidationBroadcaster", broadcaster);
+        ReflectionTestUtils.setField(billCache, "ttlMs", 30000L);
+        ReflectionTestUtils.setField(billCache, "maxEntries", 100);
+        billCache.initialize();
+
+        ArgumentCaptor<BiConsumer<String, String>> listener = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(broadcaster).addInvalidationListener(listener.capture());
+        remoteInvalidations = listener.getValue();
+    }
+
+    @Test
+    void billIsCachedPerClient() throws Exception {
+        fetch("client-a");
+        fetch("client-a");
+        fetch("client-b");
+
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void paymentDropsTheBillForEveryClientAndTellsOtherNodes() throws Exception {
+        fetch("client-a");
+        fetch("client-b");
+
+        billCache.onTransactionCompleted(request("payBill"), TransactionResponse.success(1L, "correlation", "{}"));
+        fetch("client-a");
+        fetch("client-b");
+
+        assertThat(fetches).hasValue(4);
+        verify(broadcaster).publishEvict(BBPSBillCache.CACHE_NAME, BILL_KEY);
+    }
+
+    @Test
+    void paymentOnAnotherNodeDropsTheBill() throws Exception {
+        fetch("client-a");
+
+        remoteInvalidations.accept(BBPSBillCache.CACHE_NAME, BILL_KEY);
+        fetch("client-a");
+
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void fetchInFlightDuringPaymentIsNotKept() throws Exception {
+        String fetched = billCache.fetch(request("fetchBill"), "client-a", deadline(), () -> {
+            fetches.incrementAndGet();
+            remoteInvalidations.accept(BBPSBillCache.CACHE_NAME, BILL_KEY);
+            return BILL;
+        });
+        fetch("client-a");
+
+        assertThat(fetched).isEqualTo(BILL);
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void waitForAnInFlightFetchEndsAtTheDeadline() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slowFetch = CompletableFuture.supplyAsync(() -> {
+            try {
+                return billCache.fetch(request("fetchBill"), "client-a", deadline(), () -> {
+                    started.countDown();
+                    release.await();
+                    return BILL;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> billCache.fetch(request("fetchBill"), "client-a",
+                    Deadline.after(Duration.ofMillis(50)), () -> BILL))
+                    .isInstanceOf(DeadlineExceededException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(slowFetch.get(5, TimeUnit.SECONDS)).isEqualTo(BILL);
+    }
+
+    private void fetch(String clientId) throws Exception {
+        billCache.fetch(request("fetchBill"), clientId, deadline(), () -> {
+            fetches.incrementAndGet();
+            return BILL;
+        });
+    }
+
+    private static Deadline deadline() {
+        return Deadline.after(Duration.ofSeconds(5));
+    }
+
+    private static TransactionRequest request(String operation) {
+        Payload payload = new Payload();
+        payload.setAccountNumber("ACC1");
+        payload.setAdditionalFields(Map.of("billerId", "B1"));
+        return new TransactionRequest("BBPS", operation, payload);
+    }
+}
@@ -0,0 +1,90 @@
+package com.concerto.omnichannel.rules;
+
+import com.concerto.omnichannel.dto.Payload;
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.service.ChannelProfile;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledRuleSetTest {
+
+    private final VelocityCounters velocityCounters = new VelocityCounters(100);
+
+    @Test
+    void posRequestsNeedAMerchantId() {
+        CompiledRuleSet rules = compile("POS", Map.of());
+
+        assertThat(rules.violations(request("POS", "purchase", "10.00", null)))
+                .containsExactly("Merchant ID is mandatory for POS transactions");
+        assertThat(rules.violations(request("POS", "purchase", "10.00", "M1"))).isEmpty();
+    }
+
+    @Test
+    void upiAmountCapFollowsTheCurrentConfiguration() {
+        assertThat(compile("UPI", Map.of()).violations(request("UPI", "pay", "200000.01", null)))
+                .containsExactly("UPI transaction amount exceeds limit of 200000.00");
+
+        CompiledRuleSet lowered = compile("UPI", Map.of("maxTransactionAmount", "5000.00"));
+        assertThat(lowered.violations(request("UPI", "pay", "5000.00", null))).isEmpty();
+        assertThat(lowered.violations(request("UPI", "pay", "5000.01", null)))
+                .containsExactly("UPI transaction amount exceeds limit of 5000.00");
+    }
+
+    @Test
+    void failedRequestReportsEveryViolation() {
+        CompiledRuleSet rules = compile("POS", Map.of("active", "false", "maxTransactionLimit", "100.00",
+                "rule.purchase.mandatoryFields", "terminalId"));
+
+        assertThat(rules.violations(request("POS", "purchase", "150.00", null))).containsExactly(
+                "Channel POS is currently inactive",
+                "Transaction amount exceeds maximum limit of 100.00",
+                "Merchant ID is mandatory for POS transactions",
+                "terminalId is mandatory for POS purchase transactions");
+    }
+
+    @Test
+    void checksDoNotCountTowardsVelocity() {
+        CompiledRuleSet rules = compile("ATM", Map.of("rule.velocity", "2/86400"));
+        TransactionRequest request = request("ATM", "withdrawal", "10.00", null);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rules.violations(request)).isEmpty();
+        }
+
+        assertThat(rules.exceededVelocity(request)).isNull();
+        assertThat(rules.exceededVelocity(request)).isNull();
+        assertThat(rules.exceededVelocity(request).describeViolation(request))
+                .isEqualTo("Too many ATM transactions for accountNumber, limit is 2 per 86400 seconds");
+    }
+
+    @Test
+    void velocityCountsSurviveRecompilation() {
+        TransactionRequest request = request("ATM", "withdrawal", "10.00", null);
+        compile("ATM", Map.of("rule.velocity", "1/86400")).exceededVelocity(request);
+
+        assertThat(compile("ATM", Map.of("rule.velocity", "1/86400")).exceededVelocity(request)).isNotNull();
+    }
+
+    private CompiledRuleSet compile(String channelId, Map<String, String> overrides) {
+        Map<String, String> values = new HashMap<>();
+        values.put("active", "true");
+        values.put("businessHoursStart", "00:00");
+        values.put("businessHoursEnd", "23:59:59.999");
+        values.putAll(overrides);
+        return CompiledRuleSet.compile(ChannelProfile.compile(channelId, values, Set.of()), velocityCounters);
+    }
+
+    private static TransactionRequest request(String channel, String operation, String amount, String merchantId) {
+        Payload payload = new Payload();
+        payload.setAmount(new BigDecimal(amount));
+        payload.setMerchantId(merchantId);
+        payload.setAccountNumber("1234567890");
+        return new TransactionRequest(channel, operation, payload);
+    }
+}
@@ -0,0 +1,82 @@
+package com.concerto.omnichannel.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocityCountersTest {
+
+    private final VelocityCounters velocityCounters = new VelocityCounters(3);
+    private final VelocityCounters.RuleCounters rule = velocityCounters.forRule("ATM:rule.velocity=1/60", 60_000);
+
+    @Test
+    void newValuesDoNotResetCountsInForce() {
+        assertThat(velocityCounters.tryIncrement(rule, "victim", 10, 1)).isTrue();
+        for (int i = 0; i < 10; i++) {
+            velocityCounters.tryIncrement(rule, "other-" + i, 10, 1);
+        }
+
+        assertThat(velocityCounters.tryIncrement(rule, "victim", 10, 1)).isFalse();
+        assertThat(velocityCounters.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void countersOfPastWindowsMakeRoom() {
+        velocityCounters.tryIncrement(rule, "a", 10, 1);
+        velocityCounters.tryIncrement(rule, "b", 10, 1);
+        velocityCounters.tryIncrement(rule, "c", 11, 1);
+
+        assertThat(velocityCounters.tryIncrement(rule, "d", 11, 1)).isTrue();
+        assertThat(velocityCounters.tryIncrement(rule, "c", 11, 1)).isFalse();
+        assertThat(velocityCounters.size()).isEqualTo(2);
+    }
+
+    @Test
+    void newValueIsRefusedWhileEveryTrackedValueIsInItsWindow() {
+        velocityCounters.tryIncrement(rule, "a", 10, 5);
+        velocityCounters.tryIncrement(rule, "b", 10, 5);
+        velocityCounters.tryIncrement(rule, "c", 10, 5);
+
+        assertThat(velocityCounters.tryIncrement(rule, "d", 10, 5)).isFalse();
+        assertThat(velocityCounters.tryIncrement(rule, "a", 10, 5)).isTrue();
+        assertThat(velocityCounters.tryIncrement(rule, "d", 11, 5)).isTrue();
+    }
+
+    @Test
+    void countsOfOtherNodesApplyAfterSynchronization() {
+        long window = System.currentTimeMillis() / 60_000;
+        List<List<Long>> pushed = new ArrayList<>();
+        velocityCounters.tryIncrement(rule, "card-1", window, 3);
+
+        velocityCounters.synchronize((keys, counts, ttlMillis) -> {
+            pushed.add(counts);
+            assertThat(keys).containsExactly("ATM:rule.velocity=1/60:" + window + ":card-1");
+            return List.of(3L);
+        }, 10);
+
+        assertThat(pushed).containsExactly(List.of(1L));
+        assertThat(velocityCounters.tryIncrement(rule, "card-1", window, 3)).isFalse();
+    }
+
+    @Test
+    void countsArePushedAgainWhenSharedCountersAreUnavailable() {
+        long window = System.currentTimeMillis() / 60_000;
+        List<List<Long>> pushed = new ArrayList<>();
+        velocityCounters.tryIncrement(rule, "card-1", window, 3);
+
+        boolean synced = velocityCounters.synchronize((keys, counts, ttlMillis) -> {
+            throw new IllegalStateException("redis down");
+        }, 10);
+        velocityCounters.tryIncrement(rule, "card-1", window, 3);
+        velocityCounters.synchronize((keys, counts, ttlMillis) -> {
+            pushed.add(counts);
+            return List.of(2L);
+        }, 10);
+
+        assertThat(synced).isFalse();
+        assertThat(pushed).containsExactly(List.of(2L));
+    }
+}
@@ -0,0 +1,95 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.utils.ExpiringCache;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class AuthenticationServiceJwtTest {
+
+    private static final String SECRET = "test-jwt-secret-that-is-long-enough-for-hmac-sha-512-signatures!!";
+
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        authenticationService = new AuthenticationService(null, mock(VerifiedCredentialCache.class),
+                mock(ClientLockoutTracker.class), SECRET, 60_000L, 100);
+    }
+
+    @Test
+    void validTokenIsAcceptedForItsChannelOnly() {
+        String token = authenticationService.generateJwtToken("client-1", "POS");
+
+        assertThat(authenticationService.authenticateWithJwt(token, "POS")).isTrue();
+        assertThat(authenticationService.authenticateWithJwt(token, "UPI")).isFalse();
+        assertThat(authenticationService.authenticatePrincipal(null, null, token, "POS")).isEqualTo("client-1");
+    }
+
+    @Test
+    void cachedTokenIsNotVerifiedAgain() {
+        String token = authenticationService.generateJwtToken("client-1", "POS");
+        assertThat(authenticationService.authenticateWithJwt(token, "POS")).isTrue();
+
+        JwtParser parser = mock(JwtParser.class);
+        ReflectionTestUtils.setField(authenticationService, "jwtParser", parser);
+
+        assertThat(authenticationService.authenticateWithJwt(token, "POS")).isTrue();
+        assertThat(authenticationService.authenticateWithJwt(token, "UPI")).isFalse();
+        verifyNoInteractions(parser);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cachedTokenLivesNoLongerThanItsExpiry() {
+        String token = authenticationService.generateJwtToken("client-1", "POS");
+        authenticationService.authenticateWithJwt(token, "POS");
+
+        ExpiringCache<String, ?> verifiedTokens =
+                (ExpiringCache<String, ?>) ReflectionTestUtils.getField(authenticationService, "verifiedTokens");
+        String digest = ReflectionTestUtils.invokeMethod(authenticationService, "digest", token);
+
+        assertThat(verifiedTokens.getRemainingTtl(digest))
+                .isPositive()
+                .isLessThanOrEqualTo(Duration.ofMillis(60_000));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = authenticationService.generateJwtToken("client-1", "POS");
+        String forged = Jwts.builder()
+                .setSubject("client-2")
+                .claim("channel", "POS")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-that-is-long-enough-for-hmac-sha-512-signatures!!!"
+                        .getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertThat(authenticationService.authenticateWithJwt(token + "x", "POS")).isFalse();
+        assertThat(authenticationService.authenticateWithJwt(forged, "POS")).isFalse();
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String expired = Jwts.builder()
+                .setSubject("client-1")
+                .claim("channel", "POS")
+                .setExpiration(new Date(System.currentTimeMillis() - 1_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertThat(authenticationService.authenticateWithJwt(expired, "POS")).isFalse();
+    }
+}
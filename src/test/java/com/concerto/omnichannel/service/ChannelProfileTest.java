@@ -0,0 +1,86 @@
+package com.concerto.omnichannel.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelProfileTest {
+
+    @Test
+    void unconfiguredValuesUseTheDefaultsOfTheConfigLookups() {
+        ChannelProfile profile = ChannelProfile.compile("POS", Map.of(), Set.of());
+
+        assertThat(profile.isActive()).isFalse();
+        assertThat(ChannelProfile.fromMinorUnits(profile.getMinTransactionLimitMinor())).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(ChannelProfile.fromMinorUnits(profile.getMaxTransactionLimitMinor())).isEqualByComparingTo("1000000");
+        assertThat(ChannelProfile.fromMinorUnits(profile.getMaxTransactionAmountMinor())).isEqualByComparingTo("200000");
+        assertThat(profile.getBusinessHoursStart()).isEqualTo(LocalTime.of(0, 0));
+        assertThat(profile.getBusinessHoursEnd()).isEqualTo(LocalTime.of(23, 59));
+        assertThat(profile.getTimeout()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(profile.getMaxRetries()).isEqualTo(2);
+        assertThat(profile.isCircuitBreakerEnabled()).isTrue();
+        assertThat(profile.getBatchSize()).isEqualTo(100);
+        assertThat(profile.getSwitchPort()).isNull();
+        assertThat(profile.getTpduIdentifier()).isNull();
+    }
+
+    @Test
+    void limitsCompareLikeTheConfiguredDecimals() {
+        ChannelProfile profile = ChannelProfile.compile("UPI",
+                Map.of("minTransactionLimit", "1", "maxTransactionLimit", " 250.75 ", "maxTransactionAmount", "100000.5"),
+                Set.of());
+
+        assertThat(profile.getMinTransactionLimitMinor()).isEqualTo(100L);
+        assertThat(profile.getMaxTransactionLimitMinor()).isEqualTo(25_075L);
+        assertThat(profile.getMaxTransactionAmountMinor()).isEqualTo(10_000_050L);
+
+        // Amounts on either side of a limit compare as they did against the configured BigDecimal
+        BigDecimal configured = new BigDecimal("250.75");
+        for (String amount : new String[]{"250.74", "250.75", "250.76", "250.7500"}) {
+            BigDecimal requested = new BigDecimal(amount);
+            assertThat(requested.compareTo(ChannelProfile.fromMinorUnits(profile.getMaxTransactionLimitMinor())))
+                    .isEqualTo(requested.compareTo(configured));
+        }
+    }
+
+    @Test
+    void limitsWithMoreDecimalsAreRoundedHalfUp() {
+        ChannelProfile profile = ChannelProfile.compile("POS",
+                Map.of("minTransactionLimit", "0.005", "maxTransactionLimit", "99.994"), Set.of());
+
+        assertThat(profile.getMinTransactionLimitMinor()).isEqualTo(1L);
+        assertThat(profile.getMaxTransactionLimitMinor()).isEqualTo(9_999L);
+        assertThat(ChannelProfile.toMinorUnits(new BigDecimal("10.019"), RoundingMode.DOWN)).isEqualTo(1_001L);
+    }
+
+    @Test
+    void valuesThatDoNotParseFallBackToTheirDefaults() {
+        ChannelProfile profile = ChannelProfile.compile("ATM",
+                Map.of("maxTransactionLimit", "ten", "timeout", "soon", "businessHoursStart", "9am", "active", "true"),
+                Set.of());
+
+        assertThat(profile.getMaxTransactionLimitMinor()).isEqualTo(100_000_000L);
+        assertThat(profile.getTimeout()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(profile.getBusinessHoursStart()).isEqualTo(LocalTime.of(0, 0));
+        assertThat(profile.isActive()).isTrue();
+    }
+
+    @Test
+    void secretsAreParsedButNotKeptAsRawValues() {
+        ChannelProfile profile = ChannelProfile.compile("ISO8583",
+                Map.of("switchHost", "10.0.0.5", "switchPort", "8583", "tpduIdentifier", "0x60", "apiKey", "secret"),
+                Set.of("apiKey"));
+
+        assertThat(profile.getSwitchPort()).isEqualTo(8583);
+        assertThat(profile.getTpduIdentifier()).isEqualTo(0x60);
+        assertThat(profile.getValue("apiKey")).isNull();
+        assertThat(profile.getValues()).containsOnlyKeys("switchHost", "switchPort", "tpduIdentifier");
+    }
+}
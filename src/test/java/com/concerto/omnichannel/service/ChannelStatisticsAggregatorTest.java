@@ -0,0 +1,198 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.ChannelStatsRollup;
+import com.concerto.omnichannel.repository.ChannelStatsRollupRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.concerto.omnichannel.utils.LatencyHistogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChannelStatisticsAggregatorTest {
+
+    private static final Instant MINUTE = Instant.parse("2026-10-19T10:15:00Z");
+
+    private ChannelStatsRollupRepository rollupRepository;
+    private TransactionHeaderRepository headerRepository;
+    private ChannelStatisticsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(ChannelStatsRollupRepository.class);
+        headerRepository = mock(TransactionHeaderRepository.class);
+
+        aggregator = new ChannelStatisticsAggregator();
+        ReflectionTestUtils.setField(aggregator, "rollupRepository", rollupRepository);
+        ReflectionTestUtils.setField(aggregator, "headerRepository", headerRepository);
+        ReflectionTestUtils.setField(aggregator, "nodeId", "node-a");
+        ReflectionTestUtils.setField(aggregator, "rollupRetentionDays", 30);
+        at(MINUTE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rolledBackCheckpointIsWrittenAgain() {
+        aggregator.record("POS", "SUCCESS", 40);
+        at(MINUTE.plusSeconds(60));
+
+        TransactionSynchronizationManager.initSynchronization();
+        aggregator.checkpoint();
+        List<TransactionSynchronization> firstAttempt = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        firstAttempt.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        aggregator.checkpoint();
+        aggregator.checkpoint();
+
+        verify(rollupRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void committedCheckpointIsNotWrittenTwice() {
+        aggregator.record("POS", "SUCCESS", 40);
+        at(MINUTE.plusSeconds(60));
+
+        TransactionSynchronizationManager.initSynchronization();
+        aggregator.checkpoint();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        aggregator.checkpoint();
+
+        verify(rollupRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkpointStoresMergeableLatency() {
+        aggregator.record("POS", "SUCCESS", 40);
+        aggregator.record("POS", "FAILED", -1);
+        at(MINUTE.plusSeconds(60));
+
+        aggregator.checkpoint();
+
+        ArgumentCaptor<List<ChannelStatsRollup>> saved = ArgumentCaptor.forClass(List.class);
+        verify(rollupRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(ChannelStatsRollup::getStatus).containsExactlyInAnyOrder("SUCCESS", "FAILED");
+        ChannelStatsRollup success = saved.getValue().stream()
+                .filter(rollup -> "SUCCESS".equals(rollup.getStatus())).findFirst().orElseThrow();
+        LatencyHistogram restored = new LatencyHistogram();
+        restored.merge(success.getLatencyBuckets(), success.getLatencySumMs());
+        assertThat(restored.getCount()).isEqualTo(1);
+        assertThat(restored.getMean()).isEqualTo(40.0);
+    }
+
+    @Test
+    void countsCombineAllNodesUncheckpointedMinutesAndOpenTransactions() {
+        LocalDateTime since = local(MINUTE.minusSeconds(300));
+        when(rollupRepository.findByChannelSince("POS", since)).thenReturn(List.of(
+                rollup("node-a", "SUCCESS", MINUTE.minusSeconds(120), 3),
+                rollup("node-b", "SUCCESS", MINUTE.minusSeconds(120), 4),
+                rollup("node-b", "FAILED", MINUTE.minusSeconds(60), 1)));
+        List<Object[]> open = new ArrayList<>();
+        open.add(new Object[]{"PROCESSING", 2L});
+        when(headerRepository.findStatusCountsByChannelAndStatuses(eq("POS"), eq(TransactionOutboxService.OPEN_STATUSES), any()))
+                .thenReturn(open);
+        aggregator.record("POS", "SUCCESS", 25);
+
+        Map<String, Long> counts = aggregator.getStatusCounts("POS", since.plusSeconds(30));
+
+        assertThat(counts).containsEntry("SUCCESS", 8L).containsEntry("FAILED", 1L).containsEntry("PROCESSING", 2L);
+    }
+
+    @Test
+    void recentRangesAreReadFromTheSnapshotAndOwnBuckets() {
+        at(MINUTE.minusSeconds(600));
+        aggregator.initialize();
+        at(MINUTE);
+        aggregator.record("POS", "SUCCESS", 25);
+
+        when(rollupRepository.findAllSince(any())).thenReturn(List.of(
+                // This node before its restart, then minutes its own buckets already hold
+                rollup("node-a", "SUCCESS", MINUTE.minusSeconds(900), 5),
+                rollup("node-a", "SUCCESS", MINUTE.minusSeconds(120), 3),
+                rollup("node-b", "SUCCESS", MINUTE.minusSeconds(120), 4),
+                rollup("node-b", "FAILED", MINUTE.minusSeconds(60), 1)));
+        List<Object[]> open = new ArrayList<>();
+        open.add(new Object[]{"POS", "PROCESSING", Timestamp.valueOf(local(MINUTE.minusSeconds(60))), 2L});
+        when(headerRepository.countByChannelStatusAndMinute(eq(TransactionOutboxService.OPEN_STATUSES), any())).thenReturn(open);
+        aggregator.refreshSnapshot();
+
+        LocalDateTime since = local(MINUTE.minusSeconds(1200));
+        Map<String, Long> counts = aggregator.getStatusCounts("POS", since);
+        Double average = aggregator.getAverageProcessingTime("POS", since);
+        Map<String, Object> windows = aggregator.getWindowStatistics("POS");
+
+        assertThat(counts).containsEntry("SUCCESS", 10L).containsEntry("FAILED", 1L).containsEntry("PROCESSING", 2L);
+        assertThat(average).isEqualTo(11.5);
+        assertThat((Map<?, ?>) windows.get("60m")).containsEntry("total", 13L);
+        verify(rollupRepository, never()).findByChannelSince(any(), any());
+        verify(headerRepository, never()).findStatusCountsByChannelAndStatuses(any(), any(), any());
+    }
+
+    @Test
+    void rangesOlderThanTheSnapshotReadTheRollupTable() {
+        when(rollupRepository.findAllSince(any())).thenReturn(List.of());
+        aggregator.refreshSnapshot();
+        LocalDateTime since = local(MINUTE.minusSeconds(7200));
+
+        aggregator.getStatusCounts("POS", since);
+
+        verify(rollupRepository).findByChannelSince("POS", since);
+    }
+
+    @Test
+    void coversOnlyRangesTheRollupsReach() {
+        when(rollupRepository.findEarliestBucketStart("POS")).thenReturn(local(MINUTE.minusSeconds(3600)));
+
+        assertThat(aggregator.covers("POS", local(MINUTE.minusSeconds(1800)))).isTrue();
+        assertThat(aggregator.covers("POS", local(MINUTE.minusSeconds(7200)))).isFalse();
+        assertThat(aggregator.covers("UPI", local(MINUTE))).isFalse();
+    }
+
+    private void at(Instant instant) {
+        ReflectionTestUtils.setField(aggregator, "clock", Clock.fixed(instant, ZoneId.systemDefault()));
+    }
+
+    private static ChannelStatsRollup rollup(String node, String status, Instant bucketStart, long count) {
+        LatencyHistogram latency = new LatencyHistogram();
+        for (int i = 0; i < count; i++) {
+            latency.record(10);
+        }
+        return new ChannelStatsRollup(node, "POS", status, local(bucketStart), count,
+                latency.getSum(), null, latency.encode());
+    }
+
+    private static LocalDateTime local(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
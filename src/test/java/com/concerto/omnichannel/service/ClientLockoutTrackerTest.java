@@ -0,0 +1,136 @@
+package com.concerto.omnichannel.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClientLockoutTrackerTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ClientLockoutTracker lockoutTracker;
+    private final List<String> pushed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+
+        lockoutTracker = new ClientLockoutTracker();
+        ReflectionTestUtils.setField(lockoutTracker, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(lockoutTracker, "maxFailedAttempts", 3);
+        ReflectionTestUtils.setField(lockoutTracker, "lockoutDurationMinutes", 15L);
+        ReflectionTestUtils.setField(lockoutTracker, "windowMinutes", 15L);
+        ReflectionTestUtils.setField(lockoutTracker, "maxTrackedKeys", 10);
+        ReflectionTestUtils.setField(lockoutTracker, "syncBatchSize", 2);
+        lockoutTracker.initialize();
+    }
+
+    @Test
+    void clientIsLockedOutAfterTooManyFailures() {
+        lockoutTracker.recordFailure("client-1", "POS");
+        lockoutTracker.recordFailure("client-1", "POS");
+        assertThat(lockoutTracker.isLockedOut("client-1", "POS")).isFalse();
+
+        lockoutTracker.recordFailure("client-1", "POS");
+
+        assertThat(lockoutTracker.isLockedOut("client-1", "POS")).isTrue();
+        assertThat(lockoutTracker.isLockedOut("client-1", "UPI")).isFalse();
+    }
+
+    @Test
+    void failuresStillCountOnceTheTableIsFull() {
+        for (int i = 0; i < 50; i++) {
+            lockoutTracker.recordFailure(UUID.randomUUID().toString(), "POS");
+        }
+
+        for (int i = 0; i < 3; i++) {
+            lockoutTracker.recordFailure("victim", "POS");
+        }
+
+        assertThat(lockoutTracker.isLockedOut("victim", "POS")).isTrue();
+        assertThat((Integer) lockoutTracker.getStatistics().get("trackedKeys")).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void checkingUnknownClientsDoesNotTrackThem() {
+        for (int i = 0; i < 50; i++) {
+            assertThat(lockoutTracker.isLockedOut(UUID.randomUUID().toString(), "POS")).isFalse();
+        }
+
+        assertThat((Integer) lockoutTracker.getStatistics().get("trackedKeys")).isZero();
+    }
+
+    @Test
+    void lockedOutClientsAreNeverEvicted() {
+        for (int i = 0; i < 3; i++) {
+            lockoutTracker.recordFailure("victim", "POS");
+        }
+
+        for (int i = 0; i < 50; i++) {
+            lockoutTracker.recordFailure(UUID.randomUUID().toString(), "POS");
+        }
+
+        assertThat(lockoutTracker.isLockedOut("victim", "POS")).isTrue();
+        assertThat((Long) lockoutTracker.getStatistics().get("evictions")).isPositive();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failuresAreKeptWhenRedisIsUnavailable() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("redis down"))
+                .thenAnswer(invocation -> {
+                    pushed.add(invocation.getArgument(5));
+                    return List.of(0L);
+                });
+        lockoutTracker.recordFailure("client-1", "POS");
+        lockoutTracker.synchronize();
+
+        lockoutTracker.recordFailure("client-1", "POS");
+        lockoutTracker.synchronize();
+
+        assertThat(pushed).containsExactly("2");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lockoutRaisedOnAnotherNodeIsAdopted() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(60_000L));
+        lockoutTracker.recordFailure("client-1", "POS");
+        assertThat(lockoutTracker.isLockedOut("client-1", "POS")).isFalse();
+
+        lockoutTracker.synchronize();
+
+        assertThat(lockoutTracker.isLockedOut("client-1", "POS")).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void clientsArePushedInOneScriptCallPerBatch() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    List<String> keys = invocation.getArgument(1);
+                    return keys.stream().map(key -> 0L).toList();
+                });
+        for (int i = 0; i < 5; i++) {
+            lockoutTracker.recordFailure("client-" + i, "POS");
+        }
+
+        lockoutTracker.synchronize();
+
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
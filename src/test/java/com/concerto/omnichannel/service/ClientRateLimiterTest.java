@@ -0,0 +1,117 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.exception.RateLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClientRateLimiterTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ClientRateLimiter rateLimiter;
+    private final List<String> pushed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+
+        rateLimiter = new ClientRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "requestsPerSecond", 1.0);
+        ReflectionTestUtils.setField(rateLimiter, "burst", 2);
+        ReflectionTestUtils.setField(rateLimiter, "addressRequestsPerSecond", 1.0);
+        ReflectionTestUtils.setField(rateLimiter, "addressBurst", 3);
+        ReflectionTestUtils.setField(rateLimiter, "maxTrackedKeys", 10);
+        ReflectionTestUtils.setField(rateLimiter, "syncBatchSize", 2);
+        rateLimiter.initialize();
+    }
+
+    @Test
+    void clientIsLimitedToItsBurst() {
+        rateLimiter.acquire("client-1", "POS");
+        rateLimiter.acquire("client-1", "POS");
+
+        assertThatThrownBy(() -> rateLimiter.acquire("client-1", "POS"))
+                .isInstanceOfSatisfying(RateLimitExceededException.class,
+                        e -> assertThat(e.getRetryAfter()).isPositive());
+        rateLimiter.acquire("client-1", "UPI");
+    }
+
+    @Test
+    void addressAndClientBucketsAreSeparate() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquireForAddress("10.0.0.1", "POS");
+        }
+
+        assertThatThrownBy(() -> rateLimiter.acquireForAddress("10.0.0.1", "POS"))
+                .isInstanceOf(RateLimitExceededException.class);
+        rateLimiter.acquireForAddress("10.0.0.2", "POS");
+        rateLimiter.acquire("10.0.0.1", "POS");
+    }
+
+    @Test
+    void newClientsGetTheirOwnBucketWhenTheTableIsFull() {
+        for (int i = 0; i < 50; i++) {
+            rateLimiter.acquireForAddress("10.0.1." + i, "POS");
+        }
+
+        rateLimiter.acquire("client-1", "POS");
+        rateLimiter.acquire("client-1", "POS");
+        rateLimiter.acquire("client-2", "POS");
+        rateLimiter.acquire("client-2", "POS");
+
+        assertThat((Integer) rateLimiter.getStatistics().get("trackedKeys")).isLessThanOrEqualTo(10);
+        assertThat((Long) rateLimiter.getStatistics().get("evictions")).isPositive();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void admissionsAreKeptWhenRedisIsUnavailable() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("redis down"))
+                .thenAnswer(invocation -> {
+                    pushed.add(invocation.getArgument(2));
+                    return List.of(0L);
+                });
+        rateLimiter.acquire("client-1", "POS");
+        rateLimiter.synchronize();
+
+        rateLimiter.acquire("client-1", "POS");
+        rateLimiter.synchronize();
+
+        assertThat(pushed).containsExactly("2");
+        assertThat((Long) rateLimiter.getStatistics().get("syncFailures")).isEqualTo(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bucketsArePushedInOneScriptCallPerBatch() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    List<String> keys = invocation.getArgument(1);
+                    return keys.stream().map(key -> 0L).toList();
+                });
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire("client-" + i, "POS");
+        }
+
+        rateLimiter.synchronize();
+
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
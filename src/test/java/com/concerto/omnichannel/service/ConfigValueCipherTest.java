@@ -0,0 +1,67 @@
+package com.concerto.omnichannel.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigValueCipherTest {
+
+    private ConfigValueCipher cipher;
+
+    @BeforeEach
+    void setUp() {
+        cipher = new ConfigValueCipher();
+        ReflectionTestUtils.setField(cipher, "maxEntries", 2);
+    }
+
+    @Test
+    void markedAndUnmarkedCiphertextDecryptToThePlainText() {
+        String ciphertext = cipher.encrypt("switch-password");
+
+        assertThat(ciphertext).isNotEqualTo("switch-password");
+        assertThat(cipher.decrypt(ciphertext)).isEqualTo("switch-password");
+        assertThat(cipher.decrypt(cipher.markEncrypted(ciphertext))).isEqualTo("switch-password");
+        assertThat(decryptedValues()).hasSize(1);
+    }
+
+    @Test
+    void purgeZeroesAndDropsDecryptedValues() {
+        String ciphertext = cipher.encrypt("switch-password");
+        cipher.decrypt(ciphertext);
+        byte[] plainBytes = decryptedValues().get(ciphertext);
+
+        cipher.purge();
+
+        assertThat(decryptedValues()).isEmpty();
+        assertThat(plainBytes).containsOnly((byte) 0);
+        assertThat(cipher.decrypt(ciphertext)).isEqualTo("switch-password");
+    }
+
+    @Test
+    void reachingTheBoundZeroesTheValuesItDrops() {
+        String first = cipher.encrypt("first-secret");
+        cipher.decrypt(first);
+        byte[] firstBytes = decryptedValues().get(first);
+        cipher.decrypt(cipher.encrypt("second-secret"));
+
+        assertThat(cipher.decrypt(cipher.encrypt("third-secret"))).isEqualTo("third-secret");
+
+        assertThat(decryptedValues()).hasSize(1);
+        assertThat(firstBytes).containsOnly((byte) 0);
+    }
+
+    @Test
+    void valueThatDoesNotDecryptIsReturnedAsGiven() {
+        assertThat(cipher.decrypt("{enc}not-base64!")).isEqualTo("{enc}not-base64!");
+        assertThat(decryptedValues()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> decryptedValues() {
+        return (Map<String, byte[]>) ReflectionTestUtils.getField(cipher, "decryptedValues");
+    }
+}
@@ -0,0 +1,113 @@
+package com.concerto.omnichannel.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HedgingExecutorTest {
+
+    private final ExecutorService connectorExecutor = Executors.newCachedThreadPool();
+    private ConfigurationService configurationService;
+    private HedgingExecutor hedgingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        configurationService = mock(ConfigurationService.class);
+        hedgingExecutor = new HedgingExecutor();
+        ReflectionTestUtils.setField(hedgingExecutor, "configurationService", configurationService);
+        ReflectionTestUtils.setField(hedgingExecutor, "connectorExecutor", connectorExecutor);
+        ReflectionTestUtils.setField(hedgingExecutor, "budgetRatio", 1.0);
+        ReflectionTestUtils.setField(hedgingExecutor, "maxBurst", 10);
+        ReflectionTestUtils.setField(hedgingExecutor, "delayPercentile", 95.0);
+        ReflectionTestUtils.setField(hedgingExecutor, "minDelayMs", 20L);
+        ReflectionTestUtils.setField(hedgingExecutor, "minSamples", 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectorExecutor.shutdownNow();
+    }
+
+    @Test
+    void ignoresConfigurationForOperationsThatMoveMoney() {
+        enableHedging("ISO8583", "purchase");
+
+        assertThat(hedgingExecutor.isHedged("ISO8583", "purchase")).isFalse();
+    }
+
+    @Test
+    void hedgesConfiguredReadOnlyOperation() {
+        enableHedging("BBPS", "fetchBill");
+
+        assertThat(hedgingExecutor.isHedged("BBPS", "fetchBill")).isTrue();
+        assertThat(hedgingExecutor.isHedged("BBPS", "payment")).isFalse();
+    }
+
+    @Test
+    void neverDuplicatesCallsOfOperationsOutsideAllowList() throws Exception {
+        enableHedging("UPI", "payment");
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedgingExecutor.execute("UPI", "payment", () -> {
+            calls.incrementAndGet();
+            Thread.sleep(100);
+            return "paid";
+        });
+
+        assertThat(result).isEqualTo("paid");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void secondAttemptAnswersWhenFirstIsSlow() throws Exception {
+        enableHedging("BBPS", "fetchBill");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedgingExecutor.execute("BBPS", "fetchBill", () -> {
+            if (calls.incrementAndGet() == 1) {
+                release.await(5, TimeUnit.SECONDS);
+                return "slow";
+            }
+            return "fast";
+        });
+        release.countDown();
+
+        assertThat(result).isEqualTo("fast");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void looksUpWhetherToHedgeOncePerCall() throws Exception {
+        enableHedging("BBPS", "fetchBill");
+
+        hedgingExecutor.execute("BBPS", "fetchBill", () -> "bill");
+
+        verify(configurationService, times(1))
+                .getConfigValue(eq("BBPS"), eq("hedge.fetchBill.enabled"), eq(Boolean.class), eq(false));
+        Map<String, Map<String, Object>> statistics = hedgingExecutor.getHedgingStatistics();
+        assertThat(statistics).containsKey("BBPS-fetchBill");
+        assertThat(statistics.get("BBPS-fetchBill")).containsEntry("hedgesIssued", 0L);
+    }
+
+    private void enableHedging(String channel, String operation) {
+        when(configurationService.getConfigValue(eq(channel), eq("hedge." + operation + ".enabled"), eq(Boolean.class), eq(false)))
+                .thenReturn(true);
+        when(configurationService.getConfigValue(channel, "hedge." + operation + ".delayMs", Long.class)).thenReturn(20L);
+    }
+}
@@ -0,0 +1,94 @@
+package com.concerto.omnichannel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ISO8583MessageParserTest {
+
+    private ISO8583MessageParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new ISO8583MessageParser();
+        ReflectionTestUtils.setField(parser, "defaultPackagerType", "iso87b");
+    }
+
+    @Test
+    void requestCarriesTheTraceDataThatWasStored() throws Exception {
+        Map<String, String> trace = parser.newTraceData(new ObjectMapper().readTree("{\"channel\":\"POS\"}"));
+        Map<String, Object> request = new HashMap<>();
+        request.put("channel", "POS");
+        request.put("operation", "purchase");
+        request.put("payload", Map.of("amount", "10.00", "terminalId", "T1"));
+        request.put("metadata", trace);
+
+        ISOMsg message = parser.jsonToISO8583FromJson(new ObjectMapper().writeValueAsString(request));
+
+        String transmission = trace.get(ISO8583MessageParser.ORIGINAL_TRANSMISSION);
+        assertThat(message.getString(11)).isEqualTo(trace.get(ISO8583MessageParser.ORIGINAL_STAN));
+        assertThat(message.getString(37)).isEqualTo(trace.get(ISO8583MessageParser.ORIGINAL_RRN));
+        assertThat(message.getString(13) + message.getString(12)).isEqualTo(transmission);
+    }
+
+    @Test
+    void reversalReferencesTheOriginalRequest() throws Exception {
+        ISOMsg reversal = parser.buildReversal("purchase", new BigDecimal("10.00"), "T1", "M1", original());
+
+        assertThat(reversal.getMTI()).isEqualTo("0400");
+        assertThat(reversal.getString(2)).isEqualTo("4111111111111111");
+        assertThat(reversal.getString(4)).isEqualTo("000000001000");
+        assertThat(reversal.getString(11)).isNotEqualTo("123456");
+        assertThat(reversal.getString(37)).isEqualTo("000000654321");
+        assertThat(reversal.getString(41)).isEqualTo("T1");
+        assertThat(reversal.getString(90)).isEqualTo("0200" + "123456" + "1019103000" + "0".repeat(22));
+    }
+
+    @Test
+    void reversalNeedsTheOriginalTraceData() {
+        Map<String, String> original = original();
+        original.remove(ISO8583MessageParser.ORIGINAL_STAN);
+
+        assertThatThrownBy(() -> parser.buildReversal("purchase", BigDecimal.ONE, "T1", "M1", original))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void onlyAnApprovedMatchingResponseCompletesTheReversal() throws Exception {
+        ISOMsg reversal = parser.buildReversal("purchase", BigDecimal.TEN, "T1", "M1", original());
+
+        assertThat(parser.isApprovedReversalResponse(reversal, response(reversal, "0410", reversal.getString(11), "00"))).isTrue();
+        assertThat(parser.isApprovedReversalResponse(reversal, response(reversal, "0410", "999999", "00"))).isFalse();
+        assertThat(parser.isApprovedReversalResponse(reversal, response(reversal, "0210", reversal.getString(11), "00"))).isFalse();
+        assertThat(parser.isApprovedReversalResponse(reversal, response(reversal, "0410", reversal.getString(11), "25"))).isFalse();
+        assertThat(parser.isApprovedReversalResponse(reversal, null)).isFalse();
+    }
+
+    private static Map<String, String> original() {
+        Map<String, String> original = new HashMap<>();
+        original.put(ISO8583MessageParser.ORIGINAL_STAN, "123456");
+        original.put(ISO8583MessageParser.ORIGINAL_RRN, "000000654321");
+        original.put(ISO8583MessageParser.ORIGINAL_TRANSMISSION, "1019103000");
+        original.put(ISO8583MessageParser.ORIGINAL_ENTRY_MODE, "051");
+        original.put(ISO8583MessageParser.ORIGINAL_PAN, "4111111111111111");
+        return original;
+    }
+
+    private static ISOMsg response(ISOMsg reversal, String mti, String stan, String responseCode) throws Exception {
+        ISOMsg response = new ISOMsg();
+        response.setMTI(mti);
+        response.set(11, stan);
+        response.set(37, reversal.getString(37));
+        response.set(39, responseCode);
+        return response;
+    }
+}
@@ -0,0 +1,216 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.dto.Payload;
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.exception.IdempotencyKeyReusedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final Map<String, Object> redis = new HashMap<>();
+    private ValueOperations<String, String> locks;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> responses = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(responses);
+        when(responses.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(responses).set(anyString(), any(), any(Duration.class));
+
+        StringRedisTemplate lockTemplate = mock(StringRedisTemplate.class);
+        locks = mock(ValueOperations.class);
+        when(lockTemplate.opsForValue()).thenReturn(locks);
+        when(locks.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(idempotencyService, "lockTemplate", lockTemplate);
+        ReflectionTestUtils.setField(idempotencyService, "windowMs", 600000L);
+        ReflectionTestUtils.setField(idempotencyService, "inFlightWaitMs", 1000L);
+        ReflectionTestUtils.setField(idempotencyService, "maxLocalEntries", 100);
+        idempotencyService.initialize();
+    }
+
+    @Test
+    void replaysResponseForSameRequest() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+
+        TransactionResponse first = idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+        TransactionResponse second = idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+
+        assertThat(submissions).hasValue(1);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void rejectsReusedKeyWithDifferentBody() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+        idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, request("999.00"), () -> success(submissions)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(submissions).hasValue(1);
+    }
+
+    @Test
+    void rejectsReusedKeyWithDifferentBodyFromStoredResponse() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+        idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+
+        // A node that never saw the first submission only has the stored record
+        idempotencyService.initialize();
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, request("999.00"), () -> success(submissions)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(idempotencyService.execute(key, request("100.00"), () -> success(submissions)).isSuccess()).isTrue();
+        assertThat(submissions).hasValue(1);
+    }
+
+    @Test
+    void releasesKeyAfterFailureBeforeTheConnector() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+
+        TransactionResponse notProcessed = idempotencyService.execute(key, request("100.00"), () -> {
+            submissions.incrementAndGet();
+            return TransactionResponse.failure(null, null, "Business rule validation failed", "NOT_PROCESSED");
+        });
+        TransactionResponse retried = idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+
+        assertThat(notProcessed.isSuccess()).isFalse();
+        assertThat(retried.isSuccess()).isTrue();
+        assertThat(submissions).hasValue(2);
+        assertThat(redis).hasSize(1);
+    }
+
+    @Test
+    void storesTimeoutOfATransactionSentToTheConnector() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+
+        idempotencyService.execute(key, request("100.00"), () -> {
+            submissions.incrementAndGet();
+            return TransactionResponse.failure(null, null, "Timed out", "TIMEOUT");
+        });
+        TransactionResponse replayed = idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+
+        assertThat(replayed.getErrorCode()).isEqualTo("TIMEOUT");
+        assertThat(submissions).hasValue(1);
+    }
+
+    @Test
+    void returnsResponseStoredByAnotherNodeBeforeTheLockWasTaken() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+        TransactionResponse otherNode = TransactionResponse.success(9L, "other", "{}");
+
+        // The other node stores its response and releases the lock between this node's read and its lock attempt
+        when(locks.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            redis.put("idempotency:response:" + key, new IdempotencyService.StoredResponse(
+                    idempotencyService.fingerprint(request("100.00")), otherNode));
+            return true;
+        });
+
+        TransactionResponse response = idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+
+        assertThat(response).isSameAs(otherNode);
+        assertThat(submissions).hasValue(0);
+    }
+
+    @Test
+    void storesDeclinedOutcome() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+
+        idempotencyService.execute(key, request("100.00"), () -> {
+            submissions.incrementAndGet();
+            return TransactionResponse.failure(null, null, "Insufficient funds", "51");
+        });
+        TransactionResponse replayed = idempotencyService.execute(key, request("100.00"), () -> success(submissions));
+
+        assertThat(replayed.getErrorCode()).isEqualTo("51");
+        assertThat(submissions).hasValue(1);
+    }
+
+    @Test
+    void releasesKeyWhenSubmissionThrows() {
+        AtomicInteger submissions = new AtomicInteger();
+        String key = idempotencyService.resolveKey("key-1", "client-a", request("100.00"));
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, request("100.00"), () -> {
+            throw new IllegalStateException("connector down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(idempotencyService.execute(key, request("100.00"), () -> success(submissions)).isSuccess()).isTrue();
+        assertThat(submissions).hasValue(1);
+    }
+
+    @Test
+    void scopesKeysToClientAndChannel() {
+        TransactionRequest request = request("100.00");
+        String clientA = idempotencyService.resolveKey("key-1", "client-a", request);
+        String clientB = idempotencyService.resolveKey("key-1", "client-b", request);
+
+        Payload payload = request.getPayload();
+        payload.setTerminalId("T1");
+        payload.setAdditionalFields(Map.of("stan", "000123"));
+        String stanA = idempotencyService.resolveKey(null, "client-a", request);
+        String stanB = idempotencyService.resolveKey(null, "client-b", request);
+
+        assertThat(clientA).isNotEqualTo(clientB);
+        assertThat(stanA).isNotEqualTo(stanB).contains("client-a:POS");
+    }
+
+    @Test
+    void refusesKeysWithoutAuthenticatedClient() {
+        assertThatThrownBy(() -> idempotencyService.resolveKey("key-1", null, request("100.00")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fingerprintIgnoresRequestTimeAndMetadataOrder() {
+        TransactionRequest first = request("100.00");
+        first.setMetadata(new HashMap<>(Map.of("a", "1", "b", "2")));
+        TransactionRequest second = request("100.00");
+        second.setMetadata(new HashMap<>(Map.of("b", "2", "a", "1")));
+        second.setRequestTime(first.getRequestTime() == null ? null : first.getRequestTime().plusSeconds(5));
+
+        assertThat(idempotencyService.fingerprint(second)).isEqualTo(idempotencyService.fingerprint(first));
+    }
+
+    private static TransactionRequest request(String amount) {
+        return new TransactionRequest("POS", "purchase", new Payload("PURCHASE", new BigDecimal(amount), "INR"));
+    }
+
+    private static TransactionResponse success(AtomicInteger submissions) {
+        submissions.incrementAndGet();
+        return TransactionResponse.success(1L, "correlation", "{}");
+    }
+}
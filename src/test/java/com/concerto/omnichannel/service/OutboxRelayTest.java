@@ -0,0 +1,112 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+import com.concerto.omnichannel.outbox.OutboxSink;
+import com.concerto.omnichannel.repository.OutboxEventRepository;
+import com.concerto.omnichannel.repository.OutboxOffsetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private OutboxEventRepository eventRepository;
+    private OutboxOffsetRepository offsetRepository;
+    private OutboxSink sink;
+    private ValueOperations<String, Object> valueOperations;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        eventRepository = mock(OutboxEventRepository.class);
+        offsetRepository = mock(OutboxOffsetRepository.class);
+        sink = mock(OutboxSink.class);
+        when(sink.getName()).thenReturn("log");
+
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        relay = new OutboxRelay();
+        ReflectionTestUtils.setField(relay, "eventRepository", eventRepository);
+        ReflectionTestUtils.setField(relay, "offsetRepository", offsetRepository);
+        ReflectionTestUtils.setField(relay, "sink", sink);
+        ReflectionTestUtils.setField(relay, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(relay, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(relay, "nodeId", "node-a");
+        ReflectionTestUtils.setField(relay, "leaseMs", 10_000L);
+        ReflectionTestUtils.setField(relay, "enabled", true);
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "lingerMs", 0L);
+        ReflectionTestUtils.setField(relay, "maxBatchesPerRun", 1);
+    }
+
+    @Test
+    void nodeWithoutTheLeaseDoesNotPoll() {
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(false);
+
+        relay.relay();
+        relay.relay();
+
+        verifyNoInteractions(eventRepository);
+        verify(valueOperations).setIfAbsent(eq("outbox-relay:lease"), eq("node-a"), any(Duration.class));
+    }
+
+    @Test
+    void publishedBatchIsAddedToTheDeliveryTotals() throws Exception {
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(true);
+        List<OutboxEvent> batch = List.of(event(57L), event(101L));
+        when(eventRepository.lockUnpublishedBatch(2)).thenReturn(batch);
+
+        relay.relay();
+
+        verify(sink).publish(batch);
+        verify(eventRepository).markPublished(eq(List.of(57L, 101L)), any(LocalDateTime.class));
+        verify(offsetRepository).recordDelivery(eq("log"), eq(101L), eq(2L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void failedPublishLeavesEventsPending() throws Exception {
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(true);
+        List<OutboxEvent> batch = List.of(event(1L), event(2L));
+        when(eventRepository.lockUnpublishedBatch(anyInt())).thenReturn(batch);
+        doThrow(new IllegalStateException("broker down")).when(sink).publish(batch);
+
+        relay.relay();
+
+        verify(eventRepository, never()).markPublished(any(), any());
+        verify(offsetRepository, never()).recordDelivery(anyString(), anyLong(), anyLong(), any());
+    }
+
+    private static OutboxEvent event(long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setCreatedAt(LocalDateTime.now().minusSeconds(1));
+        return event;
+    }
+}
@@ -0,0 +1,78 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.connector.ConnectorFactory;
+import com.concerto.omnichannel.registry.OperationHandlerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StartupWarmupTest {
+
+    private final List<Object> readiness = new ArrayList<>();
+    private AuthenticationService authenticationService;
+    private StartupWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.preloadActiveChannels()).thenReturn(List.of("POS"));
+        authenticationService = mock(AuthenticationService.class);
+        OperationHandlerRegistry registry = mock(OperationHandlerRegistry.class);
+        when(registry.getAllHandlers()).thenReturn(List.of());
+
+        ApplicationEventPublisher publisher = event -> {
+            if (event instanceof AvailabilityChangeEvent<?> change) {
+                readiness.add(change.getState());
+            }
+        };
+
+        warmup = new StartupWarmup();
+        ReflectionTestUtils.setField(warmup, "configurationService", configurationService);
+        ReflectionTestUtils.setField(warmup, "authenticationService", authenticationService);
+        ReflectionTestUtils.setField(warmup, "operationHandlerRegistry", registry);
+        ReflectionTestUtils.setField(warmup, "connectorFactory", mock(ConnectorFactory.class));
+        ISO8583MessageParser parser = new ISO8583MessageParser();
+        ReflectionTestUtils.setField(parser, "defaultPackagerType", "iso87b");
+        ReflectionTestUtils.setField(warmup, "iso8583MessageParser", parser);
+        ReflectionTestUtils.setField(warmup, "eventPublisher", publisher);
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "syntheticEnabled", false);
+    }
+
+    @Test
+    void nodeRefusesTrafficUntilWarmUpCompletes() {
+        when(authenticationService.preloadCredentials()).thenAnswer(invocation -> {
+            assertThat(readiness).containsExactly(ReadinessState.REFUSING_TRAFFIC);
+            return 3;
+        });
+
+        warmup.warmUp();
+
+        assertThat(readiness).containsExactly(
+                ReadinessState.REFUSING_TRAFFIC,
+                ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(warmup.getStatistics()).containsEntry("complete", true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedStepStillEndsInReadiness() {
+        when(authenticationService.preloadCredentials()).thenThrow(new IllegalStateException("database down"));
+
+        warmup.warmUp();
+
+        assertThat(readiness).last().isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat((Map<String, Object>) warmup.getStatistics().get("credentials")).containsKey("error");
+    }
+}
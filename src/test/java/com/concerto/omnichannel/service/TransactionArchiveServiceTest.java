@@ -0,0 +1,115 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.OutboxEventRepository;
+import com.concerto.omnichannel.repository.TransactionDetailRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionArchiveServiceTest {
+
+    private static final String RRN = "000000654321";
+
+    @TempDir
+    Path directory;
+
+    private TransactionHeaderRepository headerRepository;
+    private TransactionOutboxService outboxService;
+    private TransactionArchiveService archiveService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        headerRepository = mock(TransactionHeaderRepository.class);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        outboxService = new TransactionOutboxService();
+        ReflectionTestUtils.setField(outboxService, "headerRepository", headerRepository);
+        ReflectionTestUtils.setField(outboxService, "eventRepository", mock(OutboxEventRepository.class));
+        ReflectionTestUtils.setField(outboxService, "statusCache", mock(TransactionStatusCache.class));
+        ReflectionTestUtils.setField(outboxService, "objectMapper", objectMapper);
+
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(true);
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        TransactionDetailStore detailStore = mock(TransactionDetailStore.class);
+        when(detailStore.findFieldsByHeaders(anyList())).thenReturn(Map.of());
+
+        archiveService = new TransactionArchiveService();
+        ReflectionTestUtils.setField(archiveService, "headerRepository", headerRepository);
+        ReflectionTestUtils.setField(archiveService, "detailRepository", mock(TransactionDetailRepository.class));
+        ReflectionTestUtils.setField(archiveService, "detailStore", detailStore);
+        ReflectionTestUtils.setField(archiveService, "encryptionService", mock(FieldEncryptionService.class));
+        ReflectionTestUtils.setField(archiveService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(archiveService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(archiveService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(archiveService, "enabled", true);
+        ReflectionTestUtils.setField(archiveService, "directory", directory.toString());
+        ReflectionTestUtils.setField(archiveService, "retentionDays", 90);
+        ReflectionTestUtils.setField(archiveService, "pageSize", 100);
+        ReflectionTestUtils.setField(archiveService, "rowGroupSize", 100);
+        ReflectionTestUtils.setField(archiveService, "compressionLevel", 6);
+        ReflectionTestUtils.setField(archiveService, "maxRowsPerFile", 1000);
+        ReflectionTestUtils.setField(archiveService, "maxDaysPerRun", 1);
+        ReflectionTestUtils.setField(archiveService, "leaseMs", 60000L);
+        ReflectionTestUtils.setField(archiveService, "indexCacheMaxEntries", 10);
+        ReflectionTestUtils.setField(archiveService, "nodeId", "node-a");
+        archiveService.initialize();
+    }
+
+    @Test
+    void orchestratedTransactionIsFoundByRrnAfterArchiving() throws Exception {
+        TransactionHeader header = new TransactionHeader("correlation-1", "POS", "purchase");
+        header.setId(7L);
+        header.setStatus("PROCESSING");
+        header.setAmount(new BigDecimal("10.00"));
+        header.setRequestTimestamp(LocalDateTime.now().minusDays(100));
+        when(headerRepository.completeIfInStatus(eq(7L), anyList(), eq("SUCCESS"), any(), any(), any(), any(),
+                eq(RRN), any(), any())).thenReturn(1);
+
+        // Completed the way the orchestrator's persistence stage records a switch response
+        assertThat(outboxService.completeIfOpen(header, "SUCCESS", null, null, RRN)).isTrue();
+
+        when(headerRepository.findOldestArchivableRequestTimestamp(anyList(), any()))
+                .thenReturn(header.getRequestTimestamp(), (LocalDateTime) null);
+        when(headerRepository.findArchivableAfter(anyList(), any(), any(), anyLong(), any())).thenReturn(List.of(header));
+        when(headerRepository.deleteArchived(anyList(), any(), any())).thenReturn(1);
+
+        archiveService.archive();
+
+        List<Map<String, Object>> archived = archiveService.findByRrn(RRN, null, "POS");
+        assertThat(archived).hasSize(1);
+        assertThat(archived.get(0)).containsEntry("correlation_id", "correlation-1").containsEntry("external_reference", RRN);
+    }
+}
@@ -0,0 +1,115 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.TransactionDetail;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.TransactionDetailRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionDetailStoreTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[16]);
+
+    private TransactionDetailRepository detailRepository;
+    private TransactionHeaderRepository headerRepository;
+
+    @BeforeEach
+    void setUp() {
+        detailRepository = mock(TransactionDetailRepository.class);
+        headerRepository = mock(TransactionHeaderRepository.class);
+    }
+
+    @Test
+    void rowsWithoutKeyAreNotFlaggedEncrypted() {
+        TransactionDetailStore store = store(TransactionDetailStore.StorageMode.ROWS, new FieldEncryptionService(""));
+
+        store.save(header(), Map.of("cardNumber", "4111111111111111"));
+
+        TransactionDetail detail = savedRows().get(0);
+        assertThat(detail.isSensitive()).isTrue();
+        assertThat(detail.isEncrypted()).isFalse();
+        assertThat(detail.getFieldValue()).isEqualTo("4111111111111111");
+    }
+
+    @Test
+    void rowsWithKeyAreEncrypted() {
+        FieldEncryptionService encryption = new FieldEncryptionService(KEY);
+        TransactionDetailStore store = store(TransactionDetailStore.StorageMode.ROWS, encryption);
+
+        store.save(header(), Map.of("cardNumber", "4111111111111111", "mcc", "5411"));
+
+        Map<String, TransactionDetail> byName = new LinkedHashMap<>();
+        savedRows().forEach(detail -> byName.put(detail.getFieldName(), detail));
+        assertThat(byName.get("cardNumber").isEncrypted()).isTrue();
+        assertThat(encryption.decrypt(byName.get("cardNumber").getFieldValue())).isEqualTo("4111111111111111");
+        assertThat(byName.get("mcc").isEncrypted()).isFalse();
+        assertThat(byName.get("mcc").getFieldValue()).isEqualTo("5411");
+    }
+
+    @Test
+    void fieldInBothSourcesIsReadOnce() {
+        TransactionDetailStore store = store(TransactionDetailStore.StorageMode.JSONB, new FieldEncryptionService(KEY));
+        TransactionHeader header = header();
+        header.setAdditionalFields(new LinkedHashMap<>(Map.of("mcc", "5411")));
+        when(headerRepository.findById(7L)).thenReturn(Optional.of(header));
+        when(detailRepository.findByTransactionHeaderId(7L)).thenReturn(List.of(
+                new TransactionDetail(header, "mcc", "5411"),
+                new TransactionDetail(header, "cardNumber", "4111111111111111")));
+
+        List<TransactionDetail> details = store.findByTransactionHeaderId(7L);
+
+        assertThat(details).extracting(TransactionDetail::getFieldName).containsExactlyInAnyOrder("mcc", "cardNumber");
+    }
+
+    @Test
+    void fieldsByHeaderPreferJsonb() {
+        TransactionDetailStore store = store(TransactionDetailStore.StorageMode.JSONB, new FieldEncryptionService(KEY));
+        TransactionHeader header = header();
+        header.setAdditionalFields(new LinkedHashMap<>(Map.of("mcc", "5411")));
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{7L, "mcc", "0000"});
+        rows.add(new Object[]{7L, "terminalType", "POS"});
+        when(detailRepository.findFieldValuesByTransactionHeaderIds(List.of(7L))).thenReturn(rows);
+
+        Map<String, Object> fields = store.findFieldsByHeaders(List.of(header)).get(7L);
+
+        assertThat(fields).containsEntry("mcc", "5411").containsEntry("terminalType", "POS").hasSize(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TransactionDetail> savedRows() {
+        ArgumentCaptor<List<TransactionDetail>> rows = ArgumentCaptor.forClass(List.class);
+        verify(detailRepository).insertAllBatched(rows.capture());
+        return rows.getValue();
+    }
+
+    private TransactionDetailStore store(TransactionDetailStore.StorageMode mode, FieldEncryptionService encryption) {
+        TransactionDetailStore store = new TransactionDetailStore();
+        ReflectionTestUtils.setField(store, "detailRepository", detailRepository);
+        ReflectionTestUtils.setField(store, "headerRepository", headerRepository);
+        ReflectionTestUtils.setField(store, "encryptionService", encryption);
+        ReflectionTestUtils.setField(store, "storageMode", mode);
+        return store;
+    }
+
+    private static TransactionHeader header() {
+        TransactionHeader header = new TransactionHeader("correlation", "POS", "purchase");
+        header.setId(7L);
+        return header;
+    }
+}
@@ -0,0 +1,110 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.entity.OutboxEvent;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import com.concerto.omnichannel.repository.OutboxEventRepository;
+import com.concerto.omnichannel.repository.TransactionHeaderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionOutboxServiceTest {
+
+    private TransactionHeaderRepository headerRepository;
+    private OutboxEventRepository eventRepository;
+    private TransactionStatusCache statusCache;
+    private TransactionOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        headerRepository = mock(TransactionHeaderRepository.class);
+        eventRepository = mock(OutboxEventRepository.class);
+        statusCache = mock(TransactionStatusCache.class);
+
+        outboxService = new TransactionOutboxService();
+        ReflectionTestUtils.setField(outboxService, "headerRepository", headerRepository);
+        ReflectionTestUtils.setField(outboxService, "eventRepository", eventRepository);
+        ReflectionTestUtils.setField(outboxService, "statusCache", statusCache);
+        ReflectionTestUtils.setField(outboxService, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void lateOutcomeDoesNotOverwriteRecordedFailure() {
+        TransactionHeader header = header("PROCESSING");
+        when(headerRepository.completeIfInStatus(eq(7L), anyList(), eq("SUCCESS"), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(0);
+
+        boolean recorded = outboxService.completeIfOpen(header, "SUCCESS", null, null, null);
+
+        assertThat(recorded).isFalse();
+        assertThat(header.getStatus()).isEqualTo("PROCESSING");
+        verify(eventRepository, never()).save(any());
+        verify(statusCache, never()).update(any());
+    }
+
+    @Test
+    void firstOutcomeIsRecordedWithItsEvent() {
+        TransactionHeader header = header("PROCESSING");
+        when(headerRepository.completeIfInStatus(eq(7L), eq(TransactionOutboxService.OPEN_STATUSES), eq("FAILED"),
+                eq("51"), eq("Insufficient funds"), any(), any(), any(), any(), any())).thenReturn(1);
+
+        boolean recorded = outboxService.completeIfOpen(header, "FAILED", "51", "Insufficient funds", null);
+
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(eventRepository).save(event.capture());
+        assertThat(recorded).isTrue();
+        assertThat(header.getStatus()).isEqualTo("FAILED");
+        assertThat(header.getResponseTimestamp()).isNotNull();
+        assertThat(event.getValue().getStatus()).isEqualTo("FAILED");
+    }
+
+    @Test
+    void completionRecordsTheProcessingTime() throws Exception {
+        TransactionHeader header = header("PROCESSING");
+        header.setRequestTimestamp(LocalDateTime.now().minusSeconds(2));
+        ArgumentCaptor<Long> processingTimeMs = ArgumentCaptor.forClass(Long.class);
+        when(headerRepository.completeIfInStatus(eq(7L), anyList(), eq("SUCCESS"), any(), any(), any(),
+                processingTimeMs.capture(), any(), any(), any())).thenReturn(1);
+
+        outboxService.completeIfOpen(header, "SUCCESS", null, null, null);
+
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(eventRepository).save(event.capture());
+        assertThat(processingTimeMs.getValue()).isGreaterThanOrEqualTo(2000L);
+        assertThat(header.getProcessingTimeMs()).isEqualTo(processingTimeMs.getValue());
+        assertThat(new ObjectMapper().readTree(event.getValue().getPayload()).get("processingTimeMs").asLong())
+                .isEqualTo(processingTimeMs.getValue());
+        verify(statusCache).update(header);
+    }
+
+    @Test
+    void advanceStatusRefusesCompletedTransaction() {
+        TransactionHeader header = header("FAILED");
+        when(headerRepository.advanceStatus(eq(7L), eq("AUTHENTICATED"), eq("PROCESSING"), any(), any())).thenReturn(0);
+
+        assertThat(outboxService.advanceStatus(header, "AUTHENTICATED", "PROCESSING")).isFalse();
+        assertThat(header.getStatus()).isEqualTo("FAILED");
+    }
+
+    private static TransactionHeader header(String status) {
+        TransactionHeader header = new TransactionHeader("correlation", "POS", "purchase");
+        header.setId(7L);
+        header.setStatus(status);
+        header.setRequestTimestamp(LocalDateTime.now());
+        return header;
+    }
+}
@@ -0,0 +1,95 @@
+package com.concerto.omnichannel.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionPartitionManagerTest {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final List<String> executed = new ArrayList<>();
+    private Statement statement;
+    private TransactionPartitionManager manager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        Connection connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.execute(anyString())).thenAnswer(invocation -> executed.add(invocation.getArgument(0)));
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(connection));
+
+        manager = new TransactionPartitionManager();
+        ReflectionTestUtils.setField(manager, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(manager, "granularity", TransactionPartitionManager.Granularity.MONTHLY);
+        ReflectionTestUtils.setField(manager, "premake", 2);
+        ReflectionTestUtils.setField(manager, "retention", 12);
+    }
+
+    @Test
+    void createsMissingFuturePartitionsAndDetachesExpiredOnes() throws Exception {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        String current = partition(month);
+        String expired = partition(month.minusMonths(13));
+        String retained = partition(month.minusMonths(12));
+        lock(true, "transaction_header_default", current, expired, retained);
+
+        manager.maintainPartitions();
+
+        assertThat(executed).contains(
+                "CREATE TABLE " + partition(month.plusMonths(1)) + " PARTITION OF transaction_header FOR VALUES FROM ('"
+                        + month.plusMonths(1) + "') TO ('" + month.plusMonths(2) + "')",
+                "CREATE TABLE " + partition(month.plusMonths(2)) + " PARTITION OF transaction_header FOR VALUES FROM ('"
+                        + month.plusMonths(2) + "') TO ('" + month.plusMonths(3) + "')",
+                "ALTER TABLE transaction_header DETACH PARTITION " + expired);
+        assertThat(executed).noneMatch(sql -> sql.contains(current) || sql.contains(retained) || sql.contains("_default"));
+    }
+
+    @Test
+    void leavesPartitionsAloneWhileAnotherNodeHoldsTheLock() throws Exception {
+        lock(false);
+
+        manager.maintainPartitions();
+
+        assertThat(executed).isEmpty();
+    }
+
+    private void lock(boolean acquired, String... partitions) throws Exception {
+        ResultSet lock = mock(ResultSet.class);
+        when(lock.next()).thenReturn(true);
+        when(lock.getBoolean(1)).thenReturn(acquired);
+        when(statement.executeQuery(startsWith("SELECT pg_try_advisory_lock"))).thenReturn(lock);
+
+        ResultSet listed = mock(ResultSet.class);
+        int[] row = {-1};
+        when(listed.next()).thenAnswer(invocation -> ++row[0] < partitions.length);
+        when(listed.getString(1)).thenAnswer(invocation -> partitions[row[0]]);
+        when(statement.executeQuery(startsWith("SELECT c.relname"))).thenReturn(listed);
+    }
+
+    private static String partition(LocalDate month) {
+        return "transaction_header_p" + month.format(MONTH);
+    }
+}
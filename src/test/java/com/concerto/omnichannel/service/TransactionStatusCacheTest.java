@@ -0,0 +1,84 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.dto.TransactionResponse;
+import com.concerto.omnichannel.entity.TransactionHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionStatusCacheTest {
+
+    private ValueOperations<String, Object> values;
+    private TransactionStatusCache statusCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+
+        statusCache = new TransactionStatusCache();
+        ReflectionTestUtils.setField(statusCache, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(statusCache, "localMaxEntries", 100);
+        ReflectionTestUtils.setField(statusCache, "localInFlightTtlMs", 1000L);
+        ReflectionTestUtils.setField(statusCache, "localTerminalTtlMs", 300000L);
+        ReflectionTestUtils.setField(statusCache, "inFlightTtlMs", 1800000L);
+        ReflectionTestUtils.setField(statusCache, "terminalTtlMs", 3600000L);
+        statusCache.initialize();
+    }
+
+    @Test
+    void loadDoesNotReplaceAWriteThroughEntry() {
+        statusCache.update(header(7L, "SUCCESS"));
+
+        // A lagging replica still returns the transaction as in flight
+        statusCache.load(header(7L, "PROCESSING"));
+
+        TransactionResponse cached = statusCache.getById(7L);
+        assertThat(cached.getAdditionalData()).containsEntry("status", "SUCCESS");
+        verify(values).set(eq("transaction-status:id:7"), any(TransactionResponse.class), eq(Duration.ofMillis(3600000L)));
+        verify(values).setIfAbsent(eq("transaction-status:id:7"), any(TransactionResponse.class), any(Duration.class));
+    }
+
+    @Test
+    void loadCachesAStatusNotCachedYet() {
+        statusCache.load(header(8L, "FAILED"));
+
+        assertThat(statusCache.getById(8L).getAdditionalData()).containsEntry("status", "FAILED");
+        assertThat(statusCache.getByCorrelationId("corr-8").getTransactionId()).isEqualTo(8L);
+        verify(values, never()).set(eq("transaction-status:id:8"), any(), any(Duration.class));
+    }
+
+    @Test
+    void writeThroughReplacesAnEarlierStatus() {
+        statusCache.load(header(9L, "PROCESSING"));
+
+        statusCache.update(header(9L, "SUCCESS"));
+
+        assertThat(statusCache.getById(9L).getAdditionalData()).containsEntry("status", "SUCCESS");
+        verify(values, never()).get(anyString());
+    }
+
+    private static TransactionHeader header(Long id, String status) {
+        TransactionHeader header = new TransactionHeader();
+        header.setId(id);
+        header.setCorrelationId("corr-" + id);
+        header.setChannel("POS");
+        header.setStatus(status);
+        return header;
+    }
+}
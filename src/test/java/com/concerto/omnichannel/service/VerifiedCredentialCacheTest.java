@@ -0,0 +1,129 @@
+package com.concerto.omnichannel.service;
+
+import com.concerto.omnichannel.cache.CacheInvalidationBroadcaster;
+import com.concerto.omnichannel.entity.ClientCredentials;
+import com.concerto.omnichannel.repository.ClientCredentialsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VerifiedCredentialCacheTest {
+
+    private static final BCryptPasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+
+    private ClientCredentialsRepository repository;
+    private CacheInvalidationBroadcaster broadcaster;
+    private VerifiedCredentialCache cache;
+    private ClientCredentialsChangeListener listener;
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClientCredentialsRepository.class);
+        broadcaster = mock(CacheInvalidationBroadcaster.class);
+
+        cache = new VerifiedCredentialCache();
+        ReflectionTestUtils.setField(cache, "invalidationBroadcaster", broadcaster);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "storedTtlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        cache.initialize();
+
+        // Hibernate's own listener instance, publishing to the context that holds the cache
+        listener = new ClientCredentialsChangeListener();
+        ApplicationEventPublisher publisher = event -> cache.onCredentialsChanged((ClientCredentialsChangedEvent) event);
+        ReflectionTestUtils.setField(listener, "eventPublisher", publisher);
+
+        authenticationService = new AuthenticationService(repository, cache, mock(ClientLockoutTracker.class),
+                "test-jwt-secret-that-is-long-enough-for-hs256", 60_000L, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rotatedSecretIsRejected() {
+        stored(credentials("old-secret", true));
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "old-secret", "POS")).isTrue();
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "old-secret", "POS")).isTrue();
+        verify(repository, times(1)).findByClientIdAndChannelIdAndActiveTrue("client-1", "POS");
+
+        ClientCredentials rotated = credentials("new-secret", true);
+        stored(rotated);
+        listener.onCredentialsChanged(rotated);
+
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "old-secret", "POS")).isFalse();
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "new-secret", "POS")).isTrue();
+        verify(broadcaster).publishEvict("verifiedCredentials", "POS:client-1");
+    }
+
+    @Test
+    void deactivatedCredentialsAreRejected() {
+        stored(credentials("secret", true));
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "secret", "POS")).isTrue();
+
+        when(repository.findByClientIdAndChannelIdAndActiveTrue("client-1", "POS")).thenReturn(Optional.empty());
+        listener.onCredentialsChanged(credentials("secret", false));
+
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "secret", "POS")).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void evictionFromAnotherNodeDropsTheVerifiedSecret() {
+        ArgumentCaptor<BiConsumer<String, String>> remote = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(broadcaster).addInvalidationListener(remote.capture());
+        stored(credentials("old-secret", true));
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "old-secret", "POS")).isTrue();
+
+        stored(credentials("new-secret", true));
+        remote.getValue().accept("verifiedCredentials", "POS:client-1");
+
+        assertThat(authenticationService.authenticateWithCredentials("client-1", "old-secret", "POS")).isFalse();
+    }
+
+    @Test
+    void otherNodesAreToldOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.onCredentialsChanged(credentials("secret", true));
+        verify(broadcaster, never()).publishEvict(anyString(), any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(broadcaster).publishEvict("verifiedCredentials", "POS:client-1");
+    }
+
+    private void stored(ClientCredentials credentials) {
+        when(repository.findByClientIdAndChannelIdAndActiveTrue("client-1", "POS")).thenReturn(Optional.of(credentials));
+    }
+
+    private static ClientCredentials credentials(String secret, boolean active) {
+        ClientCredentials credentials = new ClientCredentials("client-1", "POS", ENCODER.encode(secret),
+                LocalDateTime.now().plusDays(30));
+        credentials.setActive(active);
+        return credentials;
+    }
+}
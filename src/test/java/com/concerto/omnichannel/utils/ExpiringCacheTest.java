@@ -0,0 +1,43 @@
+package com.concerto.omnichannel.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringCacheTest {
+
+    @Test
+    void expiredEntriesAreNotReturned() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("live", "a");
+        cache.put("expired", "b", Duration.ZERO);
+
+        assertThat(cache.get("live")).isEqualTo("a");
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.getRemainingTtl("expired")).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void sizeStaysWithinTheBound() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, Duration.ofMinutes(1));
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.get(999)).isEqualTo(999);
+    }
+
+    @Test
+    void removeWithValueLeavesANewerEntry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        String old = new String("old");
+        cache.put("key", old);
+        cache.put("key", "new");
+
+        assertThat(cache.remove("key", old)).isFalse();
+        assertThat(cache.get("key")).isEqualTo("new");
+    }
+}
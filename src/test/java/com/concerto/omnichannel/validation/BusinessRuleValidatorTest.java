@@ -0,0 +1,77 @@
+package com.concerto.omnichannel.validation;
+
+import com.concerto.omnichannel.dto.Payload;
+import com.concerto.omnichannel.dto.TransactionRequest;
+import com.concerto.omnichannel.service.ChannelProfile;
+import com.concerto.omnichannel.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BusinessRuleValidatorTest {
+
+    private ConfigurationService configurationService;
+    private BusinessRuleValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        configurationService = mock(ConfigurationService.class);
+
+        validator = new BusinessRuleValidator();
+        ReflectionTestUtils.setField(validator, "configurationService", configurationService);
+        ReflectionTestUtils.setField(validator, "velocityMaxTrackedValues", 100);
+        validator.initialize();
+    }
+
+    @Test
+    void messageListsEveryViolation() {
+        profile("POS", Map.of("maxTransactionLimit", "100.00"));
+
+        assertThatThrownBy(() -> validator.validateBusinessRules(request("POS", "150.00", null)))
+                .hasMessage("Business rule validation failed: Transaction amount exceeds maximum limit of 100.00, "
+                        + "Merchant ID is mandatory for POS transactions");
+    }
+
+    @Test
+    void onlyTheVelocityCheckCountsRequests() {
+        profile("ATM", Map.of("rule.velocity", "1/86400"));
+        TransactionRequest request = request("ATM", "10.00", null);
+
+        validator.validateBusinessRules(request);
+        validator.validateBusinessRules(request);
+        assertThatCode(() -> validator.checkVelocity(request)).doesNotThrowAnyException();
+
+        assertThatThrownBy(() -> validator.checkVelocity(request))
+                .hasMessage("Business rule validation failed: Too many ATM transactions for accountNumber, "
+                        + "limit is 1 per 86400 seconds");
+        assertThat(validator.getStatistics()).containsEntry("velocityRejections", 1L);
+    }
+
+    private void profile(String channelId, Map<String, String> overrides) {
+        Map<String, String> values = new HashMap<>();
+        values.put("active", "true");
+        values.put("businessHoursStart", "00:00");
+        values.put("businessHoursEnd", "23:59:59.999");
+        values.putAll(overrides);
+        when(configurationService.getChannelProfile(channelId)).thenReturn(ChannelProfile.compile(channelId, values, Set.of()));
+    }
+
+    private static TransactionRequest request(String channel, String amount, String merchantId) {
+        Payload payload = new Payload();
+        payload.setAmount(new BigDecimal(amount));
+        payload.setMerchantId(merchantId);
+        payload.setAccountNumber("1234567890");
+        return new TransactionRequest(channel, "purchase", payload);
+    }
+}